@@ -33,6 +33,7 @@ import org.apache.reef.wake.profiler.WakeProfiler;
 import org.apache.reef.wake.profiler.ProfilerState;
 import org.apache.reef.wake.time.Clock;
 
+import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -76,9 +77,21 @@ public final class REEFEnvironment implements Runnable, AutoCloseable {
     final Injector injector = TANG.newInjector(config);
 
     if (ProfilerState.isProfilingEnabled(injector)) {
-      final WakeProfiler profiler = new WakeProfiler();
+      final WakeProfiler profiler = new WakeProfiler(ProfilerState.getSampleRate(injector));
       ProfilingStopHandler.setProfiler(profiler);
       injector.bindAspect(profiler);
+      final long reportPeriod = ProfilerState.getReportPeriod(injector);
+      if (reportPeriod > 0) {
+        profiler.startReporting(reportPeriod);
+      }
+      final int httpPort = ProfilerState.getHttpPort(injector);
+      if (httpPort >= 0) {
+        try {
+          profiler.startHttpServer(httpPort);
+        } catch (final IOException e) {
+          LOG.log(Level.WARNING, "Unable to serve the profile on port " + httpPort, e);
+        }
+      }
     }
 
     injector.getInstance(REEFVersion.class).logVersion();
@@ -90,6 +90,8 @@ public final class EvaluatorControlHandler {
       LOG.log(Level.FINE, "Registering remoteId [{0}] for Evaluator [{1}]", new Object[]{evaluatorRID, evaluatorId});
       this.wrapped = Optional.of(remoteManager.getHandler(evaluatorRID,
           EvaluatorRuntimeProtocol.EvaluatorControlProto.class));
+      // open the link now, so that the first control message does not wait for the connection
+      this.remoteManager.warmUp(evaluatorRID);
     }
   }
 
@@ -55,5 +55,7 @@ public final class ProfilingStopHandler implements EventHandler<StopTime> {
     } catch (final FileNotFoundException | UnsupportedEncodingException e) {
       LOG.log(Level.WARNING, "Unable to write the profile", e);
     }
+    LOG.log(Level.INFO, "Wake profile:\n{0}", profiler.getReport());
+    profiler.close();
   }
 }
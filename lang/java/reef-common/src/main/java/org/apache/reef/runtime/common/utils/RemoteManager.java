@@ -60,6 +60,15 @@ public class RemoteManager {
     return this.raw.getHandler(factory.getNewInstance(destinationIdentifier), messageType);
   }
 
+  /**
+   * Starts to establish the link to the given destination before the first message to it.
+   *
+   * @param destinationIdentifier the remote identifier of the destination
+   */
+  public void warmUp(final String destinationIdentifier) {
+    this.raw.warmUp(factory.getNewInstance(destinationIdentifier));
+  }
+
   public <T, U extends T> AutoCloseable registerHandler(
       final String sourceIdentifier, final Class<U> messageType,
       final EventHandler<T> theHandler) {
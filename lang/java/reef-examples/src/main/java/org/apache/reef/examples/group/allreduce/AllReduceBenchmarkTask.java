@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.examples.group.allreduce;
+
+import org.apache.reef.driver.task.TaskConfigurationOptions;
+import org.apache.reef.examples.group.allreduce.parameters.ModelAllReducer;
+import org.apache.reef.examples.group.allreduce.parameters.ModelBroadcaster;
+import org.apache.reef.examples.group.allreduce.parameters.ModelReducer;
+import org.apache.reef.examples.group.allreduce.parameters.NumberOfIterations;
+import org.apache.reef.examples.group.bgd.parameters.AllCommunicationGroup;
+import org.apache.reef.examples.group.bgd.parameters.ModelDimensions;
+import org.apache.reef.examples.group.utils.math.DenseVector;
+import org.apache.reef.examples.group.utils.math.Vector;
+import org.apache.reef.io.network.group.api.operators.AllReduce;
+import org.apache.reef.io.network.group.api.operators.Broadcast;
+import org.apache.reef.io.network.group.api.operators.Reduce;
+import org.apache.reef.io.network.group.api.task.CommunicationGroupClient;
+import org.apache.reef.io.network.group.api.task.GroupCommClient;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.task.Task;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Task of the AllReduce benchmark, run by every task of the group.
+ * Times the AllReduce of a vector against its emulation by a Reduce to the root task
+ * followed by a Broadcast of the result.
+ */
+public class AllReduceBenchmarkTask implements Task {
+
+  public static final String ROOT_TASK_ID = "RootTask";
+
+  private static final Logger LOG = Logger.getLogger(AllReduceBenchmarkTask.class.getName());
+
+  private final boolean isRoot;
+  private final int dimensions;
+  private final int numIters;
+
+  private final AllReduce<Vector> modelAllReducer;
+  private final Reduce.Receiver<Vector> modelReduceReceiver;
+  private final Reduce.Sender<Vector> modelReduceSender;
+  private final Broadcast.Sender<Vector> modelBroadcastSender;
+  private final Broadcast.Receiver<Vector> modelBroadcastReceiver;
+
+  @Inject
+  public AllReduceBenchmarkTask(
+      final GroupCommClient groupCommClient,
+      @Parameter(TaskConfigurationOptions.Identifier.class) final String taskId,
+      @Parameter(ModelDimensions.class) final int dimensions,
+      @Parameter(NumberOfIterations.class) final int numIters) {
+
+    this.isRoot = ROOT_TASK_ID.equals(taskId);
+    this.dimensions = dimensions;
+    this.numIters = numIters;
+
+    final CommunicationGroupClient communicationGroupClient =
+        groupCommClient.getCommunicationGroup(AllCommunicationGroup.class);
+    this.modelAllReducer = communicationGroupClient.getAllReduce(ModelAllReducer.class);
+    if (isRoot) {
+      this.modelReduceReceiver = communicationGroupClient.getReduceReceiver(ModelReducer.class);
+      this.modelBroadcastSender = communicationGroupClient.getBroadcastSender(ModelBroadcaster.class);
+      this.modelReduceSender = null;
+      this.modelBroadcastReceiver = null;
+    } else {
+      this.modelReduceSender = communicationGroupClient.getReduceSender(ModelReducer.class);
+      this.modelBroadcastReceiver = communicationGroupClient.getBroadcastReceiver(ModelBroadcaster.class);
+      this.modelReduceReceiver = null;
+      this.modelBroadcastSender = null;
+    }
+  }
+
+  @Override
+  public byte[] call(final byte[] memento) throws Exception {
+
+    final Vector model = DenseVector.rand(dimensions);
+
+    // the first round of each operator also sets up its topology, so it is left out of the timing
+    allReduce(model);
+    reduceAndBroadcast(model);
+
+    final long time1 = System.currentTimeMillis();
+    for (int i = 0; i < numIters; i++) {
+      allReduce(model);
+    }
+    final long time2 = System.currentTimeMillis();
+    for (int i = 0; i < numIters; i++) {
+      reduceAndBroadcast(model);
+    }
+    final long time3 = System.currentTimeMillis();
+
+    if (isRoot) {
+      LOG.log(Level.INFO, "Vector of dimensions {0}: AllReduce took {1} ms, Reduce + Broadcast took {2} ms",
+          new Object[]{dimensions, (time2 - time1) / (double) numIters, (time3 - time2) / (double) numIters});
+    }
+    return null;
+  }
+
+  private Vector allReduce(final Vector model) throws Exception {
+    return modelAllReducer.apply(model);
+  }
+
+  private Vector reduceAndBroadcast(final Vector model) throws Exception {
+    if (isRoot) {
+      final Vector sum = modelReduceReceiver.reduce();
+      final Vector total = modelReduceReceiver.getReduceFunction().apply(Arrays.asList(sum, model));
+      modelBroadcastSender.send(total);
+      return total;
+    } else {
+      modelReduceSender.send(model);
+      return modelBroadcastReceiver.receive();
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.examples.group.allreduce;
+
+import org.apache.reef.annotations.audience.DriverSide;
+import org.apache.reef.driver.context.ActiveContext;
+import org.apache.reef.driver.evaluator.AllocatedEvaluator;
+import org.apache.reef.driver.evaluator.EvaluatorRequestor;
+import org.apache.reef.driver.task.CompletedTask;
+import org.apache.reef.driver.task.TaskConfiguration;
+import org.apache.reef.evaluator.context.parameters.ContextIdentifier;
+import org.apache.reef.examples.group.allreduce.parameters.ModelAllReducer;
+import org.apache.reef.examples.group.allreduce.parameters.ModelBroadcaster;
+import org.apache.reef.examples.group.allreduce.parameters.ModelReducer;
+import org.apache.reef.examples.group.allreduce.parameters.NumberOfIterations;
+import org.apache.reef.examples.group.allreduce.parameters.NumberOfTasks;
+import org.apache.reef.examples.group.bgd.parameters.AllCommunicationGroup;
+import org.apache.reef.examples.group.bgd.parameters.ModelDimensions;
+import org.apache.reef.io.network.group.api.driver.CommunicationGroupDriver;
+import org.apache.reef.io.network.group.api.driver.GroupCommDriver;
+import org.apache.reef.io.network.group.impl.config.AllReduceOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.BroadcastOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.ReduceOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.parameters.TreeTopologyFanOut;
+import org.apache.reef.io.network.group.impl.driver.LocalityTreeTopology;
+import org.apache.reef.io.serialization.SerializableCodec;
+import org.apache.reef.tang.Configuration;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.tang.annotations.Unit;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.time.event.StartTime;
+
+import javax.inject.Inject;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Driver for the AllReduce benchmark.
+ */
+@DriverSide
+@Unit
+public class AllReduceDriver {
+
+  private static final Logger LOG = Logger.getLogger(AllReduceDriver.class.getName());
+
+  private final AtomicBoolean rootSubmitted = new AtomicBoolean(false);
+  private final AtomicInteger taskIds = new AtomicInteger(0);
+
+  private final GroupCommDriver groupCommDriver;
+  private final CommunicationGroupDriver allCommGroup;
+  private final EvaluatorRequestor requestor;
+  private final int dimensions;
+  private final int numberOfTasks;
+  private final int numberOfIterations;
+
+  private String groupCommConfiguredRootId;
+
+  @Inject
+  public AllReduceDriver(
+      final EvaluatorRequestor requestor,
+      final GroupCommDriver groupCommDriver,
+      @Parameter(ModelDimensions.class) final int dimensions,
+      @Parameter(NumberOfTasks.class) final int numberOfTasks,
+      @Parameter(NumberOfIterations.class) final int numberOfIterations,
+      @Parameter(TreeTopologyFanOut.class) final int fanOut) {
+
+    this.requestor = requestor;
+    this.groupCommDriver = groupCommDriver;
+    this.dimensions = dimensions;
+    this.numberOfTasks = numberOfTasks;
+    this.numberOfIterations = numberOfIterations;
+
+    // aggregate within hosts and racks before crossing racks
+    this.allCommGroup = this.groupCommDriver.newCommunicationGroup(AllCommunicationGroup.class,
+        LocalityTreeTopology.class, numberOfTasks, fanOut);
+
+    this.allCommGroup
+        .addAllReduce(ModelAllReducer.class,
+            AllReduceOperatorSpec.newBuilder()
+                .setRootId(AllReduceBenchmarkTask.ROOT_TASK_ID)
+                .setDataCodecClass(SerializableCodec.class)
+                .setReduceFunctionClass(VectorSumReduceFunction.class)
+                .build())
+        .addReduce(ModelReducer.class,
+            ReduceOperatorSpec.newBuilder()
+                .setReceiverId(AllReduceBenchmarkTask.ROOT_TASK_ID)
+                .setDataCodecClass(SerializableCodec.class)
+                .setReduceFunctionClass(VectorSumReduceFunction.class)
+                .build())
+        .addBroadcast(ModelBroadcaster.class,
+            BroadcastOperatorSpec.newBuilder()
+                .setSenderId(AllReduceBenchmarkTask.ROOT_TASK_ID)
+                .setDataCodecClass(SerializableCodec.class)
+                .build())
+        .finalise();
+
+    LOG.info("Added operators to allCommGroup");
+  }
+
+  /**
+   * Handles the StartTime event: Request numberOfTasks Evaluators.
+   */
+  final class StartHandler implements EventHandler<StartTime> {
+    @Override
+    public void onNext(final StartTime startTime) {
+      LOG.log(Level.FINE, "Requesting {0} evaluators", numberOfTasks);
+      requestor.newRequest()
+          .setNumber(numberOfTasks)
+          .setMemory(2048)
+          .submit();
+    }
+  }
+
+  /**
+   * Handles AllocatedEvaluator: Submits the group communication context and service.
+   */
+  final class EvaluatorAllocatedHandler implements EventHandler<AllocatedEvaluator> {
+    @Override
+    public void onNext(final AllocatedEvaluator allocatedEvaluator) {
+      LOG.log(Level.FINE, "Submitting group communication context to AllocatedEvaluator: {0}", allocatedEvaluator);
+      final Configuration contextConf = groupCommDriver.getContextConfiguration();
+      final String contextId = contextId(contextConf);
+      synchronized (AllReduceDriver.this) {
+        if (groupCommConfiguredRootId == null) {
+          groupCommConfiguredRootId = contextId;
+        }
+      }
+      allocatedEvaluator.submitContextAndService(contextConf, groupCommDriver.getServiceConfiguration());
+    }
+
+    private String contextId(final Configuration contextConf) {
+      try {
+        final Injector injector = Tang.Factory.getTang().newInjector(contextConf);
+        return injector.getNamedInstance(ContextIdentifier.class);
+      } catch (final InjectionException e) {
+        throw new RuntimeException("Unable to inject context identifier from context conf", e);
+      }
+    }
+  }
+
+  /**
+   * ActiveContext handler: Submits the root task to the first context and the other tasks to the rest.
+   */
+  final class ContextActiveHandler implements EventHandler<ActiveContext> {
+    @Override
+    public void onNext(final ActiveContext activeContext) {
+      LOG.log(Level.FINE, "Got active context: {0}", activeContext.getId());
+
+      final boolean isRoot;
+      synchronized (AllReduceDriver.this) {
+        isRoot = activeContext.getId().equals(groupCommConfiguredRootId);
+      }
+      final String taskId = isRoot && rootSubmitted.compareAndSet(false, true)
+          ? AllReduceBenchmarkTask.ROOT_TASK_ID
+          : "Task-" + taskIds.getAndIncrement();
+
+      final Configuration partialTaskConf = Tang.Factory.getTang()
+          .newConfigurationBuilder(
+              TaskConfiguration.CONF
+                  .set(TaskConfiguration.IDENTIFIER, taskId)
+                  .set(TaskConfiguration.TASK, AllReduceBenchmarkTask.class)
+                  .build())
+          .bindNamedParameter(ModelDimensions.class, Integer.toString(dimensions))
+          .bindNamedParameter(NumberOfIterations.class, Integer.toString(numberOfIterations))
+          .build();
+
+      allCommGroup.addTask(partialTaskConf, activeContext.getEvaluatorDescriptor().getNodeDescriptor());
+      activeContext.submitTask(groupCommDriver.getTaskConfiguration(partialTaskConf));
+    }
+  }
+
+  /**
+   * CompletedTask handler: Closes the context of the task.
+   */
+  final class TaskCompletedHandler implements EventHandler<CompletedTask> {
+    @Override
+    public void onNext(final CompletedTask task) {
+      LOG.log(Level.FINE, "Got CompletedTask: {0}", task.getId());
+      task.getActiveContext().close();
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.examples.group.allreduce;
+
+import org.apache.reef.annotations.audience.ClientSide;
+import org.apache.reef.client.DriverConfiguration;
+import org.apache.reef.client.DriverLauncher;
+import org.apache.reef.client.LauncherStatus;
+import org.apache.reef.examples.group.allreduce.parameters.NumberOfIterations;
+import org.apache.reef.examples.group.allreduce.parameters.NumberOfTasks;
+import org.apache.reef.examples.group.bgd.parameters.ModelDimensions;
+import org.apache.reef.io.network.group.impl.driver.GroupCommService;
+import org.apache.reef.runtime.local.client.LocalRuntimeConfiguration;
+import org.apache.reef.tang.*;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.apache.reef.tang.formats.CommandLine;
+import org.apache.reef.util.EnvironmentUtils;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Client for the AllReduce benchmark on the local runtime.
+ * The root task logs the time per iteration of AllReduce and of Reduce followed by Broadcast.
+ */
+@ClientSide
+public final class AllReduceREEF {
+
+  private static final Logger LOG = Logger.getLogger(AllReduceREEF.class.getName());
+
+  /**
+   * Number of milliseconds to wait for the job to complete.
+   */
+  private static final int JOB_TIMEOUT = 5 * 60 * 1000;
+
+  private static Configuration parseCommandLine(final String[] aArgs) {
+    final JavaConfigurationBuilder cb = Tang.Factory.getTang().newConfigurationBuilder();
+    try {
+      final CommandLine cl = new CommandLine(cb);
+      cl.registerShortNameOfClass(ModelDimensions.class);
+      cl.registerShortNameOfClass(NumberOfTasks.class);
+      cl.registerShortNameOfClass(NumberOfIterations.class);
+      cl.processCommandLine(aArgs);
+    } catch (final IOException ex) {
+      final String msg = "Unable to parse command line";
+      LOG.log(Level.SEVERE, msg, ex);
+      throw new RuntimeException(msg, ex);
+    }
+    return cb.build();
+  }
+
+  public static LauncherStatus runAllReduceReef(final Configuration commandLineConf) throws InjectionException {
+
+    final int numberOfTasks = Tang.Factory.getTang().newInjector(commandLineConf)
+        .getNamedInstance(NumberOfTasks.class);
+
+    final Configuration runtimeConfiguration = LocalRuntimeConfiguration.CONF
+        .set(LocalRuntimeConfiguration.MAX_NUMBER_OF_EVALUATORS, numberOfTasks)
+        .build();
+
+    final Configuration driverConfiguration = DriverConfiguration.CONF
+        .setMultiple(DriverConfiguration.GLOBAL_LIBRARIES, EnvironmentUtils.getAllClasspathJars())
+        .set(DriverConfiguration.ON_DRIVER_STARTED, AllReduceDriver.StartHandler.class)
+        .set(DriverConfiguration.ON_EVALUATOR_ALLOCATED, AllReduceDriver.EvaluatorAllocatedHandler.class)
+        .set(DriverConfiguration.ON_CONTEXT_ACTIVE, AllReduceDriver.ContextActiveHandler.class)
+        .set(DriverConfiguration.ON_TASK_COMPLETED, AllReduceDriver.TaskCompletedHandler.class)
+        .set(DriverConfiguration.DRIVER_IDENTIFIER, "AllReduceDriver")
+        .build();
+
+    final Configuration mergedDriverConfiguration = Configurations.merge(
+        GroupCommService.getConfiguration(), driverConfiguration, commandLineConf);
+
+    return DriverLauncher.getLauncher(runtimeConfiguration).run(mergedDriverConfiguration, JOB_TIMEOUT);
+  }
+
+  public static void main(final String[] args) throws InjectionException {
+    final LauncherStatus state = runAllReduceReef(parseCommandLine(args));
+    LOG.log(Level.INFO, "REEF job completed: {0}", state);
+  }
+
+  /**
+   * Empty private constructor to prohibit instantiation of utility class.
+   */
+  private AllReduceREEF() {
+  }
+}
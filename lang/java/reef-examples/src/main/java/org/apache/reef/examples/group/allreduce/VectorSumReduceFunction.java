@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.examples.group.allreduce;
+
+import org.apache.reef.examples.group.utils.math.DenseVector;
+import org.apache.reef.examples.group.utils.math.Vector;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
+
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * Reduce function that adds up vectors.
+ * Large vectors are reduced in chunks of CHUNK_SIZE elements, which are added up as they are received.
+ */
+public class VectorSumReduceFunction implements ChunkedReduceFunction<Vector> {
+
+  /**
+   * Number of elements of a chunk, 1 MB of doubles.
+   */
+  private static final int CHUNK_SIZE = 1 << 17;
+
+  @Inject
+  public VectorSumReduceFunction() {
+  }
+
+  @Override
+  public Vector apply(final Iterable<Vector> elements) {
+    Vector sum = null;
+    for (final Vector element : elements) {
+      if (sum == null) {
+        sum = new DenseVector(element);
+      } else {
+        sum.add(element);
+      }
+    }
+    return sum;
+  }
+
+  @Override
+  public int getNumChunks(final Vector value) {
+    return Math.max(1, (value.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+  }
+
+  @Override
+  public Vector getChunk(final Vector value, final int index) {
+    final int from = index * CHUNK_SIZE;
+    final int to = Math.min(value.size(), from + CHUNK_SIZE);
+    final Vector chunk = new DenseVector(to - from);
+    for (int i = from; i < to; ++i) {
+      chunk.set(i - from, value.get(i));
+    }
+    return chunk;
+  }
+
+  @Override
+  public Vector combine(final Vector accumulated, final Vector chunk) {
+    accumulated.add(chunk);
+    return accumulated;
+  }
+
+  @Override
+  public Vector join(final List<Vector> chunks) {
+    int size = 0;
+    for (final Vector chunk : chunks) {
+      size += chunk.size();
+    }
+    final Vector value = new DenseVector(size);
+    int offset = 0;
+    for (final Vector chunk : chunks) {
+      for (int i = 0; i < chunk.size(); ++i) {
+        value.set(offset + i, chunk.get(i));
+      }
+      offset += chunk.size();
+    }
+    return value;
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.api.driver;
+
+/**
+ * A topology that places tasks according to where they run.
+ * The location of a task is set before the task is added.
+ */
+public interface LocalityAwareTopology extends Topology {
+
+  /**
+   * Set the location of the task with id 'taskId'.
+   * Tasks without a location are treated as running on the same, unknown host.
+   *
+   * @param taskId
+   * @param hostName name of the host the task runs on
+   * @param rackName name of the rack of the host
+   */
+  void setTaskLocation(String taskId, String hostName, String rackName);
+}
@@ -96,4 +96,54 @@ public interface Reduce {
      */
     T apply(Iterable<T> elements);
   }
+
+  /**
+   * Interface for a Reduce Function that can also reduce values chunk by chunk.
+   * <p>
+   * A value is split into chunks that are encoded and sent one at a time.
+   * The children are read one at a time. The chunks of the child being read are decoded as they arrive,
+   * and combined into the accumulated chunks at the same index only once the child has sent all of them,
+   * so combining does not overlap with the transfer. The chunks of a task's own value are made one at a time,
+   * as they are combined or sent.
+   * <p>
+   * There is no flow control: the chunks that the other children send meanwhile are queued as they were
+   * received, encoded. A reduction thus holds the accumulated chunks and the decoded chunks of one child,
+   * plus up to the encoded chunks of all the other children, besides the values of the tasks. Chunking saves
+   * memory over {@link #apply(Iterable)} when the children send one after the other, not in the worst case.
+   * <p>
+   * A child that dies before sending all its chunks is left out of the reduction, like a child that dies
+   * before sending anything. A child that sends a different number of chunks fails the reduction.
+   * The operators use this interface instead of {@link #apply(Iterable)} when the function implements it.
+   */
+  interface ChunkedReduceFunction<T> extends ReduceFunction<T> {
+    /**
+     * Get the number of chunks of a value.
+     * All the values of a reduction must have the same number of chunks.
+     *
+     * @return number of chunks of value, at least 1
+     */
+    int getNumChunks(T value);
+
+    /**
+     * Get a chunk of a value. The chunk must not share state with value,
+     * since accumulated chunks are updated in place by {@link #combine(Object, Object)}.
+     *
+     * @return chunk of value at index
+     */
+    T getChunk(T value, int index);
+
+    /**
+     * Combine a received chunk into the accumulated chunk at the same index.
+     *
+     * @return the combined chunk; accumulated may be updated in place and returned
+     */
+    T combine(T accumulated, T chunk);
+
+    /**
+     * Join chunks into a value.
+     *
+     * @return value made of chunks, in order
+     */
+    T join(List<T> chunks);
+  }
 }
@@ -19,6 +19,7 @@
 package org.apache.reef.io.network.group.api.task;
 
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.wake.EventHandler;
 
 /**
  * The actual node that is part of the operator topology
@@ -38,5 +39,25 @@ public interface NodeStruct {
 
   byte[] getData();
 
+  /**
+   * Like {@link #getData()}, but also passes each message that carries the data to {@code msgHandler}
+   * as soon as it is received, so that the segments of a large message can be forwarded
+   * before the last one arrives.
+   *
+   * @param msgHandler the handler of the messages that carry the data
+   * @return the data, or null if the node is dead or aborted the message
+   */
+  byte[] getData(EventHandler<GroupCommunicationMessage> msgHandler);
+
+  /**
+   * Receive the next data from this node segment by segment, without reassembling it.
+   * Each segment is passed to {@code segmentHandler} as soon as it is received.
+   * Data that was not sent in segments is passed as a single segment.
+   *
+   * @param segmentHandler the handler of the segments, called in order
+   * @return false if the node is dead or aborted the message, possibly after some of the segments were passed on
+   */
+  boolean getSegments(EventHandler<byte[]> segmentHandler);
+
   void addData(GroupCommunicationMessage msg);
 }
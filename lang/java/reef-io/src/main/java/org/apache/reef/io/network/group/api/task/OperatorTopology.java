@@ -19,11 +19,13 @@
 package org.apache.reef.io.network.group.api.task;
 
 import org.apache.reef.io.network.exception.ParentDeadException;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
 import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
 import org.apache.reef.io.serialization.Codec;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -50,8 +52,29 @@ public interface OperatorTopology {
 
   void sendToParent(byte[] encode, ReefNetworkGroupCommProtos.GroupCommMessage.Type reduce) throws ParentDeadException;
 
+  /**
+   * Send chunks to the parent, encoding each one just before it is sent.
+   *
+   * @param chunks the chunks of a value
+   * @param dataCodec the codec of the chunks
+   * @param msgType the type of the messages sent to the parent
+   * @throws ParentDeadException if the parent died
+   */
+  <T> void sendToParent(List<T> chunks, Codec<T> dataCodec, ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType)
+      throws ParentDeadException;
+
   byte[] recvFromParent(ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) throws ParentDeadException;
 
+  /**
+   * Receive data from the parent and send it to all the children,
+   * forwarding each segment of a large message as soon as it arrives.
+   *
+   * @param msgType the type of the messages sent to the children
+   * @return the data received from the parent
+   */
+  byte[] recvFromParentAndForward(ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType)
+      throws ParentDeadException;
+
   void sendToChildren(byte[] data, ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) throws ParentDeadException;
 
   void sendToChildren(Map<String, byte[]> dataMap,
@@ -59,7 +82,26 @@ public interface OperatorTopology {
 
   <T> T recvFromChildren(ReduceFunction<T> redFunc, Codec<T> dataCodec) throws ParentDeadException;
 
-  byte[] recvFromChildren() throws ParentDeadException;
+  /**
+   * Receive the chunks sent by all children and combine those of each child into {@code chunks}
+   * once all of them have arrived. A child that dies before sending all its chunks is left out.
+   *
+   * @param chunks the accumulated chunks, updated in place; if empty, it is filled with the chunks of the first child
+   *               that sends all of them
+   * @param redFunc the function that combines the chunks
+   * @param dataCodec the codec of the chunks
+   * @throws ParentDeadException if the parent died
+   */
+  <T> void recvFromChildren(List<T> chunks, ChunkedReduceFunction<T> redFunc, Codec<T> dataCodec)
+      throws ParentDeadException;
+
+  /**
+   * Receive data from all children.
+   *
+   * @return the data received from each child, in the order it arrived
+   * @throws ParentDeadException if the parent died
+   */
+  List<byte[]> recvFromChildren() throws ParentDeadException;
 
   void initialize() throws ParentDeadException;
 }
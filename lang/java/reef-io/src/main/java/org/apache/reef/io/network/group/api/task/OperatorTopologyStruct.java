@@ -18,6 +18,7 @@
  */
 package org.apache.reef.io.network.group.api.task;
 
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
 import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.group.impl.operators.Sender;
@@ -26,6 +27,7 @@ import org.apache.reef.io.serialization.Codec;
 import org.apache.reef.tang.annotations.Name;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -66,13 +68,47 @@ public interface OperatorTopologyStruct {
 
   void sendToParent(byte[] data, ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType);
 
+  /**
+   * Send chunks to the parent, encoding each one just before it is sent.
+   *
+   * @param chunks the chunks of a value
+   * @param dataCodec the codec of the chunks
+   * @param msgType the type of the messages sent to the parent
+   */
+  <T> void sendToParent(List<T> chunks, Codec<T> dataCodec, ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType);
+
   byte[] recvFromParent(ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType);
 
+  /**
+   * Receive data from the parent and send it to all the children,
+   * forwarding each segment of a large message as soon as it arrives.
+   *
+   * @param msgType the type of the messages sent to the children
+   * @return the data received from the parent
+   */
+  byte[] recvFromParentAndForward(ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType);
+
   void sendToChildren(byte[] data, ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType);
 
   void sendToChildren(Map<String, byte[]> dataMap, ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType);
 
   <T> T recvFromChildren(ReduceFunction<T> redFunc, Codec<T> dataCodec);
 
-  byte[] recvFromChildren();
+  /**
+   * Receive the chunks sent by all children and combine those of each child into {@code chunks}
+   * once all of them have arrived. A child that dies before sending all its chunks is left out.
+   *
+   * @param chunks the accumulated chunks, updated in place; if empty, it is filled with the chunks of the first child
+   *               that sends all of them
+   * @param redFunc the function that combines the chunks
+   * @param dataCodec the codec of the chunks
+   */
+  <T> void recvFromChildren(List<T> chunks, ChunkedReduceFunction<T> redFunc, Codec<T> dataCodec);
+
+  /**
+   * Receive data from all children.
+   *
+   * @return the data received from each child, in the order it arrived
+   */
+  List<byte[]> recvFromChildren();
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.reef.io.network.group.impl;
 
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
 import org.apache.reef.io.network.group.impl.utils.Utils;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
 
@@ -35,6 +36,7 @@ public class GroupCommunicationMessage {
   private final String to;
   private final int dstVersion;
   private final byte[][] data;
+  private final SegmentHeader segment;
 
   private final String simpleGroupName;
   private final String simpleOperName;
@@ -46,6 +48,19 @@ public class GroupCommunicationMessage {
       final String from, final int srcVersion,
       final String to, final int dstVersion,
       final byte[][] data) {
+    this(groupName, operName, msgType, from, srcVersion, to, dstVersion, data, null);
+  }
+
+  /**
+   * Create a message that carries a segment of large data, or other data if {@code segment} is null.
+   */
+  public GroupCommunicationMessage(
+      final String groupName,
+      final String operName,
+      final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType,
+      final String from, final int srcVersion,
+      final String to, final int dstVersion,
+      final byte[][] data, final SegmentHeader segment) {
     super();
     this.groupName = groupName;
     this.operName = operName;
@@ -55,6 +70,7 @@ public class GroupCommunicationMessage {
     this.to = to;
     this.dstVersion = dstVersion;
     this.data = data;
+    this.segment = segment;
     this.simpleGroupName = Utils.simpleName(Utils.getClass(groupName));
     this.simpleOperName = Utils.simpleName(Utils.getClass(operName));
   }
@@ -107,6 +123,17 @@ public class GroupCommunicationMessage {
     return data.length;
   }
 
+  public boolean hasSegment() {
+    return segment != null;
+  }
+
+  /**
+   * @return the header of the segment carried by this message, or null if it is not a segment
+   */
+  public SegmentHeader getSegment() {
+    return segment;
+  }
+
   public boolean hasVersion() {
     return true;
   }
@@ -118,7 +145,7 @@ public class GroupCommunicationMessage {
   @Override
   public String toString() {
     return "[" + msgType + " from " + getSource() + " to " + getDestination() + " for " + simpleGroupName + ":" +
-        simpleOperName + "]";
+        simpleOperName + (segment == null ? "" : ", " + segment) + "]";
   }
 
   @Override
@@ -155,6 +182,9 @@ public class GroupCommunicationMessage {
             return false;
           }
         }
+        if (this.segment == null ? that.segment != null : !this.segment.equals(that.segment)) {
+          return false;
+        }
 
         return true;
       } else {
@@ -176,6 +206,7 @@ public class GroupCommunicationMessage {
     result = 31 * result + to.hashCode();
     result = 31 * result + dstVersion;
     result = 31 * result + Arrays.deepHashCode(data);
+    result = 31 * result + (segment == null ? 0 : segment.hashCode());
     return result;
   }
 }
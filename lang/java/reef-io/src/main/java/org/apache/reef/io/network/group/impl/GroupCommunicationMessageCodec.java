@@ -19,6 +19,7 @@
 package org.apache.reef.io.network.group.impl;
 
 
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
 import org.apache.reef.io.network.impl.StreamingCodec;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos.GroupCommMessage.Type;
 
@@ -61,6 +62,13 @@ public class GroupCommunicationMessageCodec implements StreamingCodec<GroupCommu
         gcmData[i] = new byte[stream.readInt()];
         stream.readFully(gcmData[i]);
       }
+      final SegmentHeader segment;
+      if (stream.readBoolean()) {
+        segment = new SegmentHeader(stream.readInt(), stream.readInt(), stream.readInt(), stream.readInt(),
+            stream.readBoolean());
+      } else {
+        segment = null;
+      }
       return new GroupCommunicationMessage(
           groupName,
           operName,
@@ -69,7 +77,8 @@ public class GroupCommunicationMessageCodec implements StreamingCodec<GroupCommu
           srcVersion,
           to,
           dstVersion,
-          gcmData);
+          gcmData,
+          segment);
     } catch (final IOException e) {
       throw new RuntimeException("IOException", e);
     }
@@ -102,6 +111,15 @@ public class GroupCommunicationMessageCodec implements StreamingCodec<GroupCommu
         stream.writeInt(b.length);
         stream.write(b);
       }
+      stream.writeBoolean(msg.hasSegment());
+      if (msg.hasSegment()) {
+        final SegmentHeader segment = msg.getSegment();
+        stream.writeInt(segment.getMessageId());
+        stream.writeInt(segment.getIndex());
+        stream.writeInt(segment.getNumSegments());
+        stream.writeInt(segment.getTotalLength());
+        stream.writeBoolean(segment.isAborted());
+      }
     } catch (final IOException e) {
       throw new RuntimeException("IOException", e);
     }
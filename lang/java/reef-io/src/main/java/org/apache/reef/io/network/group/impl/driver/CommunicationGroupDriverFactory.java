@@ -54,7 +54,9 @@ public final class CommunicationGroupDriverFactory {
           final BroadcastingEventHandler<FailedTask> groupCommFailedTaskHandler,
       @Parameter(GroupCommFailedEvalHandler.class)
           final BroadcastingEventHandler<FailedEvaluator> groupCommFailedEvaluatorHandler,
-      final GroupCommMessageHandler groupCommMessageHandler) {
+      final GroupCommMessageHandler groupCommMessageHandler,
+      @Parameter(TreeTopologyHostFanOut.class) final int hostFanOut,
+      @Parameter(TreeTopologyRackFanOut.class) final int rackFanOut) {
     injector = Tang.Factory.getTang().newInjector();
     injector.bindVolatileParameter(GroupCommSenderStage.class, senderStage);
     injector.bindVolatileParameter(DriverIdentifier.class, driverId);
@@ -62,6 +64,8 @@ public final class CommunicationGroupDriverFactory {
     injector.bindVolatileParameter(GroupCommFailedTaskHandler.class, groupCommFailedTaskHandler);
     injector.bindVolatileParameter(GroupCommFailedEvalHandler.class, groupCommFailedEvaluatorHandler);
     injector.bindVolatileInstance(GroupCommMessageHandler.class, groupCommMessageHandler);
+    injector.bindVolatileParameter(TreeTopologyHostFanOut.class, hostFanOut);
+    injector.bindVolatileParameter(TreeTopologyRackFanOut.class, rackFanOut);
   }
 
   /**
@@ -20,6 +20,7 @@ package org.apache.reef.io.network.group.impl.driver;
 
 import org.apache.reef.annotations.audience.DriverSide;
 import org.apache.reef.annotations.audience.Private;
+import org.apache.reef.driver.catalog.NodeDescriptor;
 import org.apache.reef.driver.evaluator.FailedEvaluator;
 import org.apache.reef.driver.parameters.DriverIdentifier;
 import org.apache.reef.driver.task.FailedTask;
@@ -27,11 +28,15 @@ import org.apache.reef.driver.task.RunningTask;
 import org.apache.reef.driver.task.TaskConfigurationOptions;
 import org.apache.reef.io.network.group.api.config.OperatorSpec;
 import org.apache.reef.io.network.group.api.driver.CommunicationGroupDriver;
+import org.apache.reef.io.network.group.api.driver.LocalityAwareTopology;
 import org.apache.reef.io.network.group.api.driver.Topology;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.AllGatherOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.AllReduceOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.BroadcastOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.GatherOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.ReduceOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.ReduceScatterOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.ScatterOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.parameters.*;
 import org.apache.reef.io.network.group.impl.utils.BroadcastingEventHandler;
@@ -264,6 +269,84 @@ public class CommunicationGroupDriverImpl implements CommunicationGroupDriver {
     return this;
   }
 
+  @Override
+  public CommunicationGroupDriver addAllReduce(final Class<? extends Name<String>> operatorName,
+                                               final AllReduceOperatorSpec spec) {
+    LOG.entering("CommunicationGroupDriverImpl", "addAllReduce",
+        new Object[]{getQualifiedName(), Utils.simpleName(operatorName), spec});
+    if (finalised) {
+      throw new IllegalStateException("Can't add more operators to a finalised spec");
+    }
+    operatorSpecs.put(operatorName, spec);
+
+    final Topology topology;
+    try {
+      topology = topologyFactory.getNewInstance(operatorName, topologyClass);
+    } catch (final InjectionException e) {
+      LOG.log(Level.WARNING, "Cannot inject new topology named {0}", operatorName);
+      throw new RuntimeException(e);
+    }
+
+    topology.setRootTask(spec.getRootId());
+    topology.setOperatorSpecification(spec);
+    topologies.put(operatorName, topology);
+    LOG.exiting("CommunicationGroupDriverImpl", "addAllReduce",
+        Arrays.toString(new Object[]{getQualifiedName(), Utils.simpleName(operatorName), spec}));
+    return this;
+  }
+
+  @Override
+  public CommunicationGroupDriver addAllGather(final Class<? extends Name<String>> operatorName,
+                                               final AllGatherOperatorSpec spec) {
+    LOG.entering("CommunicationGroupDriverImpl", "addAllGather",
+        new Object[]{getQualifiedName(), Utils.simpleName(operatorName), spec});
+    if (finalised) {
+      throw new IllegalStateException("Can't add more operators to a finalised spec");
+    }
+    operatorSpecs.put(operatorName, spec);
+
+    final Topology topology;
+    try {
+      topology = topologyFactory.getNewInstance(operatorName, topologyClass);
+    } catch (final InjectionException e) {
+      LOG.log(Level.WARNING, "Cannot inject new topology named {0}", operatorName);
+      throw new RuntimeException(e);
+    }
+
+    topology.setRootTask(spec.getRootId());
+    topology.setOperatorSpecification(spec);
+    topologies.put(operatorName, topology);
+    LOG.exiting("CommunicationGroupDriverImpl", "addAllGather",
+        Arrays.toString(new Object[]{getQualifiedName(), Utils.simpleName(operatorName), spec}));
+    return this;
+  }
+
+  @Override
+  public CommunicationGroupDriver addReduceScatter(final Class<? extends Name<String>> operatorName,
+                                                   final ReduceScatterOperatorSpec spec) {
+    LOG.entering("CommunicationGroupDriverImpl", "addReduceScatter",
+        new Object[]{getQualifiedName(), Utils.simpleName(operatorName), spec});
+    if (finalised) {
+      throw new IllegalStateException("Can't add more operators to a finalised spec");
+    }
+    operatorSpecs.put(operatorName, spec);
+
+    final Topology topology;
+    try {
+      topology = topologyFactory.getNewInstance(operatorName, topologyClass);
+    } catch (final InjectionException e) {
+      LOG.log(Level.WARNING, "Cannot inject new topology named {0}", operatorName);
+      throw new RuntimeException(e);
+    }
+
+    topology.setRootTask(spec.getRootId());
+    topology.setOperatorSpecification(spec);
+    topologies.put(operatorName, topology);
+    LOG.exiting("CommunicationGroupDriverImpl", "addReduceScatter",
+        Arrays.toString(new Object[]{getQualifiedName(), Utils.simpleName(operatorName), spec}));
+    return this;
+  }
+
   @Override
   public Configuration getTaskConfiguration(final Configuration taskConf) {
     LOG.entering("CommunicationGroupDriverImpl", "getTaskConfiguration",
@@ -374,6 +457,24 @@ public class CommunicationGroupDriverImpl implements CommunicationGroupDriver {
         Arrays.toString(new Object[]{getQualifiedName(), "Added task: ", taskId}));
   }
 
+  @Override
+  public void addTask(final Configuration partialTaskConf, final NodeDescriptor nodeDescriptor) {
+    final String taskId = taskId(partialTaskConf);
+    final String hostName = nodeDescriptor.getInetSocketAddress().getHostString();
+    final String rackName = nodeDescriptor.getRackDescriptor() == null ? null
+        : nodeDescriptor.getRackDescriptor().getName();
+    LOG.finest(getQualifiedName() + "Location of " + taskId + ": host " + hostName + ", rack " + rackName);
+    synchronized (topologiesLock) {
+      for (final Class<? extends Name<String>> operName : operatorSpecs.keySet()) {
+        final Topology topology = topologies.get(operName);
+        if (topology instanceof LocalityAwareTopology) {
+          ((LocalityAwareTopology) topology).setTaskLocation(taskId, hostName, rackName);
+        }
+      }
+    }
+    addTask(partialTaskConf);
+  }
+
   public void removeTask(final String taskId) {
     LOG.entering("CommunicationGroupDriverImpl", "removeTask", new Object[]{getQualifiedName(), taskId});
     LOG.info(getQualifiedName() + "Removing Task " + taskId +
@@ -111,6 +111,8 @@ public final class GroupCommDriverImpl implements GroupCommServiceDriver {
   private GroupCommDriverImpl(final ConfigurationSerializer confSerializer,
                              @Parameter(DriverIdentifier.class) final String driverId,
                              @Parameter(TreeTopologyFanOut.class) final int fanOut,
+                             @Parameter(TreeTopologyHostFanOut.class) final int hostFanOut,
+                             @Parameter(TreeTopologyRackFanOut.class) final int rackFanOut,
                              final LocalAddressProvider localAddressProvider,
                              final TransportFactory tpFactory,
                              final NameServer nameService) {
@@ -174,6 +176,8 @@ public final class GroupCommDriverImpl implements GroupCommServiceDriver {
     injector.bindVolatileParameter(GroupCommFailedTaskHandler.class, groupCommFailedTaskHandler);
     injector.bindVolatileParameter(GroupCommFailedEvalHandler.class, groupCommFailedEvaluatorHandler);
     injector.bindVolatileInstance(GroupCommMessageHandler.class, groupCommMessageHandler);
+    injector.bindVolatileParameter(TreeTopologyHostFanOut.class, hostFanOut);
+    injector.bindVolatileParameter(TreeTopologyRackFanOut.class, rackFanOut);
 
     try {
       commGroupDriverFactory = injector.getInstance(CommunicationGroupDriverFactory.class);
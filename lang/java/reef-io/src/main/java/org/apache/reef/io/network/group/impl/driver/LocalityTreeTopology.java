@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.driver;
+
+import org.apache.reef.driver.parameters.DriverIdentifier;
+import org.apache.reef.io.network.group.api.driver.LocalityAwareTopology;
+import org.apache.reef.io.network.group.api.driver.TaskNode;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.parameters.*;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.EStage;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Implements a tree topology that follows where the tasks run.
+ * <p>
+ * The tasks on a host form a tree under the first of them, the leader of the host.
+ * The host leaders on a rack form a tree under the first of them, the leader of the rack,
+ * and the rack leaders form a tree under the root, which leads its host and its rack.
+ * Each level has its own fan out, so a reduction aggregates within a host, then within a rack,
+ * and only one message per rack crosses racks. Within a level, the tasks are placed in the order they are added,
+ * so adding a task never moves the tasks already placed. Removing a task moves the last task of each of its levels
+ * into its place, so that the other tasks keep their parents.
+ */
+public final class LocalityTreeTopology extends AbstractTreeTopology implements LocalityAwareTopology {
+
+  private static final Logger LOG = Logger.getLogger(LocalityTreeTopology.class.getName());
+
+  /**
+   * Location of the tasks whose location was not set.
+   */
+  private static final Location UNKNOWN_LOCATION = new Location("", "");
+
+  private final int hostFanOut;
+  private final int rackFanOut;
+  private final int fanOut;
+
+  /**
+   * The locations set for the tasks, which apply when the tasks are placed.
+   */
+  private final ConcurrentMap<String, Location> locationOfTask = new ConcurrentHashMap<>();
+
+  /**
+   * The locations the placed tasks were placed at.
+   * This and the levels below are only changed while adding and removing tasks, which happens one at a time.
+   */
+  private final Map<String, Location> placedLocationOfTask = new HashMap<>();
+
+  /**
+   * The placed tasks of each host, starting with the leader of the host.
+   */
+  private final Map<String, List<TaskNode>> tasksOfHost = new HashMap<>();
+
+  /**
+   * The host leaders of each rack, starting with the leader of the rack.
+   */
+  private final Map<String, List<TaskNode>> hostLeadersOfRack = new HashMap<>();
+
+  /**
+   * The rack leaders, starting with the root.
+   */
+  private final List<TaskNode> rackLeaders = new ArrayList<>();
+
+  @Inject
+  private LocalityTreeTopology(
+      @Parameter(GroupCommSenderStage.class) final EStage<GroupCommunicationMessage> senderStage,
+      @Parameter(CommGroupNameClass.class) final Class<? extends Name<String>> groupName,
+      @Parameter(OperatorNameClass.class) final Class<? extends Name<String>> operatorName,
+      @Parameter(DriverIdentifier.class) final String driverId,
+      @Parameter(TreeTopologyHostFanOut.class) final int hostFanOut,
+      @Parameter(TreeTopologyRackFanOut.class) final int rackFanOut,
+      @Parameter(TreeTopologyFanOut.class) final int fanOut) {
+    super(senderStage, groupName, operatorName, driverId);
+    this.hostFanOut = hostFanOut;
+    this.rackFanOut = rackFanOut;
+    this.fanOut = fanOut;
+    LOG.config(getQualifiedName() + "Locality Tree Topology running with fan-outs of " + hostFanOut + " within a host, "
+        + rackFanOut + " within a rack and " + fanOut + " across racks");
+  }
+
+  @Override
+  public void setTaskLocation(final String taskId, final String hostName, final String rackName) {
+    LOG.entering("LocalityTreeTopology", "setTaskLocation", new Object[]{getQualifiedName(), taskId, hostName,
+        rackName});
+    if (nodes.containsKey(taskId)) {
+      LOG.fine(getQualifiedName() + "Location of " + taskId + " set after it was added. It applies from the next add");
+    }
+    locationOfTask.put(taskId, new Location(hostName == null ? "" : hostName, rackName == null ? "" : rackName));
+    LOG.exiting("LocalityTreeTopology", "setTaskLocation", getQualifiedName() + taskId);
+  }
+
+  @Override
+  protected void addChild(final String taskId) {
+    LOG.entering("LocalityTreeTopology", "addChild", new Object[]{getQualifiedName(), taskId});
+    LOG.finest(getQualifiedName() + "Adding leaf " + taskId);
+    final TaskNode node = newTaskNode(taskId, false);
+    if (root != null) {
+      placeTaskNode(node);
+    }
+    nodes.put(taskId, node);
+    LOG.exiting("LocalityTreeTopology", "addChild", getQualifiedName() + taskId);
+  }
+
+  /**
+   * Places the node in the tree of its host. The first node of a host is placed in the tree of its rack instead,
+   * and the first node of a rack in the tree of the rack leaders.
+   */
+  private void placeTaskNode(final TaskNode node) {
+    LOG.entering("LocalityTreeTopology", "placeTaskNode", new Object[]{getQualifiedName(), node});
+    final Location location = getLocation(node.getTaskId());
+    placedLocationOfTask.put(node.getTaskId(), location);
+    final List<TaskNode> hostTasks = tasksOfHost.get(location.hostName);
+    if (hostTasks != null) {
+      addToLevel(hostTasks, node, hostFanOut);
+    } else {
+      tasksOfHost.put(location.hostName, newLevel(node));
+      final List<TaskNode> rackHostLeaders = hostLeadersOfRack.get(location.rackName);
+      if (rackHostLeaders != null) {
+        addToLevel(rackHostLeaders, node, rackFanOut);
+      } else {
+        hostLeadersOfRack.put(location.rackName, newLevel(node));
+        addToLevel(rackLeaders, node, fanOut);
+      }
+    }
+    LOG.exiting("LocalityTreeTopology", "placeTaskNode", getQualifiedName() + node);
+  }
+
+  /**
+   * Adds the node to the tree of a level, whose nodes are kept in breadth-first order.
+   */
+  private static void addToLevel(final List<TaskNode> level, final TaskNode node, final int levelFanOut) {
+    final TaskNode parent = level.get((level.size() - 1) / levelFanOut);
+    level.add(node);
+    node.setParent(parent);
+    parent.addChild(node);
+  }
+
+  private static List<TaskNode> newLevel(final TaskNode leader) {
+    final List<TaskNode> level = new ArrayList<>();
+    level.add(leader);
+    return level;
+  }
+
+  private Location getLocation(final String taskId) {
+    final Location location = locationOfTask.get(taskId);
+    return location == null ? UNKNOWN_LOCATION : location;
+  }
+
+  /**
+   * Removes the node from the levels it was placed in. The node is replaced by the last node of its host,
+   * and if it led its host, the new leader of the host replaces it among the host leaders of its rack,
+   * and so on for the rack leaders, so that no level is left without its leader.
+   */
+  @Override
+  protected void removeChild(final String taskId) {
+    LOG.entering("LocalityTreeTopology", "removeChild", new Object[]{getQualifiedName(), taskId});
+    final TaskNode node = nodes.remove(taskId);
+    final Location location = placedLocationOfTask.remove(taskId);
+    if (location != null) {
+      final TaskNode parent = node.getParent();
+      if (parent != null) {
+        parent.removeChild(node);
+        node.setParent(null);
+      }
+      final List<TaskNode> hostTasks = tasksOfHost.get(location.hostName);
+      if (removeFromLevel(hostTasks, node, null, hostFanOut)) {
+        final TaskNode hostLeader = removeLevelIfEmpty(tasksOfHost, location.hostName);
+        final List<TaskNode> rackHostLeaders = hostLeadersOfRack.get(location.rackName);
+        if (removeFromLevel(rackHostLeaders, node, hostLeader, rackFanOut)) {
+          final TaskNode rackLeader = removeLevelIfEmpty(hostLeadersOfRack, location.rackName);
+          removeFromLevel(rackLeaders, node, rackLeader, fanOut);
+        }
+      }
+    }
+    LOG.exiting("LocalityTreeTopology", "removeChild", getQualifiedName() + taskId);
+  }
+
+  /**
+   * Replaces the node in a level, by the last node of the level if no replacement is given,
+   * and links again the nodes of the level whose parent changed.
+   *
+   * @return whether the node led the level
+   */
+  private static boolean removeFromLevel(final List<TaskNode> level, final TaskNode node,
+                                         final TaskNode replacement, final int levelFanOut) {
+    final int index = level.indexOf(node);
+    if (index < 0) {
+      return false;
+    }
+    final TaskNode last = level.remove(level.size() - 1);
+    if (replacement != null) {
+      level.add(last);
+      level.set(index, replacement);
+    } else if (index < level.size()) {
+      level.set(index, last);
+    }
+    for (int i = 1; i < level.size(); i++) {
+      final TaskNode child = level.get(i);
+      final TaskNode parent = level.get((i - 1) / levelFanOut);
+      if (child.getParent() != parent) {
+        if (child.getParent() != null) {
+          child.getParent().removeChild(child);
+        }
+        child.setParent(parent);
+        parent.addChild(child);
+      }
+    }
+    return index == 0;
+  }
+
+  /**
+   * @return the leader of the level, or null if the level was empty and has been removed
+   */
+  private static TaskNode removeLevelIfEmpty(final Map<String, List<TaskNode>> levels, final String location) {
+    final List<TaskNode> level = levels.get(location);
+    if (level.isEmpty()) {
+      levels.remove(location);
+      return null;
+    }
+    return level.get(0);
+  }
+
+  @Override
+  protected void setRootNode(final String newRootId) {
+    LOG.entering("LocalityTreeTopology", "setRootNode", new Object[]{getQualifiedName(), newRootId});
+    this.root = newTaskNode(newRootId, true);
+    final Location location = getLocation(newRootId);
+    placedLocationOfTask.put(newRootId, location);
+    tasksOfHost.put(location.hostName, newLevel(root));
+    hostLeadersOfRack.put(location.rackName, newLevel(root));
+    rackLeaders.add(root);
+
+    for (final Map.Entry<String, TaskNode> nodeEntry : nodes.entrySet()) {
+      placeTaskNode(nodeEntry.getValue());
+    }
+    nodes.put(newRootId, root);
+    LOG.exiting("LocalityTreeTopology", "setRootNode", getQualifiedName() + newRootId);
+  }
+
+  @Override
+  protected void unsetRootNode(final String taskId) {
+    LOG.entering("LocalityTreeTopology", "unsetRootNode", new Object[]{getQualifiedName(), taskId});
+    nodes.remove(taskId);
+    root = null;
+    placedLocationOfTask.clear();
+    tasksOfHost.clear();
+    hostLeadersOfRack.clear();
+    rackLeaders.clear();
+
+    // the tree is built again when the root is added back
+    for (final Map.Entry<String, TaskNode> nodeEntry : nodes.entrySet()) {
+      final TaskNode leaf = nodeEntry.getValue();
+      leaf.setParent(null);
+      for (final TaskNode child : toList(leaf.getChildren())) {
+        leaf.removeChild(child);
+      }
+    }
+    LOG.exiting("LocalityTreeTopology", "unsetRootNode", getQualifiedName() + taskId);
+  }
+
+  /**
+   * Copies the nodes, so that they can be removed while iterating.
+   */
+  private static List<TaskNode> toList(final Iterable<TaskNode> taskNodes) {
+    final List<TaskNode> list = new ArrayList<>();
+    for (final TaskNode taskNode : taskNodes) {
+      list.add(taskNode);
+    }
+    return list;
+  }
+
+  /**
+   * Host and rack a task runs on.
+   */
+  private static final class Location {
+    private final String hostName;
+    private final String rackName;
+
+    Location(final String hostName, final String rackName) {
+      this.hostName = hostName;
+      this.rackName = rackName;
+    }
+  }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.driver.task.TaskConfigurationOptions;
+import org.apache.reef.exception.evaluator.NetworkException;
+import org.apache.reef.io.network.exception.ParentDeadException;
+import org.apache.reef.io.network.group.api.operators.AllGather;
+import org.apache.reef.io.network.impl.NetworkService;
+import org.apache.reef.io.network.group.api.task.CommGroupNetworkHandler;
+import org.apache.reef.io.network.group.api.task.CommunicationGroupServiceClient;
+import org.apache.reef.io.network.group.api.task.OperatorTopology;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.parameters.*;
+import org.apache.reef.io.network.group.impl.task.OperatorTopologyImpl;
+import org.apache.reef.io.network.group.impl.utils.GatherHelper;
+import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
+import org.apache.reef.io.serialization.Codec;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.Identifier;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * AllGather over the operator topology, run by every task of the group.
+ * <p>
+ * The values are gathered towards the root like in Gather, and the root sends all of them back down
+ * like in Broadcast within the same operation. Inner nodes forward the encoded values to their children
+ * before decoding them.
+ * <p>
+ * This is not a bandwidth-optimal algorithm like ring AllGather or recursive doubling:
+ * the root receives and sends the values of all the tasks. The sender can reach any task of the group,
+ * but the driver only tells a task about the deaths of its parent and children in the topology,
+ * so the operation follows the tree to go on without the tasks that died.
+ * <p>
+ * A task whose parent or another ancestor dies before the values reach it gets null, like in Broadcast.
+ */
+public class AllGatherOperator<T> implements AllGather<T>, EventHandler<GroupCommunicationMessage> {
+
+  private static final Logger LOG = Logger.getLogger(AllGatherOperator.class.getName());
+
+  private static final ReefNetworkGroupCommProtos.GroupCommMessage.Type MSG_TYPE =
+      ReefNetworkGroupCommProtos.GroupCommMessage.Type.AllGather;
+
+  private final Class<? extends Name<String>> groupName;
+  private final Class<? extends Name<String>> operName;
+  private final String selfId;
+  private final Codec<T> dataCodec;
+  private final boolean isRoot;
+  private final OperatorTopology topology;
+  private final CommunicationGroupServiceClient commGroupClient;
+  private final AtomicBoolean init = new AtomicBoolean(false);
+  private final int version;
+
+  @Inject
+  public AllGatherOperator(@Parameter(CommunicationGroupName.class) final String groupName,
+                           @Parameter(OperatorName.class) final String operName,
+                           @Parameter(TaskConfigurationOptions.Identifier.class) final String selfId,
+                           @Parameter(RootTaskId.class) final String rootId,
+                           @Parameter(DataCodec.class) final Codec<T> dataCodec,
+                           @Parameter(DriverIdentifierGroupComm.class) final String driverId,
+                           @Parameter(TaskVersion.class) final int version,
+                           final CommGroupNetworkHandler commGroupNetworkHandler,
+                           final NetworkService<GroupCommunicationMessage> netService,
+                           final CommunicationGroupServiceClient commGroupClient) {
+    this(groupName, operName, selfId, rootId, dataCodec, driverId, version,
+        commGroupNetworkHandler, new Sender(netService), commGroupClient);
+  }
+
+  /**
+   * Constructs the operator sending its messages through the given sender.
+   */
+  AllGatherOperator(final String groupName, final String operName, final String selfId, final String rootId,
+                    final Codec<T> dataCodec, final String driverId, final int version,
+                    final CommGroupNetworkHandler commGroupNetworkHandler,
+                    final Sender sender, final CommunicationGroupServiceClient commGroupClient) {
+    LOG.log(Level.FINEST, "{0} has CommGroupHandler-{1}", new Object[]{operName, commGroupNetworkHandler});
+    this.version = version;
+    this.groupName = Utils.getClass(groupName);
+    this.operName = Utils.getClass(operName);
+    this.selfId = selfId;
+    this.dataCodec = dataCodec;
+    this.isRoot = selfId.equals(rootId);
+    this.topology = new OperatorTopologyImpl(this.groupName, this.operName, selfId, driverId, sender, version);
+    this.commGroupClient = commGroupClient;
+    commGroupNetworkHandler.register(this.operName, this);
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public void initialize() throws ParentDeadException {
+    topology.initialize();
+  }
+
+  @Override
+  public Class<? extends Name<String>> getOperName() {
+    return operName;
+  }
+
+  @Override
+  public Class<? extends Name<String>> getGroupName() {
+    return groupName;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("AllGatherOperator:")
+        .append(Utils.simpleName(groupName))
+        .append(":")
+        .append(Utils.simpleName(operName))
+        .append(":")
+        .append(version);
+    return sb.toString();
+  }
+
+  @Override
+  public void onNext(final GroupCommunicationMessage msg) {
+    topology.handle(msg);
+  }
+
+  @Override
+  public List<T> apply(final T element) throws NetworkException, InterruptedException {
+    LOG.entering("AllGatherOperator", "apply");
+    final Map<String, T> mapOfTaskIdToData = allGatherMapOfTaskIdToData(element);
+    if (mapOfTaskIdToData == null) {
+      LOG.exiting("AllGatherOperator", "apply", null);
+      return null;
+    }
+
+    LOG.log(Level.FINE, "{0} Sorting data according to lexicographical order of task identifiers.", this);
+    final List<T> retList = new ArrayList<>(new TreeMap<>(mapOfTaskIdToData).values());
+
+    LOG.exiting("AllGatherOperator", "apply");
+    return retList;
+  }
+
+  @Override
+  public List<T> apply(final T element, final List<? extends Identifier> order)
+      throws NetworkException, InterruptedException {
+    LOG.entering("AllGatherOperator", "apply");
+    final Map<String, T> mapOfTaskIdToData = allGatherMapOfTaskIdToData(element);
+    if (mapOfTaskIdToData == null) {
+      LOG.exiting("AllGatherOperator", "apply", null);
+      return null;
+    }
+
+    LOG.log(Level.FINE, "{0} Sorting data according to specified order of task identifiers.", this);
+    final List<T> retList = new ArrayList<>(order.size());
+    for (final Identifier key : order) {
+      final String keyString = key.toString();
+      if (mapOfTaskIdToData.containsKey(keyString)) {
+        retList.add(mapOfTaskIdToData.get(keyString));
+      } else {
+        LOG.warning(this + " Received no data from " + keyString + ". Adding null.");
+        retList.add(null);
+      }
+    }
+
+    LOG.exiting("AllGatherOperator", "apply");
+    return retList;
+  }
+
+  /**
+   * Gathers the element of this task and the ones of its children, sends them to the parent,
+   * and passes the elements of all the tasks it gets back to the children.
+   * The elements are encoded like in Gather: the task identifier, the length of the element and the element.
+   *
+   * @return the elements by task identifier, or null if they did not arrive from the parent
+   */
+  private Map<String, T> allGatherMapOfTaskIdToData(final T element) {
+    LOG.fine("I am " + this);
+
+    if (init.compareAndSet(false, true)) {
+      LOG.fine(this + " Communication group initializing.");
+      commGroupClient.initialize();
+      LOG.fine(this + " Communication group initialized.");
+    }
+
+    try {
+      LOG.finest(this + " Waiting for children.");
+      final List<byte[]> gatheredData = topology.recvFromChildren();
+      final byte[] encodedMyData = dataCodec.encode(element);
+      final byte[] mergedData = GatherHelper.merge(selfId, encodedMyData, gatheredData);
+
+      final byte[] allData;
+      if (isRoot) {
+        allData = mergedData;
+        topology.sendToChildren(allData, MSG_TYPE);
+      } else {
+        LOG.fine(this + " Sending merged value to parent.");
+        topology.sendToParent(mergedData, MSG_TYPE);
+        LOG.finest(this + " Waiting for the values of all the tasks from the parent.");
+        allData = topology.recvFromParentAndForward(MSG_TYPE);
+        if (allData == null) {
+          LOG.fine(this + " Received null. Perhaps one of my ancestors is dead.");
+          return null;
+        }
+      }
+
+      final Map<String, T> mapOfTaskIdToData = new HashMap<>();
+      GatherHelper.decode(allData, dataCodec, mapOfTaskIdToData);
+      return mapOfTaskIdToData;
+
+    } catch (final ParentDeadException e) {
+      throw new RuntimeException("ParentDeadException", e);
+    } catch (final IOException e) {
+      throw new RuntimeException("IOException", e);
+    }
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.driver.task.TaskConfigurationOptions;
+import org.apache.reef.exception.evaluator.NetworkException;
+import org.apache.reef.io.network.exception.ParentDeadException;
+import org.apache.reef.io.network.group.api.operators.AllReduce;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
+import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
+import org.apache.reef.io.network.impl.NetworkService;
+import org.apache.reef.io.network.group.api.task.CommGroupNetworkHandler;
+import org.apache.reef.io.network.group.api.task.CommunicationGroupServiceClient;
+import org.apache.reef.io.network.group.api.task.OperatorTopology;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.parameters.*;
+import org.apache.reef.io.network.group.impl.task.OperatorTopologyImpl;
+import org.apache.reef.io.network.group.impl.utils.GatherHelper;
+import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
+import org.apache.reef.io.serialization.Codec;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.Identifier;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * AllReduce over the operator topology, run by every task of the group.
+ * <p>
+ * The values are reduced towards the root like in Reduce, and the result is sent back down
+ * like in Broadcast within the same operation. Inner nodes forward the encoded result to their children
+ * before decoding it. Compared to a Reduce followed by a Broadcast, the tasks do one operation instead of two,
+ * the root does not wait for a second operator, and with a tree topology no task sends to all the others.
+ * <p>
+ * This is not a bandwidth-optimal algorithm like ring AllReduce or recursive halving and doubling:
+ * every inner node receives the whole value from each child and sends the whole result to each of them,
+ * so it saves the latency of the second operator but not the traffic through the root.
+ * The sender can reach any task of the group, but the driver only tells a task about the deaths of its parent
+ * and children in the topology. Only an operation along the tree can go on without the tasks that died.
+ * <p>
+ * With an order, the values of all the tasks are gathered at the root and reduced there in that order.
+ * All the tasks have to call the same variant of apply() in an operation.
+ * <p>
+ * A task whose parent or another ancestor dies before the result reaches it gets null, like in Broadcast.
+ */
+public class AllReduceOperator<T> implements AllReduce<T>, EventHandler<GroupCommunicationMessage> {
+
+  private static final Logger LOG = Logger.getLogger(AllReduceOperator.class.getName());
+
+  private static final ReefNetworkGroupCommProtos.GroupCommMessage.Type MSG_TYPE =
+      ReefNetworkGroupCommProtos.GroupCommMessage.Type.AllReduce;
+
+  private final Class<? extends Name<String>> groupName;
+  private final Class<? extends Name<String>> operName;
+  private final String selfId;
+  private final Codec<T> dataCodec;
+  private final ReduceFunction<T> reduceFunction;
+  private final boolean isRoot;
+
+  private final OperatorTopology topology;
+
+  private final CommunicationGroupServiceClient commGroupClient;
+
+  private final AtomicBoolean init = new AtomicBoolean(false);
+
+  private final int version;
+
+  @Inject
+  public AllReduceOperator(@Parameter(CommunicationGroupName.class) final String groupName,
+                           @Parameter(OperatorName.class) final String operName,
+                           @Parameter(TaskConfigurationOptions.Identifier.class) final String selfId,
+                           @Parameter(RootTaskId.class) final String rootId,
+                           @Parameter(DataCodec.class) final Codec<T> dataCodec,
+                           @Parameter(ReduceFunctionParam.class) final ReduceFunction<T> reduceFunction,
+                           @Parameter(DriverIdentifierGroupComm.class) final String driverId,
+                           @Parameter(TaskVersion.class) final int version,
+                           final CommGroupNetworkHandler commGroupNetworkHandler,
+                           final NetworkService<GroupCommunicationMessage> netService,
+                           final CommunicationGroupServiceClient commGroupClient) {
+    this(groupName, operName, selfId, rootId, dataCodec, reduceFunction, driverId, version,
+        commGroupNetworkHandler, new Sender(netService), commGroupClient);
+  }
+
+  /**
+   * Constructs the operator sending its messages through the given sender.
+   */
+  AllReduceOperator(final String groupName, final String operName, final String selfId, final String rootId,
+                    final Codec<T> dataCodec, final ReduceFunction<T> reduceFunction, final String driverId,
+                    final int version, final CommGroupNetworkHandler commGroupNetworkHandler,
+                    final Sender sender, final CommunicationGroupServiceClient commGroupClient) {
+    super();
+    LOG.log(Level.FINEST, "{0} has CommGroupHandler-{1}", new Object[]{operName, commGroupNetworkHandler});
+    this.version = version;
+    this.groupName = Utils.getClass(groupName);
+    this.operName = Utils.getClass(operName);
+    this.selfId = selfId;
+    this.dataCodec = dataCodec;
+    this.reduceFunction = reduceFunction;
+    this.isRoot = selfId.equals(rootId);
+    this.topology = new OperatorTopologyImpl(this.groupName, this.operName, selfId, driverId, sender, version);
+    commGroupNetworkHandler.register(this.operName, this);
+    this.commGroupClient = commGroupClient;
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public void initialize() throws ParentDeadException {
+    topology.initialize();
+  }
+
+  @Override
+  public Class<? extends Name<String>> getOperName() {
+    return operName;
+  }
+
+  @Override
+  public Class<? extends Name<String>> getGroupName() {
+    return groupName;
+  }
+
+  @Override
+  public String toString() {
+    return "AllReduceOperator:" + Utils.simpleName(groupName) + ":" + Utils.simpleName(operName) + ":" + version;
+  }
+
+  @Override
+  public void onNext(final GroupCommunicationMessage msg) {
+    topology.handle(msg);
+  }
+
+  @Override
+  public T apply(final T element) throws InterruptedException, NetworkException {
+    LOG.entering("AllReduceOperator", "apply", this);
+
+    if (init.compareAndSet(false, true)) {
+      commGroupClient.initialize();
+    }
+
+    final T result;
+    try {
+      LOG.finest("Waiting for children");
+      if (reduceFunction instanceof ChunkedReduceFunction) {
+        // combine the chunks of my element into those of the children one at a time
+        final ChunkedReduceFunction<T> chunkedReduceFunction = (ChunkedReduceFunction<T>) reduceFunction;
+        final List<T> received = new ArrayList<>();
+        topology.recvFromChildren(received, chunkedReduceFunction, dataCodec);
+        final List<T> chunks = Utils.combineChunks(chunkedReduceFunction, received, element);
+        if (isRoot) {
+          result = chunkedReduceFunction.join(chunks);
+          topology.sendToChildren(dataCodec.encode(result), MSG_TYPE);
+        } else {
+          topology.sendToParent(chunks, dataCodec, MSG_TYPE);
+          result = receiveResult();
+        }
+      } else {
+        final T reducedValueOfChildren = topology.recvFromChildren(reduceFunction, dataCodec);
+        final List<T> vals = new ArrayList<>(2);
+        vals.add(element);
+        if (reducedValueOfChildren != null) {
+          vals.add(reducedValueOfChildren);
+        }
+        final T reducedValue = reduceFunction.apply(vals);
+
+        if (isRoot) {
+          result = reducedValue;
+          topology.sendToChildren(dataCodec.encode(result), MSG_TYPE);
+        } else {
+          topology.sendToParent(dataCodec.encode(reducedValue), MSG_TYPE);
+          result = receiveResult();
+        }
+      }
+    } catch (final ParentDeadException e) {
+      throw new RuntimeException("ParentDeadException", e);
+    }
+
+    LOG.exiting("AllReduceOperator", "apply", this);
+    return result;
+  }
+
+  /**
+   * Receives the result from the parent and forwards it to the children.
+   *
+   * @return the result, or null if it did not arrive
+   */
+  private T receiveResult() throws ParentDeadException {
+    LOG.finest("Waiting for the result from the parent");
+    final byte[] encodedResult = topology.recvFromParentAndForward(MSG_TYPE);
+    if (encodedResult == null) {
+      LOG.fine(this + " Received null. Perhaps one of my ancestors is dead.");
+      return null;
+    }
+    return dataCodec.decode(encodedResult);
+  }
+
+  /**
+   * Gathers the values of all the tasks at the root, which reduces them in the given order.
+   * The values of the tasks missing from the order are reduced after the others,
+   * in the lexicographical order of the task identifiers.
+   */
+  @Override
+  public T apply(final T element, final List<? extends Identifier> order)
+      throws InterruptedException, NetworkException {
+    LOG.entering("AllReduceOperator", "apply", new Object[]{this, order});
+
+    if (init.compareAndSet(false, true)) {
+      commGroupClient.initialize();
+    }
+
+    final T result;
+    try {
+      LOG.finest("Waiting for children");
+      final byte[] mergedData = GatherHelper.merge(selfId, dataCodec.encode(element), topology.recvFromChildren());
+      if (isRoot) {
+        final Map<String, T> mapOfTaskIdToData = new TreeMap<>();
+        GatherHelper.decode(mergedData, dataCodec, mapOfTaskIdToData);
+        result = reduceFunction.apply(orderValues(mapOfTaskIdToData, order));
+        topology.sendToChildren(dataCodec.encode(result), MSG_TYPE);
+      } else {
+        topology.sendToParent(mergedData, MSG_TYPE);
+        result = receiveResult();
+      }
+    } catch (final ParentDeadException e) {
+      throw new RuntimeException("ParentDeadException", e);
+    } catch (final IOException e) {
+      throw new RuntimeException("IOException", e);
+    }
+
+    LOG.exiting("AllReduceOperator", "apply", this);
+    return result;
+  }
+
+  /**
+   * Lists the values in the given order, followed by the ones of the tasks missing from the order.
+   */
+  private List<T> orderValues(final Map<String, T> mapOfTaskIdToData, final List<? extends Identifier> order) {
+    final List<T> values = new ArrayList<>(mapOfTaskIdToData.size());
+    for (final Identifier id : order) {
+      final T value = mapOfTaskIdToData.remove(id.toString());
+      if (value != null) {
+        values.add(value);
+      } else {
+        LOG.log(Level.WARNING, "{0} Received no value from {1}. Reducing without it.", new Object[]{this, id});
+      }
+    }
+    if (!mapOfTaskIdToData.isEmpty()) {
+      LOG.log(Level.WARNING, "{0} Tasks {1} are not in the order. Reducing their values last.",
+          new Object[]{this, mapOfTaskIdToData.keySet()});
+      values.addAll(mapOfTaskIdToData.values());
+    }
+    return values;
+  }
+
+  @Override
+  public ReduceFunction<T> getReduceFunction() {
+    return reduceFunction;
+  }
+}
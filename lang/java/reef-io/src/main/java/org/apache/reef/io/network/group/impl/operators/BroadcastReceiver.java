@@ -131,7 +131,7 @@ public class BroadcastReceiver<T> implements Broadcast.Receiver<T>, EventHandler
     LOG.fine(this + " Waiting to receive broadcast");
     final byte[] data;
     try {
-      data = topology.recvFromParent(ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast);
+      data = topology.recvFromParentAndForward(ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast);
       // TODO: Should receive the identity element instead of null
       if (data == null) {
         LOG.fine(this + " Received null. Perhaps one of my ancestors is dead.");
@@ -140,10 +140,7 @@ public class BroadcastReceiver<T> implements Broadcast.Receiver<T>, EventHandler
         LOG.finest("Using " + dataCodec.getClass().getSimpleName() + " as codec");
         retVal = dataCodec.decode(data);
         LOG.finest("Decoded msg successfully");
-        LOG.finest(this + " Sending to children.");
       }
-
-      topology.sendToChildren(data, ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast);
     } catch (final ParentDeadException e) {
       throw new RuntimeException("ParentDeadException", e);
     }
@@ -28,6 +28,7 @@ import org.apache.reef.io.network.group.api.task.OperatorTopology;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.group.impl.config.parameters.*;
 import org.apache.reef.io.network.group.impl.task.OperatorTopologyImpl;
+import org.apache.reef.io.network.group.impl.utils.GatherHelper;
 import org.apache.reef.io.network.group.impl.utils.Utils;
 import org.apache.reef.io.network.impl.NetworkService;
 import org.apache.reef.io.serialization.Codec;
@@ -37,8 +38,6 @@ import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.Identifier;
 
 import javax.inject.Inject;
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -162,20 +161,13 @@ public class GatherReceiver<T> implements Gather.Receiver<T>, EventHandler<Group
     final Map<String, T> mapOfTaskIdToData = new HashMap<>();
     try {
       LOG.fine(this + " Waiting for children.");
-      final byte[] gatheredDataFromChildren = topology.recvFromChildren();
+      final List<byte[]> gatheredDataFromChildren = topology.recvFromChildren();
 
       LOG.fine("Using " + dataCodec.getClass().getSimpleName() + " as codec.");
-      try (final ByteArrayInputStream bstream = new ByteArrayInputStream(gatheredDataFromChildren);
-           final DataInputStream dstream = new DataInputStream(bstream)) {
-        while (dstream.available() > 0) {
-          final String identifier = dstream.readUTF();
-          final int dataLength = dstream.readInt();
-          final byte[] data = new byte[dataLength];
-          dstream.readFully(data);
-          mapOfTaskIdToData.put(identifier, dataCodec.decode(data));
-        }
-        LOG.fine(this + " Successfully received gathered data.");
+      for (final byte[] gatheredData : gatheredDataFromChildren) {
+        GatherHelper.decode(gatheredData, dataCodec, mapOfTaskIdToData);
       }
+      LOG.fine(this + " Successfully received gathered data.");
 
     } catch (final ParentDeadException e) {
       throw new RuntimeException("ParentDeadException", e);
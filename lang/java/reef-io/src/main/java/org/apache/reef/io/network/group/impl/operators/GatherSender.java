@@ -28,6 +28,7 @@ import org.apache.reef.io.network.group.api.task.OperatorTopology;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.group.impl.config.parameters.*;
 import org.apache.reef.io.network.group.impl.task.OperatorTopologyImpl;
+import org.apache.reef.io.network.group.impl.utils.GatherHelper;
 import org.apache.reef.io.network.group.impl.utils.Utils;
 import org.apache.reef.io.network.impl.NetworkService;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
@@ -37,9 +38,8 @@ import org.apache.reef.tang.annotations.Parameter;
 import org.apache.reef.wake.EventHandler;
 
 import javax.inject.Inject;
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
@@ -128,20 +128,12 @@ public class GatherSender<T> implements Gather.Sender<T>, EventHandler<GroupComm
 
     try {
       LOG.finest(this + " Waiting for children.");
-      final byte[] gatheredData = topology.recvFromChildren();
+      final List<byte[]> gatheredData = topology.recvFromChildren();
       final byte[] encodedMyData = dataCodec.encode(myData);
+      final byte[] mergedData = GatherHelper.merge(netService.getMyId().toString(), encodedMyData, gatheredData);
 
-      try (final ByteArrayOutputStream bstream = new ByteArrayOutputStream();
-           final DataOutputStream dstream = new DataOutputStream(bstream)) {
-        dstream.writeUTF(netService.getMyId().toString());
-        dstream.writeInt(encodedMyData.length);
-        dstream.write(encodedMyData);
-        dstream.write(gatheredData);
-        final byte[] mergedData = bstream.toByteArray();
-
-        LOG.fine(this + " Sending merged value to parent.");
-        topology.sendToParent(mergedData, ReefNetworkGroupCommProtos.GroupCommMessage.Type.Gather);
-      }
+      LOG.fine(this + " Sending merged value to parent.");
+      topology.sendToParent(mergedData, ReefNetworkGroupCommProtos.GroupCommMessage.Type.Gather);
     } catch (final ParentDeadException e) {
       throw new RuntimeException("ParentDeadException", e);
     } catch (final IOException e) {
@@ -22,6 +22,7 @@ import org.apache.reef.driver.task.TaskConfigurationOptions;
 import org.apache.reef.exception.evaluator.NetworkException;
 import org.apache.reef.io.network.exception.ParentDeadException;
 import org.apache.reef.io.network.group.api.operators.Reduce;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
 import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
 import org.apache.reef.io.network.impl.NetworkService;
 import org.apache.reef.io.network.group.api.task.CommGroupNetworkHandler;
@@ -39,6 +40,7 @@ import org.apache.reef.wake.Identifier;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
@@ -132,7 +134,14 @@ public class ReduceReceiver<T> implements Reduce.Receiver<T>, EventHandler<Group
     // Wait for children to send
     final T redVal;
     try {
-      redVal = topology.recvFromChildren(reduceFunction, dataCodec);
+      if (reduceFunction instanceof ChunkedReduceFunction) {
+        final ChunkedReduceFunction<T> chunkedReduceFunction = (ChunkedReduceFunction<T>) reduceFunction;
+        final List<T> chunks = new ArrayList<>();
+        topology.recvFromChildren(chunks, chunkedReduceFunction, dataCodec);
+        redVal = chunks.isEmpty() ? null : chunkedReduceFunction.join(chunks);
+      } else {
+        redVal = topology.recvFromChildren(reduceFunction, dataCodec);
+      }
     } catch (final ParentDeadException e) {
       throw new RuntimeException("ParentDeadException", e);
     }
@@ -0,0 +1,433 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.driver.task.TaskConfigurationOptions;
+import org.apache.reef.exception.evaluator.NetworkException;
+import org.apache.reef.io.network.exception.ParentDeadException;
+import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
+import org.apache.reef.io.network.group.api.operators.ReduceScatter;
+import org.apache.reef.io.network.impl.NetworkService;
+import org.apache.reef.io.network.group.api.task.CommGroupNetworkHandler;
+import org.apache.reef.io.network.group.api.task.CommunicationGroupServiceClient;
+import org.apache.reef.io.network.group.api.task.OperatorTopology;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.parameters.*;
+import org.apache.reef.io.network.group.impl.task.OperatorTopologyImpl;
+import org.apache.reef.io.network.group.impl.utils.ScatterHelper;
+import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
+import org.apache.reef.io.serialization.Codec;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.Identifier;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * ReduceScatter over the operator topology, run by every task of the group.
+ * <p>
+ * The lists of values are reduced element by element towards the root like in Reduce,
+ * along with the identifiers of the tasks in each subtree. The root splits the result according to the counts
+ * and sends each child only the parts of the tasks in its subtree, like in Scatter, within the same operation.
+ * Inner nodes forward the encoded parts of their children before decoding their own.
+ * <p>
+ * Only the order and the counts given at the root decide which task gets which part.
+ * By default, the tasks are in the lexicographical order of their identifiers; if tasks have died,
+ * so that there are not as many tasks as counts, the elements are split uniformly among the remaining tasks.
+ * With an order, the parts of the tasks that have died are dropped.
+ * <p>
+ * This is not a bandwidth-optimal algorithm like recursive halving: every inner node receives all the values
+ * of each child. The sender can reach any task of the group, but the driver only tells a task about the deaths
+ * of its parent and children in the topology, so the operation follows the tree to go on without the tasks
+ * that died.
+ * <p>
+ * A task whose parent or another ancestor dies before the parts reach it gets null, like in Scatter,
+ * and passes that on to its children.
+ */
+public class ReduceScatterOperator<T> implements ReduceScatter<T>, EventHandler<GroupCommunicationMessage> {
+
+  private static final Logger LOG = Logger.getLogger(ReduceScatterOperator.class.getName());
+
+  private static final ReefNetworkGroupCommProtos.GroupCommMessage.Type MSG_TYPE =
+      ReefNetworkGroupCommProtos.GroupCommMessage.Type.ReduceScatter;
+
+  /**
+   * Sent in place of the number of tasks when the parts did not arrive from the parent.
+   */
+  private static final int NO_PARTS = -1;
+
+  private final Class<? extends Name<String>> groupName;
+  private final Class<? extends Name<String>> operName;
+  private final String selfId;
+  private final Codec<T> dataCodec;
+  private final ReduceFunction<T> reduceFunction;
+  private final boolean isRoot;
+  private final OperatorTopology topology;
+  private final CommunicationGroupServiceClient commGroupClient;
+  private final AtomicBoolean init = new AtomicBoolean(false);
+  private final int version;
+
+  @Inject
+  public ReduceScatterOperator(@Parameter(CommunicationGroupName.class) final String groupName,
+                               @Parameter(OperatorName.class) final String operName,
+                               @Parameter(TaskConfigurationOptions.Identifier.class) final String selfId,
+                               @Parameter(RootTaskId.class) final String rootId,
+                               @Parameter(DataCodec.class) final Codec<T> dataCodec,
+                               @Parameter(ReduceFunctionParam.class) final ReduceFunction<T> reduceFunction,
+                               @Parameter(DriverIdentifierGroupComm.class) final String driverId,
+                               @Parameter(TaskVersion.class) final int version,
+                               final CommGroupNetworkHandler commGroupNetworkHandler,
+                               final NetworkService<GroupCommunicationMessage> netService,
+                               final CommunicationGroupServiceClient commGroupClient) {
+    this(groupName, operName, selfId, rootId, dataCodec, reduceFunction, driverId, version,
+        commGroupNetworkHandler, new Sender(netService), commGroupClient);
+  }
+
+  /**
+   * Constructs the operator sending its messages through the given sender.
+   */
+  ReduceScatterOperator(final String groupName, final String operName, final String selfId, final String rootId,
+                        final Codec<T> dataCodec, final ReduceFunction<T> reduceFunction, final String driverId,
+                        final int version, final CommGroupNetworkHandler commGroupNetworkHandler,
+                        final Sender sender, final CommunicationGroupServiceClient commGroupClient) {
+    LOG.log(Level.FINEST, "{0} has CommGroupHandler-{1}", new Object[]{operName, commGroupNetworkHandler});
+    this.version = version;
+    this.groupName = Utils.getClass(groupName);
+    this.operName = Utils.getClass(operName);
+    this.selfId = selfId;
+    this.dataCodec = dataCodec;
+    this.reduceFunction = reduceFunction;
+    this.isRoot = selfId.equals(rootId);
+    this.topology = new OperatorTopologyImpl(this.groupName, this.operName, selfId, driverId, sender, version);
+    this.commGroupClient = commGroupClient;
+    commGroupNetworkHandler.register(this.operName, this);
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public void initialize() throws ParentDeadException {
+    topology.initialize();
+  }
+
+  @Override
+  public Class<? extends Name<String>> getOperName() {
+    return operName;
+  }
+
+  @Override
+  public Class<? extends Name<String>> getGroupName() {
+    return groupName;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("ReduceScatterOperator:")
+        .append(Utils.simpleName(groupName))
+        .append(":")
+        .append(Utils.simpleName(operName))
+        .append(":")
+        .append(version);
+    return sb.toString();
+  }
+
+  @Override
+  public void onNext(final GroupCommunicationMessage msg) {
+    topology.handle(msg);
+  }
+
+  @Override
+  public List<T> apply(final List<T> elements, final List<Integer> counts)
+      throws InterruptedException, NetworkException {
+    return apply(elements, counts, null);
+  }
+
+  /**
+   * @param order the order of the tasks, or null for the lexicographical order of their identifiers
+   */
+  @Override
+  public List<T> apply(final List<T> elements, final List<Integer> counts, final List<? extends Identifier> order)
+      throws InterruptedException, NetworkException {
+    LOG.entering("ReduceScatterOperator", "apply", this);
+    LOG.fine("I am " + this);
+
+    int total = 0;
+    for (final int count : counts) {
+      total += count;
+    }
+    if (total != elements.size()) {
+      throw new IllegalArgumentException(this + " counts add up to " + total + " but there are " + elements.size()
+          + " elements");
+    }
+    if (order != null && counts.size() != order.size()) {
+      throw new IllegalArgumentException(this + " Got " + counts.size() + " counts for " + order.size()
+          + " tasks in the order");
+    }
+
+    if (init.compareAndSet(false, true)) {
+      commGroupClient.initialize();
+    }
+
+    try {
+      LOG.finest(this + " Waiting for children.");
+      final List<byte[]> dataFromChildren = topology.recvFromChildren();
+
+      final List<T> reduced = new ArrayList<>(elements);
+      final List<String> subtreeIds = new ArrayList<>();
+      subtreeIds.add(selfId);
+      final Map<String, List<String>> subtreeIdsOfChildren = new HashMap<>();
+      reduceDataFromChildren(dataFromChildren, reduced, subtreeIds, subtreeIdsOfChildren);
+
+      final Map<String, List<byte[]>> parts;
+      if (isRoot) {
+        parts = split(reduced, counts, order == null ? sortedIds(subtreeIds) : idsOf(order), subtreeIds);
+      } else {
+        LOG.fine(this + " Sending reduced values to parent.");
+        topology.sendToParent(encodeReduced(subtreeIds, reduced), MSG_TYPE);
+        LOG.finest(this + " Waiting for the parts of the subtree from the parent.");
+        final byte[] data = topology.recvFromParent(MSG_TYPE);
+        parts = data == null ? null : decodeParts(data);
+      }
+
+      if (parts == null) {
+        LOG.fine(this + " Received null. Perhaps one of my ancestors is dead.");
+        if (!subtreeIdsOfChildren.isEmpty()) {
+          // so that the children do not wait for parts that will not come
+          topology.sendToChildren(encodeNoParts(), MSG_TYPE);
+        }
+        LOG.exiting("ReduceScatterOperator", "apply", null);
+        return null;
+      }
+
+      if (!subtreeIdsOfChildren.isEmpty()) {
+        final Map<String, byte[]> dataMap = new HashMap<>();
+        for (final Map.Entry<String, List<String>> child : subtreeIdsOfChildren.entrySet()) {
+          dataMap.put(child.getKey(), encodeParts(parts, child.getValue()));
+        }
+        topology.sendToChildren(dataMap, MSG_TYPE);
+      }
+
+      final List<byte[]> myPart = parts.get(selfId);
+      final List<T> result = new ArrayList<>(myPart == null ? 0 : myPart.size());
+      if (myPart != null) {
+        for (final byte[] data : myPart) {
+          result.add(dataCodec.decode(data));
+        }
+      }
+      LOG.exiting("ReduceScatterOperator", "apply", this);
+      return result;
+
+    } catch (final ParentDeadException e) {
+      throw new RuntimeException("ParentDeadException", e);
+    } catch (final IOException e) {
+      throw new RuntimeException("IOException", e);
+    }
+  }
+
+  @Override
+  public ReduceFunction<T> getReduceFunction() {
+    return reduceFunction;
+  }
+
+  /**
+   * Reduces the values from the children into reduced, element by element,
+   * and collects the identifiers of the tasks in the subtree of each child.
+   * The message of each child is decoded as it was received, and starts with the identifier of the child.
+   */
+  private void reduceDataFromChildren(final List<byte[]> dataFromChildren, final List<T> reduced,
+                                      final List<String> subtreeIds,
+                                      final Map<String, List<String>> subtreeIdsOfChildren) throws IOException {
+    final List<T> vals = new ArrayList<>(2);
+    for (final byte[] dataFromChild : dataFromChildren) {
+      try (final DataInputStream dstream = new DataInputStream(new ByteArrayInputStream(dataFromChild))) {
+        final int numIds = dstream.readInt();
+        final List<String> ids = new ArrayList<>(numIds);
+        for (int i = 0; i < numIds; i++) {
+          ids.add(dstream.readUTF());
+        }
+        subtreeIdsOfChildren.put(ids.get(0), ids);
+        subtreeIds.addAll(ids);
+
+        final int numElements = dstream.readInt();
+        if (numElements != reduced.size()) {
+          throw new RuntimeException(this + " Received " + numElements + " elements from " + ids.get(0)
+              + " instead of " + reduced.size());
+        }
+        for (int i = 0; i < numElements; i++) {
+          vals.clear();
+          vals.add(reduced.get(i));
+          vals.add(dataCodec.decode(readBytes(dstream)));
+          reduced.set(i, reduceFunction.apply(vals));
+        }
+      }
+    }
+  }
+
+  private byte[] encodeReduced(final List<String> subtreeIds, final List<T> reduced) throws IOException {
+    try (final ByteArrayOutputStream bstream = new ByteArrayOutputStream();
+         final DataOutputStream dstream = new DataOutputStream(bstream)) {
+      dstream.writeInt(subtreeIds.size());
+      for (final String id : subtreeIds) {
+        dstream.writeUTF(id);
+      }
+      dstream.writeInt(reduced.size());
+      for (final T value : reduced) {
+        writeBytes(dstream, dataCodec.encode(value));
+      }
+      dstream.flush();
+      return bstream.toByteArray();
+    }
+  }
+
+  /**
+   * Splits the reduced values at the root into the parts of the tasks.
+   * Without an order given by the user, the order only lists the tasks that took part,
+   * so if tasks have died there are fewer tasks than counts and the values are split uniformly.
+   */
+  private Map<String, List<byte[]>> split(final List<T> reduced, final List<Integer> counts,
+                                          final List<String> taskOrder, final List<String> subtreeIds) {
+    final List<Integer> taskCounts;
+    if (counts.size() == taskOrder.size()) {
+      taskCounts = counts;
+    } else {
+      LOG.log(Level.WARNING, "{0} Got {1} counts for the {2} tasks that took part. Splitting the values uniformly.",
+          new Object[]{this, counts.size(), taskOrder.size()});
+      taskCounts = ScatterHelper.getUniformCounts(reduced.size(), taskOrder.size());
+    }
+    final Set<String> tasks = new HashSet<>(subtreeIds);
+    final Map<String, List<byte[]>> parts = new HashMap<>();
+    int offset = 0;
+    for (int i = 0; i < taskOrder.size(); i++) {
+      final int count = taskCounts.get(i);
+      if (!tasks.contains(taskOrder.get(i))) {
+        LOG.log(Level.WARNING, "{0} {1} did not take part. Dropping its {2} values.",
+            new Object[]{this, taskOrder.get(i), count});
+        offset += count;
+        continue;
+      }
+      final List<byte[]> part = new ArrayList<>(count);
+      for (int j = offset; j < offset + count; j++) {
+        part.add(dataCodec.encode(reduced.get(j)));
+      }
+      offset += count;
+      parts.put(taskOrder.get(i), part);
+    }
+    for (final String id : subtreeIds) {
+      if (!parts.containsKey(id)) {
+        LOG.log(Level.WARNING, "{0} No part for {1}, which is not in the order. Sending it no values.",
+            new Object[]{this, id});
+      }
+    }
+    return parts;
+  }
+
+  /**
+   * Encodes the parts of the given tasks; a task without a part gets no values.
+   */
+  private static byte[] encodeParts(final Map<String, List<byte[]>> parts, final List<String> ids)
+      throws IOException {
+    try (final ByteArrayOutputStream bstream = new ByteArrayOutputStream();
+         final DataOutputStream dstream = new DataOutputStream(bstream)) {
+      dstream.writeInt(ids.size());
+      for (final String id : ids) {
+        final List<byte[]> part = parts.get(id);
+        dstream.writeUTF(id);
+        dstream.writeInt(part == null ? 0 : part.size());
+        if (part != null) {
+          for (final byte[] data : part) {
+            writeBytes(dstream, data);
+          }
+        }
+      }
+      dstream.flush();
+      return bstream.toByteArray();
+    }
+  }
+
+  private static byte[] encodeNoParts() throws IOException {
+    try (final ByteArrayOutputStream bstream = new ByteArrayOutputStream();
+         final DataOutputStream dstream = new DataOutputStream(bstream)) {
+      dstream.writeInt(NO_PARTS);
+      dstream.flush();
+      return bstream.toByteArray();
+    }
+  }
+
+  /**
+   * @return the parts by task identifier, or null if the parent did not get them
+   */
+  private static Map<String, List<byte[]>> decodeParts(final byte[] data) throws IOException {
+    try (final DataInputStream dstream = new DataInputStream(new ByteArrayInputStream(data))) {
+      final int numIds = dstream.readInt();
+      if (numIds == NO_PARTS) {
+        return null;
+      }
+      final Map<String, List<byte[]>> parts = new HashMap<>(numIds);
+      for (int i = 0; i < numIds; i++) {
+        final String id = dstream.readUTF();
+        final int count = dstream.readInt();
+        final List<byte[]> part = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+          part.add(readBytes(dstream));
+        }
+        parts.put(id, part);
+      }
+      return parts;
+    }
+  }
+
+  private static void writeBytes(final DataOutputStream dstream, final byte[] data) throws IOException {
+    dstream.writeInt(data.length);
+    dstream.write(data);
+  }
+
+  private static byte[] readBytes(final DataInputStream dstream) throws IOException {
+    final byte[] data = new byte[dstream.readInt()];
+    dstream.readFully(data);
+    return data;
+  }
+
+  private static List<String> sortedIds(final List<String> ids) {
+    final List<String> sorted = new ArrayList<>(ids);
+    Collections.sort(sorted);
+    return sorted;
+  }
+
+  private static List<String> idsOf(final List<? extends Identifier> order) {
+    final List<String> ids = new ArrayList<>(order.size());
+    for (final Identifier id : order) {
+      ids.add(id.toString());
+    }
+    return ids;
+  }
+}
@@ -22,6 +22,7 @@ import org.apache.reef.driver.task.TaskConfigurationOptions;
 import org.apache.reef.exception.evaluator.NetworkException;
 import org.apache.reef.io.network.exception.ParentDeadException;
 import org.apache.reef.io.network.group.api.operators.Reduce;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
 import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
 import org.apache.reef.io.network.impl.NetworkService;
 import org.apache.reef.io.network.group.api.task.CommGroupNetworkHandler;
@@ -137,14 +138,24 @@ public class ReduceSender<T> implements Reduce.Sender<T>, EventHandler<GroupComm
     LOG.finest("Waiting for children");
     // Wait for children to send
     try {
-      final T reducedValueOfChildren = topology.recvFromChildren(reduceFunction, dataCodec);
-      final List<T> vals = new ArrayList<>(2);
-      vals.add(myData);
-      if (reducedValueOfChildren != null) {
-        vals.add(reducedValueOfChildren);
+      if (reduceFunction instanceof ChunkedReduceFunction) {
+        // combine the chunks of my data into those of the children one at a time
+        final ChunkedReduceFunction<T> chunkedReduceFunction = (ChunkedReduceFunction<T>) reduceFunction;
+        final List<T> chunks = new ArrayList<>();
+        topology.recvFromChildren(chunks, chunkedReduceFunction, dataCodec);
+        topology.sendToParent(Utils.combineChunks(chunkedReduceFunction, chunks, myData), dataCodec,
+            ReefNetworkGroupCommProtos.GroupCommMessage.Type.Reduce);
+      } else {
+        final T reducedValueOfChildren = topology.recvFromChildren(reduceFunction, dataCodec);
+        final List<T> vals = new ArrayList<>(2);
+        vals.add(myData);
+        if (reducedValueOfChildren != null) {
+          vals.add(reducedValueOfChildren);
+        }
+        final T reducedValue = reduceFunction.apply(vals);
+        topology.sendToParent(dataCodec.encode(reducedValue),
+            ReefNetworkGroupCommProtos.GroupCommMessage.Type.Reduce);
       }
-      final T reducedValue = reduceFunction.apply(vals);
-      topology.sendToParent(dataCodec.encode(reducedValue), ReefNetworkGroupCommProtos.GroupCommMessage.Type.Reduce);
     } catch (final ParentDeadException e) {
       throw new RuntimeException("ParentDeadException", e);
     }
@@ -237,6 +237,45 @@ public final class CommunicationGroupClientImpl implements CommunicationGroupSer
     return (Gather.Sender) op;
   }
 
+  @Override
+  public AllReduce getAllReduce(final Class<? extends Name<String>> operatorName) {
+    LOG.entering("CommunicationGroupClientImpl", "getAllReduce", new Object[]{getQualifiedName(),
+        Utils.simpleName(operatorName)});
+    final GroupCommOperator op = operators.get(operatorName);
+    if (!(op instanceof AllReduce)) {
+      throw new RuntimeException("Configured operator is not an all-reduce operator");
+    }
+    commGroupNetworkHandler.addTopologyElement(operatorName);
+    LOG.exiting("CommunicationGroupClientImpl", "getAllReduce", getQualifiedName() + op);
+    return (AllReduce) op;
+  }
+
+  @Override
+  public AllGather getAllGather(final Class<? extends Name<String>> operatorName) {
+    LOG.entering("CommunicationGroupClientImpl", "getAllGather", new Object[]{getQualifiedName(),
+        Utils.simpleName(operatorName)});
+    final GroupCommOperator op = operators.get(operatorName);
+    if (!(op instanceof AllGather)) {
+      throw new RuntimeException("Configured operator is not an all-gather operator");
+    }
+    commGroupNetworkHandler.addTopologyElement(operatorName);
+    LOG.exiting("CommunicationGroupClientImpl", "getAllGather", getQualifiedName() + op);
+    return (AllGather) op;
+  }
+
+  @Override
+  public ReduceScatter getReduceScatter(final Class<? extends Name<String>> operatorName) {
+    LOG.entering("CommunicationGroupClientImpl", "getReduceScatter", new Object[]{getQualifiedName(),
+        Utils.simpleName(operatorName)});
+    final GroupCommOperator op = operators.get(operatorName);
+    if (!(op instanceof ReduceScatter)) {
+      throw new RuntimeException("Configured operator is not a reduce-scatter operator");
+    }
+    commGroupNetworkHandler.addTopologyElement(operatorName);
+    LOG.exiting("CommunicationGroupClientImpl", "getReduceScatter", getQualifiedName() + op);
+    return (ReduceScatter) op;
+  }
+
   @Override
   public void initialize() {
     LOG.entering("CommunicationGroupClientImpl", "initialize", getQualifiedName());
@@ -20,8 +20,11 @@ package org.apache.reef.io.network.group.impl.task;
 
 import org.apache.reef.io.network.group.api.task.NodeStruct;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
 import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.wake.EventHandler;
 
+import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.logging.Logger;
@@ -32,6 +35,11 @@ public abstract class NodeStructImpl implements NodeStruct {
 
   private final String id;
   private final BlockingQueue<GroupCommunicationMessage> dataQue = new LinkedBlockingQueue<>();
+  /**
+   * Messages taken from dataQue while receiving the segments of an earlier message, to be received first.
+   * Only the thread that receives from this node uses it.
+   */
+  private final Deque<GroupCommunicationMessage> heldBack = new ArrayDeque<>();
 
   private int version;
 
@@ -65,17 +73,153 @@ public abstract class NodeStructImpl implements NodeStruct {
 
   @Override
   public byte[] getData() {
+    return getData(null);
+  }
+
+  @Override
+  public byte[] getData(final EventHandler<GroupCommunicationMessage> msgHandler) {
     LOG.entering("NodeStructImpl", "getData");
-    final GroupCommunicationMessage gcm;
+    final GroupCommunicationMessage gcm = takeMessage();
+    if (checkDead(gcm)) {
+      LOG.exiting("NodeStructImpl", "getData", null);
+      return null;
+    }
+
+    final byte[] retVal;
+    if (!gcm.hasSegment()) {
+      if (msgHandler != null) {
+        msgHandler.onNext(gcm);
+      }
+      retVal = Utils.getData(gcm);
+    } else {
+      final Reassembler reassembler = new Reassembler();
+      retVal = receiveSegments(gcm, msgHandler, reassembler) ? reassembler.getData() : null;
+    }
+    LOG.exiting("NodeStructImpl", "getData", retVal);
+    return retVal;
+  }
+
+  @Override
+  public boolean getSegments(final EventHandler<byte[]> segmentHandler) {
+    LOG.entering("NodeStructImpl", "getSegments");
+    final GroupCommunicationMessage gcm = takeMessage();
+    final boolean retVal;
+    if (checkDead(gcm)) {
+      retVal = false;
+    } else if (!gcm.hasSegment()) {
+      segmentHandler.onNext(Utils.getData(gcm));
+      retVal = true;
+    } else {
+      retVal = receiveSegments(gcm, null, new EventHandler<GroupCommunicationMessage>() {
+        @Override
+        public void onNext(final GroupCommunicationMessage msg) {
+          segmentHandler.onNext(msg.getData()[0]);
+        }
+      });
+    }
+    LOG.exiting("NodeStructImpl", "getSegments", retVal);
+    return retVal;
+  }
+
+  /**
+   * Receive the segments of the message that {@code first} belongs to.
+   * The segments can arrive in any order: each message is passed to {@code msgHandler}, if not null,
+   * as soon as it is received, and each segment to {@code segmentHandler} in the order of the indices.
+   * The segments of this message are told apart from those of other messages by the message identifier.
+   * Messages that overtook the rest of this one are kept for the next receive.
+   *
+   * @return false if the node died or the sender aborted the message, possibly after some segments were handled
+   */
+  private boolean receiveSegments(final GroupCommunicationMessage first,
+                                  final EventHandler<GroupCommunicationMessage> msgHandler,
+                                  final EventHandler<GroupCommunicationMessage> segmentHandler) {
+    final Deque<GroupCommunicationMessage> earlier = new ArrayDeque<>(heldBack);
+    heldBack.clear();
+    final List<GroupCommunicationMessage> later = new ArrayList<>();
+    final Map<Integer, GroupCommunicationMessage> outOfOrder = new HashMap<>();
+    final int messageId = first.getSegment().getMessageId();
+    int numSegments = -1;
+    int abortIndex = -1;
+    int nextIndex = 0;
+    boolean dead = false;
+    GroupCommunicationMessage gcm = first;
+    while (true) {
+      if (checkDead(gcm)) {
+        LOG.fine(id + " died after sending " + nextIndex + " segments in order");
+        dead = true;
+        break;
+      }
+      final SegmentHeader header = gcm.getSegment();
+      if (header == null || header.getMessageId() != messageId) {
+        // the next message from this node overtook the rest of this one
+        later.add(gcm);
+      } else {
+        if (msgHandler != null) {
+          msgHandler.onNext(gcm);
+        }
+        if (header.isAborted()) {
+          abortIndex = header.getIndex();
+        } else {
+          numSegments = header.getNumSegments();
+          outOfOrder.put(header.getIndex(), gcm);
+          for (GroupCommunicationMessage next = outOfOrder.remove(nextIndex); next != null;
+               next = outOfOrder.remove(nextIndex)) {
+            segmentHandler.onNext(next);
+            nextIndex++;
+          }
+        }
+      }
+      if (nextIndex == abortIndex) {
+        LOG.fine(id + " aborted the message after sending " + abortIndex + " segments");
+        break;
+      }
+      if (abortIndex < 0 && nextIndex == numSegments) {
+        break;
+      }
+      gcm = earlier.isEmpty() ? takeMessage() : earlier.poll();
+    }
+    heldBack.addAll(later);
+    heldBack.addAll(earlier);
+    return !dead && abortIndex < 0;
+  }
+
+  private GroupCommunicationMessage takeMessage() {
+    if (!heldBack.isEmpty()) {
+      return heldBack.poll();
+    }
     try {
-      gcm = dataQue.take();
+      return dataQue.take();
     } catch (final InterruptedException e) {
       throw new RuntimeException("InterruptedException while waiting for data from " + id, e);
     }
+  }
 
-    final byte[] retVal = checkDead(gcm) ? null : Utils.getData(gcm);
-    LOG.exiting("NodeStructImpl", "getData", retVal);
-    return retVal;
+  /**
+   * Copies the segments of the data, in order, into one array.
+   */
+  private final class Reassembler implements EventHandler<GroupCommunicationMessage> {
+
+    private byte[] data;
+    private int position = 0;
+
+    @Override
+    public void onNext(final GroupCommunicationMessage msg) {
+      if (data == null) {
+        final int totalLength = msg.getSegment().getTotalLength();
+        if (totalLength == SegmentHeader.UNKNOWN_LENGTH) {
+          throw new RuntimeException("Received chunks of unknown total length from " + id + ", which cannot be "
+              + "reassembled");
+        }
+        data = new byte[totalLength];
+      }
+      final byte[] segment = msg.getData()[0];
+      System.arraycopy(segment, 0, data, position, segment.length);
+      position += segment.length;
+    }
+
+    byte[] getData() {
+      return data;
+    }
   }
 
   @Override
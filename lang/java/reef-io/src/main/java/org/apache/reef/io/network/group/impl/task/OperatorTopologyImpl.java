@@ -36,6 +36,7 @@ import org.apache.reef.wake.impl.SingleThreadStage;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
@@ -204,6 +205,17 @@ public class OperatorTopologyImpl implements OperatorTopology {
     LOG.exiting("OperatorTopologyImpl", "sendToParent", getQualifiedName());
   }
 
+  @Override
+  public <T> void sendToParent(final List<T> chunks, final Codec<T> dataCodec,
+                               final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType)
+      throws ParentDeadException {
+    LOG.entering("OperatorTopologyImpl", "sendToParent", new Object[] {getQualifiedName(), msgType});
+    refreshEffectiveTopology();
+    assert effectiveTopology != null;
+    effectiveTopology.sendToParent(chunks, dataCodec, msgType);
+    LOG.exiting("OperatorTopologyImpl", "sendToParent", getQualifiedName());
+  }
+
   @Override
   public void sendToChildren(final byte[] data, final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType)
       throws ParentDeadException {
@@ -236,6 +248,17 @@ public class OperatorTopologyImpl implements OperatorTopology {
     return retVal;
   }
 
+  @Override
+  public byte[] recvFromParentAndForward(final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType)
+      throws ParentDeadException {
+    LOG.entering("OperatorTopologyImpl", "recvFromParentAndForward", new Object[] {getQualifiedName(), msgType});
+    refreshEffectiveTopology();
+    assert effectiveTopology != null;
+    final byte[] retVal = effectiveTopology.recvFromParentAndForward(msgType);
+    LOG.exiting("OperatorTopologyImpl", "recvFromParentAndForward", getQualifiedName());
+    return retVal;
+  }
+
   @Override
   public <T> T recvFromChildren(final Reduce.ReduceFunction<T> redFunc, final Codec<T> dataCodec)
       throws ParentDeadException {
@@ -248,11 +271,21 @@ public class OperatorTopologyImpl implements OperatorTopology {
   }
 
   @Override
-  public byte[] recvFromChildren() throws ParentDeadException {
+  public <T> void recvFromChildren(final List<T> chunks, final Reduce.ChunkedReduceFunction<T> redFunc,
+                                   final Codec<T> dataCodec) throws ParentDeadException {
+    LOG.entering("OperatorTopologyImpl", "recvFromChildren", getQualifiedName());
+    refreshEffectiveTopology();
+    assert effectiveTopology != null;
+    effectiveTopology.recvFromChildren(chunks, redFunc, dataCodec);
+    LOG.exiting("OperatorTopologyImpl", "recvFromChildren", getQualifiedName());
+  }
+
+  @Override
+  public List<byte[]> recvFromChildren() throws ParentDeadException {
     LOG.entering("OperatorTopologyImpl", "recvFromChildren", getQualifiedName());
     refreshEffectiveTopology();
     assert effectiveTopology != null;
-    final byte[] retVal = effectiveTopology.recvFromChildren();
+    final List<byte[]> retVal = effectiveTopology.recvFromChildren();
     LOG.exiting("OperatorTopologyImpl", "recvFromChildren", getQualifiedName());
     return retVal;
   }
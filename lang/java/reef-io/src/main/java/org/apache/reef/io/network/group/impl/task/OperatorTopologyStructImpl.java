@@ -18,23 +18,26 @@
  */
 package org.apache.reef.io.network.group.impl.task;
 
-import org.apache.commons.lang.ArrayUtils;
 import org.apache.reef.exception.evaluator.NetworkException;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
 import org.apache.reef.io.network.group.api.operators.Reduce.ReduceFunction;
 import org.apache.reef.io.network.group.api.task.NodeStruct;
 import org.apache.reef.io.network.group.api.task.OperatorTopologyStruct;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.group.impl.operators.Sender;
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
 import org.apache.reef.io.network.group.impl.utils.Utils;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
 import org.apache.reef.io.serialization.Codec;
 import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.wake.EventHandler;
 
 import java.util.*;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
@@ -42,8 +45,17 @@ import java.util.logging.Logger;
  */
 public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
 
+  /**
+   * Data longer than this is sent in segments of this length.
+   */
   private static final int SMALL_MSG_LENGTH = 1 << 20;
 
+  /**
+   * Identifiers of the messages sent in segments. Shared by all the topologies of the process, so that the
+   * segments of two messages to the same node never get the same identifier, even across topology updates.
+   */
+  private static final AtomicInteger MESSAGE_IDS = new AtomicInteger();
+
   private static final Logger LOG = Logger.getLogger(OperatorTopologyStructImpl.class.getName());
 
   private final Class<? extends Name<String>> groupName;
@@ -148,11 +160,14 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
     final String srcId = msg.getSrcid();
     final NodeStruct node = findNode(srcId);
     if (node != null) {
-      try {
-        nodesWithData.put(node);
-        LOG.finest(getQualifiedName() + "Added node " + srcId + " to nodesWithData queue");
-      } catch (final InterruptedException e) {
-        throw new RuntimeException("InterruptedException while adding to childrenWithData queue", e);
+      // the node is queued once per message, not once per segment
+      if (!msg.hasSegment() || msg.getSegment().getIndex() == 0) {
+        try {
+          nodesWithData.put(node);
+          LOG.finest(getQualifiedName() + "Added node " + srcId + " to nodesWithData queue");
+        } catch (final InterruptedException e) {
+          throw new RuntimeException("InterruptedException while adding to childrenWithData queue", e);
+        }
       }
       node.addData(msg);
     } else {
@@ -174,99 +189,92 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
     return retVal;
   }
 
-  private void sendToNode(final byte[] data,
-                          final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType,
-                          final NodeStruct node) {
-    LOG.entering("OperatorTopologyStructImpl", "sendToNode", new Object[]{getQualifiedName(), msgType, node});
-    final String nodeId = node.getId();
-    try {
+  /**
+   * Sends each data to its node. Data longer than SMALL_MSG_LENGTH is sent in segments of that length,
+   * and the segments for the different nodes are interleaved, so that every node starts receiving,
+   * and forwarding down the tree, before the whole data has been sent to the other nodes.
+   * Each segment of an array sent to several nodes is copied out of it once.
+   */
+  private void sendToNodes(final Map<NodeStruct, byte[]> dataOfNodes,
+                           final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
+    LOG.entering("OperatorTopologyStructImpl", "sendToNodes", new Object[]{getQualifiedName(), msgType});
+    final int messageId = MESSAGE_IDS.getAndIncrement();
+    boolean moreSegments = true;
+    for (int index = 0; moreSegments; index++) {
+      moreSegments = false;
+      final Map<byte[], byte[]> segments = new IdentityHashMap<>();
+      for (final Map.Entry<NodeStruct, byte[]> entry : dataOfNodes.entrySet()) {
+        moreSegments |= sendSegment(entry.getValue(), messageId, index, msgType, entry.getKey(), segments);
+      }
+    }
+    LOG.exiting("OperatorTopologyStructImpl", "sendToNodes", getQualifiedName());
+  }
 
-      if (data.length > SMALL_MSG_LENGTH) {
-        LOG.finest(getQualifiedName() + "Msg too big. Sending readiness to send " + msgType + " msg to " + nodeId);
-        sender.send(Utils.bldVersionedGCM(groupName, operName, msgType, selfId, version, nodeId, node.getVersion(),
-            Utils.EMPTY_BYTE_ARR));
-        final byte[] tmpVal = receiveFromNode(node, true);
-        if (tmpVal != null) {
-          LOG.finest(getQualifiedName() + "Got readiness to accept " + msgType + " msg from " + nodeId
-              + ". Will send actual msg now");
-        } else {
-          LOG.exiting("OperatorTopologyStructImpl", "sendToNode", getQualifiedName());
-          return;
-        }
+  /**
+   * Sends the segment at {@code index} of the data to the node, if the data has one.
+   *
+   * @param segments the segments at {@code index} already copied out of each data
+   * @return whether the data has segments after this one
+   */
+  private boolean sendSegment(final byte[] data, final int messageId, final int index,
+                              final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType,
+                              final NodeStruct node, final Map<byte[], byte[]> segments) {
+    final int numSegments = data.length == 0 ? 1 : (data.length - 1) / SMALL_MSG_LENGTH + 1;
+    if (index >= numSegments) {
+      return false;
+    }
+    if (numSegments == 1) {
+      sendToNode(node, msgType, data);
+    } else {
+      byte[] segment = segments.get(data);
+      if (segment == null) {
+        final int from = index * SMALL_MSG_LENGTH;
+        segment = Arrays.copyOfRange(data, from, from + Math.min(SMALL_MSG_LENGTH, data.length - from));
+        segments.put(data, segment);
       }
+      LOG.finest(getQualifiedName() + "Sending segment " + index + " of " + numSegments + " of " + msgType
+          + " msg to " + node.getId());
+      sendToNode(node, msgType, new SegmentHeader(messageId, index, numSegments, data.length), segment);
+    }
+    return index + 1 < numSegments;
+  }
 
-      sender.send(Utils.bldVersionedGCM(groupName, operName, msgType, selfId, version, nodeId, node.getVersion(),
-          data));
+  private void sendToNode(final NodeStruct node,
+                          final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType,
+                          final byte[]... data) {
+    send(node, msgType, Utils.bldVersionedGCM(groupName, operName, msgType, selfId, version, node.getId(),
+        node.getVersion(), data));
+  }
 
-      if (data.length > SMALL_MSG_LENGTH) {
-        LOG.finest(getQualifiedName() + "Msg too big. Will wait for ACK before queing up one more msg");
-        final byte[] tmpVal = receiveFromNode(node, true);
-        if (tmpVal != null) {
-          LOG.finest(getQualifiedName() + "Got " + msgType + " msg received ACK from " + nodeId
-              + ". Will move to next msg if it exists");
-        } else {
-          LOG.exiting("OperatorTopologyStructImpl", "sendToNode", getQualifiedName());
-          return;
-        }
-      }
+  private void sendToNode(final NodeStruct node,
+                          final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType,
+                          final SegmentHeader segment, final byte[] data) {
+    send(node, msgType, Utils.bldSegmentGCM(groupName, operName, msgType, selfId, version, node.getId(),
+        node.getVersion(), segment, data));
+  }
+
+  private void send(final NodeStruct node, final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType,
+                    final GroupCommunicationMessage msg) {
+    try {
+      sender.send(msg);
     } catch (final NetworkException e) {
       throw new RuntimeException(
-          "NetworkException while sending " + msgType + " data from " + selfId + " to " + nodeId,
+          "NetworkException while sending " + msgType + " data from " + selfId + " to " + node.getId(),
           e);
     }
-    LOG.exiting("OperatorTopologyStructImpl", "sendToNode", getQualifiedName());
-  }
-
-  private byte[] receiveFromNode(final NodeStruct node, final boolean remove) {
-    LOG.entering("OperatorTopologyStructImpl", "receiveFromNode", new Object[]{getQualifiedName(), node, remove});
-    final byte[] retVal = node.getData();
-    if (remove) {
-      final boolean removed = nodesWithData.remove(node);
-      final String msg = getQualifiedName() + "Removed(" + removed + ") node " + node.getId()
-          + " from nodesWithData queue";
-      if (removed) {
-        LOG.finest(msg);
-      } else {
-        LOG.fine(msg);
-      }
-    }
-    LOG.exiting("OperatorTopologyStructImpl", "receiveFromNode", getQualifiedName());
-    return retVal;
   }
 
   /**
-   * Receive data from {@code node}, while checking if it is trying to send a big message.
-   * Nodes that send big messages will first send an empty data message and
-   * wait for an ACK before transmitting the actual big message. Thus the
-   * receiving side checks whether a message is empty or not, and after sending
-   * an ACK it must wait for another message if the first message was empty.
+   * Receive data from {@code node}. A large message is reassembled from its segments.
    *
    * @param node node to receive a message from
-   * @param msgType message type
+   * @param msgHandler handler of the messages that carry the data, or null
    * @return message sent from {@code node}
    */
-  private byte[] recvFromNodeCheckBigMsg(final NodeStruct node,
-                                         final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
-    LOG.entering("OperatorTopologyStructImpl", "recvFromNodeCheckBigMsg", new Object[]{node, msgType});
-
-    byte[] retVal = receiveFromNode(node, false);
-    if (retVal != null && retVal.length == 0) {
-      LOG.finest(getQualifiedName() + " Got msg that node " + node.getId()
-          + " has large data and is ready to send it. Sending ACK to receive data.");
-      sendToNode(Utils.EMPTY_BYTE_ARR, msgType, node);
-      retVal = receiveFromNode(node, true);
-
-      if (retVal != null) {
-        LOG.finest(getQualifiedName() + " Received large msg from node " + node.getId()
-            + ". Will process it after ACKing.");
-        sendToNode(Utils.EMPTY_BYTE_ARR, msgType, node);
-      } else {
-        LOG.warning(getQualifiedName() + "Expected large msg from node " + node.getId()
-            + " but received nothing.");
-      }
-    }
-
-    LOG.exiting("OperatorTopologyStructImpl", "recvFromNodeCheckBigMsg");
+  private byte[] receiveFromNode(final NodeStruct node, final EventHandler<GroupCommunicationMessage> msgHandler) {
+    LOG.entering("OperatorTopologyStructImpl", "receiveFromNode", new Object[]{getQualifiedName(), node});
+    final byte[] retVal = node.getData(msgHandler);
+    LOG.exiting("OperatorTopologyStructImpl", "receiveFromNode", getQualifiedName());
     return retVal;
   }
 
@@ -293,7 +301,26 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
   public void sendToParent(final byte[] data, final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
     LOG.entering("OperatorTopologyStructImpl", "sendToParent", new Object[]{getQualifiedName(), msgType});
     if (parent != null) {
-      sendToNode(data, msgType, parent);
+      sendToNodes(Collections.singletonMap(parent, data), msgType);
+    } else {
+      LOG.fine(getQualifiedName() + "Perhaps parent has died or has not been configured");
+    }
+    LOG.exiting("OperatorTopologyStructImpl", "sendToParent", getQualifiedName());
+  }
+
+  @Override
+  public <T> void sendToParent(final List<T> chunks, final Codec<T> dataCodec,
+                               final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
+    LOG.entering("OperatorTopologyStructImpl", "sendToParent", new Object[]{getQualifiedName(), msgType});
+    if (parent != null) {
+      final int messageId = MESSAGE_IDS.getAndIncrement();
+      final int numChunks = chunks.size();
+      for (int index = 0; index < numChunks; index++) {
+        LOG.finest(getQualifiedName() + "Sending chunk " + index + " of " + numChunks + " of " + msgType
+            + " msg to " + parent.getId());
+        sendToNode(parent, msgType, new SegmentHeader(messageId, index, numChunks, SegmentHeader.UNKNOWN_LENGTH),
+            dataCodec.encode(chunks.get(index)));
+      }
     } else {
       LOG.fine(getQualifiedName() + "Perhaps parent has died or has not been configured");
     }
@@ -303,9 +330,11 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
   @Override
   public void sendToChildren(final byte[] data, final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
     LOG.entering("OperatorTopologyStructImpl", "sendToChildren", new Object[]{getQualifiedName(), msgType});
+    final Map<NodeStruct, byte[]> dataOfChildren = new LinkedHashMap<>();
     for (final NodeStruct child : children) {
-      sendToNode(data, msgType, child);
+      dataOfChildren.put(child, data);
     }
+    sendToNodes(dataOfChildren, msgType);
     LOG.exiting("OperatorTopologyStructImpl", "sendToChildren", getQualifiedName());
   }
 
@@ -313,13 +342,15 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
   public void sendToChildren(final Map<String, byte[]> dataMap,
                              final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
     LOG.entering("OperatorTopologyStructImpl", "sendToChildren", new Object[]{getQualifiedName(), msgType});
+    final Map<NodeStruct, byte[]> dataOfChildren = new LinkedHashMap<>();
     for (final NodeStruct child : children) {
       if (dataMap.containsKey(child.getId())) {
-        sendToNode(dataMap.get(child.getId()), msgType, child);
+        dataOfChildren.put(child, dataMap.get(child.getId()));
       } else {
         throw new RuntimeException("No message specified for " + child.getId() + " in dataMap.");
       }
     }
+    sendToNodes(dataOfChildren, msgType);
     LOG.exiting("OperatorTopologyStructImpl", "sendToChildren", getQualifiedName());
   }
 
@@ -327,11 +358,48 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
   public byte[] recvFromParent(final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
     LOG.entering("OperatorTopologyStructImpl", "recvFromParent", getQualifiedName());
     LOG.finest(getQualifiedName() + "Waiting for " + parent.getId() + " to send data");
-    final byte[] retVal = recvFromNodeCheckBigMsg(parent, msgType);
+    final byte[] retVal = receiveFromNode(parent, null);
     LOG.exiting("OperatorTopologyStructImpl", "recvFromParent", getQualifiedName());
     return retVal;
   }
 
+  /**
+   * Receive data from the parent and forward each message that carries it to the children as soon as it arrives.
+   * If the parent dies before the whole data was received, the children are sent an abort in place of
+   * the segments that will not come, so that they receive null instead of waiting, like this node.
+   * The forwarded segments get an identifier of this node, as the children receive its own messages too.
+   */
+  @Override
+  public byte[] recvFromParentAndForward(final ReefNetworkGroupCommProtos.GroupCommMessage.Type msgType) {
+    LOG.entering("OperatorTopologyStructImpl", "recvFromParentAndForward", getQualifiedName());
+    LOG.finest(getQualifiedName() + "Waiting for " + parent.getId() + " to send data");
+    final int[] numForwarded = new int[1];
+    final int messageId = MESSAGE_IDS.getAndIncrement();
+    final byte[] retVal = receiveFromNode(parent, new EventHandler<GroupCommunicationMessage>() {
+      @Override
+      public void onNext(final GroupCommunicationMessage msg) {
+        // forward each segment as it arrives instead of waiting for the whole message
+        for (final NodeStruct child : children) {
+          if (msg.hasSegment()) {
+            sendToNode(child, msgType, msg.getSegment().withMessageId(messageId), msg.getData()[0]);
+          } else {
+            sendToNode(child, msgType, msg.getData());
+          }
+        }
+        numForwarded[0] = msg.hasSegment() && msg.getSegment().isAborted() ? -1 : numForwarded[0] + 1;
+      }
+    });
+    if (retVal == null && numForwarded[0] >= 0) {
+      LOG.fine(getQualifiedName() + "Did not receive the whole data from " + parent.getId()
+          + ". Aborting the message to the children after " + numForwarded[0] + " segments");
+      for (final NodeStruct child : children) {
+        sendToNode(child, msgType, SegmentHeader.abort(messageId, numForwarded[0]), Utils.EMPTY_BYTE_ARR);
+      }
+    }
+    LOG.exiting("OperatorTopologyStructImpl", "recvFromParentAndForward", getQualifiedName());
+    return retVal;
+  }
+
   @Override
   public <T> T recvFromChildren(final ReduceFunction<T> redFunc, final Codec<T> dataCodec) {
     LOG.entering("OperatorTopologyStructImpl", "recvFromChildren", new Object[]{getQualifiedName(), redFunc,
@@ -344,8 +412,12 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
     while (!childrenToRcvFrom.isEmpty()) {
       LOG.finest(getQualifiedName() + "Waiting for some child to send data");
       final NodeStruct child = nodesWithDataTakeUnsafe();
-      final byte[] retVal = recvFromNodeCheckBigMsg(child,
-          ReefNetworkGroupCommProtos.GroupCommMessage.Type.Reduce);
+      if (!childrenToRcvFrom.contains(child.getId())) {
+        // the parent, left in the queue by an earlier recvFromParent() of an operator that uses both directions
+        LOG.finest(getQualifiedName() + "Skipping " + child.getId() + ", which is not a child to receive from");
+        continue;
+      }
+      final byte[] retVal = receiveFromNode(child, null);
 
       if (retVal != null) {
         retLst.add(dataCodec.decode(retVal));
@@ -363,28 +435,90 @@ public class OperatorTopologyStructImpl implements OperatorTopologyStruct {
   }
 
   /**
-   * Receive data from all children as a single byte array.
-   * Messages from children are simply byte-concatenated.
-   * This method is currently used only by the Gather operator.
+   * Receive the chunks of all children. The chunks of a child are decoded as soon as they arrive,
+   * and combined into the accumulated chunks at the same index once the child has sent all of them.
+   * The chunks of the first child are kept as the accumulated chunks if there are none.
+   * A child that dies before sending all its chunks is ignored, as in the other reductions,
+   * so the decoded chunks of a child are held until it has sent all of them.
+   * The segments of the other children queue up in their {@link NodeStruct} while a child is read,
+   * so up to the encoded values of all the children can be held besides the accumulated chunks.
+   */
+  @Override
+  public <T> void recvFromChildren(final List<T> chunks, final ChunkedReduceFunction<T> redFunc,
+                                   final Codec<T> dataCodec) {
+    LOG.entering("OperatorTopologyStructImpl", "recvFromChildren", new Object[]{getQualifiedName(), redFunc,
+        dataCodec});
+    for (final NodeStruct child : children) {
+      childrenToRcvFrom.add(child.getId());
+    }
+
+    while (!childrenToRcvFrom.isEmpty()) {
+      LOG.finest(getQualifiedName() + "Waiting for some child to send data");
+      final NodeStruct child = nodesWithDataTakeUnsafe();
+      if (!childrenToRcvFrom.contains(child.getId())) {
+        // the parent, left in the queue by an earlier recvFromParent() of an operator that uses both directions
+        LOG.finest(getQualifiedName() + "Skipping " + child.getId() + ", which is not a child to receive from");
+        continue;
+      }
+      final boolean first = chunks.isEmpty();
+      final int numChunks = chunks.size();
+      final List<T> received = first ? chunks : new ArrayList<T>(numChunks);
+      final boolean complete = child.getSegments(new EventHandler<byte[]>() {
+        @Override
+        public void onNext(final byte[] segment) {
+          if (!first && received.size() == numChunks) {
+            throw new RuntimeException(getQualifiedName() + "Received more than " + numChunks + " chunks from "
+                + child.getId());
+          }
+          received.add(dataCodec.decode(segment));
+        }
+      });
+      if (!complete) {
+        LOG.fine(getQualifiedName() + child.getId() + " died after sending " + received.size()
+            + " chunks. Leaving it out of the reduction");
+        received.clear();
+      } else if (!first) {
+        if (received.size() != numChunks) {
+          throw new RuntimeException(getQualifiedName() + "Received " + received.size() + " chunks from "
+              + child.getId() + " instead of " + numChunks);
+        }
+        for (int index = 0; index < numChunks; index++) {
+          chunks.set(index, redFunc.combine(chunks.get(index), received.set(index, null)));
+        }
+      }
+      childrenToRcvFrom.remove(child.getId());
+    }
+    LOG.exiting("OperatorTopologyStructImpl", "recvFromChildren", getQualifiedName());
+  }
+
+  /**
+   * Receive data from all children.
+   * The data of each child is kept as it was received instead of being concatenated,
+   * so that the caller can decode it in place or merge it with a single copy.
+   * This method is used by the Gather-like operators.
    *
-   * @return gathered data as a byte array
+   * @return the data received from each child, in the order it arrived
    */
   @Override
-  public byte[] recvFromChildren() {
+  public List<byte[]> recvFromChildren() {
     LOG.entering("OperatorTopologyStructImpl", "recvFromChildren", getQualifiedName());
     for (final NodeStruct child : children) {
       childrenToRcvFrom.add(child.getId());
     }
 
-    byte[] retVal = new byte[0];
+    final List<byte[]> retVal = new ArrayList<>(children.size());
     while (!childrenToRcvFrom.isEmpty()) {
       LOG.finest(getQualifiedName() + "Waiting for some child to send data");
       final NodeStruct child = nodesWithDataTakeUnsafe();
-      final byte[] receivedVal = recvFromNodeCheckBigMsg(child,
-          ReefNetworkGroupCommProtos.GroupCommMessage.Type.Gather);
+      if (!childrenToRcvFrom.contains(child.getId())) {
+        // the parent, left in the queue by an earlier recvFromParent() of an operator that uses both directions
+        LOG.finest(getQualifiedName() + "Skipping " + child.getId() + ", which is not a child to receive from");
+        continue;
+      }
+      final byte[] receivedVal = receiveFromNode(child, null);
 
       if (receivedVal != null) {
-        retVal = ArrayUtils.addAll(retVal, receivedVal);
+        retVal.add(receivedVal);
       }
       childrenToRcvFrom.remove(child.getId());
     }
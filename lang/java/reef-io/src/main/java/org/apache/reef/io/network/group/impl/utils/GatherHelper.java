@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.utils;
+
+import org.apache.reef.io.serialization.Codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Utility class for the Gather and AllGather operators.
+ * Gathered data is a sequence of records, each made of a task identifier,
+ * the length of the encoded element of the task and the encoded element.
+ */
+public final class GatherHelper {
+
+  /**
+   * Should not be instantiated.
+   */
+  private GatherHelper() {
+  }
+
+  /**
+   * Write the record of a task followed by the records gathered from its children.
+   * The result is allocated once at its exact size, so merging is linear in the total length.
+   *
+   * @param taskId identifier of the task
+   * @param encodedData encoded element of the task
+   * @param dataFromChildren records received from each child, as received
+   * @return the merged records
+   * @throws IOException if the task identifier cannot be encoded
+   */
+  public static byte[] merge(final String taskId, final byte[] encodedData, final List<byte[]> dataFromChildren)
+      throws IOException {
+    final byte[] header;
+    try (final ByteArrayOutputStream bstream = new ByteArrayOutputStream();
+         final DataOutputStream dstream = new DataOutputStream(bstream)) {
+      dstream.writeUTF(taskId);
+      dstream.writeInt(encodedData.length);
+      dstream.flush();
+      header = bstream.toByteArray();
+    }
+
+    int length = header.length + encodedData.length;
+    for (final byte[] data : dataFromChildren) {
+      length += data.length;
+    }
+
+    final byte[] merged = new byte[length];
+    System.arraycopy(header, 0, merged, 0, header.length);
+    int offset = header.length;
+    System.arraycopy(encodedData, 0, merged, offset, encodedData.length);
+    offset += encodedData.length;
+    for (final byte[] data : dataFromChildren) {
+      System.arraycopy(data, 0, merged, offset, data.length);
+      offset += data.length;
+    }
+    return merged;
+  }
+
+  /**
+   * Decode the records of gathered data into a map of task identifiers to elements.
+   *
+   * @param gatheredData the records
+   * @param dataCodec codec of the elements
+   * @param mapOfTaskIdToData map to add the decoded elements to
+   * @param <T> type of the elements
+   * @throws IOException if the records are malformed
+   */
+  public static <T> void decode(final byte[] gatheredData, final Codec<T> dataCodec,
+                                final Map<String, T> mapOfTaskIdToData) throws IOException {
+    try (final DataInputStream dstream = new DataInputStream(new ByteArrayInputStream(gatheredData))) {
+      while (dstream.available() > 0) {
+        final String identifier = dstream.readUTF();
+        final byte[] data = new byte[dstream.readInt()];
+        dstream.readFully(data);
+        mapOfTaskIdToData.put(identifier, dataCodec.decode(data));
+      }
+    }
+  }
+}
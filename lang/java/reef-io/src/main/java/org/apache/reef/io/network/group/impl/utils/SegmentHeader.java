@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.utils;
+
+/**
+ * Header of a segment of a large message sent between tasks of an operator topology,
+ * the {@code segment} field of the GroupCommMessage proto.
+ * <p>
+ * Large data is sent as a sequence of segments. Each segment is a message with the header set
+ * and the bytes of the segment as its only data element, while other messages have no header.
+ * All the segments of a message carry the identifier that the sender gave to the message.
+ * The segments can arrive in any order when the link has several channels, also interleaved with the segments
+ * of the next message, so the receiver collects them by the message identifier and puts them in order by index.
+ * <p>
+ * The chunks of a value reduced chunk by chunk are sent as segments as well, each one encoded on its own.
+ * Their total length is not known in advance, and they are combined one by one instead of being appended.
+ * <p>
+ * A sender that forwards the segments it receives and loses its source halfway sends an aborted header
+ * in place of the next segment, so that the receiver does not wait for the rest.
+ */
+public final class SegmentHeader {
+
+  /**
+   * Total length of segments that are encoded one by one and cannot be reassembled into one array.
+   */
+  public static final int UNKNOWN_LENGTH = -1;
+
+  private final int messageId;
+  private final int index;
+  private final int numSegments;
+  private final int totalLength;
+  private final boolean aborted;
+
+  /**
+   * Create a {@code SegmentHeader} for the segment at {@code index} of data of {@code totalLength} bytes.
+   */
+  public SegmentHeader(final int messageId, final int index, final int numSegments, final int totalLength) {
+    this(messageId, index, numSegments, totalLength, false);
+  }
+
+  /**
+   * Create a {@code SegmentHeader} for the segment at {@code index}, or for the abort of the segments
+   * from {@code index} on.
+   */
+  public SegmentHeader(final int messageId, final int index, final int numSegments, final int totalLength,
+                       final boolean aborted) {
+    this.messageId = messageId;
+    this.index = index;
+    this.numSegments = numSegments;
+    this.totalLength = totalLength;
+    this.aborted = aborted;
+  }
+
+  /**
+   * Returns the header sent in place of the segment at {@code index} when no more segments will follow.
+   *
+   * @param messageId the identifier of the message
+   * @param index the number of segments that were sent before
+   */
+  public static SegmentHeader abort(final int messageId, final int index) {
+    return new SegmentHeader(messageId, index, 0, UNKNOWN_LENGTH, true);
+  }
+
+  /**
+   * Returns this header for the message with another identifier, e.g. to forward the segment as a message
+   * of the forwarding task.
+   */
+  public SegmentHeader withMessageId(final int newMessageId) {
+    return new SegmentHeader(newMessageId, index, numSegments, totalLength, aborted);
+  }
+
+  /**
+   * @return the identifier the sender gave to the message, the same for all its segments
+   */
+  public int getMessageId() {
+    return messageId;
+  }
+
+  /**
+   * @return the position of the segment in the data, starting at 0
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * @return the number of segments of the data, or 0 if aborted
+   */
+  public int getNumSegments() {
+    return numSegments;
+  }
+
+  /**
+   * @return the length of the whole data in bytes, or {@link #UNKNOWN_LENGTH}
+   */
+  public int getTotalLength() {
+    return totalLength;
+  }
+
+  /**
+   * @return whether the segments from the index on will not be sent
+   */
+  public boolean isAborted() {
+    return aborted;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SegmentHeader)) {
+      return false;
+    }
+    final SegmentHeader that = (SegmentHeader) obj;
+    return messageId == that.messageId && index == that.index && numSegments == that.numSegments
+        && totalLength == that.totalLength && aborted == that.aborted;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = messageId;
+    result = 31 * result + index;
+    result = 31 * result + numSegments;
+    result = 31 * result + totalLength;
+    result = 31 * result + (aborted ? 1 : 0);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    if (aborted) {
+      return "Abort of message " + messageId + " from segment " + index;
+    }
+    return "Segment " + index + " of " + numSegments + " of message " + messageId + " (" + totalLength + " bytes)";
+  }
+}
@@ -19,11 +19,14 @@
 package org.apache.reef.io.network.group.impl.utils;
 
 import org.apache.reef.io.network.Message;
+import org.apache.reef.io.network.group.api.operators.Reduce.ChunkedReduceFunction;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
 import org.apache.reef.tang.annotations.Name;
 
+import java.util.AbstractList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Utility class for group communications.
@@ -43,6 +46,21 @@ public final class Utils {
         dstVersion, data);
   }
 
+  /**
+   * Build a message that carries the segment of large data described by {@code segment}.
+   */
+  public static GroupCommunicationMessage bldSegmentGCM(final Class<? extends Name<String>> groupName,
+                                                        final Class<? extends Name<String>> operName,
+                                                        final ReefNetworkGroupCommProtos.GroupCommMessage.Type
+                                                            msgType,
+                                                        final String from, final int srcVersion,
+                                                        final String to, final int dstVersion,
+                                                        final SegmentHeader segment, final byte[] data) {
+
+    return new GroupCommunicationMessage(groupName.getName(), operName.getName(), msgType, from, srcVersion, to,
+        dstVersion, new byte[][]{data}, segment);
+  }
+
   public static Class<? extends Name<String>> getClass(final String className) {
     try {
       return (Class<? extends Name<String>>) Class.forName(className);
@@ -59,6 +77,40 @@ public final class Utils {
     }
   }
 
+  /**
+   * Combine the chunks of a value into the chunks reduced so far, one chunk of the value at a time,
+   * so that the value is never copied whole.
+   *
+   * @param redFunc the function that splits the value and combines the chunks
+   * @param chunks the chunks reduced so far, updated in place, or an empty list if there are none
+   * @param value the value to combine
+   * @return {@code chunks}, or if it is empty, the chunks of value, each one made when it is read
+   */
+  public static <T> List<T> combineChunks(final ChunkedReduceFunction<T> redFunc, final List<T> chunks,
+                                          final T value) {
+    final int numChunks = redFunc.getNumChunks(value);
+    if (chunks.isEmpty()) {
+      return new AbstractList<T>() {
+        @Override
+        public T get(final int index) {
+          return redFunc.getChunk(value, index);
+        }
+
+        @Override
+        public int size() {
+          return numChunks;
+        }
+      };
+    }
+    if (chunks.size() != numChunks) {
+      throw new RuntimeException("Received " + chunks.size() + " chunks but the value has " + numChunks);
+    }
+    for (int index = 0; index < numChunks; index++) {
+      chunks.set(index, redFunc.combine(chunks.get(index), redFunc.getChunk(value, index)));
+    }
+    return chunks;
+  }
+
   public static byte[] getData(final GroupCommunicationMessage gcm) {
     return (gcm.getMsgsCount() == 1) ? gcm.getData()[0] : null;
   }
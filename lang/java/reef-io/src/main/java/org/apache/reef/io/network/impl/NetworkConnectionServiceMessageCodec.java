@@ -18,9 +18,12 @@
  */
 package org.apache.reef.io.network.impl;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
 import org.apache.reef.wake.Identifier;
 import org.apache.reef.wake.IdentifierFactory;
 import org.apache.reef.wake.remote.Codec;
+import org.apache.reef.wake.remote.transport.netty.ByteBufEncoder;
 
 import java.io.*;
 import java.util.ArrayList;
@@ -28,15 +31,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  * DefaultNetworkMessageCodec implementation.
  * This codec encodes/decodes NetworkConnectionServiceMessageImpl according to the type <T>.
  */
-final class NetworkConnectionServiceMessageCodec implements Codec<NetworkConnectionServiceMessage> {
-  private static final Logger LOG = Logger.getLogger(NetworkConnectionServiceMessageCodec.class.getName());
+final class NetworkConnectionServiceMessageCodec implements StreamingCodec<NetworkConnectionServiceMessage>,
+    ByteBufEncoder<NetworkConnectionServiceMessage> {
 
   private final IdentifierFactory factory;
   /**
@@ -66,33 +67,56 @@ final class NetworkConnectionServiceMessageCodec implements Codec<NetworkConnect
    */
   @Override
   public byte[] encode(final NetworkConnectionServiceMessage obj) {
-    final Codec codec = connFactoryMap.get(obj.getConnectionFactoryId()).getCodec();
-    Boolean isStreamingCodec = isStreamingCodecMap.get(codec);
-    if (isStreamingCodec == null) {
-      isStreamingCodec = codec instanceof StreamingCodec;
-      isStreamingCodecMap.putIfAbsent(codec, isStreamingCodec);
-    }
-
     try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
       try (final DataOutputStream daos = new DataOutputStream(baos)) {
-        daos.writeUTF(obj.getConnectionFactoryId());
-        daos.writeUTF(obj.getSrcId().toString());
-        daos.writeUTF(obj.getDestId().toString());
-        daos.writeInt(obj.getData().size());
+        encodeToStream(obj, daos);
+        return baos.toByteArray();
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException("IOException", e);
+    }
+  }
 
-        if (isStreamingCodec) {
-          for (final Object rec : obj.getData()) {
-            ((StreamingCodec) codec).encodeToStream(rec, daos);
-          }
-        } else {
-          final Iterable dataList = obj.getData();
-          for (final Object message : dataList) {
-            final byte[] bytes = codec.encode(message);
-            daos.writeInt(bytes.length);
-            daos.write(bytes);
-          }
+  /**
+   * Encodes a network connection service message straight into a buffer of the transport.
+   * The bytes are the same as the ones returned by encode(obj).
+   * @param obj a message
+   * @param out the buffer to write to
+   */
+  @Override
+  public void encode(final NetworkConnectionServiceMessage obj, final ByteBuf out) {
+    try (final DataOutputStream daos = new DataOutputStream(new ByteBufOutputStream(out))) {
+      encodeToStream(obj, daos);
+    } catch (final IOException e) {
+      throw new RuntimeException("IOException", e);
+    }
+  }
+
+  /**
+   * Encodes a network connection service message to a stream.
+   * @param obj a message
+   * @param daos the stream to write to
+   */
+  @Override
+  public void encodeToStream(final NetworkConnectionServiceMessage obj, final DataOutputStream daos) {
+    final Codec codec = connFactoryMap.get(obj.getConnectionFactoryId()).getCodec();
+    try {
+      daos.writeUTF(obj.getConnectionFactoryId());
+      daos.writeUTF(obj.getSrcId().toString());
+      daos.writeUTF(obj.getDestId().toString());
+      daos.writeInt(obj.getData().size());
+
+      if (isStreamingCodec(codec)) {
+        for (final Object rec : obj.getData()) {
+          ((StreamingCodec) codec).encodeToStream(rec, daos);
+        }
+      } else {
+        final Iterable dataList = obj.getData();
+        for (final Object message : dataList) {
+          final byte[] bytes = codec.encode(message);
+          daos.writeInt(bytes.length);
+          daos.write(bytes);
         }
-        return baos.toByteArray();
       }
     } catch (final IOException e) {
       throw new RuntimeException("IOException", e);
@@ -109,43 +133,61 @@ final class NetworkConnectionServiceMessageCodec implements Codec<NetworkConnect
   public NetworkConnectionServiceMessage decode(final byte[] data) {
     try (final ByteArrayInputStream bais = new ByteArrayInputStream(data)) {
       try (final DataInputStream dais = new DataInputStream(bais)) {
-        final String connFactoryId = dais.readUTF();
-        final Identifier srcId = factory.getNewInstance(dais.readUTF());
-        final Identifier destId = factory.getNewInstance(dais.readUTF());
-        final int size = dais.readInt();
-        final List list = new ArrayList(size);
-        final Codec codec = connFactoryMap.get(connFactoryId).getCodec();
-        Boolean isStreamingCodec = isStreamingCodecMap.get(codec);
-        if (isStreamingCodec == null) {
-          isStreamingCodec = codec instanceof StreamingCodec;
-          isStreamingCodecMap.putIfAbsent(codec, isStreamingCodec);
-        }
+        return decodeFromStream(dais);
+      }
+    } catch (final IOException e) {
+      throw new RuntimeException("IOException", e);
+    }
+  }
 
-        if (isStreamingCodec) {
-          for (int i = 0; i < size; i++) {
-            list.add(((StreamingCodec) codec).decodeFromStream(dais));
-          }
-        } else {
-          for (int i = 0; i < size; i++) {
-            final int byteSize = dais.readInt();
-            final byte[] bytes = new byte[byteSize];
-            if (dais.read(bytes) == -1) {
-              LOG.log(Level.FINE, "No data read because end of stream was reached");
-            }
-            list.add(codec.decode(bytes));
-          }
-        }
+  /**
+   * Decodes a network connection service message from a stream,
+   * e.g. a large message received in chunks.
+   *
+   * @param dais the stream to read from
+   * @return a message
+   */
+  @Override
+  public NetworkConnectionServiceMessage decodeFromStream(final DataInputStream dais) {
+    try {
+      final String connFactoryId = dais.readUTF();
+      final Identifier srcId = factory.getNewInstance(dais.readUTF());
+      final Identifier destId = factory.getNewInstance(dais.readUTF());
+      final int size = dais.readInt();
+      final List list = new ArrayList(size);
+      final Codec codec = connFactoryMap.get(connFactoryId).getCodec();
 
-        return new NetworkConnectionServiceMessage(
-            connFactoryId,
-            srcId,
-            destId,
-            list
-        );
+      if (isStreamingCodec(codec)) {
+        for (int i = 0; i < size; i++) {
+          list.add(((StreamingCodec) codec).decodeFromStream(dais));
+        }
+      } else {
+        for (int i = 0; i < size; i++) {
+          final int byteSize = dais.readInt();
+          final byte[] bytes = new byte[byteSize];
+          // a chunked stream can return fewer bytes than asked for by a single read
+          dais.readFully(bytes);
+          list.add(codec.decode(bytes));
+        }
       }
+
+      return new NetworkConnectionServiceMessage(
+          connFactoryId,
+          srcId,
+          destId,
+          list
+      );
     } catch (final IOException e) {
       throw new RuntimeException("IOException", e);
     }
   }
 
+  private boolean isStreamingCodec(final Codec codec) {
+    Boolean isStreamingCodec = isStreamingCodecMap.get(codec);
+    if (isStreamingCodec == null) {
+      isStreamingCodec = codec instanceof StreamingCodec;
+      isStreamingCodecMap.putIfAbsent(codec, isStreamingCodec);
+    }
+    return isStreamingCodec;
+  }
 }
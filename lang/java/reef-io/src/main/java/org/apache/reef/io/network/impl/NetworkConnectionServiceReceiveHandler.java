@@ -22,11 +22,14 @@ import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.remote.Codec;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 
+import java.io.DataInputStream;
 import java.util.Map;
 
 /**
  * NetworkConnectionService event handler.
  * It dispatches events to the corresponding eventHandler.
+ * A streaming codec decodes the message from the stream of the event,
+ * so a large message received in chunks is not copied into one array.
  */
 final class NetworkConnectionServiceReceiveHandler implements EventHandler<TransportEvent> {
 
@@ -42,7 +45,10 @@ final class NetworkConnectionServiceReceiveHandler implements EventHandler<Trans
 
   @Override
   public void onNext(final TransportEvent transportEvent) {
-    final NetworkConnectionServiceMessage nsMessage = codec.decode(transportEvent.getData());
+    final NetworkConnectionServiceMessage nsMessage = codec instanceof StreamingCodec ?
+        ((StreamingCodec<NetworkConnectionServiceMessage>) codec).decodeFromStream(
+            new DataInputStream(transportEvent.getInputStream())) :
+        codec.decode(transportEvent.getData());
     nsMessage.setRemoteAddress(transportEvent.getRemoteAddress());
     final NetworkConnectionFactory connFactory = connFactoryMap.get(nsMessage.getConnectionFactoryId());
     final EventHandler eventHandler = connFactory.getEventHandler();
@@ -20,6 +20,7 @@ package org.apache.reef.io.network.group;
 
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessageCodec;
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
 import org.apache.reef.io.network.group.impl.utils.Utils;
 import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
 import org.apache.reef.tang.Tang;
@@ -72,4 +73,27 @@ public class GroupCommunicationMessageCodecTest {
         codec.decodeFromStream(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
     Assert.assertEquals("decodeFromStream(encodeToStream(msg)): ", expMsg, actMsg2);
   }
+
+  @Test(timeout = 1000)
+  public final void testEncodeDecodeSegment() {
+    final Random r = new Random();
+    final byte[] data = new byte[100];
+    r.nextBytes(data);
+    final GroupCommunicationMessageCodec codec = new GroupCommunicationMessageCodec();
+    final GroupCommunicationMessage segmentMsg = Utils.bldSegmentGCM(GroupName.class, OperName.class,
+        ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast, "From", 0, "To", 1,
+        new SegmentHeader(5, 1, 3, 250), data);
+    final GroupCommunicationMessage actMsg = codec.decode(codec.encode(segmentMsg));
+    Assert.assertEquals("decode(encode(segment)): ", segmentMsg, actMsg);
+    Assert.assertEquals(new SegmentHeader(5, 1, 3, 250), actMsg.getSegment());
+
+    final GroupCommunicationMessage abortMsg = Utils.bldSegmentGCM(GroupName.class, OperName.class,
+        ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast, "From", 0, "To", 1,
+        SegmentHeader.abort(5, 2), Utils.EMPTY_BYTE_ARR);
+    Assert.assertTrue(codec.decode(codec.encode(abortMsg)).getSegment().isAborted());
+
+    final GroupCommunicationMessage wholeMsg = Utils.bldVersionedGCM(GroupName.class, OperName.class,
+        ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast, "From", 0, "To", 1, data);
+    Assert.assertFalse("a whole message is not a segment", codec.decode(codec.encode(wholeMsg)).hasSegment());
+  }
 }
@@ -23,8 +23,11 @@ import org.apache.reef.driver.task.FailedTask;
 import org.apache.reef.driver.task.RunningTask;
 import org.apache.reef.driver.task.TaskConfiguration;
 import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.AllGatherOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.AllReduceOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.BroadcastOperatorSpec;
 import org.apache.reef.io.network.group.impl.config.ReduceOperatorSpec;
+import org.apache.reef.io.network.group.impl.config.ReduceScatterOperatorSpec;
 import org.apache.reef.io.network.group.impl.utils.BroadcastingEventHandler;
 import org.apache.reef.tang.Configuration;
 import org.apache.reef.tang.annotations.Name;
@@ -238,6 +241,66 @@ public final class CommunicationGroupDriverImplTest {
 
   }
 
+  /**
+   * Checks that the all-to-all operators build their topologies around the root task like the rooted operators.
+   */
+  @Test
+  public void testAllToAllOperators() throws InterruptedException {
+    final String rootTaskId = "rootTaskId";
+    final String[] taskIds = new String[]{rootTaskId, "childTaskId1", "childTaskId2", "childTaskId3"};
+    final AtomicInteger numMsgs = new AtomicInteger(0);
+
+    final EStage<GroupCommunicationMessage> senderStage =
+        new SyncStage<>(new EventHandler<GroupCommunicationMessage>() {
+          @Override
+          public void onNext(final GroupCommunicationMessage msg) {
+            numMsgs.getAndIncrement();
+          }
+        });
+
+    final CommunicationGroupDriverImpl communicationGroupDriver = new CommunicationGroupDriverImpl(
+        GroupName.class, new AvroConfigurationSerializer(), senderStage,
+        new BroadcastingEventHandler<RunningTask>(), new BroadcastingEventHandler<FailedTask>(),
+        new BroadcastingEventHandler<FailedEvaluator>(), new BroadcastingEventHandler<GroupCommunicationMessage>(),
+        "DriverId", 4, 2);
+
+    communicationGroupDriver
+        .addAllReduce(AllReduceOperatorName.class,
+            AllReduceOperatorSpec.newBuilder().setRootId(rootTaskId).build())
+        .addAllGather(AllGatherOperatorName.class,
+            AllGatherOperatorSpec.newBuilder().setRootId(rootTaskId).build())
+        .addReduceScatter(ReduceScatterOperatorName.class,
+            ReduceScatterOperatorSpec.newBuilder().setRootId(rootTaskId).build());
+
+    final ExecutorService pool = Executors.newFixedThreadPool(4);
+    final CountDownLatch countDownLatch = new CountDownLatch(4);
+
+    for (final String taskId : taskIds) {
+      pool.submit(new Runnable() {
+        @Override
+        public void run() {
+          final Configuration taskConf = TaskConfiguration.CONF
+              .set(TaskConfiguration.IDENTIFIER, taskId)
+              .set(TaskConfiguration.TASK, DummyTask.class)
+              .build();
+          communicationGroupDriver.addTask(taskConf);
+          communicationGroupDriver.runTask(taskId);
+          countDownLatch.countDown();
+        }
+      });
+    }
+
+    pool.shutdown();
+    final boolean allThreadsFinished = countDownLatch.await(10, TimeUnit.SECONDS);
+    assertTrue("all threads finished", allThreadsFinished);
+
+    // 3 connections between 4 tasks
+    // 2 messages per connection
+    // 3 operations (all-reduce, all-gather & reduce-scatter)
+    // this gives us a total of 3*2*3 = 18 messages
+    assertEquals("number of messages sent from driver", 18, numMsgs.get());
+  }
+
   private final class DummyTask implements Task {
     @Override
     public byte[] call(final byte[] memento) throws Exception {
@@ -256,5 +319,16 @@ public final class CommunicationGroupDriverImplTest {
   @NamedParameter()
   private final class ReduceOperatorName implements Name<String> {
   }
-}
 
+  @NamedParameter()
+  private final class AllReduceOperatorName implements Name<String> {
+  }
+
+  @NamedParameter()
+  private final class AllGatherOperatorName implements Name<String> {
+  }
+
+  @NamedParameter()
+  private final class ReduceScatterOperatorName implements Name<String> {
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.driver;
+
+import org.apache.reef.driver.parameters.DriverIdentifier;
+import org.apache.reef.io.network.group.api.driver.TaskNode;
+import org.apache.reef.io.network.group.api.driver.Topology;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.config.parameters.*;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.NamedParameter;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.SyncStage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Simulates a reduce over {@link TreeTopology} and {@link LocalityTreeTopology}
+ * and counts the bytes that cross racks.
+ */
+public final class LocalityTreeTopologyTest {
+
+  private static final int NUM_RACKS = 4;
+  private static final int HOSTS_PER_RACK = 4;
+  private static final int TASKS_PER_HOST = 4;
+  private static final int NUM_TASKS = NUM_RACKS * HOSTS_PER_RACK * TASKS_PER_HOST;
+
+  /**
+   * Size of the partial result each task sends to its parent.
+   */
+  private static final long MESSAGE_BYTES = 1 << 20;
+
+  private static final String ROOT_ID = taskId(0, 0, 0);
+
+  /**
+   * Checks that the locality tree crosses each rack boundary once, while the tree built in arrival order
+   * crosses it for most of the edges, when the tasks of different racks are added interleaved.
+   */
+  @Test
+  public void testCrossRackBytes() throws InjectionException {
+    final TopologyFactory topologyFactory = newTopologyFactory();
+    final TreeTopology treeTopology =
+        (TreeTopology) topologyFactory.getNewInstance(OperatorName.class, TreeTopology.class);
+    final LocalityTreeTopology localityTopology =
+        (LocalityTreeTopology) topologyFactory.getNewInstance(OperatorName.class, LocalityTreeTopology.class);
+
+    final List<String> taskIds = interleavedTaskIds();
+    addTasks(treeTopology, taskIds);
+    addTasks(localityTopology, taskIds);
+
+    final Map<String, TaskNode> treeNodes = collect(treeTopology.getRootNode());
+    final Map<String, TaskNode> localityNodes = collect(localityTopology.getRootNode());
+    assertEquals("all tasks in the tree", NUM_TASKS, treeNodes.size());
+    assertEquals("all tasks in the locality tree", NUM_TASKS, localityNodes.size());
+
+    final long treeBytes = crossRackBytes(treeNodes);
+    final long localityBytes = crossRackBytes(localityNodes);
+    assertEquals("one cross-rack message per rack other than the root's",
+        (NUM_RACKS - 1) * MESSAGE_BYTES, localityBytes);
+    assertTrue("tree sends " + treeBytes + " bytes across racks, locality tree " + localityBytes,
+        localityBytes < treeBytes);
+    assertEquals("one cross-host message per host other than the root's",
+        (NUM_RACKS * HOSTS_PER_RACK - 1) * MESSAGE_BYTES, crossHostBytes(localityNodes));
+  }
+
+  /**
+   * Checks that the locality tree is built the same way when the root task is added last.
+   */
+  @Test
+  public void testLateRootTask() throws InjectionException {
+    final LocalityTreeTopology localityTopology = (LocalityTreeTopology) newTopologyFactory()
+        .getNewInstance(OperatorName.class, LocalityTreeTopology.class);
+
+    final List<String> taskIds = interleavedTaskIds();
+    taskIds.remove(ROOT_ID);
+    taskIds.add(ROOT_ID);
+    addTasks(localityTopology, taskIds);
+
+    final Map<String, TaskNode> localityNodes = collect(localityTopology.getRootNode());
+    assertEquals("all tasks in the locality tree", NUM_TASKS, localityNodes.size());
+    assertEquals("one cross-rack message per rack other than the root's",
+        (NUM_RACKS - 1) * MESSAGE_BYTES, crossRackBytes(localityNodes));
+  }
+
+  /**
+   * Checks that removing the leader of a host, the leader of a rack, a whole host and a whole rack
+   * leaves the other tasks in the tree, grouped as before, and that adding the tasks back restores it.
+   */
+  @Test
+  public void testRemoveAndReAddTasks() throws InjectionException {
+    final LocalityTreeTopology localityTopology = (LocalityTreeTopology) newTopologyFactory()
+        .getNewInstance(OperatorName.class, LocalityTreeTopology.class);
+    addTasks(localityTopology, interleavedTaskIds());
+
+    final List<String> removedIds = new ArrayList<>();
+    removedIds.add(taskId(1, 0, 0));
+    removedIds.add(taskId(2, 1, 0));
+    for (int task = 0; task < TASKS_PER_HOST; task++) {
+      removedIds.add(taskId(1, 2, task));
+    }
+    for (int host = 0; host < HOSTS_PER_RACK; host++) {
+      for (int task = 0; task < TASKS_PER_HOST; task++) {
+        removedIds.add(taskId(3, host, task));
+      }
+    }
+    for (final String taskId : removedIds) {
+      localityTopology.removeTask(taskId);
+    }
+
+    final Map<String, TaskNode> remainingNodes = collect(localityTopology.getRootNode());
+    assertEquals("all remaining tasks in the locality tree", NUM_TASKS - removedIds.size(), remainingNodes.size());
+    for (final String taskId : removedIds) {
+      assertFalse(taskId + " removed from the locality tree", remainingNodes.containsKey(taskId));
+    }
+    assertLinked(remainingNodes);
+    assertEquals("one cross-rack message per remaining rack other than the root's",
+        (NUM_RACKS - 2) * MESSAGE_BYTES, crossRackBytes(remainingNodes));
+    assertEquals("one cross-host message per remaining host other than the root's",
+        ((NUM_RACKS - 1) * HOSTS_PER_RACK - 2) * MESSAGE_BYTES, crossHostBytes(remainingNodes));
+
+    for (final String taskId : removedIds) {
+      localityTopology.setTaskLocation(taskId, hostOf(taskId), rackOf(taskId));
+      localityTopology.addTask(taskId);
+    }
+
+    final Map<String, TaskNode> localityNodes = collect(localityTopology.getRootNode());
+    assertEquals("all tasks in the locality tree", NUM_TASKS, localityNodes.size());
+    assertLinked(localityNodes);
+    assertEquals("one cross-rack message per rack other than the root's",
+        (NUM_RACKS - 1) * MESSAGE_BYTES, crossRackBytes(localityNodes));
+    assertEquals("one cross-host message per host other than the root's",
+        (NUM_RACKS * HOSTS_PER_RACK - 1) * MESSAGE_BYTES, crossHostBytes(localityNodes));
+  }
+
+  private static TopologyFactory newTopologyFactory() throws InjectionException {
+    final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindVolatileParameter(GroupCommSenderStage.class,
+        new SyncStage<>(new EventHandler<GroupCommunicationMessage>() {
+          @Override
+          public void onNext(final GroupCommunicationMessage msg) {
+            // the simulation does not send messages
+          }
+        }));
+    injector.bindVolatileParameter(CommGroupNameClass.class, GroupName.class);
+    injector.bindVolatileParameter(DriverIdentifier.class, "DriverId");
+    injector.bindVolatileParameter(CommGroupNumTask.class, NUM_TASKS);
+    injector.bindVolatileParameter(TreeTopologyFanOut.class, 2);
+    injector.bindVolatileParameter(TreeTopologyHostFanOut.class, 4);
+    injector.bindVolatileParameter(TreeTopologyRackFanOut.class, 2);
+    return injector.getInstance(TopologyFactory.class);
+  }
+
+  /**
+   * @return the ids of all tasks, ordered so that consecutive tasks are on different racks
+   */
+  private static List<String> interleavedTaskIds() {
+    final List<String> taskIds = new ArrayList<>(NUM_TASKS);
+    for (int task = 0; task < TASKS_PER_HOST; task++) {
+      for (int host = 0; host < HOSTS_PER_RACK; host++) {
+        for (int rack = 0; rack < NUM_RACKS; rack++) {
+          taskIds.add(taskId(rack, host, task));
+        }
+      }
+    }
+    return taskIds;
+  }
+
+  private static void addTasks(final Topology topology, final List<String> taskIds) {
+    topology.setRootTask(ROOT_ID);
+    for (final String taskId : taskIds) {
+      if (topology instanceof LocalityTreeTopology) {
+        ((LocalityTreeTopology) topology).setTaskLocation(taskId, hostOf(taskId), rackOf(taskId));
+      }
+      topology.addTask(taskId);
+    }
+  }
+
+  /**
+   * @return the nodes reachable from the root, by task id
+   */
+  private static Map<String, TaskNode> collect(final TaskNode root) {
+    final Map<String, TaskNode> nodes = new HashMap<>();
+    final List<TaskNode> pending = new ArrayList<>();
+    pending.add(root);
+    while (!pending.isEmpty()) {
+      final TaskNode node = pending.remove(pending.size() - 1);
+      nodes.put(node.getTaskId(), node);
+      for (final TaskNode child : node.getChildren()) {
+        pending.add(child);
+      }
+    }
+    return nodes;
+  }
+
+  /**
+   * Checks that each node is the parent of its children.
+   */
+  private static void assertLinked(final Map<String, TaskNode> nodes) {
+    for (final TaskNode node : nodes.values()) {
+      for (final TaskNode child : node.getChildren()) {
+        assertSame("parent of " + child.getTaskId(), node, child.getParent());
+      }
+    }
+  }
+
+  /**
+   * Each task other than the root sends one message to its parent in a reduce.
+   */
+  private static long crossRackBytes(final Map<String, TaskNode> nodes) {
+    long bytes = 0;
+    for (final TaskNode node : nodes.values()) {
+      final TaskNode parent = node.getParent();
+      if (parent != null && !rackOf(node.getTaskId()).equals(rackOf(parent.getTaskId()))) {
+        bytes += MESSAGE_BYTES;
+      }
+    }
+    return bytes;
+  }
+
+  private static long crossHostBytes(final Map<String, TaskNode> nodes) {
+    long bytes = 0;
+    for (final TaskNode node : nodes.values()) {
+      final TaskNode parent = node.getParent();
+      if (parent != null && !hostOf(node.getTaskId()).equals(hostOf(parent.getTaskId()))) {
+        bytes += MESSAGE_BYTES;
+      }
+    }
+    return bytes;
+  }
+
+  private static String taskId(final int rack, final int host, final int task) {
+    return "rack" + rack + "-host" + host + "-task" + task;
+  }
+
+  private static String rackOf(final String taskId) {
+    return taskId.substring(0, taskId.indexOf('-'));
+  }
+
+  private static String hostOf(final String taskId) {
+    return taskId.substring(0, taskId.lastIndexOf('-'));
+  }
+
+  @NamedParameter()
+  private final class GroupName implements Name<String> {
+  }
+
+  @NamedParameter()
+  private final class OperatorName implements Name<String> {
+  }
+}
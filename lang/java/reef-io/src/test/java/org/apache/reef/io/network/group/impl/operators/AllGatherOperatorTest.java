@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.io.network.group.api.task.CommunicationGroupServiceClient;
+import org.apache.reef.io.network.util.StringIdentifierFactory;
+import org.apache.reef.io.serialization.SerializableCodec;
+import org.apache.reef.wake.Identifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link AllGatherOperator}.
+ */
+public final class AllGatherOperatorTest {
+
+  @Test(timeout = 20000)
+  public void testAllGather() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllGatherOperator<String>> operators = createOperators(group);
+    group.start(operators);
+
+    final Map<String, List<String>> results = group.run(new InMemoryGroup.TaskFunction<List<String>>() {
+      @Override
+      public List<String> apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply("value of " + taskId);
+      }
+    });
+
+    Assert.assertEquals(6, results.size());
+    for (final List<String> result : results.values()) {
+      Assert.assertEquals(Arrays.asList("value of task0", "value of task1", "value of task2", "value of task3",
+          "value of task4", "value of task5"), result);
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testAllGatherWithDeadTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllGatherOperator<String>> operators = createOperators(group);
+    group.start(operators);
+    group.kill("task4");
+
+    final List<Identifier> order = new ArrayList<>();
+    for (final String taskId : new String[] {"task5", "task4", "task3", "task2", "task1", "task0"}) {
+      order.add(new StringIdentifierFactory().getNewInstance(taskId));
+    }
+    final Map<String, List<String>> results = group.run(new InMemoryGroup.TaskFunction<List<String>>() {
+      @Override
+      public List<String> apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply("value of " + taskId, order);
+      }
+    });
+
+    Assert.assertEquals(5, results.size());
+    for (final List<String> result : results.values()) {
+      Assert.assertEquals("the dead task has no value", Arrays.asList("value of task5", null, "value of task3",
+          "value of task2", "value of task1", "value of task0"), result);
+    }
+  }
+
+  /**
+   * An inner task dies while its children wait for the result.
+   * Its children get null, and the others the values of the tasks outside its subtree.
+   */
+  @Test(timeout = 20000)
+  public void testAllGatherWithDeadInnerTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllGatherOperator<String>> operators = createOperators(group);
+    group.start(operators);
+
+    final Map<String, List<String>> results = group.run(new InMemoryGroup.TaskFunction<List<String>>() {
+      @Override
+      public List<String> apply(final String taskId) throws Exception {
+        if ("task1".equals(taskId)) {
+          // dies once its children have sent it their values and wait for the result
+          group.awaitDeliveryAndReceive("task3", taskId);
+          group.awaitDeliveryAndReceive("task4", taskId);
+          group.kill(taskId);
+          return null;
+        }
+        return operators.get(taskId).apply("value of " + taskId);
+      }
+    });
+
+    Assert.assertEquals(6, results.size());
+    Assert.assertNull(results.get("task3"));
+    Assert.assertNull(results.get("task4"));
+    for (final String taskId : new String[] {"task0", "task2", "task5"}) {
+      Assert.assertEquals(Arrays.asList("value of task0", "value of task2", "value of task5"), results.get(taskId));
+    }
+  }
+
+  private static Map<String, AllGatherOperator<String>> createOperators(final InMemoryGroup group) {
+    final Map<String, AllGatherOperator<String>> operators = new TreeMap<>();
+    for (final String taskId : group.getTaskIds()) {
+      operators.put(taskId, new AllGatherOperator<>(InMemoryGroup.GROUP_NAME, InMemoryGroup.OPER_NAME, taskId,
+          "task0", new SerializableCodec<String>(), InMemoryGroup.DRIVER_ID, InMemoryGroup.VERSION,
+          group.getNetworkHandler(taskId), group.getSender(), mock(CommunicationGroupServiceClient.class)));
+    }
+    return operators;
+  }
+}
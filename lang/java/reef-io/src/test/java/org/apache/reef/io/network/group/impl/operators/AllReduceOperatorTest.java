@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.io.network.group.api.operators.Reduce;
+import org.apache.reef.io.network.group.api.task.CommunicationGroupServiceClient;
+import org.apache.reef.io.network.util.StringIdentifierFactory;
+import org.apache.reef.io.serialization.SerializableCodec;
+import org.apache.reef.wake.Identifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link AllReduceOperator}.
+ */
+public final class AllReduceOperatorTest {
+
+  @Test(timeout = 20000)
+  public void testAllReduce() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllReduceOperator<Integer>> operators = createOperators(group, new SumFunction());
+    group.start(operators);
+
+    final Map<String, Integer> results = group.run(new InMemoryGroup.TaskFunction<Integer>() {
+      @Override
+      public Integer apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(valueOf(taskId));
+      }
+    });
+
+    Assert.assertEquals(6, results.size());
+    for (final Integer result : results.values()) {
+      Assert.assertEquals(1 + 2 + 3 + 4 + 5 + 6, result.intValue());
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testAllReduceInOrder() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllReduceOperator<Integer>> operators = createOperators(group, new DigitsFunction());
+    group.start(operators);
+
+    final List<Identifier> order = new ArrayList<>();
+    for (final String taskId : new String[] {"task3", "task0", "task5", "task1", "task4", "task2"}) {
+      order.add(new StringIdentifierFactory().getNewInstance(taskId));
+    }
+    final Map<String, Integer> results = group.run(new InMemoryGroup.TaskFunction<Integer>() {
+      @Override
+      public Integer apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(valueOf(taskId), order);
+      }
+    });
+
+    Assert.assertEquals(6, results.size());
+    for (final Integer result : results.values()) {
+      Assert.assertEquals(416253, result.intValue());
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testAllReduceWithDeadTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllReduceOperator<Integer>> operators = createOperators(group, new SumFunction());
+    group.start(operators);
+    group.kill("task4");
+
+    final Map<String, Integer> results = group.run(new InMemoryGroup.TaskFunction<Integer>() {
+      @Override
+      public Integer apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(valueOf(taskId));
+      }
+    });
+
+    Assert.assertEquals(5, results.size());
+    for (final Integer result : results.values()) {
+      Assert.assertEquals("the value of the dead task is left out", 1 + 2 + 3 + 4 + 6, result.intValue());
+    }
+  }
+
+  /**
+   * An inner task dies while its children wait for the result.
+   * Its children get null, and the others the sum without the values of its subtree.
+   */
+  @Test(timeout = 20000)
+  public void testAllReduceWithDeadInnerTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllReduceOperator<Integer>> operators = createOperators(group, new SumFunction());
+    group.start(operators);
+
+    final Map<String, Integer> results = group.run(new InMemoryGroup.TaskFunction<Integer>() {
+      @Override
+      public Integer apply(final String taskId) throws Exception {
+        if ("task1".equals(taskId)) {
+          // dies once its children have sent it their values and wait for the result
+          group.awaitDeliveryAndReceive("task3", taskId);
+          group.awaitDeliveryAndReceive("task4", taskId);
+          group.kill(taskId);
+          return null;
+        }
+        return operators.get(taskId).apply(valueOf(taskId));
+      }
+    });
+
+    Assert.assertEquals(6, results.size());
+    Assert.assertNull(results.get("task3"));
+    Assert.assertNull(results.get("task4"));
+    for (final String taskId : new String[] {"task0", "task2", "task5"}) {
+      Assert.assertEquals(1 + 3 + 6, results.get(taskId).intValue());
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testChunkedAllReduce() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllReduceOperator<ArrayList<Integer>>> operators =
+        createOperators(group, new ChunkedSumFunction());
+    group.start(operators);
+
+    final Map<String, ArrayList<Integer>> results = group.run(new InMemoryGroup.TaskFunction<ArrayList<Integer>>() {
+      @Override
+      public ArrayList<Integer> apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(chunkedValueOf(taskId));
+      }
+    });
+
+    Assert.assertEquals(6, results.size());
+    for (final ArrayList<Integer> result : results.values()) {
+      Assert.assertEquals(Arrays.asList(21, 210, 2100), result);
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void testChunkedAllReduceWithDeadTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, AllReduceOperator<ArrayList<Integer>>> operators =
+        createOperators(group, new ChunkedSumFunction());
+    group.start(operators);
+    group.kill("task4");
+
+    final Map<String, ArrayList<Integer>> results = group.run(new InMemoryGroup.TaskFunction<ArrayList<Integer>>() {
+      @Override
+      public ArrayList<Integer> apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(chunkedValueOf(taskId));
+      }
+    });
+
+    Assert.assertEquals(5, results.size());
+    for (final ArrayList<Integer> result : results.values()) {
+      Assert.assertEquals("the value of the dead task is left out", Arrays.asList(16, 160, 1600), result);
+    }
+  }
+
+  private static <T extends Serializable> Map<String, AllReduceOperator<T>> createOperators(
+      final InMemoryGroup group, final Reduce.ReduceFunction<T> reduceFunction) {
+    final Map<String, AllReduceOperator<T>> operators = new TreeMap<>();
+    for (final String taskId : group.getTaskIds()) {
+      operators.put(taskId, new AllReduceOperator<>(InMemoryGroup.GROUP_NAME, InMemoryGroup.OPER_NAME, taskId,
+          "task0", new SerializableCodec<T>(), reduceFunction, InMemoryGroup.DRIVER_ID, InMemoryGroup.VERSION,
+          group.getNetworkHandler(taskId), group.getSender(), mock(CommunicationGroupServiceClient.class)));
+    }
+    return operators;
+  }
+
+  /**
+   * @return 1 for task0, 2 for task1, and so on
+   */
+  private static int valueOf(final String taskId) {
+    return Integer.parseInt(taskId.substring("task".length())) + 1;
+  }
+
+  /**
+   * @return the value of the task times 1, 10 and 100, in three chunks
+   */
+  private static ArrayList<Integer> chunkedValueOf(final String taskId) {
+    final int value = valueOf(taskId);
+    return new ArrayList<>(Arrays.asList(value, 10 * value, 100 * value));
+  }
+
+  private static final class SumFunction implements Reduce.ReduceFunction<Integer> {
+    @Override
+    public Integer apply(final Iterable<Integer> elements) {
+      int sum = 0;
+      for (final Integer element : elements) {
+        sum += element;
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * Appends the values as digits, so that the result shows the order of the values.
+   */
+  private static final class DigitsFunction implements Reduce.ReduceFunction<Integer> {
+    @Override
+    public Integer apply(final Iterable<Integer> elements) {
+      int digits = 0;
+      for (final Integer element : elements) {
+        digits = digits * 10 + element;
+      }
+      return digits;
+    }
+  }
+
+  /**
+   * Sums lists element by element, each element being a chunk.
+   */
+  private static final class ChunkedSumFunction implements Reduce.ChunkedReduceFunction<ArrayList<Integer>> {
+    @Override
+    public ArrayList<Integer> apply(final Iterable<ArrayList<Integer>> elements) {
+      ArrayList<Integer> sum = null;
+      for (final ArrayList<Integer> element : elements) {
+        if (sum == null) {
+          sum = new ArrayList<>(element);
+        } else {
+          for (int i = 0; i < sum.size(); i++) {
+            sum.set(i, sum.get(i) + element.get(i));
+          }
+        }
+      }
+      return sum;
+    }
+
+    @Override
+    public int getNumChunks(final ArrayList<Integer> value) {
+      return value.size();
+    }
+
+    @Override
+    public ArrayList<Integer> getChunk(final ArrayList<Integer> value, final int index) {
+      return new ArrayList<>(Collections.singletonList(value.get(index)));
+    }
+
+    @Override
+    public ArrayList<Integer> combine(final ArrayList<Integer> accumulated, final ArrayList<Integer> chunk) {
+      accumulated.set(0, accumulated.get(0) + chunk.get(0));
+      return accumulated;
+    }
+
+    @Override
+    public ArrayList<Integer> join(final List<ArrayList<Integer>> chunks) {
+      final ArrayList<Integer> value = new ArrayList<>(chunks.size());
+      for (final ArrayList<Integer> chunk : chunks) {
+        value.addAll(chunk);
+      }
+      return value;
+    }
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.exception.evaluator.NetworkException;
+import org.apache.reef.io.network.exception.ParentDeadException;
+import org.apache.reef.io.network.group.api.operators.GroupCommOperator;
+import org.apache.reef.io.network.group.api.task.CommGroupNetworkHandler;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.task.CommGroupNetworkHandlerImpl;
+import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.NamedParameter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tasks of a group with one operator, exchanging their messages in memory.
+ * The tasks are set up in the given tree like the driver does, and the test decides which tasks die.
+ */
+final class InMemoryGroup {
+
+  static final String GROUP_NAME = GroupName.class.getName();
+  static final String OPER_NAME = OperName.class.getName();
+  static final String DRIVER_ID = "driver";
+  static final int VERSION = 0;
+
+  private final Map<String, List<String>> childrenOf;
+  private final Map<String, String> parentOf = new TreeMap<>();
+  private final Map<String, CommGroupNetworkHandler> networkHandlers = new TreeMap<>();
+  private final Set<String> deadTasks = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private final Sender sender = new InMemorySender();
+
+  /**
+   * The pairs of source and destination that a message was delivered between, as "source->destination".
+   */
+  private final Set<String> deliveries = new HashSet<>();
+
+  /**
+   * The thread that runs the function of each task.
+   */
+  private final Map<String, Thread> threads = new ConcurrentHashMap<>();
+
+  /**
+   * @param childrenOf the children of each task; every task of the group is a key
+   */
+  InMemoryGroup(final Map<String, List<String>> childrenOf) {
+    this.childrenOf = childrenOf;
+    for (final Map.Entry<String, List<String>> entry : childrenOf.entrySet()) {
+      networkHandlers.put(entry.getKey(), new CommGroupNetworkHandlerImpl());
+      for (final String child : entry.getValue()) {
+        parentOf.put(child, entry.getKey());
+      }
+    }
+  }
+
+  /**
+   * @return the tree of six tasks used by the tests: task0 has the children task1 and task2,
+   * task1 has task3 and task4, and task2 has task5
+   */
+  static Map<String, List<String>> sixTasks() {
+    final Map<String, List<String>> childrenOf = new TreeMap<>();
+    childrenOf.put("task0", list("task1", "task2"));
+    childrenOf.put("task1", list("task3", "task4"));
+    childrenOf.put("task2", list("task5"));
+    childrenOf.put("task3", list());
+    childrenOf.put("task4", list());
+    childrenOf.put("task5", list());
+    return childrenOf;
+  }
+
+  List<String> getTaskIds() {
+    return new ArrayList<>(childrenOf.keySet());
+  }
+
+  CommGroupNetworkHandler getNetworkHandler(final String taskId) {
+    return networkHandlers.get(taskId);
+  }
+
+  Sender getSender() {
+    return sender;
+  }
+
+  /**
+   * Sends each task the topology messages of the driver and initializes its operator.
+   */
+  void start(final Map<String, ? extends GroupCommOperator> operators) throws ParentDeadException {
+    for (final String taskId : getTaskIds()) {
+      if (parentOf.containsKey(taskId)) {
+        deliver(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ParentAdd, parentOf.get(taskId), taskId));
+      }
+      for (final String child : childrenOf.get(taskId)) {
+        deliver(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildAdd, child, taskId));
+      }
+      deliver(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.TopologySetup, DRIVER_ID, taskId));
+    }
+    for (final GroupCommOperator operator : operators.values()) {
+      operator.initialize();
+    }
+  }
+
+  /**
+   * Kills the task: it gets no more messages, and its parent and children are told like the driver does.
+   */
+  void kill(final String taskId) {
+    if (parentOf.containsKey(taskId)) {
+      deliver(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildDead, taskId, parentOf.get(taskId)));
+    }
+    for (final String child : childrenOf.get(taskId)) {
+      deliver(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ParentDead, taskId, child));
+    }
+    deadTasks.add(taskId);
+  }
+
+  /**
+   * Waits until a message from one task was delivered to another.
+   */
+  private void awaitDelivery(final String from, final String to) throws InterruptedException {
+    synchronized (deliveries) {
+      while (!deliveries.contains(from + "->" + to)) {
+        deliveries.wait();
+      }
+    }
+  }
+
+  /**
+   * Waits until a message from one task was delivered to another and the sender waits for a message in turn.
+   */
+  void awaitDeliveryAndReceive(final String from, final String to) throws InterruptedException {
+    awaitDelivery(from, to);
+    while (threads.get(from) == null || threads.get(from).getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+  }
+
+  /**
+   * Runs the function for each task that is alive, each in its own thread.
+   *
+   * @return the result of each task
+   */
+  <R> Map<String, R> run(final TaskFunction<R> function) throws Exception {
+    final ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      final Map<String, Future<R>> futures = new TreeMap<>();
+      for (final String taskId : getTaskIds()) {
+        if (!deadTasks.contains(taskId)) {
+          futures.put(taskId, executor.submit(new Callable<R>() {
+            @Override
+            public R call() throws Exception {
+              threads.put(taskId, Thread.currentThread());
+              return function.apply(taskId);
+            }
+          }));
+        }
+      }
+      final Map<String, R> results = new TreeMap<>();
+      for (final Map.Entry<String, Future<R>> entry : futures.entrySet()) {
+        results.put(entry.getKey(), entry.getValue().get(10, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void deliver(final GroupCommunicationMessage msg) {
+    deliver(msg, msg.getDestid());
+  }
+
+  private void deliver(final GroupCommunicationMessage msg, final String destId) {
+    if (!DRIVER_ID.equals(destId) && !deadTasks.contains(destId) && !deadTasks.contains(msg.getSrcid())) {
+      networkHandlers.get(destId).onNext(msg);
+      synchronized (deliveries) {
+        deliveries.add(msg.getSrcid() + "->" + destId);
+        deliveries.notifyAll();
+      }
+    }
+  }
+
+  private static GroupCommunicationMessage message(final ReefNetworkGroupCommProtos.GroupCommMessage.Type type,
+                                                   final String from, final String to) {
+    return Utils.bldVersionedGCM(GroupName.class, OperName.class, type, from, VERSION, to, VERSION,
+        Utils.EMPTY_BYTE_ARR);
+  }
+
+  private static List<String> list(final String... ids) {
+    final List<String> list = new ArrayList<>();
+    Collections.addAll(list, ids);
+    return list;
+  }
+
+  /**
+   * What a task does in a test.
+   */
+  interface TaskFunction<R> {
+    R apply(String taskId) throws Exception;
+  }
+
+  /**
+   * Delivers the messages to the tasks they are addressed to, unless one of them is dead.
+   * The acknowledgements to the driver are dropped.
+   */
+  private final class InMemorySender extends Sender {
+
+    InMemorySender() {
+      super(null);
+    }
+
+    @Override
+    public void send(final GroupCommunicationMessage msg) throws NetworkException {
+      deliver(msg);
+    }
+
+    @Override
+    public void send(final GroupCommunicationMessage msg, final String dest) throws NetworkException {
+      deliver(msg, dest);
+    }
+  }
+
+  @NamedParameter
+  static final class GroupName implements Name<String> {
+  }
+
+  @NamedParameter
+  static final class OperName implements Name<String> {
+  }
+}
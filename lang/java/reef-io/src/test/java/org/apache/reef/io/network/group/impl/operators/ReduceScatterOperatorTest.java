@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.operators;
+
+import org.apache.reef.io.network.group.api.operators.Reduce;
+import org.apache.reef.io.network.group.api.task.CommunicationGroupServiceClient;
+import org.apache.reef.io.serialization.SerializableCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link ReduceScatterOperator}.
+ */
+public final class ReduceScatterOperatorTest {
+
+  /**
+   * Every task has the elements 0 to 5 multiplied by its number plus one, and gets one sum.
+   */
+  @Test(timeout = 20000)
+  public void testReduceScatter() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, ReduceScatterOperator<Integer>> operators = createOperators(group);
+    group.start(operators);
+
+    final Map<String, List<Integer>> results = group.run(new InMemoryGroup.TaskFunction<List<Integer>>() {
+      @Override
+      public List<Integer> apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(elementsOf(taskId), Collections.nCopies(6, 1));
+      }
+    });
+
+    final int sum = 1 + 2 + 3 + 4 + 5 + 6;
+    Assert.assertEquals(6, results.size());
+    for (int i = 0; i < 6; i++) {
+      Assert.assertEquals(Arrays.asList(sum * i), results.get("task" + i));
+    }
+  }
+
+  /**
+   * The counts are for the six tasks of the group, so without the dead one the elements are split uniformly.
+   */
+  @Test(timeout = 20000)
+  public void testReduceScatterWithDeadTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, ReduceScatterOperator<Integer>> operators = createOperators(group);
+    group.start(operators);
+    group.kill("task4");
+
+    final Map<String, List<Integer>> results = group.run(new InMemoryGroup.TaskFunction<List<Integer>>() {
+      @Override
+      public List<Integer> apply(final String taskId) throws Exception {
+        return operators.get(taskId).apply(elementsOf(taskId), Collections.nCopies(6, 1));
+      }
+    });
+
+    final int sum = 1 + 2 + 3 + 4 + 6;
+    Assert.assertEquals(5, results.size());
+    Assert.assertEquals(Arrays.asList(0, sum), results.get("task0"));
+    Assert.assertEquals(Arrays.asList(sum * 2), results.get("task1"));
+    Assert.assertEquals(Arrays.asList(sum * 3), results.get("task2"));
+    Assert.assertEquals(Arrays.asList(sum * 4), results.get("task3"));
+    Assert.assertEquals(Arrays.asList(sum * 5), results.get("task5"));
+  }
+
+  /**
+   * An inner task dies while its children wait for the result.
+   * Its children get null, and the elements are split uniformly among the other tasks.
+   */
+  @Test(timeout = 20000)
+  public void testReduceScatterWithDeadInnerTask() throws Exception {
+    final InMemoryGroup group = new InMemoryGroup(InMemoryGroup.sixTasks());
+    final Map<String, ReduceScatterOperator<Integer>> operators = createOperators(group);
+    group.start(operators);
+
+    final Map<String, List<Integer>> results = group.run(new InMemoryGroup.TaskFunction<List<Integer>>() {
+      @Override
+      public List<Integer> apply(final String taskId) throws Exception {
+        if ("task1".equals(taskId)) {
+          // dies once its children have sent it their values and wait for the result
+          group.awaitDeliveryAndReceive("task3", taskId);
+          group.awaitDeliveryAndReceive("task4", taskId);
+          group.kill(taskId);
+          return null;
+        }
+        return operators.get(taskId).apply(elementsOf(taskId), Collections.nCopies(6, 1));
+      }
+    });
+
+    final int sum = 1 + 3 + 6;
+    Assert.assertEquals(6, results.size());
+    Assert.assertNull(results.get("task3"));
+    Assert.assertNull(results.get("task4"));
+    Assert.assertEquals(Arrays.asList(0, sum), results.get("task0"));
+    Assert.assertEquals(Arrays.asList(sum * 2, sum * 3), results.get("task2"));
+    Assert.assertEquals(Arrays.asList(sum * 4, sum * 5), results.get("task5"));
+  }
+
+  private static Map<String, ReduceScatterOperator<Integer>> createOperators(final InMemoryGroup group) {
+    final Map<String, ReduceScatterOperator<Integer>> operators = new TreeMap<>();
+    for (final String taskId : group.getTaskIds()) {
+      operators.put(taskId, new ReduceScatterOperator<>(InMemoryGroup.GROUP_NAME, InMemoryGroup.OPER_NAME, taskId,
+          "task0", new SerializableCodec<Integer>(), new SumFunction(), InMemoryGroup.DRIVER_ID,
+          InMemoryGroup.VERSION, group.getNetworkHandler(taskId), group.getSender(),
+          mock(CommunicationGroupServiceClient.class)));
+    }
+    return operators;
+  }
+
+  private static List<Integer> elementsOf(final String taskId) {
+    final int factor = Integer.parseInt(taskId.substring("task".length())) + 1;
+    final List<Integer> elements = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      elements.add(i * factor);
+    }
+    return elements;
+  }
+
+  private static final class SumFunction implements Reduce.ReduceFunction<Integer> {
+    @Override
+    public Integer apply(final Iterable<Integer> elements) {
+      int sum = 0;
+      for (final Integer element : elements) {
+        sum += element;
+      }
+      return sum;
+    }
+  }
+}
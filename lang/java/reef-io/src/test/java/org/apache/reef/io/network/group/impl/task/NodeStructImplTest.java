@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.task;
+
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
+import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.NamedParameter;
+import org.apache.reef.wake.EventHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for receiving data, whole or in segments, with {@link NodeStructImpl}.
+ */
+public final class NodeStructImplTest {
+
+  private static final ReefNetworkGroupCommProtos.GroupCommMessage.Type TYPE =
+      ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast;
+
+  @Test(timeout = 1000)
+  public void testWholeMessage() {
+    final byte[] data = randomBytes(100);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(message(TYPE, data));
+    Assert.assertArrayEquals(data, node.getData());
+  }
+
+  @Test(timeout = 1000)
+  public void testSegmentsAreReassembledAndPassedOn() {
+    final byte[] data = randomBytes(250);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    for (int i = 0; i < 3; i++) {
+      node.addData(segment(data, i, 3, 100));
+    }
+
+    final List<GroupCommunicationMessage> passedOn = new ArrayList<>();
+    final byte[] received = node.getData(new EventHandler<GroupCommunicationMessage>() {
+      @Override
+      public void onNext(final GroupCommunicationMessage msg) {
+        passedOn.add(msg);
+      }
+    });
+
+    Assert.assertArrayEquals(data, received);
+    Assert.assertEquals("each segment is passed on", 3, passedOn.size());
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(i, passedOn.get(i).getSegment().getIndex());
+    }
+  }
+
+  @Test(timeout = 1000)
+  public void testDeadBetweenSegments() {
+    final byte[] data = randomBytes(250);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(segment(data, 0, 3, 100));
+    node.addData(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildDead, new byte[0]));
+    Assert.assertNull(node.getData());
+  }
+
+  @Test(timeout = 1000)
+  public void testSegmentsArePassedOnWithoutReassembly() {
+    final byte[] data = randomBytes(250);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    for (int i = 0; i < 3; i++) {
+      node.addData(segment(data, i, 3, 100));
+    }
+    node.addData(message(TYPE, data));
+
+    final List<byte[]> segments = new ArrayList<>();
+    final EventHandler<byte[]> segmentHandler = new EventHandler<byte[]>() {
+      @Override
+      public void onNext(final byte[] segment) {
+        segments.add(segment);
+      }
+    };
+
+    Assert.assertTrue(node.getSegments(segmentHandler));
+    Assert.assertEquals(3, segments.size());
+    for (int i = 0; i < 3; i++) {
+      Assert.assertArrayEquals(Arrays.copyOfRange(data, i * 100, Math.min(data.length, (i + 1) * 100)),
+          segments.get(i));
+    }
+
+    segments.clear();
+    Assert.assertTrue("a whole message is passed on as one segment", node.getSegments(segmentHandler));
+    Assert.assertEquals(1, segments.size());
+    Assert.assertArrayEquals(data, segments.get(0));
+  }
+
+  @Test(timeout = 1000)
+  public void testDeadWhilePassingOnSegments() {
+    final byte[] data = randomBytes(250);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(segment(data, 0, 3, 100));
+    node.addData(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildDead, new byte[0]));
+
+    final List<byte[]> segments = new ArrayList<>();
+    Assert.assertFalse(node.getSegments(new EventHandler<byte[]>() {
+      @Override
+      public void onNext(final byte[] segment) {
+        segments.add(segment);
+      }
+    }));
+    Assert.assertEquals(1, segments.size());
+  }
+
+  @Test(timeout = 1000)
+  public void testSegmentsOutOfOrder() {
+    final byte[] data = randomBytes(250);
+    final byte[] next = randomBytes(10);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(segment(data, 2, 3, 100));
+    node.addData(segment(data, 0, 3, 100));
+    node.addData(message(TYPE, next));
+    node.addData(segment(data, 1, 3, 100));
+
+    final List<GroupCommunicationMessage> passedOn = new ArrayList<>();
+    final byte[] received = node.getData(new EventHandler<GroupCommunicationMessage>() {
+      @Override
+      public void onNext(final GroupCommunicationMessage msg) {
+        passedOn.add(msg);
+      }
+    });
+
+    Assert.assertArrayEquals(data, received);
+    Assert.assertEquals("each segment is passed on as it arrives", 3, passedOn.size());
+    Assert.assertEquals(2, passedOn.get(0).getSegment().getIndex());
+    Assert.assertArrayEquals("the message that overtook the segments is received next", next, node.getData());
+  }
+
+  @Test(timeout = 1000)
+  public void testAbortedMessage() {
+    final byte[] data = randomBytes(250);
+    final byte[] next = randomBytes(10);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(abort(2));
+    node.addData(segment(data, 1, 3, 100));
+    node.addData(segment(data, 0, 3, 100));
+    node.addData(message(TYPE, next));
+
+    final List<GroupCommunicationMessage> passedOn = new ArrayList<>();
+    Assert.assertNull(node.getData(new EventHandler<GroupCommunicationMessage>() {
+      @Override
+      public void onNext(final GroupCommunicationMessage msg) {
+        passedOn.add(msg);
+      }
+    }));
+    Assert.assertEquals("the abort is passed on too", 3, passedOn.size());
+    Assert.assertTrue(passedOn.get(0).getSegment().isAborted());
+    Assert.assertArrayEquals("the segments sent before the abort are not left behind", next, node.getData());
+  }
+
+  @Test(timeout = 1000)
+  public void testAbortedBeforeAnySegment() {
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(abort(0));
+    Assert.assertNull(node.getData());
+  }
+
+  @Test(timeout = 1000)
+  public void testInterleavedMessagesAreToldApart() {
+    final byte[] data1 = randomBytes(150);
+    final byte[] data2 = randomBytes(150);
+    final ChildNodeStruct node = new ChildNodeStruct("child", 1);
+    node.addData(segment(data1, 1, 1, 2, 100));
+    node.addData(segment(data2, 2, 0, 2, 100));
+    node.addData(segment(data1, 1, 0, 2, 100));
+    node.addData(segment(data2, 2, 1, 2, 100));
+
+    Assert.assertArrayEquals("the first segment of the next message is not taken for this one", data1,
+        node.getData());
+    Assert.assertArrayEquals(data2, node.getData());
+  }
+
+  private static byte[] randomBytes(final int length) {
+    final byte[] data = new byte[length];
+    new Random().nextBytes(data);
+    return data;
+  }
+
+  private static GroupCommunicationMessage message(final ReefNetworkGroupCommProtos.GroupCommMessage.Type type,
+                                                   final byte[]... data) {
+    return Utils.bldVersionedGCM(GroupName.class, OperName.class, type, "child", 1, "parent", 1, data);
+  }
+
+  private static GroupCommunicationMessage segment(final byte[] data, final int index, final int numSegments,
+                                                   final int segmentLength) {
+    return segment(data, 0, index, numSegments, segmentLength);
+  }
+
+  private static GroupCommunicationMessage segment(final byte[] data, final int messageId, final int index,
+                                                   final int numSegments, final int segmentLength) {
+    final int from = index * segmentLength;
+    final byte[] segment = Arrays.copyOfRange(data, from, Math.min(data.length, from + segmentLength));
+    return Utils.bldSegmentGCM(GroupName.class, OperName.class, TYPE, "child", 1, "parent", 1,
+        new SegmentHeader(messageId, index, numSegments, data.length), segment);
+  }
+
+  private static GroupCommunicationMessage abort(final int index) {
+    return Utils.bldSegmentGCM(GroupName.class, OperName.class, TYPE, "child", 1, "parent", 1,
+        SegmentHeader.abort(0, index), Utils.EMPTY_BYTE_ARR);
+  }
+
+  @NamedParameter
+  private static final class GroupName implements Name<String> {
+  }
+
+  @NamedParameter
+  private static final class OperName implements Name<String> {
+  }
+}
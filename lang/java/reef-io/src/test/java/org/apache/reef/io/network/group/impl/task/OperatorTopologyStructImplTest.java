@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.task;
+
+import org.apache.reef.io.network.group.api.operators.Reduce;
+import org.apache.reef.io.network.group.impl.GroupCommunicationMessage;
+import org.apache.reef.io.network.group.impl.operators.Sender;
+import org.apache.reef.io.network.group.impl.utils.SegmentHeader;
+import org.apache.reef.io.network.group.impl.utils.Utils;
+import org.apache.reef.io.network.proto.ReefNetworkGroupCommProtos;
+import org.apache.reef.io.serialization.Codec;
+import org.apache.reef.io.serialization.SerializableCodec;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.NamedParameter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for sending, forwarding and reducing data in segments with {@link OperatorTopologyStructImpl}.
+ */
+public final class OperatorTopologyStructImplTest {
+
+  private static final ReefNetworkGroupCommProtos.GroupCommMessage.Type TYPE =
+      ReefNetworkGroupCommProtos.GroupCommMessage.Type.Broadcast;
+  private static final int VERSION = 1;
+  private static final Codec<Integer> CODEC = new SerializableCodec<>();
+
+  private final List<GroupCommunicationMessage> sent = new ArrayList<>();
+
+  @Test(timeout = 5000)
+  public void testSegmentIsCopiedOnceForAllChildren() {
+    final OperatorTopologyStructImpl topology = topology("child1", "child2");
+    final byte[] data = new byte[(5 << 20) / 2];
+
+    topology.sendToChildren(data, TYPE);
+
+    Assert.assertEquals("3 segments for each child", 6, sent.size());
+    for (int i = 0; i < sent.size(); i += 2) {
+      final GroupCommunicationMessage msg1 = sent.get(i);
+      final GroupCommunicationMessage msg2 = sent.get(i + 1);
+      Assert.assertEquals(i / 2, msg1.getSegment().getIndex());
+      Assert.assertEquals(msg1.getSegment(), msg2.getSegment());
+      Assert.assertSame(msg1.getData()[0], msg2.getData()[0]);
+    }
+  }
+
+  @Test(timeout = 1000)
+  public void testForwardAbortsWhenParentDies() {
+    final OperatorTopologyStructImpl topology = topology("child");
+    final byte[] segment = new byte[100];
+    topology.addAsData(Utils.bldSegmentGCM(GroupName.class, OperName.class, TYPE, "parent", VERSION, "self",
+        VERSION, new SegmentHeader(7, 0, 3, 250), segment));
+    topology.addAsData(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ParentDead, "parent", "self"));
+
+    Assert.assertNull(topology.recvFromParentAndForward(TYPE));
+
+    Assert.assertEquals(2, sent.size());
+    Assert.assertEquals("child", sent.get(0).getDestid());
+    Assert.assertEquals(0, sent.get(0).getSegment().getIndex());
+    Assert.assertArrayEquals(segment, sent.get(0).getData()[0]);
+    final int messageId = sent.get(0).getSegment().getMessageId();
+    Assert.assertEquals("the child is told that no more segments will come", SegmentHeader.abort(messageId, 1),
+        sent.get(1).getSegment());
+  }
+
+  @Test(timeout = 1000)
+  public void testForwardAbortsWhenParentDiesBeforeSending() {
+    final OperatorTopologyStructImpl topology = topology("child");
+    topology.addAsData(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ParentDead, "parent", "self"));
+
+    Assert.assertNull(topology.recvFromParentAndForward(TYPE));
+
+    Assert.assertEquals(1, sent.size());
+    Assert.assertTrue(sent.get(0).getSegment().isAborted());
+    Assert.assertEquals(0, sent.get(0).getSegment().getIndex());
+  }
+
+  @Test(timeout = 1000)
+  public void testAbortIsForwardedOnce() {
+    final OperatorTopologyStructImpl topology = topology("child");
+    topology.addAsData(Utils.bldSegmentGCM(GroupName.class, OperName.class, TYPE, "parent", VERSION, "self",
+        VERSION, SegmentHeader.abort(7, 0), Utils.EMPTY_BYTE_ARR));
+
+    Assert.assertNull(topology.recvFromParentAndForward(TYPE));
+
+    Assert.assertEquals(1, sent.size());
+    Assert.assertTrue(sent.get(0).getSegment().isAborted());
+    Assert.assertEquals(0, sent.get(0).getSegment().getIndex());
+  }
+
+  @Test(timeout = 1000)
+  public void testChunkedReduceLeavesOutChildDeadHalfway() {
+    final OperatorTopologyStructImpl topology = topology("child1", "child2");
+    sendChunks(topology, "child2", 3, 10);
+    topology.addAsData(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildDead, "child2", "self"));
+    sendChunks(topology, "child1", 2, 1, 2);
+
+    final List<Integer> chunks = new ArrayList<>(Arrays.asList(100, 200));
+    topology.recvFromChildren(chunks, new SumFunction(), CODEC);
+
+    Assert.assertEquals("the chunk of the dead child is not combined", Arrays.asList(101, 202), chunks);
+  }
+
+  @Test(timeout = 1000)
+  public void testChunkedReduceWithFirstChildDeadHalfway() {
+    final OperatorTopologyStructImpl topology = topology("child1", "child2");
+    sendChunks(topology, "child2", 2, 10);
+    topology.addAsData(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildDead, "child2", "self"));
+    sendChunks(topology, "child1", 2, 1, 2);
+
+    final List<Integer> chunks = new ArrayList<>();
+    topology.recvFromChildren(chunks, new SumFunction(), CODEC);
+
+    Assert.assertEquals(Arrays.asList(1, 2), chunks);
+  }
+
+  @Test(timeout = 1000, expected = RuntimeException.class)
+  public void testChunkedReduceWithMismatchedCount() {
+    final OperatorTopologyStructImpl topology = topology("child1");
+    sendChunks(topology, "child1", 3, 1, 2, 3);
+    topology.recvFromChildren(new ArrayList<>(Arrays.asList(100, 200)), new SumFunction(), CODEC);
+  }
+
+  @Test(timeout = 1000, expected = RuntimeException.class)
+  public void testChunkedReduceWithTooFewChunks() {
+    final OperatorTopologyStructImpl topology = topology("child1");
+    sendChunks(topology, "child1", 1, 1);
+    topology.recvFromChildren(new ArrayList<>(Arrays.asList(100, 200)), new SumFunction(), CODEC);
+  }
+
+  /**
+   * Adds the given chunks, out of numChunks, as if they were sent by the child.
+   */
+  private static void sendChunks(final OperatorTopologyStructImpl topology, final String childId,
+                                 final int numChunks, final int... chunks) {
+    for (int index = 0; index < chunks.length; index++) {
+      topology.addAsData(Utils.bldSegmentGCM(GroupName.class, OperName.class, TYPE, childId, VERSION, "self",
+          VERSION, new SegmentHeader(7, index, numChunks, SegmentHeader.UNKNOWN_LENGTH), CODEC.encode(chunks[index])));
+    }
+  }
+
+  /**
+   * Returns the topology of "self", whose parent is "parent", with the given children.
+   */
+  private OperatorTopologyStructImpl topology(final String... children) {
+    final OperatorTopologyStructImpl topology = new OperatorTopologyStructImpl(GroupName.class, OperName.class,
+        "self", "driver", new Sender(null) {
+          @Override
+          public void send(final GroupCommunicationMessage msg) {
+            sent.add(msg);
+          }
+        }, VERSION);
+    topology.update(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ParentAdd, "parent", "self"));
+    for (final String child : children) {
+      topology.update(message(ReefNetworkGroupCommProtos.GroupCommMessage.Type.ChildAdd, child, "self"));
+    }
+    return topology;
+  }
+
+  private static GroupCommunicationMessage message(final ReefNetworkGroupCommProtos.GroupCommMessage.Type type,
+                                                   final String from, final String to) {
+    return Utils.bldVersionedGCM(GroupName.class, OperName.class, type, from, VERSION, to, VERSION,
+        Utils.EMPTY_BYTE_ARR);
+  }
+
+  private static final class SumFunction implements Reduce.ChunkedReduceFunction<Integer> {
+    @Override
+    public Integer apply(final Iterable<Integer> elements) {
+      int sum = 0;
+      for (final Integer element : elements) {
+        sum += element;
+      }
+      return sum;
+    }
+
+    @Override
+    public int getNumChunks(final Integer value) {
+      return 1;
+    }
+
+    @Override
+    public Integer getChunk(final Integer value, final int index) {
+      return value;
+    }
+
+    @Override
+    public Integer combine(final Integer accumulated, final Integer chunk) {
+      return accumulated + chunk;
+    }
+
+    @Override
+    public Integer join(final List<Integer> chunks) {
+      return chunks.get(0);
+    }
+  }
+
+  @NamedParameter
+  private static final class GroupName implements Name<String> {
+  }
+
+  @NamedParameter
+  private static final class OperName implements Name<String> {
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.io.network.group.impl.utils;
+
+import org.apache.reef.io.serialization.Codec;
+import org.apache.reef.io.serialization.SerializableCodec;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for util classes related to Gather.
+ */
+public final class GatherHelperTest {
+
+  /**
+   * Test that the records merged by {@code GatherHelper.merge} at each level of a small tree
+   * are decoded by {@code GatherHelper.decode} into the elements of all the tasks.
+   */
+  @Test
+  public void testMergeDecode() throws IOException {
+    final Codec<Integer> codec = new SerializableCodec<>();
+
+    final byte[] leaf1 = GatherHelper.merge("Task-3", codec.encode(3), Collections.<byte[]>emptyList());
+    final byte[] leaf2 = GatherHelper.merge("Task-2", codec.encode(2), Collections.<byte[]>emptyList());
+    final byte[] inner = GatherHelper.merge("Task-1", codec.encode(1), Collections.singletonList(leaf1));
+
+    final List<byte[]> dataFromChildren = new ArrayList<>();
+    dataFromChildren.add(inner);
+    dataFromChildren.add(leaf2);
+    final byte[] merged = GatherHelper.merge("Task-0", codec.encode(0), dataFromChildren);
+
+    final Map<String, Integer> mapOfTaskIdToData = new HashMap<>();
+    GatherHelper.decode(merged, codec, mapOfTaskIdToData);
+    assertEquals(4, mapOfTaskIdToData.size());
+    for (int index = 0; index < 4; index++) {
+      assertEquals(Integer.valueOf(index), mapOfTaskIdToData.get("Task-" + index));
+    }
+
+    // the records of the children are decoded in place as well
+    final Map<String, Integer> mapOfChildren = new HashMap<>();
+    for (final byte[] data : dataFromChildren) {
+      GatherHelper.decode(data, codec, mapOfChildren);
+    }
+    assertEquals(3, mapOfChildren.size());
+    assertFalse(mapOfChildren.containsKey("Task-0"));
+  }
+}
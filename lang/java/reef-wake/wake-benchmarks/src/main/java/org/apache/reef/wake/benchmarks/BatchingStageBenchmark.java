@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.EStage;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.BatchingStage;
+import org.apache.reef.wake.impl.ThreadPoolStage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of a single-threaded ThreadPoolStage compared with a BatchingStage:
+ * each operation feeds a run of events and waits until the handler has seen all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BatchingStageBenchmark {
+
+  private static final int RUN_LENGTH = 10000;
+
+  private static final int CAPACITY = 65536;
+
+  @Param({"ThreadPoolStage", "BatchingStage"})
+  protected String stageType;
+
+  @Param({"256"})
+  protected int maxBatchSize;
+
+  private final AtomicLong handled = new AtomicLong(0);
+  private EStage<Long> stage;
+  private long sent = 0;
+
+  @Setup
+  public void setUp() {
+    switch (stageType) {
+    case "ThreadPoolStage":
+      stage = new ThreadPoolStage<>(new EventHandler<Long>() {
+        @Override
+        public void onNext(final Long value) {
+          handled.incrementAndGet();
+        }
+      }, 1);
+      break;
+    case "BatchingStage":
+      stage = new BatchingStage<>("benchmark", new EventHandler<List<Long>>() {
+        @Override
+        public void onNext(final List<Long> batch) {
+          handled.addAndGet(batch.size());
+        }
+      }, maxBatchSize, 0, CAPACITY);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown stage type " + stageType);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    stage.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RUN_LENGTH)
+  public long run() {
+    for (int i = 0; i < RUN_LENGTH; ++i) {
+      stage.onNext(++sent);
+    }
+    while (handled.get() < sent) {
+      Thread.yield();
+    }
+    return sent;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.remote.Codec;
+import org.apache.reef.wake.remote.impl.MultiCodec;
+import org.apache.reef.wake.remote.impl.ObjectSerializableCodec;
+import org.apache.reef.wake.remote.impl.RegisteredTypeCodec;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.StringCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding time of the remote event codec and of the codecs that dispatch on the message type:
+ * MultiCodec (class name in a protocol buffer), RegisteredTypeCodec (integer type id)
+ * and ObjectSerializableCodec (Java serialization).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CodecBenchmark {
+
+  @Param({"16", "1024", "65536"})
+  protected int payloadSize;
+
+  private final RemoteEventCodec<String> remoteEventCodec = new RemoteEventCodec<>(new StringCodec());
+  private final ObjectSerializableCodec<Object> objectSerializableCodec = new ObjectSerializableCodec<>();
+  private Codec<Object> multiCodec;
+  private Codec<Object> registeredTypeCodec;
+
+  private String message;
+  private RemoteEvent<String> remoteEvent;
+  private byte[] remoteEventData;
+  private byte[] multiCodecData;
+  private byte[] registeredTypeCodecData;
+  private byte[] objectSerializableData;
+
+  @Setup
+  public void setUp() {
+    final Map<Class<?>, Codec<?>> clazzToCodecMap = new HashMap<>();
+    clazzToCodecMap.put(String.class, new StringCodec());
+    clazzToCodecMap.put(Integer.class, new ObjectSerializableCodec<Integer>());
+    multiCodec = new MultiCodec<>(clazzToCodecMap);
+    registeredTypeCodec = new RegisteredTypeCodec<>(clazzToCodecMap);
+
+    final char[] chars = new char[payloadSize];
+    Arrays.fill(chars, 'x');
+    message = new String(chars);
+    remoteEvent = new RemoteEvent<>(
+        new InetSocketAddress("localhost", 1000), new InetSocketAddress("localhost", 2000), 42, message);
+
+    remoteEventData = remoteEventCodec.encode(remoteEvent);
+    multiCodecData = multiCodec.encode(message);
+    registeredTypeCodecData = registeredTypeCodec.encode(message);
+    objectSerializableData = objectSerializableCodec.encode(message);
+  }
+
+  @Benchmark
+  public byte[] remoteEventEncode() {
+    return remoteEventCodec.encode(remoteEvent);
+  }
+
+  @Benchmark
+  public RemoteEvent<String> remoteEventDecode() {
+    return remoteEventCodec.decode(remoteEventData);
+  }
+
+  @Benchmark
+  public byte[] multiCodecEncode() {
+    return multiCodec.encode(message);
+  }
+
+  @Benchmark
+  public Object multiCodecDecode() {
+    return multiCodec.decode(multiCodecData);
+  }
+
+  @Benchmark
+  public byte[] registeredTypeCodecEncode() {
+    return registeredTypeCodec.encode(message);
+  }
+
+  @Benchmark
+  public Object registeredTypeCodecDecode() {
+    return registeredTypeCodec.decode(registeredTypeCodecData);
+  }
+
+  @Benchmark
+  public byte[] objectSerializableEncode() {
+    return objectSerializableCodec.encode(message);
+  }
+
+  @Benchmark
+  public Object objectSerializableDecode() {
+    return objectSerializableCodec.decode(objectSerializableData);
+  }
+}
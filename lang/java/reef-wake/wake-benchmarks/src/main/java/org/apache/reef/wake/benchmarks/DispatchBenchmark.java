@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.EStage;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.LoggingEventHandler;
+import org.apache.reef.wake.remote.impl.ByteCodec;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.RemoteReceiverStage;
+import org.apache.reef.wake.remote.impl.StripedRemoteReceiverStage;
+import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of dispatching heartbeat-like remote events from several senders, as the driver does.
+ * <p>
+ * "serialized" is the default receive path: a RemoteReceiverStage with the given number of threads,
+ * whose handler holds one monitor while it handles an event, as HandlerContainer does
+ * without RemoteConfiguration.ConcurrentDispatch.
+ * "striped" is the concurrent path: a StripedRemoteReceiverStage with one stripe per thread
+ * and no monitor, so the events of different senders are handled in parallel.
+ * Each operation feeds a batch of events, interleaved across the senders, and waits until all are handled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DispatchBenchmark {
+
+  private static final int BATCH_SIZE = 4800;
+  private static final int PAYLOAD_SIZE = 256;
+
+  /**
+   * CPU work of handling one event, in JMH tokens.
+   */
+  private static final long HANDLER_TOKENS = 2000;
+
+  @Param({"serialized", "striped"})
+  protected String dispatch;
+
+  @Param({"1", "4", "16"})
+  protected int numSenders;
+
+  @Param({"1", "4", "8"})
+  protected int numThreads;
+
+  private final RemoteEventCodec<byte[]> codec = new RemoteEventCodec<>(new ByteCodec());
+  private final SocketAddress localAddress = new InetSocketAddress("localhost", 1000);
+
+  private EStage<TransportEvent> stage;
+  private volatile CountDownLatch handled;
+  private List<TransportEvent> events;
+  private long nextSeq = 0;
+
+  @Setup
+  public void setUp() {
+    final EventHandler<Throwable> errorHandler = new LoggingEventHandler<>();
+    switch (dispatch) {
+    case "serialized":
+      final Object monitor = new Object();
+      stage = new RemoteReceiverStage(new EventHandler<RemoteEvent<byte[]>>() {
+        @Override
+        public void onNext(final RemoteEvent<byte[]> value) {
+          synchronized (monitor) {
+            handle(value);
+          }
+        }
+      }, errorHandler, numThreads);
+      break;
+    case "striped":
+      stage = new StripedRemoteReceiverStage(new EventHandler<RemoteEvent<byte[]>>() {
+        @Override
+        public void onNext(final RemoteEvent<byte[]> value) {
+          handle(value);
+        }
+      }, errorHandler, numThreads);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown dispatch " + dispatch);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    stage.close();
+  }
+
+  /**
+   * Encodes the next batch, continuing the sequence numbers of every sender.
+   */
+  @Setup(Level.Invocation)
+  public void prepareBatch() {
+    final int eventsPerSender = BATCH_SIZE / numSenders;
+    final SocketAddress[] remoteAddresses = new SocketAddress[numSenders];
+    for (int i = 0; i < numSenders; ++i) {
+      remoteAddresses[i] = new InetSocketAddress("localhost", 2000 + i);
+    }
+    events = new ArrayList<>(BATCH_SIZE);
+    for (long seq = nextSeq; seq < nextSeq + eventsPerSender; ++seq) {
+      for (final SocketAddress remoteAddress : remoteAddresses) {
+        final byte[] data = codec.encode(
+            new RemoteEvent<>(remoteAddress, localAddress, seq, new byte[PAYLOAD_SIZE]));
+        events.add(new TransportEvent(data, localAddress, remoteAddress));
+      }
+    }
+    nextSeq += eventsPerSender;
+    handled = new CountDownLatch(events.size());
+  }
+
+  private void handle(final RemoteEvent<byte[]> value) {
+    Blackhole.consumeCPU(HANDLER_TOKENS);
+    handled.countDown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void dispatch() throws InterruptedException {
+    for (final TransportEvent event : events) {
+      stage.onNext(event);
+    }
+    handled.await();
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.JoinStage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of JoinStage: each operation feeds a batch of left events and the right events
+ * that match them one to one, and waits until all pairs are joined.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class JoinStageBenchmark {
+
+  private static final int BATCH_SIZE = 10000;
+
+  private static final JoinStage.KeyExtractor<Long, Long> KEY = new JoinStage.KeyExtractor<Long, Long>() {
+    @Override
+    public Long getKey(final Long event) {
+      return event;
+    }
+  };
+
+  @Param({"1", "4"})
+  protected int numPartitions;
+
+  @Param({"1024", "65536"})
+  protected int windowSize;
+
+  private JoinStage<Long, Long, Long> join;
+  private EventHandler<Long> left;
+  private EventHandler<Long> right;
+  private long nextKey = 0;
+
+  @Setup
+  public void setUp() {
+    join = new JoinStage<>("benchmark", KEY, KEY, new EventHandler<JoinStage.JoinedEvent<Long, Long, Long>>() {
+      @Override
+      public void onNext(final JoinStage.JoinedEvent<Long, Long, Long> value) {
+        // the stage counts the joined pairs
+      }
+    }, numPartitions, windowSize);
+    left = join.getLeftHandler();
+    right = join.getRightHandler();
+  }
+
+  @TearDown
+  public void tearDown() {
+    join.close();
+  }
+
+  /**
+   * Sends the right event of a key shortly after its left event, so that it is still in the window.
+   */
+  @Benchmark
+  @OperationsPerInvocation(2 * BATCH_SIZE)
+  public long join() {
+    final long expected = join.getJoinedCount() + BATCH_SIZE;
+    final long first = nextKey;
+    for (int i = 0; i < BATCH_SIZE; ++i) {
+      left.onNext(nextKey++);
+      if (i >= 8) {
+        right.onNext(first + i - 8);
+      }
+    }
+    for (long key = nextKey - 8; key < nextKey; ++key) {
+      right.onNext(key);
+    }
+    while (join.getJoinedCount() < expected) {
+      Thread.yield();
+    }
+    return expected;
+  }
+}
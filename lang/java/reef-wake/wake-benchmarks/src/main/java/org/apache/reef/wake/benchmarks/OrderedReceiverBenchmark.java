@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.LoggingEventHandler;
+import org.apache.reef.wake.remote.impl.ByteCodec;
+import org.apache.reef.wake.remote.impl.OrderedRemoteReceiverStage;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of OrderedRemoteReceiverStage: decoding remote events of several senders
+ * and delivering the events of each sender in sequence order.
+ * Each operation feeds a batch of encoded events, optionally shuffled, and waits until all are delivered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OrderedReceiverBenchmark {
+
+  private static final int BATCH_SIZE = 12000;
+  private static final int PAYLOAD_SIZE = 64;
+
+  @Param({"1", "4"})
+  protected int numSenders;
+
+  @Param({"false", "true"})
+  protected boolean shuffled;
+
+  private final RemoteEventCodec<byte[]> codec = new RemoteEventCodec<>(new ByteCodec());
+  private final SocketAddress localAddress = new InetSocketAddress("localhost", 1000);
+  private final Random random = new Random(42);
+
+  private OrderedRemoteReceiverStage stage;
+  private volatile CountDownLatch delivered;
+  private List<TransportEvent> events;
+  private long nextSeq = 0;
+
+  @Setup
+  public void setUp() {
+    stage = new OrderedRemoteReceiverStage(new EventHandler<RemoteEvent<byte[]>>() {
+      @Override
+      public void onNext(final RemoteEvent<byte[]> value) {
+        delivered.countDown();
+      }
+    }, new LoggingEventHandler<Throwable>());
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    stage.close();
+  }
+
+  /**
+   * Encodes the next batch, continuing the sequence numbers of every sender.
+   */
+  @Setup(Level.Invocation)
+  public void prepareBatch() {
+    final int eventsPerSender = BATCH_SIZE / numSenders;
+    events = new ArrayList<>(BATCH_SIZE);
+    for (int i = 0; i < numSenders; ++i) {
+      final SocketAddress remoteAddress = new InetSocketAddress("localhost", 2000 + i);
+      for (long seq = nextSeq; seq < nextSeq + eventsPerSender; ++seq) {
+        final byte[] data = codec.encode(
+            new RemoteEvent<>(remoteAddress, localAddress, seq, new byte[PAYLOAD_SIZE]));
+        events.add(new TransportEvent(data, localAddress, remoteAddress));
+      }
+    }
+    nextSeq += eventsPerSender;
+    if (shuffled) {
+      Collections.shuffle(events, random);
+    }
+    delivered = new CountDownLatch(events.size());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void receive() throws InterruptedException {
+    for (final TransportEvent event : events) {
+      stage.onNext(event);
+    }
+    delivered.await();
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.remote.impl.ProxyEventHandler;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteSeqNumGenerator;
+import org.apache.reef.wake.remote.impl.SocketRemoteIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-message overhead of the remote manager in front of the codec: the sequence number of the destination
+ * and the event envelope built by the proxy event handler.
+ * Run with JMH's {@code -prof gc} option to see the bytes allocated per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RemoteSendPathBenchmark {
+
+  private static final int NUM_DESTINATIONS = 64;
+
+  private final RemoteSeqNumGenerator seqGen = new RemoteSeqNumGenerator();
+  private final SeqSink sink = new SeqSink();
+
+  private InetSocketAddress destination;
+  private AtomicLong counter;
+  private ProxyEventHandler<String> proxy;
+
+  @Setup
+  public void setUp() {
+    // other destinations, so that the lookups are not in a trivial map
+    for (int i = 1; i < NUM_DESTINATIONS; ++i) {
+      seqGen.getNextSeq(new InetSocketAddress("localhost", 2000 + i));
+    }
+    destination = new InetSocketAddress("localhost", 2000);
+    counter = seqGen.getCounter(destination);
+    proxy = new ProxyEventHandler<>(new SocketRemoteIdentifier(new InetSocketAddress("localhost", 1000)),
+        new SocketRemoteIdentifier(destination), "default", sink, seqGen);
+  }
+
+  /**
+   * Looks up the destination for every message.
+   */
+  @Benchmark
+  public long seqLookupPerMessage() {
+    return seqGen.getNextSeq(destination);
+  }
+
+  /**
+   * Uses the counter of the destination looked up once.
+   */
+  @Benchmark
+  public long seqCounter() {
+    return counter.getAndIncrement();
+  }
+
+  /**
+   * Sends a message through the proxy event handler to a handler that consumes the envelope.
+   */
+  @Benchmark
+  public long proxySend() {
+    proxy.onNext("message");
+    return sink.getLastSeq();
+  }
+
+  /**
+   * Takes the sequence number of the events, like an encoder would.
+   */
+  private static final class SeqSink implements EventHandler<RemoteEvent<String>> {
+
+    private long lastSeq;
+
+    @Override
+    public void onNext(final RemoteEvent<String> value) {
+      lastSeq = value.getSeq();
+    }
+
+    long getLastSeq() {
+      return lastSeq;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.wake.EStage;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.ForkPoolStage;
+import org.apache.reef.wake.impl.SingleThreadStage;
+import org.apache.reef.wake.impl.ThreadPoolStage;
+import org.apache.reef.wake.impl.WakeSharedPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of handing an event from the caller thread to the handler thread of a stage.
+ * Each operation submits one event and waits until the handler has seen it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StageHandoffBenchmark {
+
+  private static final int SINGLE_THREAD_STAGE_CAPACITY = 1024;
+
+  @Param({"ThreadPoolStage", "SingleThreadStage", "ForkPoolStage"})
+  protected String stageType;
+
+  private final AtomicLong handled = new AtomicLong(0);
+  private EStage<Long> stage;
+  private WakeSharedPool pool;
+  private long sent = 0;
+
+  @Setup
+  public void setUp() {
+    final EventHandler<Long> handler = new EventHandler<Long>() {
+      @Override
+      public void onNext(final Long value) {
+        handled.set(value);
+      }
+    };
+    switch (stageType) {
+    case "ThreadPoolStage":
+      stage = new ThreadPoolStage<>(handler, 1);
+      break;
+    case "SingleThreadStage":
+      stage = new SingleThreadStage<>(handler, SINGLE_THREAD_STAGE_CAPACITY);
+      break;
+    case "ForkPoolStage":
+      pool = new WakeSharedPool(1);
+      stage = new ForkPoolStage<>(handler, pool);
+      break;
+    default:
+      throw new IllegalArgumentException("Unknown stage type " + stageType);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    stage.close();
+    if (pool != null) {
+      pool.close();
+    }
+  }
+
+  @Benchmark
+  public long handoff() {
+    final long event = ++sent;
+    stage.onNext(event);
+    while (handled.get() != event) {
+      Thread.yield();
+    }
+    return event;
+  }
+}
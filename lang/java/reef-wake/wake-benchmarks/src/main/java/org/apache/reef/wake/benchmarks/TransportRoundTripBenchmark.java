@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.LoggingEventHandler;
+import org.apache.reef.wake.remote.impl.ByteCodec;
+import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.apache.reef.wake.remote.transport.Link;
+import org.apache.reef.wake.remote.transport.Transport;
+import org.apache.reef.wake.remote.transport.TransportFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Round-trip latency of NettyMessagingTransport over the loopback interface.
+ * Each operation sends a message to the server side of the same transport,
+ * which echoes it back, and waits for the echo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TransportRoundTripBenchmark {
+
+  @Param({"64", "4096", "65536", "1048576"})
+  protected int messageSize;
+
+  private final AtomicLong received = new AtomicLong(0);
+  private Transport transport;
+  private Link<byte[]> link;
+  private byte[] message;
+  private long sent = 0;
+
+  @Setup
+  public void setUp() throws InjectionException, IOException {
+    final EventHandler<TransportEvent> clientHandler = new EventHandler<TransportEvent>() {
+      @Override
+      public void onNext(final TransportEvent value) {
+        received.incrementAndGet();
+      }
+    };
+    final EventHandler<TransportEvent> echoHandler = new EventHandler<TransportEvent>() {
+      @Override
+      public void onNext(final TransportEvent value) {
+        value.getLink().write(value.getData());
+      }
+    };
+
+    final TransportFactory factory = Tang.Factory.getTang().newInjector().getInstance(TransportFactory.class);
+    transport = factory.newInstance(0, clientHandler, echoHandler, new LoggingEventHandler<Exception>());
+    link = transport.open(transport.getLocalAddress(), new ByteCodec(), null);
+    message = new byte[messageSize];
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    transport.close();
+  }
+
+  @Benchmark
+  public long roundTrip() {
+    final long expected = ++sent;
+    link.write(message);
+    while (received.get() < expected) {
+      Thread.yield();
+    }
+    return expected;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the Wake benchmarks with the JMH command line options.
+ * Unless the options say otherwise, the results are written as JSON to wake-benchmarks.json,
+ * so that they can be compared across releases.
+ */
+public final class WakeBenchmarks {
+
+  private static final String DEFAULT_RESULT_FILE = "wake-benchmarks.json";
+
+  /**
+   * @param args JMH command line options, e.g. a regular expression of the benchmarks to run
+   * @throws CommandLineOptionException if the options cannot be parsed
+   * @throws RunnerException if a benchmark fails
+   * @throws IOException if the help cannot be printed
+   */
+  public static void main(final String[] args) throws CommandLineOptionException, RunnerException, IOException {
+    final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    if (cmdOptions.shouldHelp()) {
+      cmdOptions.showHelp();
+      return;
+    }
+
+    final ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+    if (!cmdOptions.getResult().hasValue()) {
+      builder.result(DEFAULT_RESULT_FILE);
+    }
+
+    final Runner runner = new Runner(builder.build());
+    if (cmdOptions.shouldList()) {
+      runner.list();
+    } else {
+      runner.run();
+    }
+  }
+
+  /**
+   * Empty private constructor to prohibit instantiation of utility class.
+   */
+  private WakeBenchmarks() {
+  }
+}
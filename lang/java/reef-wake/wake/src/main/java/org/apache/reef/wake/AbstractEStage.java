@@ -18,12 +18,16 @@
  */
 package org.apache.reef.wake;
 
+import org.apache.reef.wake.metrics.LogLinearHistogram;
 import org.apache.reef.wake.metrics.Meter;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * An {@link EStage} that implements metering.
+ * <p>
+ * Besides the input and output meters, a stage can record how long events wait before their handler starts
+ * (queue time) and how long the handler takes (service time), both in nanoseconds.
  *
  * @param <T> type
  */
@@ -38,6 +42,9 @@ public abstract class AbstractEStage<T> implements EStage<T> {
    */
   private final Meter outMeter;
 
+  private final LogLinearHistogram queueTime = new LogLinearHistogram();
+  private final LogLinearHistogram serviceTime = new LogLinearHistogram();
+
   /**
    * Constructs an abstract estage.
    *
@@ -50,6 +57,15 @@ public abstract class AbstractEStage<T> implements EStage<T> {
     this.outMeter = new Meter(stageName + "_out");
   }
 
+  /**
+   * Gets the name of this stage.
+   *
+   * @return the stage name
+   */
+  public String getName() {
+    return name;
+  }
+
   /**
    * Gets the input meter of this stage.
    *
@@ -88,4 +104,40 @@ public abstract class AbstractEStage<T> implements EStage<T> {
     outMeter.mark(1);
   }
 
+  /**
+   * Gets the histogram of the time in nanoseconds events waited before their handler started.
+   * Stages that run the handler in the caller thread record 0.
+   *
+   * @return the queue time histogram
+   */
+  public LogLinearHistogram getQueueTime() {
+    return queueTime;
+  }
+
+  /**
+   * Gets the histogram of the time in nanoseconds the handler took for an event or a batch of events.
+   *
+   * @return the service time histogram
+   */
+  public LogLinearHistogram getServiceTime() {
+    return serviceTime;
+  }
+
+  /**
+   * Records the time an event waited before its handler started.
+   *
+   * @param nanos the queue time in nanoseconds
+   */
+  protected void recordQueueTime(final long nanos) {
+    queueTime.update(nanos);
+  }
+
+  /**
+   * Records the time the handler took.
+   *
+   * @param nanos the service time in nanoseconds
+   */
+  protected void recordServiceTime(final long nanos) {
+    serviceTime.update(nanos);
+  }
 }
@@ -64,6 +64,28 @@ public final class StageConfiguration {
   public static final class Capacity implements Name<Integer> {
   }
 
+  /**
+   * The maximum number of events delivered to the handler at once.
+   */
+  @NamedParameter(doc = "The maximum number of events delivered to the handler at once.")
+  public static final class MaxBatchSize implements Name<Integer> {
+  }
+
+  /**
+   * The maximum time in microseconds to wait for more events before delivering a partial batch.
+   */
+  @NamedParameter(doc = "The maximum time in microseconds to wait for more events before delivering a partial batch.")
+  public static final class MaxBatchDelayMicros implements Name<Long> {
+  }
+
+  /**
+   * The maximum number of events of the stage queued or running in a shared pool at once.
+   */
+  @NamedParameter(doc = "The maximum number of events of the stage queued or running in a shared pool at once. " +
+      "0 means no limit.")
+  public static final class MaxInFlightEvents implements Name<Integer> {
+  }
+
   /**
    * The executor service for the stage.
    */
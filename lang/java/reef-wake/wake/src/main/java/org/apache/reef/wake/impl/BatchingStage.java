@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.impl;
+
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.AbstractEStage;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.StageConfiguration.*;
+import org.apache.reef.wake.WakeParameters;
+import org.apache.reef.wake.exception.WakeRuntimeException;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stage that delivers events to the handler in batches, using a single thread.
+ * <p>
+ * The thread takes all queued events up to the maximum batch size. If the batch is not full,
+ * it waits up to the maximum batch delay for more events, then calls the handler once with the batch.
+ * The handler owns the list it receives. Exceptions from the handler go to the error handler,
+ * or are logged at SEVERE if there is none, and the stage goes on with the next batch.
+ * Exceptions from the error handler are logged at SEVERE as well, so the stage thread never dies.
+ *
+ * @param <T> type
+ */
+public final class BatchingStage<T> extends AbstractEStage<T> {
+
+  private static final Logger LOG = Logger.getLogger(BatchingStage.class.getName());
+
+  private static final long SHUTDOWN_TIMEOUT = WakeParameters.EXECUTOR_SHUTDOWN_TIMEOUT;
+
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  private final EventHandler<List<T>> handler;
+  private final EventHandler<Throwable> errorHandler;
+  private final BlockingQueue<QueuedEvent<T>> queue;
+  private final int maxBatchSize;
+  private final long maxBatchDelayNanos;
+  private final Thread thread;
+
+  /**
+   * Constructs a batching stage.
+   *
+   * @param name                the stage name
+   * @param handler             the handler of event batches
+   * @param maxBatchSize        the maximum number of events in a batch
+   * @param maxBatchDelayMicros the maximum time to wait for more events; 0 delivers whatever is queued
+   * @param capacity            the maximum number of queued events; callers block when it is reached
+   * @throws WakeRuntimeException if the batch size or the capacity is less than or equal to 0
+   */
+  @Inject
+  public BatchingStage(@Parameter(StageName.class) final String name,
+                       @Parameter(StageHandler.class) final EventHandler<List<T>> handler,
+                       @Parameter(MaxBatchSize.class) final int maxBatchSize,
+                       @Parameter(MaxBatchDelayMicros.class) final long maxBatchDelayMicros,
+                       @Parameter(Capacity.class) final int capacity) {
+    this(name, handler, maxBatchSize, maxBatchDelayMicros, capacity, null);
+  }
+
+  /**
+   * Constructs a batching stage.
+   *
+   * @param name                the stage name
+   * @param handler             the handler of event batches
+   * @param maxBatchSize        the maximum number of events in a batch
+   * @param maxBatchDelayMicros the maximum time to wait for more events; 0 delivers whatever is queued
+   * @param capacity            the maximum number of queued events; callers block when it is reached
+   * @param errorHandler        the error handler
+   * @throws WakeRuntimeException if the batch size or the capacity is less than or equal to 0
+   */
+  @Inject
+  public BatchingStage(@Parameter(StageName.class) final String name,
+                       @Parameter(StageHandler.class) final EventHandler<List<T>> handler,
+                       @Parameter(MaxBatchSize.class) final int maxBatchSize,
+                       @Parameter(MaxBatchDelayMicros.class) final long maxBatchDelayMicros,
+                       @Parameter(Capacity.class) final int capacity,
+                       @Parameter(ErrorHandler.class) final EventHandler<Throwable> errorHandler) {
+    super(name);
+    if (maxBatchSize <= 0) {
+      throw new WakeRuntimeException(name + " maxBatchSize " + maxBatchSize + " is less than or equal to 0");
+    }
+    if (capacity <= 0) {
+      throw new WakeRuntimeException(name + " capacity " + capacity + " is less than or equal to 0");
+    }
+    this.handler = handler;
+    this.errorHandler = errorHandler;
+    this.queue = new LinkedBlockingQueue<>(capacity);
+    this.maxBatchSize = maxBatchSize;
+    this.maxBatchDelayNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(maxBatchDelayMicros, 0));
+    this.thread = new Thread(new Batcher());
+    this.thread.setName("BatchingStage<" + name + ">");
+    this.thread.start();
+    StageManager.instance().register(this);
+  }
+
+  /**
+   * Puts the event into the queue; blocks while the queue is full.
+   * An event that races with close() is either delivered or rejected, never left in the queue.
+   *
+   * @param value the event
+   * @throws WakeRuntimeException if the stage is closed or the caller is interrupted
+   */
+  @Override
+  public void onNext(final T value) {
+    if (closed.get()) {
+      throw new WakeRuntimeException(name + " is closed");
+    }
+    beforeOnNext();
+    final QueuedEvent<T> entry = new QueuedEvent<>(value);
+    try {
+      queue.put(entry);
+    } catch (final InterruptedException e) {
+      afterOnNext();
+      Thread.currentThread().interrupt();
+      throw new WakeRuntimeException(name + " interrupted while waiting for queue space", e);
+    }
+    if (closed.get() && queue.remove(entry)) {
+      afterOnNext();
+      throw new WakeRuntimeException(name + " closed while queueing the event");
+    }
+  }
+
+  /**
+   * Gets the number of events waiting to be batched.
+   *
+   * @return the queue length
+   */
+  public int getQueueLength() {
+    return queue.size();
+  }
+
+  /**
+   * Delivers the queued events and stops the stage thread.
+   */
+  @Override
+  public void close() throws Exception {
+    if (closed.compareAndSet(false, true)) {
+      thread.join(SHUTDOWN_TIMEOUT);
+      if (thread.isAlive()) {
+        LOG.log(Level.SEVERE, "Closing BatchingStage {0}: thread did not terminate in {1} ms. Dropping {2} events",
+            new Object[] {name, SHUTDOWN_TIMEOUT, queue.size()});
+        thread.interrupt();
+      }
+      StageManager.instance().unregister(this);
+    }
+  }
+
+  /**
+   * Takes events from the queue and provides them to the handler in batches.
+   */
+  private final class Batcher implements Runnable {
+
+    private final List<QueuedEvent<T>> entries = new ArrayList<>();
+
+    @Override
+    public void run() {
+      try {
+        while (!closed.get() || !queue.isEmpty()) {
+          final QueuedEvent<T> first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+          if (first != null) {
+            deliver(nextBatch(first));
+          }
+        }
+      } catch (final InterruptedException e) {
+        LOG.log(Level.FINEST, name + " Closing Batcher due to interruption");
+      }
+    }
+
+    /**
+     * Collects the next batch and records the queue time of its events.
+     */
+    private List<T> nextBatch(final QueuedEvent<T> first) throws InterruptedException {
+      entries.add(first);
+      queue.drainTo(entries, maxBatchSize - 1);
+      if (entries.size() < maxBatchSize && maxBatchDelayNanos > 0 && !closed.get()) {
+        final long deadline = System.nanoTime() + maxBatchDelayNanos;
+        long remaining = maxBatchDelayNanos;
+        while (entries.size() < maxBatchSize && remaining > 0) {
+          final QueuedEvent<T> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          entries.add(next);
+          queue.drainTo(entries, maxBatchSize - entries.size());
+          remaining = deadline - System.nanoTime();
+        }
+      }
+      final List<T> batch = new ArrayList<>(entries.size());
+      for (final QueuedEvent<T> entry : entries) {
+        recordQueueTime(entry.getQueueTime());
+        batch.add(entry.getValue());
+      }
+      entries.clear();
+      return batch;
+    }
+
+    @SuppressWarnings("checkstyle:illegalcatch")
+    private void deliver(final List<T> batch) {
+      final int size = batch.size();
+      final long start = System.nanoTime();
+      try {
+        handler.onNext(batch);
+      } catch (final Throwable t) {
+        if (errorHandler == null) {
+          LOG.log(Level.SEVERE, name + " Exception from event handler", t);
+        } else {
+          try {
+            errorHandler.onNext(t);
+          } catch (final Throwable e) {
+            LOG.log(Level.SEVERE, name + " Exception from error handler", e);
+          }
+        }
+      } finally {
+        recordServiceTime(System.nanoTime() - start);
+        getOutMeter().mark(size);
+      }
+    }
+  }
+}
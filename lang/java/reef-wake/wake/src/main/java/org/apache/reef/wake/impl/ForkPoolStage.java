@@ -22,9 +22,16 @@ import org.apache.reef.tang.annotations.Parameter;
 import org.apache.reef.wake.AbstractEStage;
 import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.StageConfiguration;
+import org.apache.reef.wake.WakeParameters;
+import org.apache.reef.wake.exception.WakeRuntimeException;
 
 import javax.inject.Inject;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -34,7 +41,9 @@ import java.util.logging.Logger;
  * balanced with work stealing.
  * <p>
  * The pool is provided to the constructor, so multiple stages
- * may use the same pool.
+ * may use the same pool. To keep one stage from filling the shared pool,
+ * the number of its events queued or running in the pool can be limited;
+ * the events above the limit wait in the stage until its earlier events are done.
  * <p>
  * Some advantage in throughput over other stage implementations should be seen
  * when one wake stage is submitting to another using the same
@@ -46,58 +55,242 @@ import java.util.logging.Logger;
 public class ForkPoolStage<T> extends AbstractEStage<T> {
   private static final Logger LOG = Logger.getLogger(ForkPoolStage.class.getName());
 
+  private static final long SHUTDOWN_TIMEOUT = WakeParameters.EXECUTOR_SHUTDOWN_TIMEOUT;
+
   private final EventHandler<T> handler;
+  private final EventHandler<Throwable> errorHandler;
   private final WakeSharedPool pool;
 
+  /** Maximum number of events in the pool at once; 0 if not limited. */
+  private final int maxInFlight;
+
+  /** Events above the limit, waiting for the earlier events of the stage to finish. */
+  private final Queue<T> backlog = new ConcurrentLinkedQueue<>();
+
+  /** Number of events of the stage submitted to the pool and not yet done. */
+  private final AtomicInteger inFlight = new AtomicInteger(0);
+
+  /** Number of accepted events that are not yet done, including the backlog. */
+  private final AtomicInteger pending = new AtomicInteger(0);
+
+  /**
+   * Constructs a fork pool stage.
+   *
+   * @param stageName    the stage name
+   * @param handler      the event handler
+   * @param errorHandler the error handler, can be null
+   * @param maxInFlight  the maximum number of events of the stage in the pool at once, 0 for no limit
+   * @param sharedPool   the pool to run the events in
+   * @throws WakeRuntimeException if maxInFlight is negative
+   */
   @Inject
   public ForkPoolStage(@Parameter(StageConfiguration.StageName.class) final String stageName,
                        @Parameter(StageConfiguration.StageHandler.class) final EventHandler<T> handler,
+                       @Parameter(StageConfiguration.ErrorHandler.class) final EventHandler<Throwable> errorHandler,
+                       @Parameter(StageConfiguration.MaxInFlightEvents.class) final int maxInFlight,
                        final WakeSharedPool sharedPool
   ) {
     super(stageName);
+    if (maxInFlight < 0) {
+      throw new WakeRuntimeException(stageName + " maxInFlight " + maxInFlight + " is less than 0");
+    }
     this.pool = sharedPool;
     this.handler = handler;
-    //TODO[JIRA REEF-911]: should WakeSharedPool register its stages?
+    this.errorHandler = errorHandler;
+    this.maxInFlight = maxInFlight;
 
+    this.pool.register(this);
     StageManager.instance().register(this);
   }
 
+  /**
+   * Constructs a fork pool stage without a limit on the events in the pool.
+   *
+   * @param stageName    the stage name
+   * @param handler      the event handler
+   * @param errorHandler the error handler, can be null
+   * @param sharedPool   the pool to run the events in
+   */
+  @Inject
+  public ForkPoolStage(@Parameter(StageConfiguration.StageName.class) final String stageName,
+                       @Parameter(StageConfiguration.StageHandler.class) final EventHandler<T> handler,
+                       @Parameter(StageConfiguration.ErrorHandler.class) final EventHandler<Throwable> errorHandler,
+                       final WakeSharedPool sharedPool) {
+    this(stageName, handler, errorHandler, 0, sharedPool);
+  }
+
+  @Inject
+  public ForkPoolStage(@Parameter(StageConfiguration.StageName.class) final String stageName,
+                       @Parameter(StageConfiguration.StageHandler.class) final EventHandler<T> handler,
+                       final WakeSharedPool sharedPool
+  ) {
+    this(stageName, handler, null, 0, sharedPool);
+  }
+
   @Inject
   public ForkPoolStage(@Parameter(StageConfiguration.StageHandler.class) final EventHandler<T> handler,
                        final WakeSharedPool sharedPool) {
     this(ForkPoolStage.class.getName(), handler, sharedPool);
   }
 
+  /**
+   * Submits the event to the shared pool, or keeps it in the backlog if the stage is at its limit.
+   *
+   * @param value the event
+   * @throws RejectedExecutionException if the stage is closed
+   */
   @Override
   public void onNext(final T value) {
+    // counted before the check, so that close() does not miss an event accepted concurrently
+    pending.incrementAndGet();
+    if (closed.get()) {
+      pending.decrementAndGet();
+      throw new RejectedExecutionException(name + " is closed");
+    }
     beforeOnNext();
-    pool.submit(new ForkJoinTask<T>() {
-      @Override
-      public T getRawResult() {
-        // tasks have no results because they are events
-        // this may be used for extensions
-        return null;
+
+    if (maxInFlight == 0) {
+      inFlight.incrementAndGet();
+      submit(value);
+    } else {
+      backlog.add(value);
+      submitBacklog();
+    }
+  }
+
+  /**
+   * Moves events from the backlog to the pool while the stage is below its limit.
+   */
+  private void submitBacklog() {
+    while (!backlog.isEmpty()) {
+      final int n = inFlight.get();
+      if (n >= maxInFlight) {
+        // the event that takes the last slot submits the backlog when it is done
+        return;
+      }
+      if (inFlight.compareAndSet(n, n + 1)) {
+        final T value = backlog.poll();
+        if (value == null) {
+          inFlight.decrementAndGet();
+        } else {
+          submit(value);
+        }
       }
+    }
+  }
 
-      @Override
-      protected void setRawResult(final T value) {
-        // tasks have no results because they are events
-        // this may be used for extensions
+  private void submit(final T value) {
+    try {
+      pool.submit(new EventTask(value));
+    } catch (final RejectedExecutionException e) {
+      inFlight.decrementAndGet();
+      done();
+      throw e;
+    }
+  }
+
+  /**
+   * Runs the handler on the event and passes its exception to the error handler.
+   * Without an error handler, the exception is logged, since no one joins the pool task.
+   */
+  @SuppressWarnings("checkstyle:illegalcatch")
+  private void handle(final T value, final long enqueueTime) {
+    final long start = System.nanoTime();
+    recordQueueTime(start - enqueueTime);
+    try {
+      handler.onNext(value);
+    } catch (final Throwable t) {
+      if (errorHandler != null) {
+        errorHandler.onNext(t);
+      } else {
+        LOG.log(Level.SEVERE, name + " Exception from event handler", t);
+      }
+    } finally {
+      recordServiceTime(System.nanoTime() - start);
+      inFlight.decrementAndGet();
+      done();
+      if (maxInFlight > 0) {
+        submitBacklog();
       }
+    }
+  }
 
-      @Override
-      protected boolean exec() {
-        handler.onNext(value);
-        afterOnNext();
-        return true;
+  private void done() {
+    afterOnNext();
+    if (pending.decrementAndGet() == 0 && closed.get()) {
+      synchronized (pending) {
+        pending.notifyAll();
       }
-    });
+    }
   }
 
+  /**
+   * Gets the number of events waiting for the stage to get below its limit.
+   *
+   * @return the number of events in the backlog
+   */
+  public int getQueueLength() {
+    return backlog.size();
+  }
 
+  /**
+   * Stops accepting events and waits for the accepted ones to finish.
+   * The shared pool is not closed, as other stages may use it.
+   */
   @Override
   public void close() throws Exception {
-    LOG.warning("close(): " + pool.getClass().getName() + " " + pool + " must really be close()'d");
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+    synchronized (pending) {
+      while (pending.get() > 0 && !pool.isTerminated()) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          LOG.log(Level.WARNING, "{0} did not finish {1} events in {2}ms. Dropping {3} events in the backlog.",
+              new Object[] {name, pending.get(), SHUTDOWN_TIMEOUT, backlog.size()});
+          backlog.clear();
+          break;
+        }
+        pending.wait(remaining);
+      }
+    }
+
+    pool.unregister(this);
+    StageManager.instance().unregister(this);
+    LOG.log(Level.FINEST, "{0} closed", name);
   }
 
+  /**
+   * A pool task that handles one event of the stage.
+   */
+  private final class EventTask extends ForkJoinTask<Void> {
+
+    private final T value;
+    private final long enqueueTime = System.nanoTime();
+
+    EventTask(final T value) {
+      this.value = value;
+    }
+
+    @Override
+    public Void getRawResult() {
+      // tasks have no results because they are events
+      // this may be used for extensions
+      return null;
+    }
+
+    @Override
+    protected void setRawResult(final Void result) {
+      // tasks have no results because they are events
+      // this may be used for extensions
+    }
+
+    @Override
+    protected boolean exec() {
+      handle(value, enqueueTime);
+      return true;
+    }
+  }
 }
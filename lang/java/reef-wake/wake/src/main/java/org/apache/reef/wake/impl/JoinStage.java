@@ -0,0 +1,368 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.impl;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.Stage;
+import org.apache.reef.wake.exception.WakeRuntimeException;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stage that joins two streams of events on a key over sliding windows.
+ * <p>
+ * Each event is matched with the events of the other stream that have the same key
+ * and are still in the window, and each matching pair is passed to the handler once,
+ * when the later of the two events arrives. The window of each stream is bounded by count
+ * and optionally by age: an event is evicted once maxEventsPerPartition newer events of its stream
+ * have arrived in its partition, or when it is older than maxAgeMillis.
+ * <p>
+ * The state is partitioned by the hash of the key. Each partition is owned by one thread of
+ * a bounded stage, so the partitions need no locks, and callers block when a partition is behind.
+ * The handler is called from the partition threads, so it must be thread-safe
+ * if there is more than one partition.
+ *
+ * @param <K> type of the join key
+ * @param <L> type of the events of the left stream
+ * @param <R> type of the events of the right stream
+ */
+public final class JoinStage<K, L, R> implements Stage {
+
+  private static final Logger LOG = Logger.getLogger(JoinStage.class.getName());
+
+  /**
+   * Gets the join key of an event.
+   *
+   * @param <T> type of the events
+   * @param <K> type of the key
+   */
+  public interface KeyExtractor<T, K> {
+
+    /**
+     * @param event the event
+     * @return the join key of the event, not null
+     */
+    K getKey(T event);
+  }
+
+  /**
+   * A pair of events of the two streams with the same key.
+   *
+   * @param <K> type of the join key
+   * @param <L> type of the left event
+   * @param <R> type of the right event
+   */
+  public static final class JoinedEvent<K, L, R> {
+
+    private final K key;
+    private final L left;
+    private final R right;
+
+    JoinedEvent(final K key, final L left, final R right) {
+      this.key = key;
+      this.left = left;
+      this.right = right;
+    }
+
+    /**
+     * @return the join key
+     */
+    public K getKey() {
+      return key;
+    }
+
+    /**
+     * @return the event of the left stream
+     */
+    public L getLeft() {
+      return left;
+    }
+
+    /**
+     * @return the event of the right stream
+     */
+    public R getRight() {
+      return right;
+    }
+
+    @Override
+    public String toString() {
+      return "JoinedEvent{" + key + ": " + left + ", " + right + "}";
+    }
+  }
+
+  private final String name;
+  private final KeyExtractor<L, K> leftKey;
+  private final KeyExtractor<R, K> rightKey;
+  private final EventHandler<JoinedEvent<K, L, R>> handler;
+  private final int maxEventsPerPartition;
+  private final long maxAgeMillis;
+  private final ThreadPoolStage<Arrival>[] partitions;
+
+  private final AtomicLong joinedCount = new AtomicLong(0);
+  private final AtomicLong evictedCount = new AtomicLong(0);
+
+  /**
+   * Constructs a join stage.
+   *
+   * @param name                  the stage name
+   * @param leftKey               the key of the left events
+   * @param rightKey              the key of the right events
+   * @param handler               the handler of the joined pairs
+   * @param numPartitions         the number of partitions, each with its own thread
+   * @param maxEventsPerPartition the number of events of each stream kept in the window of a partition
+   * @param maxAgeMillis          the time in milliseconds an event is kept in the window; 0 for no limit
+   * @param capacity              the number of events queued for a partition before callers block
+   * @param errorHandler          the handler of exceptions from the handler; may be null
+   * @throws WakeRuntimeException if a count is less than or equal to 0, or the age is negative
+   */
+  @SuppressWarnings("unchecked")
+  public JoinStage(final String name,
+                   final KeyExtractor<L, K> leftKey,
+                   final KeyExtractor<R, K> rightKey,
+                   final EventHandler<JoinedEvent<K, L, R>> handler,
+                   final int numPartitions,
+                   final int maxEventsPerPartition,
+                   final long maxAgeMillis,
+                   final int capacity,
+                   final EventHandler<Throwable> errorHandler) {
+    if (numPartitions <= 0) {
+      throw new WakeRuntimeException(name + " numPartitions " + numPartitions + " is less than or equal to 0");
+    }
+    if (maxEventsPerPartition <= 0) {
+      throw new WakeRuntimeException(
+          name + " maxEventsPerPartition " + maxEventsPerPartition + " is less than or equal to 0");
+    }
+    if (maxAgeMillis < 0) {
+      throw new WakeRuntimeException(name + " maxAgeMillis " + maxAgeMillis + " is less than 0");
+    }
+    this.name = name;
+    this.leftKey = leftKey;
+    this.rightKey = rightKey;
+    this.handler = handler;
+    this.maxEventsPerPartition = maxEventsPerPartition;
+    this.maxAgeMillis = maxAgeMillis;
+    this.partitions = new ThreadPoolStage[numPartitions];
+    for (int i = 0; i < numPartitions; ++i) {
+      this.partitions[i] = new ThreadPoolStage<>(name + "-" + i, new Partition(), 1, errorHandler,
+          capacity, ThreadPoolStage.OverflowPolicy.BLOCK, null);
+    }
+    StageManager.instance().register(this);
+  }
+
+  /**
+   * Constructs a join stage whose windows are bounded by count only.
+   *
+   * @param name                  the stage name
+   * @param leftKey               the key of the left events
+   * @param rightKey              the key of the right events
+   * @param handler               the handler of the joined pairs
+   * @param numPartitions         the number of partitions, each with its own thread
+   * @param maxEventsPerPartition the number of events of each stream kept in the window of a partition
+   * @throws WakeRuntimeException if a count is less than or equal to 0
+   */
+  public JoinStage(final String name,
+                   final KeyExtractor<L, K> leftKey,
+                   final KeyExtractor<R, K> rightKey,
+                   final EventHandler<JoinedEvent<K, L, R>> handler,
+                   final int numPartitions,
+                   final int maxEventsPerPartition) {
+    this(name, leftKey, rightKey, handler, numPartitions, maxEventsPerPartition, 0,
+        maxEventsPerPartition, null);
+  }
+
+  /**
+   * Gets the handler of the events of the left stream.
+   *
+   * @return the left input
+   */
+  public EventHandler<L> getLeftHandler() {
+    return new EventHandler<L>() {
+      @Override
+      public void onNext(final L value) {
+        submit(leftKey.getKey(value), value, true);
+      }
+    };
+  }
+
+  /**
+   * Gets the handler of the events of the right stream.
+   *
+   * @return the right input
+   */
+  public EventHandler<R> getRightHandler() {
+    return new EventHandler<R>() {
+      @Override
+      public void onNext(final R value) {
+        submit(rightKey.getKey(value), value, false);
+      }
+    };
+  }
+
+  private void submit(final K key, final Object value, final boolean isLeft) {
+    final int hash = key.hashCode();
+    final int index = ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % partitions.length;
+    final long time = maxAgeMillis > 0 ? System.currentTimeMillis() : 0;
+    partitions[index].onNext(new Arrival(key, value, isLeft, time));
+  }
+
+  /**
+   * Gets the number of pairs passed to the handler.
+   *
+   * @return the number of joined pairs
+   */
+  public long getJoinedCount() {
+    return joinedCount.get();
+  }
+
+  /**
+   * Gets the number of events dropped from the windows.
+   *
+   * @return the number of evicted events
+   */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * Gets the number of events waiting for their partitions.
+   *
+   * @return the queue length
+   */
+  public int getQueueLength() {
+    int length = 0;
+    for (final ThreadPoolStage<Arrival> partition : partitions) {
+      length += partition.getQueueLength();
+    }
+    return length;
+  }
+
+  /**
+   * Joins the queued events and closes the partitions.
+   */
+  @Override
+  public void close() {
+    StageManager.instance().unregister(this);
+    for (final ThreadPoolStage<Arrival> partition : partitions) {
+      partition.close();
+    }
+    LOG.log(Level.FINEST, "{0} closed after {1} joined pairs", new Object[] {name, joinedCount.get()});
+  }
+
+  /**
+   * An event on its way to its partition.
+   */
+  private final class Arrival {
+
+    private final K key;
+    private final Object value;
+    private final boolean isLeft;
+    private final long time;
+
+    Arrival(final K key, final Object value, final boolean isLeft, final long time) {
+      this.key = key;
+      this.value = value;
+      this.isLeft = isLeft;
+      this.time = time;
+    }
+  }
+
+  /**
+   * The window of one stream in one partition.
+   * The events are kept by key for lookup, and in arrival order for eviction;
+   * since both are in arrival order, the oldest event is also the first one of its key.
+   */
+  private final class Window {
+
+    private final Map<K, ArrayDeque<Arrival>> byKey = new HashMap<>();
+    private final ArrayDeque<Arrival> byArrival = new ArrayDeque<>();
+
+    void add(final Arrival arrival) {
+      ArrayDeque<Arrival> events = byKey.get(arrival.key);
+      if (events == null) {
+        events = new ArrayDeque<>();
+        byKey.put(arrival.key, events);
+      }
+      events.add(arrival);
+      byArrival.add(arrival);
+      if (byArrival.size() > maxEventsPerPartition) {
+        evictOldest();
+      }
+    }
+
+    ArrayDeque<Arrival> get(final K key) {
+      return byKey.get(key);
+    }
+
+    void evictOlderThan(final long time) {
+      while (!byArrival.isEmpty() && byArrival.peekFirst().time < time) {
+        evictOldest();
+      }
+    }
+
+    private void evictOldest() {
+      final Arrival oldest = byArrival.pollFirst();
+      final ArrayDeque<Arrival> events = byKey.get(oldest.key);
+      events.pollFirst();
+      if (events.isEmpty()) {
+        byKey.remove(oldest.key);
+      }
+      evictedCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Joins the events of one partition; called by the single thread of its stage.
+   */
+  private final class Partition implements EventHandler<Arrival> {
+
+    private final Window leftWindow = new Window();
+    private final Window rightWindow = new Window();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onNext(final Arrival arrival) {
+      if (maxAgeMillis > 0) {
+        final long oldest = arrival.time - maxAgeMillis;
+        leftWindow.evictOlderThan(oldest);
+        rightWindow.evictOlderThan(oldest);
+      }
+
+      final Window own = arrival.isLeft ? leftWindow : rightWindow;
+      final Window other = arrival.isLeft ? rightWindow : leftWindow;
+      own.add(arrival);
+
+      final ArrayDeque<Arrival> matches = other.get(arrival.key);
+      if (matches == null) {
+        return;
+      }
+      for (final Arrival match : matches) {
+        final Arrival left = arrival.isLeft ? arrival : match;
+        final Arrival right = arrival.isLeft ? match : arrival;
+        joinedCount.incrementAndGet();
+        handler.onNext(new JoinedEvent<>(arrival.key, (L) left.value, (R) right.value));
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.impl;
+
+/**
+ * An event in the queue of a stage, with the time it was queued, so that the stage can record its queue time.
+ * Equality is identity, so that a stage can take back exactly the entry it queued.
+ *
+ * @param <T> type
+ */
+final class QueuedEvent<T> {
+
+  private final T value;
+  private final long enqueueTime = System.nanoTime();
+
+  QueuedEvent(final T value) {
+    this.value = value;
+  }
+
+  /**
+   * @return the event
+   */
+  T getValue() {
+    return value;
+  }
+
+  /**
+   * @return the nanoseconds since the event was queued
+   */
+  long getQueueTime() {
+    return System.nanoTime() - enqueueTime;
+  }
+}
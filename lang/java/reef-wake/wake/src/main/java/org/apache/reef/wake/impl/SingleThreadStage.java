@@ -40,7 +40,7 @@ import java.util.logging.Logger;
 public final class SingleThreadStage<T> extends AbstractEStage<T> {
   private static final Logger LOG = Logger.getLogger(SingleThreadStage.class.getName());
 
-  private final BlockingQueue<T> queue;
+  private final BlockingQueue<QueuedEvent<T>> queue;
   private final Thread thread;
   private final AtomicBoolean interrupted;
 
@@ -68,7 +68,7 @@ public final class SingleThreadStage<T> extends AbstractEStage<T> {
                            @Parameter(StageHandler.class) final EventHandler<T> handler,
                            @Parameter(Capacity.class) final int capacity) {
     super(name);
-    queue = new ArrayBlockingQueue<T>(capacity);
+    queue = new ArrayBlockingQueue<>(capacity);
     interrupted = new AtomicBoolean(false);
     thread = new Thread(new Producer<T>(name, queue, handler, interrupted));
     thread.setName("SingleThreadStage<" + name + ">");
@@ -86,7 +86,7 @@ public final class SingleThreadStage<T> extends AbstractEStage<T> {
   @Override
   public void onNext(final T value) {
     beforeOnNext();
-    queue.add(value);
+    queue.add(new QueuedEvent<>(value));
   }
 
   /**
@@ -99,6 +99,7 @@ public final class SingleThreadStage<T> extends AbstractEStage<T> {
     if (closed.compareAndSet(false, true)) {
       interrupted.set(true);
       thread.interrupt();
+      StageManager.instance().unregister(this);
     }
   }
 
@@ -109,11 +110,11 @@ public final class SingleThreadStage<T> extends AbstractEStage<T> {
   private class Producer<U> implements Runnable {
 
     private final String name;
-    private final BlockingQueue<U> queue;
+    private final BlockingQueue<QueuedEvent<U>> queue;
     private final EventHandler<U> handler;
     private final AtomicBoolean interrupted;
 
-    Producer(final String name, final BlockingQueue<U> queue, final EventHandler<U> handler,
+    Producer(final String name, final BlockingQueue<QueuedEvent<U>> queue, final EventHandler<U> handler,
              final AtomicBoolean interrupted) {
       this.name = name;
       this.queue = queue;
@@ -125,8 +126,11 @@ public final class SingleThreadStage<T> extends AbstractEStage<T> {
     public void run() {
       while (true) {
         try {
-          final U value = queue.take();
-          handler.onNext(value);
+          final QueuedEvent<U> entry = queue.take();
+          SingleThreadStage.this.recordQueueTime(entry.getQueueTime());
+          final long start = System.nanoTime();
+          handler.onNext(entry.getValue());
+          SingleThreadStage.this.recordServiceTime(System.nanoTime() - start);
           SingleThreadStage.this.afterOnNext();
         } catch (final InterruptedException e) {
           if (interrupted.get()) {
@@ -66,10 +66,34 @@ public final class StageManager implements Stage {
     this.stages.add(stage);
   }
 
+  /**
+   * Removes a stage, e.g. when it is closed, so that the manager does not keep it reachable
+   * and does not report it any more.
+   *
+   * @param stage the stage to remove
+   */
+  public void unregister(final Stage stage) {
+    LOG.log(Level.FINEST, "StageManager removes stage {0}", stage);
+    this.stages.remove(stage);
+  }
+
+  /**
+   * Returns a snapshot of the registered stages, in registration order.
+   * Stages that extend {@link org.apache.reef.wake.AbstractEStage} expose their meters and histograms.
+   *
+   * @return the registered stages
+   */
+  public List<Stage> getStages() {
+    synchronized (this.stages) {
+      return new ArrayList<>(this.stages);
+    }
+  }
+
   @Override
   public void close() throws Exception {
     if (this.closed.compareAndSet(false, true)) {
-      for (final Stage stage : this.stages) {
+      // closing a stage unregisters it, so iterate over a snapshot
+      for (final Stage stage : getStages()) {
         LOG.log(Level.FINEST, "Closing {0}", stage);
         stage.close();
       }
@@ -89,6 +89,9 @@ public final class SyncStage<T> extends AbstractEStage<T> {
   @SuppressWarnings("checkstyle:illegalcatch")
   public void onNext(final T value) {
     beforeOnNext();
+    // the handler runs in the caller thread, so the event does not wait
+    recordQueueTime(0);
+    final long start = System.nanoTime();
     try {
       handler.onNext(value);
     } catch (final Throwable t) {
@@ -99,6 +102,7 @@ public final class SyncStage<T> extends AbstractEStage<T> {
         throw t;
       }
     }
+    recordServiceTime(System.nanoTime() - start);
     afterOnNext();
   }
 
@@ -109,6 +113,7 @@ public final class SyncStage<T> extends AbstractEStage<T> {
    */
   @Override
   public void close() throws Exception {
+    StageManager.instance().unregister(this);
   }
 
 }
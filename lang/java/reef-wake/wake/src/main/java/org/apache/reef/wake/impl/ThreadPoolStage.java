@@ -24,11 +24,16 @@ import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.StageConfiguration.*;
 import org.apache.reef.wake.WakeParameters;
 import org.apache.reef.wake.exception.WakeRuntimeException;
+import org.apache.reef.wake.metrics.LogLinearHistogram;
+import org.apache.reef.wake.metrics.Meter;
 
 import javax.inject.Inject;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -36,20 +41,50 @@ import java.util.logging.Logger;
 
 /**
  * Stage that executes an event handler with a thread pool.
+ * <p>
+ * By default, the stage queues any number of events. A bounded stage queues at most a fixed number of events,
+ * and its {@link OverflowPolicy} decides what happens to an event that arrives when the queue is full.
  *
  * @param <T> type
  */
 public final class ThreadPoolStage<T> extends AbstractEStage<T> {
 
+  /**
+   * What a bounded stage does with an event that arrives when its queue is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * Block the caller until there is room in the queue.
+     */
+    BLOCK,
+    /**
+     * Drop the event and pass it to the drop handler.
+     */
+    DROP,
+    /**
+     * Handle the event in the calling thread.
+     */
+    CALLER_RUNS
+  }
+
   private static final Logger LOG = Logger.getLogger(ThreadPoolStage.class.getName());
 
   private static final long SHUTDOWN_TIMEOUT = WakeParameters.EXECUTOR_SHUTDOWN_TIMEOUT;
 
+  private static final long POLL_TIMEOUT_MS = 100;
+
   private final EventHandler<T> handler;
   private final EventHandler<Throwable> errorHandler;
   private final ExecutorService executor;
   private final int numThreads;
 
+  private final BlockingQueue<QueuedEvent<T>> queue; // only used by a bounded stage
+  private final OverflowPolicy overflowPolicy;
+  private final EventHandler<T> dropHandler;
+
+  private final LogLinearHistogram enqueueWaitTime = new LogLinearHistogram();
+  private final Meter dropMeter;
+
   /**
    * Constructs a thread-pool stage.
    *
@@ -85,6 +120,51 @@ public final class ThreadPoolStage<T> extends AbstractEStage<T> {
     }
     this.numThreads = numThreads;
     this.executor = Executors.newFixedThreadPool(numThreads, new DefaultThreadFactory(name));
+    this.queue = null;
+    this.overflowPolicy = null;
+    this.dropHandler = null;
+    this.dropMeter = new Meter(name + "_drop");
+    StageManager.instance().register(this);
+  }
+
+  /**
+   * Constructs a bounded thread-pool stage.
+   * Each thread takes events from a queue shared by the stage instead of submitting an executor task per event.
+   *
+   * @param name           the stage name
+   * @param handler        the event handler to execute
+   * @param numThreads     the number of threads to use
+   * @param errorHandler   the error handler
+   * @param capacity       the maximum number of events waiting for a thread
+   * @param overflowPolicy what to do with an event that arrives when the queue is full
+   * @param dropHandler    the handler of events dropped by {@link OverflowPolicy#DROP}; may be null
+   * @throws WakeRuntimeException if the number of threads or the capacity is less than or equal to 0
+   */
+  public ThreadPoolStage(final String name,
+                         final EventHandler<T> handler,
+                         final int numThreads,
+                         final EventHandler<Throwable> errorHandler,
+                         final int capacity,
+                         final OverflowPolicy overflowPolicy,
+                         final EventHandler<T> dropHandler) {
+    super(name);
+    this.handler = handler;
+    this.errorHandler = errorHandler;
+    if (numThreads <= 0) {
+      throw new WakeRuntimeException(name + " numThreads " + numThreads + " is less than or equal to 0");
+    }
+    if (capacity <= 0) {
+      throw new WakeRuntimeException(name + " capacity " + capacity + " is less than or equal to 0");
+    }
+    this.numThreads = numThreads;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.overflowPolicy = overflowPolicy;
+    this.dropHandler = dropHandler;
+    this.dropMeter = new Meter(name + "_drop");
+    this.executor = Executors.newFixedThreadPool(numThreads, new DefaultThreadFactory(name));
+    for (int i = 0; i < numThreads; ++i) {
+      this.executor.execute(new Worker());
+    }
     StageManager.instance().register(this);
   }
 
@@ -164,6 +244,10 @@ public final class ThreadPoolStage<T> extends AbstractEStage<T> {
     this.errorHandler = errorHandler;
     this.numThreads = 0;
     this.executor = executor;
+    this.queue = null;
+    this.overflowPolicy = null;
+    this.dropHandler = null;
+    this.dropMeter = new Meter(name + "_drop");
     StageManager.instance().register(this);
   }
 
@@ -173,35 +257,106 @@ public final class ThreadPoolStage<T> extends AbstractEStage<T> {
    * @param value the event
    */
   @Override
-  @SuppressWarnings("checkstyle:illegalcatch")
   public void onNext(final T value) {
     beforeOnNext();
+    if (queue != null) {
+      enqueue(value);
+      return;
+    }
     try {
-      executor.submit(new Runnable() {
+      executor.submit(new HandlerTask(value));
+    } catch (final Exception e) {
+      LOG.log(Level.SEVERE, "Encountered error when submitting to executor in ThreadPoolStage.");
+      afterOnNext();
+      throw e;
+    }
 
-        @Override
-        public void run() {
-          try {
-            handler.onNext(value);
-          } catch (final Throwable t) {
-            if (errorHandler != null) {
-              errorHandler.onNext(t);
-            } else {
-              LOG.log(Level.SEVERE, name + " Exception from event handler", t);
-              throw t;
-            }
-          } finally {
+  }
+
+  /**
+   * Puts the event into the queue of a bounded stage, applying the overflow policy if the queue is full.
+   *
+   * @throws RejectedExecutionException if the stage is closed
+   */
+  private void enqueue(final T value) {
+    if (closed.get()) {
+      afterOnNext();
+      throw new RejectedExecutionException(name + " is closed");
+    }
+    final QueuedEvent<T> entry = new QueuedEvent<>(value);
+    if (queue.offer(entry)) {
+      rejectIfClosed(entry);
+      return;
+    }
+
+    switch (overflowPolicy) {
+    case BLOCK:
+      final long start = System.nanoTime();
+      try {
+        while (!queue.offer(entry, POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+          if (closed.get()) {
             afterOnNext();
+            throw new RejectedExecutionException(name + " closed while waiting for queue space");
           }
         }
+      } catch (final InterruptedException e) {
+        afterOnNext();
+        Thread.currentThread().interrupt();
+        throw new WakeRuntimeException(name + " interrupted while waiting for queue space", e);
+      }
+      enqueueWaitTime.update(System.nanoTime() - start);
+      rejectIfClosed(entry);
+      break;
+    case DROP:
+      LOG.log(Level.FINEST, "{0} queue is full. Dropping {1}", new Object[] {name, value});
+      dropMeter.mark(1);
+      afterOnNext();
+      if (dropHandler != null) {
+        dropHandler.onNext(value);
+      }
+      break;
+    case CALLER_RUNS:
+      handle(value);
+      break;
+    default:
+      throw new WakeRuntimeException(name + " unknown overflow policy " + overflowPolicy);
+    }
+  }
 
-      });
-    } catch (final Exception e) {
-      LOG.log(Level.SEVERE, "Encountered error when submitting to executor in ThreadPoolStage.");
+  /**
+   * Takes the event back out of the queue if the stage was closed while it was being queued.
+   * The workers may have found the queue empty and exited in the meantime, which would strand the event.
+   * If a worker has already taken the event, it is handled as usual.
+   *
+   * @throws RejectedExecutionException if the event was taken back
+   */
+  private void rejectIfClosed(final QueuedEvent<T> entry) {
+    if (closed.get() && queue.remove(entry)) {
       afterOnNext();
-      throw e;
+      throw new RejectedExecutionException(name + " closed while queueing the event");
     }
+  }
 
+  /**
+   * Runs the handler on the event and passes its exception to the error handler.
+   * Without an error handler, the exception is logged and rethrown.
+   */
+  @SuppressWarnings("checkstyle:illegalcatch")
+  private void handle(final T value) {
+    final long start = System.nanoTime();
+    try {
+      handler.onNext(value);
+    } catch (final Throwable t) {
+      if (errorHandler != null) {
+        errorHandler.onNext(t);
+      } else {
+        LOG.log(Level.SEVERE, name + " Exception from event handler", t);
+        throw t;
+      }
+    } finally {
+      recordServiceTime(System.nanoTime() - start);
+      afterOnNext();
+    }
   }
 
   /**
@@ -210,7 +365,12 @@ public final class ThreadPoolStage<T> extends AbstractEStage<T> {
   @Override
   public void close() {
 
-    if (closed.compareAndSet(false, true) && numThreads > 0) {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    StageManager.instance().unregister(this);
+
+    if (numThreads > 0) {
 
       LOG.log(Level.FINEST, "Closing ThreadPoolStage {0}: begin", this.name);
 
@@ -240,6 +400,9 @@ public final class ThreadPoolStage<T> extends AbstractEStage<T> {
    * @return the queue length
    */
   public int getQueueLength() {
+    if (queue != null) {
+      return queue.size();
+    }
     return ((ThreadPoolExecutor) executor).getQueue().size();
   }
 
@@ -250,4 +413,72 @@ public final class ThreadPoolStage<T> extends AbstractEStage<T> {
   public int getActiveCount() {
     return (int)(getInMeter().getCount() - getOutMeter().getCount());
   }
+
+  /**
+   * Gets the histogram of the time in nanoseconds callers of a bounded stage
+   * with {@link OverflowPolicy#BLOCK} were blocked because the queue was full.
+   *
+   * @return the enqueue wait time histogram
+   */
+  public LogLinearHistogram getEnqueueWaitTime() {
+    return enqueueWaitTime;
+  }
+
+  /**
+   * Gets the meter of events dropped by a bounded stage with {@link OverflowPolicy#DROP}.
+   *
+   * @return the drop meter
+   */
+  public Meter getDropMeter() {
+    return dropMeter;
+  }
+
+  /**
+   * Handles one event submitted to the executor.
+   */
+  private final class HandlerTask implements Runnable {
+
+    private final T value;
+    private final long enqueueTime = System.nanoTime();
+
+    HandlerTask(final T value) {
+      this.value = value;
+    }
+
+    @Override
+    public void run() {
+      recordQueueTime(System.nanoTime() - enqueueTime);
+      handle(value);
+    }
+  }
+
+  /**
+   * Takes events from the queue of a bounded stage until the stage is closed and the queue is drained.
+   */
+  private final class Worker implements Runnable {
+
+    @Override
+    @SuppressWarnings("checkstyle:illegalcatch")
+    public void run() {
+      while (!closed.get() || !queue.isEmpty()) {
+        final QueuedEvent<T> entry;
+        try {
+          entry = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+          LOG.log(Level.FINEST, "{0} worker interrupted", name);
+          break;
+        }
+        if (entry != null) {
+          recordQueueTime(entry.getQueueTime());
+          try {
+            handle(entry.getValue());
+          } catch (final Throwable t) {
+            // keep the worker alive for the next events, also after an Error;
+            // handle() has logged the exception or passed it to the error handler, which threw it again
+            LOG.log(errorHandler == null ? Level.FINEST : Level.SEVERE, name + " worker continues after exception", t);
+          }
+        }
+      }
+    }
+  }
 }
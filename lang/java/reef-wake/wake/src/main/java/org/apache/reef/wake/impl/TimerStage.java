@@ -130,6 +130,7 @@ public final class TimerStage implements Stage {
         final List<Runnable> droppedRunnables = executor.shutdownNow();
         LOG.log(Level.WARNING, "Executor dropped " + droppedRunnables.size() + " tasks.");
       }
+      StageManager.instance().unregister(this);
     }
   }
 
@@ -26,10 +26,12 @@ import org.apache.reef.wake.WakeParameters;
 
 import javax.inject.Inject;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -46,6 +48,9 @@ import java.util.logging.Logger;
  * this will only be deadlock free if blocking synchronization done by events is safe.
  * That is no event submitted to the pool can have a producer/consumer dependency
  * on another event submitted to the pool
+ *
+ * The stages backed by the pool register with it, so that closing the pool
+ * first lets each of them finish its accepted events, newest stage first.
  */
 public class WakeSharedPool implements Stage {
   private static final Logger LOG = Logger.getLogger(WakeSharedPool.class.getName());
@@ -55,6 +60,8 @@ public class WakeSharedPool implements Stage {
   private final ForkJoinPool pool;
   private final long shutdownTimeout = WakeParameters.EXECUTOR_SHUTDOWN_TIMEOUT;
   private AtomicBoolean closed = new AtomicBoolean(false);
+  private final AtomicLong uncaughtExceptionCount = new AtomicLong(0);
+  private final List<ForkPoolStage<?>> stages = new CopyOnWriteArrayList<>();
 
   @Inject
   public WakeSharedPool(@Parameter(Parallelism.class) final int parallelism) {
@@ -62,7 +69,10 @@ public class WakeSharedPool implements Stage {
         new Thread.UncaughtExceptionHandler() {
           @Override
           public void uncaughtException(final Thread t, final Throwable e) {
-            // TODO[JIRA REEF-911]: need to pass this upwards to REEF can grab it
+            // ForkPoolStage passes the exceptions of its handlers to the error handler of the stage,
+            // so this only sees the failures of the pool itself.
+            uncaughtExceptionCount.incrementAndGet();
+            LOG.log(Level.SEVERE, "Uncaught exception in pool thread " + t.getName(), e);
           }
         },
         // async mode turned on so a task that invokes other tasks does not have to join on them.
@@ -79,30 +89,104 @@ public class WakeSharedPool implements Stage {
     this(DEFAULT_PARALLELISM);
   }
 
+  /**
+   * Submits a task to the pool.
+   * A task submitted from a thread of this pool goes to the local queue of that thread,
+   * so it is likely to be run by the same thread unless another thread steals it.
+   *
+   * @param t the task
+   * @throws java.util.concurrent.RejectedExecutionException if the pool is shut down
+   */
   public void submit(final ForkJoinTask<?> t) {
-    if (ForkJoinTask.inForkJoinPool()) {
-      ForkJoinTask.invokeAll(t);
-      // alternatively just pool().pool.execute(t), which simply forces it to be this pool
-      // (right now we expect only one anyway)
+    if (ForkJoinTask.getPool() == pool) {
+      t.fork();
     } else {
-      pool.submit(t);
+      pool.execute(t);
     }
   }
 
+  void register(final ForkPoolStage<?> stage) {
+    stages.add(stage);
+  }
+
+  void unregister(final ForkPoolStage<?> stage) {
+    stages.remove(stage);
+  }
+
+  /**
+   * @return the number of threads the pool aims to keep active
+   */
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * @return the number of threads running tasks or stealing them
+   */
+  public int getActiveThreadCount() {
+    return pool.getActiveThreadCount();
+  }
+
+  /**
+   * @return an estimate of the number of tasks stolen from the queue of one thread by another
+   */
+  public long getStealCount() {
+    return pool.getStealCount();
+  }
+
+  /**
+   * @return an estimate of the number of tasks in the queues of the pool threads
+   */
+  public long getQueuedTaskCount() {
+    return pool.getQueuedTaskCount();
+  }
+
+  /**
+   * @return an estimate of the number of tasks submitted from outside the pool and not yet started
+   */
+  public int getQueuedSubmissionCount() {
+    return pool.getQueuedSubmissionCount();
+  }
+
+  /**
+   * @return the number of exceptions that escaped the tasks and terminated a pool thread
+   */
+  public long getUncaughtExceptionCount() {
+    return uncaughtExceptionCount.get();
+  }
+
+  /**
+   * @return true if the pool is closed and all of its tasks are done
+   */
+  public boolean isTerminated() {
+    return pool.isTerminated();
+  }
+
+  /**
+   * Closes the stages backed by the pool, which lets them finish their events, then shuts down the pool.
+   */
   @Override
   public void close() throws Exception {
     LOG.info("ending pool stage: " + pool.toString());
     if (closed.compareAndSet(false, true)) {
+      // a stage is usually created after the stages it sends events to, so close the newest first
+      for (int i = stages.size() - 1; i >= 0; --i) {
+        stages.get(i).close();
+      }
       pool.shutdown();
       if (!pool.awaitTermination(shutdownTimeout, TimeUnit.MILLISECONDS)) {
         LOG.log(Level.WARNING, "Executor did not terminate in " + shutdownTimeout + "ms.");
         final List<Runnable> droppedRunnables = pool.shutdownNow();
         LOG.log(Level.WARNING, "Executor dropped " + droppedRunnables.size() + " tasks.");
       }
+      StageManager.instance().unregister(this);
     }
   }
 
-  @NamedParameter
-  private static class Parallelism implements Name<Integer> {
+  /**
+   * The number of threads of the shared pool.
+   */
+  @NamedParameter(doc = "The number of threads of the shared pool.")
+  public static final class Parallelism implements Name<Integer> {
   }
 }
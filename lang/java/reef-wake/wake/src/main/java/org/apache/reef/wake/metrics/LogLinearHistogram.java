@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram with log-linear bins, covering all non-negative long values with bounded relative error.
+ * <p>
+ * Values below 16 have a bin each. Every larger power-of-two range is split into 16 bins of equal width,
+ * so a value and the lower bound of its bin differ by less than 1/16 of the value.
+ * Updates are lock-free; negative values are recorded as 0.
+ */
+public class LogLinearHistogram implements Histogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int NUM_BINS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray values = new AtomicLongArray(NUM_BINS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Updates the value in this histogram.
+   *
+   * @param value the new value
+   */
+  @Override
+  public void update(final long value) {
+    final long v = Math.max(value, 0);
+    values.incrementAndGet(indexOf(v));
+    count.incrementAndGet();
+    sum.addAndGet(v);
+    long m = max.get();
+    while (v > m && !max.compareAndSet(m, v)) {
+      m = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return the number of recorded values
+   */
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Returns the number of values recorded in the bin.
+   *
+   * @param index the histogram bin index
+   * @return the number of values in the bin
+   * @throws IndexOutOfBoundsException
+   */
+  @Override
+  public long getValue(final int index) {
+    return values.get(index);
+  }
+
+  /**
+   * Returns the number of bins.
+   *
+   * @return the number of bins
+   */
+  @Override
+  public int getNumBins() {
+    return NUM_BINS;
+  }
+
+  /**
+   * Returns the smallest value that falls into the bin.
+   *
+   * @param index the histogram bin index
+   * @return the lower bound of the bin
+   */
+  public long getLowerBound(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_COUNT - 1;
+    return (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+  }
+
+  /**
+   * Returns the mean of the recorded values.
+   *
+   * @return the mean, or 0 if no value was recorded
+   */
+  public double getMean() {
+    final long n = count.get();
+    return n == 0 ? 0.0 : (double) sum.get() / n;
+  }
+
+  /**
+   * Returns the largest recorded value.
+   *
+   * @return the maximum, or 0 if no value was recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns an estimate of the value below which the given percentage of the recorded values fall.
+   * The estimate is the lower bound of the bin that holds the percentile.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the estimated value, or 0 if no value was recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    final long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * n));
+    long seen = 0;
+    for (int i = 0; i < NUM_BINS; ++i) {
+      seen += values.get(i);
+      if (seen >= rank) {
+        return getLowerBound(i);
+      }
+    }
+    return max.get();
+  }
+
+  private static int indexOf(final long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    final int shift = exponent - SUB_BUCKET_BITS;
+    final int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.profiler;
+
+import org.apache.reef.wake.metrics.LogLinearHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency statistics of the event handlers of one type, collected by the {@link WakeProfiler}.
+ * With sampling, only one in sampleRate events is timed, and the event count is estimated from the samples.
+ * Updates are lock-free.
+ */
+public final class HandlerStatistics {
+
+  private final String name;
+  private final int sampleRate;
+  private final LogLinearHistogram latency = new LogLinearHistogram();
+
+  HandlerStatistics(final String name, final int sampleRate) {
+    this.name = name;
+    this.sampleRate = sampleRate;
+  }
+
+  void record(final long latencyNanos) {
+    latency.update(latencyNanos);
+  }
+
+  /**
+   * @return the name of the handler type
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the number of timed events
+   */
+  public long getSampleCount() {
+    return latency.getCount();
+  }
+
+  /**
+   * @return the estimated number of events handled, i.e. the number of samples times the sample rate
+   */
+  public long getEstimatedEventCount() {
+    return latency.getCount() * sampleRate;
+  }
+
+  /**
+   * @return the histogram of the sampled handler latencies in nanoseconds
+   */
+  public LogLinearHistogram getLatency() {
+    return latency;
+  }
+
+  /**
+   * Formats the statistics as one line of the profiler report.
+   *
+   * @return the name, the estimated event count, and the mean, median, 99th percentile
+   * and maximum latency in microseconds
+   */
+  String toReportLine() {
+    return String.format("%-60s %12d %10.1f %10d %10d %10d", name, getEstimatedEventCount(),
+        latency.getMean() / TimeUnit.MICROSECONDS.toNanos(1),
+        TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(50)),
+        TimeUnit.NANOSECONDS.toMicros(latency.getValueAtPercentile(99)),
+        TimeUnit.NANOSECONDS.toMicros(latency.getMax()));
+  }
+
+  static String reportHeader() {
+    return String.format("%-60s %12s %10s %10s %10s %10s", "handler", "events", "mean_us", "p50_us", "p99_us",
+        "max_us");
+  }
+}
@@ -55,4 +55,58 @@ public final class ProfilerState {
   public static boolean isProfilingEnabled(final Injector injector) throws InjectionException {
     return injector.getNamedInstance(getProfilingEnabledClass());
   }
+
+  /**
+   * Parameter to time only one in N events. By default every event is timed.
+   */
+  @NamedParameter(doc = "One in N events is timed by the profiler", short_name = "profiling_sample_rate",
+      default_value = "1")
+  private static final class ProfilingSampleRate implements Name<Integer> { }
+
+  /**
+   * Parameter for the period in seconds of the profiler reports in the log. By default they are off.
+   */
+  @NamedParameter(doc = "The period in seconds of the profiler reports in the log, 0 for no reports",
+      short_name = "profiling_report_period", default_value = "0")
+  private static final class ProfilingReportPeriod implements Name<Long> { }
+
+  /**
+   * Parameter for the port that serves the profiler reports over HTTP. By default there is no server.
+   */
+  @NamedParameter(doc = "The port that serves the profiler reports over HTTP, -1 for no server",
+      short_name = "profiling_http_port", default_value = "-1")
+  private static final class ProfilingHttpPort implements Name<Integer> { }
+
+  /**
+   * Gets the number of events per event timed by the profiler.
+   *
+   * @param injector the tang injector that stores value of ProfilingSampleRate.
+   * @return the sample rate, 1 if every event is timed
+   * @throws InjectionException if name resolution fails
+   */
+  public static int getSampleRate(final Injector injector) throws InjectionException {
+    return injector.getNamedInstance(ProfilingSampleRate.class);
+  }
+
+  /**
+   * Gets the period of the profiler reports in the log.
+   *
+   * @param injector the tang injector that stores value of ProfilingReportPeriod.
+   * @return the period in seconds, 0 if there are no reports
+   * @throws InjectionException if name resolution fails
+   */
+  public static long getReportPeriod(final Injector injector) throws InjectionException {
+    return injector.getNamedInstance(ProfilingReportPeriod.class);
+  }
+
+  /**
+   * Gets the port that serves the profiler reports over HTTP.
+   *
+   * @param injector the tang injector that stores value of ProfilingHttpPort.
+   * @return the port, 0 for any free port, or -1 if there is no server
+   * @throws InjectionException if name resolution fails
+   */
+  public static int getHttpPort(final Injector injector) throws InjectionException {
+    return injector.getNamedInstance(ProfilingHttpPort.class);
+  }
 }
@@ -18,6 +18,9 @@
  */
 package org.apache.reef.wake.profiler;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import net.sf.cglib.proxy.Enhancer;
 import net.sf.cglib.proxy.MethodInterceptor;
 import net.sf.cglib.proxy.MethodProxy;
@@ -26,23 +29,64 @@ import org.apache.reef.tang.InjectionFuture;
 import org.apache.reef.tang.types.ConstructorDef;
 import org.apache.reef.tang.util.MonotonicHashMap;
 import org.apache.reef.tang.util.ReflectionUtilities;
+import org.apache.reef.wake.impl.DefaultThreadFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * A graphical profiler class that instruments Tang-based Wake applications.
+ * <p>
+ * With a sample rate of N, only one in N events, chosen at random, is timed,
+ * so the profiler can stay on in production. The sampled latencies are aggregated
+ * per event handler type without locks, and can be logged periodically or served over HTTP.
  */
-public class WakeProfiler implements Aspect {
+public class WakeProfiler implements Aspect, AutoCloseable {
   private static final Logger LOG = Logger.getLogger(WakeProfiler.class.toString());
   private final Map<Object, Vertex<?>> vertexObject = new MonotonicHashMap<>();
   private final Map<InjectionFuture<?>, Object> futures = new MonotonicHashMap<>();
   private final Map<Object, Stats> stats = new MonotonicHashMap<>();
+  private final ConcurrentMap<String, HandlerStatistics> handlerStats = new ConcurrentHashMap<>();
+  private final int sampleRate;
+
+  private ScheduledExecutorService reporter;
+  private HttpServer httpServer;
+
+  /**
+   * Constructs a profiler that times every event.
+   */
+  public WakeProfiler() {
+    this(1);
+  }
+
+  /**
+   * Constructs a sampling profiler.
+   *
+   * @param sampleRate one in sampleRate events is timed
+   * @throws IllegalArgumentException if sampleRate is less than 1
+   */
+  public WakeProfiler(final int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("Sample rate " + sampleRate + " is less than 1");
+    }
+    this.sampleRate = sampleRate;
+  }
 
   @Override
   public Aspect createChildAspect() {
@@ -122,6 +166,7 @@ public class WakeProfiler implements Aspect {
           throw new Exception(ReflectionUtilities.getFullName(clazz) + ".onNext() is final; cannot intercept it");
         }
         final Stats s = new Stats();
+        final HandlerStatistics typeStats = getHandlerStatistics(ReflectionUtilities.getFullName(clazz));
         final Enhancer e = new Enhancer();
         e.setSuperclass(clazz);
         e.setCallback(new MethodInterceptor() {
@@ -130,13 +175,15 @@ public class WakeProfiler implements Aspect {
           public Object intercept(final Object object, final Method method, final Object[] args,
                                   final MethodProxy methodProxy) throws Throwable {
 
-            if (method.getName().equals("onNext")) {
+            if (method.getName().equals("onNext")
+                && (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0)) {
               final long start = System.nanoTime();
               final Object o = methodProxy.invokeSuper(object, args);
               final long stop = System.nanoTime();
 
               s.getMessageCount().incrementAndGet();
               s.getSumLatency().addAndGet(stop - start);
+              typeStats.record(stop - start);
 
               return o;
 
@@ -196,6 +243,12 @@ public class WakeProfiler implements Aspect {
     return true;
   }
 
+  /**
+   * Formats the object graph of the injected instances in JSON.
+   * Not thread-safe: the graph is built while the instances are injected, so call this after the injection.
+   *
+   * @return the graph
+   */
   public String objectGraphToString() {
     final List<Vertex<?>> vertices = new ArrayList<>();
     final Map<Vertex<?>, Integer> offVertex = new MonotonicHashMap<>();
@@ -239,7 +292,8 @@ public class WakeProfiler implements Aspect {
         if (stat != null) {
           final long cnt = stat.getMessageCount().get();
           final long lat = stat.getSumLatency().get();
-          tooltip = ",\"count\":" + cnt + ",\"latency\":\"" + (((double) lat) / (((double) cnt) * 1000000.0) + "\"");
+          tooltip = ",\"count\":" + cnt * sampleRate +
+              ",\"latency\":\"" + (((double) lat) / (((double) cnt) * 1000000.0) + "\"");
           // quote the latency, since it might be nan
         } else {
           tooltip = null;
@@ -278,7 +332,7 @@ public class WakeProfiler implements Aspect {
             final Stats s = stats.get(w.getObject());
             if (s != null) {
               links.add("{\"source\":" + offVertex.get(v) + ",\"target\":" + off + ",\"value\":" +
-                  (s.getMessageCount().get() + 3.0) + "}");
+                  (s.getMessageCount().get() * sampleRate + 3.0) + "}");
             } else {
               links.add("{\"source\":" + offVertex.get(v) + ",\"target\":" + off + ",\"value\":" + 1.0 + "}");
             }
@@ -292,6 +346,128 @@ public class WakeProfiler implements Aspect {
     return sb.toString();
   }
 
+  private HandlerStatistics getHandlerStatistics(final String name) {
+    final HandlerStatistics existing = handlerStats.get(name);
+    if (existing != null) {
+      return existing;
+    }
+    final HandlerStatistics created = new HandlerStatistics(name, sampleRate);
+    final HandlerStatistics raced = handlerStats.putIfAbsent(name, created);
+    return raced == null ? created : raced;
+  }
+
+  /**
+   * @return the number of events per timed event
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Gets the latency statistics of the instrumented event handlers, one entry per handler type.
+   *
+   * @return the statistics, sorted by handler type name
+   */
+  public List<HandlerStatistics> getHandlerStatistics() {
+    final List<HandlerStatistics> result = new ArrayList<>(handlerStats.values());
+    Collections.sort(result, new Comparator<HandlerStatistics>() {
+      @Override
+      public int compare(final HandlerStatistics a, final HandlerStatistics b) {
+        return a.getName().compareTo(b.getName());
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Formats the latency statistics of the event handlers as a text table, one line per handler type.
+   *
+   * @return the report
+   */
+  public String getReport() {
+    final StringBuilder sb = new StringBuilder(HandlerStatistics.reportHeader()).append('\n');
+    for (final HandlerStatistics s : getHandlerStatistics()) {
+      sb.append(s.toReportLine()).append('\n');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Logs the report at INFO level periodically until the profiler is closed.
+   *
+   * @param periodSeconds the period between reports in seconds
+   * @throws IllegalArgumentException if periodSeconds is less than or equal to 0
+   * @throws IllegalStateException if the reports are already started
+   */
+  public synchronized void startReporting(final long periodSeconds) {
+    if (periodSeconds <= 0) {
+      throw new IllegalArgumentException("Report period " + periodSeconds + " is less than or equal to 0");
+    }
+    if (reporter != null) {
+      throw new IllegalStateException("Profiler reports are already started");
+    }
+    reporter = Executors.newSingleThreadScheduledExecutor(
+        new DefaultThreadFactory(WakeProfiler.class.getSimpleName() + ":reporter"));
+    reporter.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        LOG.log(Level.INFO, "Wake profile:\n{0}", getReport());
+      }
+    }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Serves the report on /profile until the profiler is closed.
+   * Only the report is served, since the handlers update its statistics without locks; the object graph
+   * is written by the injection, which may still run on other threads.
+   *
+   * @param port the port to listen on, 0 for any free port
+   * @return the port the server listens on
+   * @throws IOException if the server cannot be started
+   * @throws IllegalStateException if the server is already started
+   */
+  public synchronized int startHttpServer(final int port) throws IOException {
+    if (httpServer != null) {
+      throw new IllegalStateException("Profiler HTTP server is already started");
+    }
+    httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+    httpServer.createContext("/profile", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        respond(exchange, "text/plain", getReport());
+      }
+    });
+    httpServer.start();
+    final int boundPort = httpServer.getAddress().getPort();
+    LOG.log(Level.INFO, "Wake profile served on port {0}", boundPort);
+    return boundPort;
+  }
+
+  private static void respond(final HttpExchange exchange, final String contentType, final String body)
+      throws IOException {
+    final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (final OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  /**
+   * Stops the periodic reports and the HTTP server. The statistics stay available.
+   */
+  @Override
+  public synchronized void close() {
+    if (reporter != null) {
+      reporter.shutdownNow();
+      reporter = null;
+    }
+    if (httpServer != null) {
+      httpServer.stop(0);
+      httpServer = null;
+    }
+  }
+
   private String removeEnhancements(final String simpleName) {
     return simpleName.replaceAll("\\$\\$.+$", "");
   }
@@ -41,6 +41,10 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
   private final boolean orderingGuarantee;
   private final int numberOfTries;
   private final int retryTimeout;
+  private final boolean concurrentDispatch;
+  private final int numberOfDispatchThreads;
+  private final int maxPendingEvents;
+  private final String pendingEventsOverflowPolicy;
   private final LocalAddressProvider localAddressProvider;
   private final TransportFactory transportFactory;
   private final TcpPortProvider tcpPortProvider;
@@ -52,6 +56,10 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
       @Parameter(RemoteConfiguration.OrderingGuarantee.class) final boolean orderingGuarantee,
       @Parameter(RemoteConfiguration.NumberOfTries.class) final int numberOfTries,
       @Parameter(RemoteConfiguration.RetryTimeout.class) final int retryTimeout,
+      @Parameter(RemoteConfiguration.ConcurrentDispatch.class) final boolean concurrentDispatch,
+      @Parameter(RemoteConfiguration.NumberOfDispatchThreads.class) final int numberOfDispatchThreads,
+      @Parameter(RemoteConfiguration.MaxPendingEvents.class) final int maxPendingEvents,
+      @Parameter(RemoteConfiguration.PendingEventsOverflowPolicy.class) final String pendingEventsOverflowPolicy,
       final LocalAddressProvider localAddressProvider,
       final TransportFactory tpFactory,
       final TcpPortProvider tcpPortProvider) {
@@ -61,6 +69,10 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
     this.orderingGuarantee = orderingGuarantee;
     this.numberOfTries = numberOfTries;
     this.retryTimeout = retryTimeout;
+    this.concurrentDispatch = concurrentDispatch;
+    this.numberOfDispatchThreads = numberOfDispatchThreads;
+    this.maxPendingEvents = maxPendingEvents;
+    this.pendingEventsOverflowPolicy = pendingEventsOverflowPolicy;
     this.localAddressProvider = localAddressProvider;
     this.transportFactory = tpFactory;
     this.tcpPortProvider = tcpPortProvider;
@@ -76,6 +88,12 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
       newInjector.bindVolatileParameter(RemoteConfiguration.OrderingGuarantee.class, this.orderingGuarantee);
       newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfTries.class, this.numberOfTries);
       newInjector.bindVolatileParameter(RemoteConfiguration.RetryTimeout.class, this.retryTimeout);
+      newInjector.bindVolatileParameter(RemoteConfiguration.ConcurrentDispatch.class, this.concurrentDispatch);
+      newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfDispatchThreads.class,
+          this.numberOfDispatchThreads);
+      newInjector.bindVolatileParameter(RemoteConfiguration.MaxPendingEvents.class, this.maxPendingEvents);
+      newInjector.bindVolatileParameter(RemoteConfiguration.PendingEventsOverflowPolicy.class,
+          this.pendingEventsOverflowPolicy);
       newInjector.bindVolatileInstance(LocalAddressProvider.class, this.localAddressProvider);
       newInjector.bindVolatileInstance(TransportFactory.class, this.transportFactory);
       newInjector.bindVolatileInstance(TcpPortProvider.class, this.tcpPortProvider);
@@ -107,6 +125,12 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
       newInjector.bindVolatileParameter(RemoteConfiguration.OrderingGuarantee.class, orderingGuarantee);
       newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfTries.class, numberOfTries);
       newInjector.bindVolatileParameter(RemoteConfiguration.RetryTimeout.class, retryTimeout);
+      newInjector.bindVolatileParameter(RemoteConfiguration.ConcurrentDispatch.class, this.concurrentDispatch);
+      newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfDispatchThreads.class,
+          this.numberOfDispatchThreads);
+      newInjector.bindVolatileParameter(RemoteConfiguration.MaxPendingEvents.class, this.maxPendingEvents);
+      newInjector.bindVolatileParameter(RemoteConfiguration.PendingEventsOverflowPolicy.class,
+          this.pendingEventsOverflowPolicy);
       newInjector.bindVolatileInstance(LocalAddressProvider.class, localAddressProvider);
       newInjector.bindVolatileInstance(TransportFactory.class, this.transportFactory);
       newInjector.bindVolatileInstance(TcpPortProvider.class, tcpPortProvider);
@@ -136,6 +160,12 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
       newInjector.bindVolatileParameter(RemoteConfiguration.OrderingGuarantee.class, orderingGuarantee);
       newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfTries.class, numberOfTries);
       newInjector.bindVolatileParameter(RemoteConfiguration.RetryTimeout.class, retryTimeout);
+      newInjector.bindVolatileParameter(RemoteConfiguration.ConcurrentDispatch.class, this.concurrentDispatch);
+      newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfDispatchThreads.class,
+          this.numberOfDispatchThreads);
+      newInjector.bindVolatileParameter(RemoteConfiguration.MaxPendingEvents.class, this.maxPendingEvents);
+      newInjector.bindVolatileParameter(RemoteConfiguration.PendingEventsOverflowPolicy.class,
+          this.pendingEventsOverflowPolicy);
       newInjector.bindVolatileInstance(LocalAddressProvider.class, this.localAddressProvider);
       newInjector.bindVolatileInstance(TransportFactory.class, this.transportFactory);
       newInjector.bindVolatileInstance(TcpPortProvider.class, this.tcpPortProvider);
@@ -157,6 +187,12 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
       newInjector.bindVolatileParameter(RemoteConfiguration.OrderingGuarantee.class, this.orderingGuarantee);
       newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfTries.class, this.numberOfTries);
       newInjector.bindVolatileParameter(RemoteConfiguration.RetryTimeout.class, this.retryTimeout);
+      newInjector.bindVolatileParameter(RemoteConfiguration.ConcurrentDispatch.class, this.concurrentDispatch);
+      newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfDispatchThreads.class,
+          this.numberOfDispatchThreads);
+      newInjector.bindVolatileParameter(RemoteConfiguration.MaxPendingEvents.class, this.maxPendingEvents);
+      newInjector.bindVolatileParameter(RemoteConfiguration.PendingEventsOverflowPolicy.class,
+          this.pendingEventsOverflowPolicy);
       newInjector.bindVolatileInstance(LocalAddressProvider.class, this.localAddressProvider);
       newInjector.bindVolatileInstance(TransportFactory.class, this.transportFactory);
       newInjector.bindVolatileInstance(TcpPortProvider.class, this.tcpPortProvider);
@@ -181,6 +217,12 @@ final class DefaultRemoteManagerFactory implements RemoteManagerFactory {
       newInjector.bindVolatileParameter(RemoteConfiguration.OrderingGuarantee.class, this.orderingGuarantee);
       newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfTries.class, this.numberOfTries);
       newInjector.bindVolatileParameter(RemoteConfiguration.RetryTimeout.class, this.retryTimeout);
+      newInjector.bindVolatileParameter(RemoteConfiguration.ConcurrentDispatch.class, this.concurrentDispatch);
+      newInjector.bindVolatileParameter(RemoteConfiguration.NumberOfDispatchThreads.class,
+          this.numberOfDispatchThreads);
+      newInjector.bindVolatileParameter(RemoteConfiguration.MaxPendingEvents.class, this.maxPendingEvents);
+      newInjector.bindVolatileParameter(RemoteConfiguration.PendingEventsOverflowPolicy.class,
+          this.pendingEventsOverflowPolicy);
       newInjector.bindVolatileInstance(LocalAddressProvider.class, this.localAddressProvider);
       newInjector.bindVolatileInstance(TransportFactory.class, this.transportFactory);
       newInjector.bindVolatileInstance(TcpPortProvider.class, this.tcpPortProvider);
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Interface for compression routines applied to the messages of remote links.
+ * Implementations must be thread-safe.
+ */
+public interface MessageCompressor {
+
+  /**
+   * Gets the name of the compression format. Two peers compress the messages of a link
+   * only if their compressors have the same name.
+   *
+   * @return the name of the format
+   */
+  String getName();
+
+  /**
+   * Compresses length bytes of data starting at offset.
+   *
+   * @param data   the array holding the message
+   * @param offset the offset of the message in data
+   * @param length the length of the message
+   * @return the compressed message, or null if it is not smaller than the original
+   */
+  byte[] compress(byte[] data, int offset, int length);
+
+  /**
+   * Decompresses a message read from the stream.
+   *
+   * @param in     the stream of the compressed message
+   * @param length the length of the original message
+   * @return the original message
+   * @throws IOException if the stream does not hold a valid compressed message
+   */
+  byte[] decompress(InputStream in, int length) throws IOException;
+}
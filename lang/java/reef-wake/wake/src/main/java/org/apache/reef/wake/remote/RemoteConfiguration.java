@@ -23,6 +23,7 @@ import org.apache.reef.tang.annotations.NamedParameter;
 import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.remote.impl.DefaultTransportEStage;
+import org.apache.reef.wake.remote.impl.DeflateMessageCompressor;
 import org.apache.reef.wake.remote.impl.ObjectSerializableCodec;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 
@@ -74,6 +75,11 @@ public final class RemoteConfiguration {
 
   /**
    * Whether or not to use the message ordering guarantee.
+   * Requires one channel per peer, see {@link NumberOfChannelsPerPeer}.
+   * The receiver holds the messages of a sender after one that was not sent, e.g. because the link could
+   * not be established or the sender got an exception, so such a failure stops the delivery from that sender.
+   * A link that is established again after it closed does not resume the delivery either.
+   * For the same reason the DROP {@link PendingEventsOverflowPolicy} is rejected.
    */
   @NamedParameter(short_name = "rm_order",
       doc = "Whether or not to use the message ordering guarantee.", default_value = "true")
@@ -81,6 +87,176 @@ public final class RemoteConfiguration {
     // Intentionally empty
   }
 
+  /**
+   * Whether or not to decode and dispatch incoming messages from different senders concurrently.
+   * Messages from the same sender are still delivered in the order they were received.
+   * The codec and the registered handlers must be thread-safe when this is enabled.
+   */
+  @NamedParameter(short_name = "rm_concurrent_dispatch",
+      doc = "Whether or not to decode and dispatch messages from different senders concurrently.",
+      default_value = "false")
+  public static final class ConcurrentDispatch implements Name<Boolean> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of dispatch threads used when concurrent dispatch is enabled.
+   * 0 means one thread per available processor.
+   */
+  @NamedParameter(doc = "The number of dispatch threads used when concurrent dispatch is enabled. " +
+      "0 means one thread per available processor.", default_value = "0")
+  public static final class NumberOfDispatchThreads implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of bytes written to a link before its pending writes are flushed.
+   * 0 disables write batching, so every message is flushed on its own.
+   */
+  @NamedParameter(doc = "The number of bytes written to a link before its pending writes are flushed. " +
+      "0 disables write batching.", default_value = "0")
+  public static final class MaxBatchBytes implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The maximum time in microseconds a batched write waits for a flush.
+   * 0 flushes on the next turn of the I/O event loop.
+   */
+  @NamedParameter(doc = "The maximum time in microseconds a batched write waits for a flush.", default_value = "0")
+  public static final class MaxLingerMicros implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The size in bytes above which a received message is kept in the chunks it arrived in
+   * instead of being copied into one array. 0 disables it.
+   * This saves the copy and the contiguous array, not the buffering: the message is handed over
+   * once all of its chunks have arrived. Such messages can be read with TransportEvent.getInputStream().
+   */
+  @NamedParameter(short_name = "rm_streaming_threshold",
+      doc = "The size in bytes above which a received message is kept in the chunks it arrived in. " +
+      "0 disables it.", default_value = "0")
+  public static final class StreamingReceiveThreshold implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The size in bytes from which messages sent on a link are compressed. 0 disables compression.
+   * Messages are compressed only towards peers that have compression enabled with the same compressor;
+   * the peers agree on it when the link is opened. Enabling it changes the wire format towards
+   * every peer, so only enable it if all peers run this Java transport.
+   */
+  @NamedParameter(short_name = "rm_compression_threshold",
+      doc = "The size in bytes from which messages sent on a link are compressed. 0 disables compression.",
+      default_value = "0")
+  public static final class CompressionThreshold implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The compressor used when compression is enabled.
+   */
+  @NamedParameter(doc = "The compressor used when compression is enabled.",
+      default_class = DeflateMessageCompressor.class)
+  public static final class Compressor implements Name<MessageCompressor> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of channels a messaging transport opens to each remote address.
+   * With more than 1, the first channel carries the messages up to the priority message size,
+   * and larger messages are sent round-robin on the others, so they may be received out of order.
+   * A remote manager with the {@link OrderingGuarantee} rejects a transport with more than 1 channel.
+   */
+  @NamedParameter(short_name = "rm_channels_per_peer",
+      doc = "The number of channels a messaging transport opens to each remote address.", default_value = "1")
+  public static final class NumberOfChannelsPerPeer implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The size in bytes up to which a message is sent on the priority channel
+   * when there are several channels per remote address.
+   */
+  @NamedParameter(doc = "The size in bytes up to which a message is sent on the priority channel " +
+      "when there are several channels per remote address.", default_value = "65536")
+  public static final class PriorityMessageSize implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of events buffered for a destination while its link is being established.
+   */
+  @NamedParameter(short_name = "rm_max_pending_events",
+      doc = "The number of events buffered for a destination while its link is being established.",
+      default_value = "10000")
+  public static final class MaxPendingEvents implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * What a sender does with an event when the buffer of its destination is full while the link is being established:
+   * BLOCK waits for the link for up to WakeParameters.REMOTE_EXECUTOR_SHUTDOWN_TIMEOUT ms and then throws
+   * a RemoteRuntimeException, DROP logs and drops the event, FAIL throws a RemoteRuntimeException.
+   * DROP cannot be used with the {@link OrderingGuarantee}.
+   */
+  @NamedParameter(doc = "What a sender does with an event when the buffer of its destination is full " +
+      "while the link is being established: BLOCK, DROP or FAIL.", default_value = "BLOCK")
+  public static final class PendingEventsOverflowPolicy implements Name<String> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of threads accepting connections in the messaging transport.
+   * 0 uses the Netty default of twice the number of available processors.
+   */
+  @NamedParameter(doc = "The number of threads accepting connections in the messaging transport.",
+      default_value = "3")
+  public static final class NumberOfServerBossThreads implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of I/O threads serving accepted connections in the messaging transport.
+   * 0 uses the Netty default of twice the number of available processors.
+   */
+  @NamedParameter(doc = "The number of I/O threads serving accepted connections in the messaging transport.",
+      default_value = "20")
+  public static final class NumberOfServerWorkerThreads implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * The number of I/O threads serving outgoing connections in the messaging transport.
+   * 0 uses the Netty default of twice the number of available processors.
+   */
+  @NamedParameter(doc = "The number of I/O threads serving outgoing connections in the messaging transport.",
+      default_value = "10")
+  public static final class NumberOfClientWorkerThreads implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * Whether or not messaging transports of the same JVM share their I/O threads.
+   * The thread settings of the first transport that creates the shared threads apply.
+   */
+  @NamedParameter(short_name = "rm_share_event_loops",
+      doc = "Whether or not messaging transports of the same JVM share their I/O threads.", default_value = "false")
+  public static final class ShareEventLoopGroups implements Name<Boolean> {
+    // Intentionally empty
+  }
+
+  /**
+   * Whether or not to use the native epoll transport on Linux.
+   * Falls back to NIO when the native transport is not available.
+   */
+  @NamedParameter(short_name = "rm_native_transport",
+      doc = "Whether or not to use the native epoll transport on Linux.", default_value = "false")
+  public static final class UseNativeTransport implements Name<Boolean> {
+    // Intentionally empty
+  }
+
   /**
    * The number of tries.
    */
@@ -40,6 +40,14 @@ public interface RemoteManager extends Stage {
    */
   <T> EventHandler<T> getHandler(final RemoteIdentifier destinationIdentifier, final Class<? extends T> messageType);
 
+  /**
+   * Starts to establish the link to the given destination, so that the first message to it
+   * does not wait for the connection. Does nothing if the link is established or being established.
+   *
+   * @param destinationIdentifier a destination identifier
+   */
+  void warmUp(final RemoteIdentifier destinationIdentifier);
+
   /**
    * Registers the given EventHandler to be invoked when messages of Type T
    * arrive from sourceIdentifier.
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.reflect.ReflectDatumReader;
+import org.apache.avro.reflect.ReflectDatumWriter;
+import org.apache.reef.wake.remote.Codec;
+import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Codec that uses Avro reflection to encode the objects of one class.
+ * <p>
+ * The schema is derived from the fields of the class once, so unlike Java serialization
+ * the class descriptors are not written with every message. It fits plain data classes,
+ * e.g. as a codec of a {@link RegisteredTypeCodec}; see the Avro documentation of
+ * {@link org.apache.avro.reflect.ReflectData} for the supported field types.
+ *
+ * @param <T> type
+ */
+public final class AvroReflectCodec<T> implements Codec<T> {
+
+  private final ReflectDatumWriter<T> writer;
+  private final ReflectDatumReader<T> reader;
+
+  /**
+   * Constructs a codec for the class.
+   *
+   * @param clazz the class of the objects
+   */
+  public AvroReflectCodec(final Class<T> clazz) {
+    this.writer = new ReflectDatumWriter<>(clazz);
+    this.reader = new ReflectDatumReader<>(clazz);
+  }
+
+  /**
+   * Encodes the object to bytes.
+   *
+   * @param obj the object
+   * @return bytes
+   * @throws RemoteRuntimeException
+   */
+  @Override
+  public byte[] encode(final T obj) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+    try {
+      writer.write(obj, encoder);
+      encoder.flush();
+    } catch (final IOException ex) {
+      throw new RemoteRuntimeException(ex);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decodes an object from the bytes.
+   *
+   * @param buf the bytes
+   * @return an object
+   * @throws RemoteRuntimeException
+   */
+  @Override
+  public T decode(final byte[] buf) {
+    final BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(buf, null);
+    try {
+      return reader.read(null, decoder);
+    } catch (final IOException ex) {
+      throw new RemoteRuntimeException(ex);
+    }
+  }
+}
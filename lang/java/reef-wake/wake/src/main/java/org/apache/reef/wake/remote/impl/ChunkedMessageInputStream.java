@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Input stream over a message received as a sequence of chunks.
+ * <p>
+ * The chunks are kept as they were received, so a large message does not need
+ * one contiguous array and is not copied into one. The whole message is still held
+ * in memory until it is read: the stream is created once the last chunk has arrived.
+ * The stream drops each chunk once it is read past, so that the memory of the chunks
+ * already deserialized can be reclaimed.
+ * Not thread-safe.
+ */
+public final class ChunkedMessageInputStream extends InputStream {
+
+  private final byte[][] chunks;
+  private final int length;
+
+  private int chunkIndex = 0;
+  private int position;
+  private int remaining;
+
+  /**
+   * Constructs a stream over the given chunks.
+   *
+   * @param chunks      the chunks of the message, in order
+   * @param firstOffset the offset of the message in the first chunk, e.g. to skip a header
+   * @param length      the length of the message; the chunks must hold exactly that many bytes after firstOffset
+   * @throws IllegalArgumentException if the chunks do not hold length bytes
+   */
+  public ChunkedMessageInputStream(final List<byte[]> chunks, final int firstOffset, final int length) {
+    this.chunks = chunks.toArray(new byte[chunks.size()][]);
+    this.length = length;
+    this.position = firstOffset;
+    this.remaining = length;
+
+    long total = -firstOffset;
+    for (final byte[] chunk : this.chunks) {
+      total += chunk.length;
+    }
+    if (total != length) {
+      throw new IllegalArgumentException("Chunks hold " + total + " bytes instead of " + length);
+    }
+  }
+
+  /**
+   * @return the length of the message in bytes
+   */
+  public int getLength() {
+    return length;
+  }
+
+  @Override
+  public int read() {
+    if (!advance()) {
+      return -1;
+    }
+    --remaining;
+    return chunks[chunkIndex][position++] & 0xff;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!advance()) {
+      return -1;
+    }
+    int copied = 0;
+    while (copied < len && advance()) {
+      final byte[] chunk = chunks[chunkIndex];
+      final int n = Math.min(len - copied, chunk.length - position);
+      System.arraycopy(chunk, position, b, off + copied, n);
+      position += n;
+      copied += n;
+    }
+    remaining -= copied;
+    return copied;
+  }
+
+  @Override
+  public long skip(final long n) {
+    long skipped = 0;
+    while (skipped < n && advance()) {
+      final int step = (int) Math.min(n - skipped, chunks[chunkIndex].length - position);
+      position += step;
+      skipped += step;
+    }
+    remaining -= skipped;
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return remaining;
+  }
+
+  /**
+   * Copies the bytes not read yet into one array and consumes them.
+   *
+   * @return the rest of the message
+   */
+  public byte[] toByteArray() {
+    final byte[] result = new byte[remaining];
+    read(result, 0, result.length);
+    return result;
+  }
+
+  /**
+   * Moves to the next chunk if the current one is read, dropping the reference to it.
+   *
+   * @return false at the end of the message
+   */
+  private boolean advance() {
+    while (chunkIndex < chunks.length && position == chunks[chunkIndex].length) {
+      chunks[chunkIndex++] = null;
+      position = 0;
+    }
+    return chunkIndex < chunks.length;
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the message compression of a transport, to weigh the bytes saved against the CPU time spent.
+ */
+public final class CompressionStatistics {
+
+  private final AtomicLong compressedMessages = new AtomicLong();
+  private final AtomicLong skippedMessages = new AtomicLong();
+  private final AtomicLong decompressedMessages = new AtomicLong();
+  private final AtomicLong bytesBeforeCompression = new AtomicLong();
+  private final AtomicLong bytesAfterCompression = new AtomicLong();
+  private final AtomicLong compressionNanos = new AtomicLong();
+  private final AtomicLong decompressionNanos = new AtomicLong();
+
+  /**
+   * Records a message sent compressed.
+   *
+   * @param originalSize   the size of the message
+   * @param compressedSize the size of the compressed message
+   * @param nanos          the time spent compressing it
+   */
+  public void recordCompressed(final int originalSize, final int compressedSize, final long nanos) {
+    compressedMessages.incrementAndGet();
+    bytesBeforeCompression.addAndGet(originalSize);
+    bytesAfterCompression.addAndGet(compressedSize);
+    compressionNanos.addAndGet(nanos);
+  }
+
+  /**
+   * Records a message sent uncompressed because it did not compress.
+   *
+   * @param size  the size of the message
+   * @param nanos the time spent trying to compress it
+   */
+  public void recordSkipped(final int size, final long nanos) {
+    skippedMessages.incrementAndGet();
+    bytesBeforeCompression.addAndGet(size);
+    bytesAfterCompression.addAndGet(size);
+    compressionNanos.addAndGet(nanos);
+  }
+
+  /**
+   * Records a received message that was decompressed.
+   *
+   * @param nanos the time spent decompressing it
+   */
+  public void recordDecompressed(final long nanos) {
+    decompressedMessages.incrementAndGet();
+    decompressionNanos.addAndGet(nanos);
+  }
+
+  /**
+   * @return the number of messages sent compressed
+   */
+  public long getCompressedMessages() {
+    return compressedMessages.get();
+  }
+
+  /**
+   * @return the number of messages above the threshold sent uncompressed because they did not compress
+   */
+  public long getSkippedMessages() {
+    return skippedMessages.get();
+  }
+
+  /**
+   * @return the number of received messages that were decompressed
+   */
+  public long getDecompressedMessages() {
+    return decompressedMessages.get();
+  }
+
+  /**
+   * @return the size of the messages above the threshold before compression
+   */
+  public long getBytesBeforeCompression() {
+    return bytesBeforeCompression.get();
+  }
+
+  /**
+   * @return the size of the messages above the threshold as sent
+   */
+  public long getBytesAfterCompression() {
+    return bytesAfterCompression.get();
+  }
+
+  /**
+   * @return the time spent compressing messages, including the ones that did not compress
+   */
+  public long getCompressionNanos() {
+    return compressionNanos.get();
+  }
+
+  /**
+   * @return the time spent decompressing messages
+   */
+  public long getDecompressionNanos() {
+    return decompressionNanos.get();
+  }
+
+  /**
+   * @return the size of the messages above the threshold as sent divided by their original size; 1 if none was sent
+   */
+  public double getCompressionRatio() {
+    final long before = bytesBeforeCompression.get();
+    return before == 0 ? 1.0 : (double) bytesAfterCompression.get() / before;
+  }
+
+  @Override
+  public String toString() {
+    return "CompressionStatistics{compressed=" + getCompressedMessages() + ", skipped=" + getSkippedMessages() +
+        ", decompressed=" + getDecompressedMessages() + ", ratio=" + getCompressionRatio() +
+        ", compressionNanos=" + getCompressionNanos() + ", decompressionNanos=" + getDecompressionNanos() + "}";
+  }
+}
@@ -23,6 +23,7 @@ import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.impl.StageManager;
 import org.apache.reef.wake.remote.*;
+import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
 import org.apache.reef.wake.remote.address.LocalAddressProvider;
 import org.apache.reef.wake.remote.ports.TcpPortProvider;
 import org.apache.reef.wake.remote.transport.Transport;
@@ -79,25 +80,62 @@ public final class DefaultRemoteManagerImplementation implements RemoteManager {
         @Parameter(RemoteConfiguration.OrderingGuarantee.class) final boolean orderingGuarantee,
         @Parameter(RemoteConfiguration.NumberOfTries.class) final int numberOfTries,
         @Parameter(RemoteConfiguration.RetryTimeout.class) final int retryTimeout,
+        @Parameter(RemoteConfiguration.ConcurrentDispatch.class) final boolean concurrentDispatch,
+        @Parameter(RemoteConfiguration.NumberOfDispatchThreads.class) final int numberOfDispatchThreads,
+        @Parameter(RemoteConfiguration.MaxPendingEvents.class) final int maxPendingEvents,
+        @Parameter(RemoteConfiguration.PendingEventsOverflowPolicy.class) final String pendingEventsOverflowPolicy,
         final LocalAddressProvider localAddressProvider,
         final TransportFactory tpFactory,
         final TcpPortProvider tcpPortProvider) {
 
-    this.name = name;
-    this.handlerContainer = new HandlerContainer<>(name, codec);
+    // The receiver delivers the events of a sender in the order of their sequence numbers,
+    // so after a dropped event it would hold all later events of the sender forever.
+    final RemoteSenderStage.OverflowPolicy overflowPolicy = parseOverflowPolicy(pendingEventsOverflowPolicy);
+    if (orderingGuarantee && overflowPolicy == RemoteSenderStage.OverflowPolicy.DROP) {
+      throw new RemoteRuntimeException("The DROP overflow policy cannot be used with the ordering guarantee");
+    }
 
-    this.reRecvStage = orderingGuarantee ?
-        new OrderedRemoteReceiverStage(this.handlerContainer, errorHandler) :
-        new RemoteReceiverStage(this.handlerContainer, errorHandler, 10);
+    this.name = name;
+    this.handlerContainer = new HandlerContainer<>(name, codec, concurrentDispatch);
+
+    // The ordered stage already serializes dispatch per sender, so it only needs
+    // the handler container to stop serializing across senders.
+    if (orderingGuarantee) {
+      this.reRecvStage = new OrderedRemoteReceiverStage(this.handlerContainer, errorHandler);
+    } else if (concurrentDispatch) {
+      final int numStripes = numberOfDispatchThreads > 0 ?
+          numberOfDispatchThreads : Runtime.getRuntime().availableProcessors();
+      this.reRecvStage = new StripedRemoteReceiverStage(this.handlerContainer, errorHandler, numStripes);
+    } else {
+      this.reRecvStage = new RemoteReceiverStage(this.handlerContainer, errorHandler, 10);
+    }
 
     this.transport = tpFactory.newInstance(hostAddress, listeningPort,
         this.reRecvStage, this.reRecvStage, numberOfTries, retryTimeout, tcpPortProvider);
 
+    // The messages to a destination are numbered as one sequence, but the receiver orders the messages
+    // of each channel on their own, so it would wait forever for the numbers sent on the other channels.
+    if (orderingGuarantee && this.transport instanceof NettyMessagingTransport &&
+        ((NettyMessagingTransport) this.transport).getNumberOfChannelsPerPeer() > 1) {
+      final int channels = ((NettyMessagingTransport) this.transport).getNumberOfChannelsPerPeer();
+      try {
+        this.transport.close();
+        this.reRecvStage.close();
+      } catch (final Exception e) {
+        LOG.log(Level.WARNING, "Failed to close the transport", e);
+      }
+      throw new RemoteRuntimeException("The ordering guarantee needs one channel per peer, got " + channels);
+    }
+
     this.handlerContainer.setTransport(this.transport);
+    if (this.transport instanceof NettyMessagingTransport) {
+      ((NettyMessagingTransport) this.transport).registerChannelCloseHandler(
+          this.handlerContainer.getChannelCloseHandler());
+    }
 
     this.myIdentifier = new SocketRemoteIdentifier((InetSocketAddress)this.transport.getLocalAddress());
 
-    this.reSendStage = new RemoteSenderStage(codec, this.transport, 10);
+    this.reSendStage = new RemoteSenderStage(codec, this.transport, 10, maxPendingEvents, overflowPolicy);
 
     StageManager.instance().register(this);
 
@@ -124,6 +162,27 @@ public final class DefaultRemoteManagerImplementation implements RemoteManager {
         "default", this.reSendStage.<T>getHandler(), this.seqGen);
   }
 
+  /**
+   * Starts to establish the link to the destination before the first message to it.
+   */
+  @Override
+  public void warmUp(final RemoteIdentifier destinationIdentifier) {
+    if (!(destinationIdentifier instanceof SocketRemoteIdentifier)) {
+      throw new RemoteRuntimeException("Unsupported remote identifier type " + destinationIdentifier);
+    }
+    LOG.log(Level.FINE, "RemoteManager: {0} warming up the link to {1}",
+        new Object[] {this.name, destinationIdentifier});
+    this.reSendStage.warmUp(((SocketRemoteIdentifier) destinationIdentifier).getSocketAddress());
+  }
+
+  private static RemoteSenderStage.OverflowPolicy parseOverflowPolicy(final String policy) {
+    try {
+      return RemoteSenderStage.OverflowPolicy.valueOf(policy);
+    } catch (final IllegalArgumentException e) {
+      throw new RemoteRuntimeException("Unknown pending events overflow policy " + policy, e);
+    }
+  }
+
   /**
    * Registers an event handler for a remote identifier and a message type and.
    * returns a subscription
@@ -207,6 +266,7 @@ public final class DefaultRemoteManagerImplementation implements RemoteManager {
       }
     };
 
+    StageManager.instance().unregister(this);
     final ExecutorService closeExecutor = Executors.newSingleThreadExecutor();
 
     closeExecutor.submit(closeRunnable);
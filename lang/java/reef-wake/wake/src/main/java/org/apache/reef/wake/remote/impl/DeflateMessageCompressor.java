@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import org.apache.reef.wake.remote.MessageCompressor;
+
+import javax.inject.Inject;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compressor that uses the DEFLATE format of java.util.zip at its fastest level.
+ * Each thread keeps its own deflater and inflater, so that they are not allocated per message.
+ */
+public final class DeflateMessageCompressor implements MessageCompressor {
+
+  private static final int INFLATER_BUFFER_SIZE = 8192;
+
+  private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+    @Override
+    protected Deflater initialValue() {
+      return new Deflater(Deflater.BEST_SPEED, true);
+    }
+  };
+
+  private final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater(true);
+    }
+  };
+
+  @Inject
+  public DeflateMessageCompressor() {
+  }
+
+  @Override
+  public String getName() {
+    return "deflate";
+  }
+
+  /**
+   * Compresses the message into an array of its size and gives up once the array is full.
+   */
+  @Override
+  public byte[] compress(final byte[] data, final int offset, final int length) {
+    final Deflater deflater = deflaters.get();
+    deflater.reset();
+    deflater.setInput(data, offset, length);
+    deflater.finish();
+
+    final byte[] out = new byte[length];
+    int size = 0;
+    while (!deflater.finished() && size < out.length) {
+      size += deflater.deflate(out, size, out.length - size);
+    }
+    return deflater.finished() && size < length ? Arrays.copyOf(out, size) : null;
+  }
+
+  @Override
+  public byte[] decompress(final InputStream in, final int length) throws IOException {
+    final Inflater inflater = inflaters.get();
+    inflater.reset();
+    final byte[] out = new byte[length];
+    // not closed, since closing would end the inflater of the thread
+    new DataInputStream(new InflaterInputStream(in, inflater, INFLATER_BUFFER_SIZE)).readFully(out);
+    return out;
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
 import org.apache.reef.wake.remote.transport.Transport;
 
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
@@ -40,35 +41,73 @@ final class HandlerContainer<T> implements EventHandler<RemoteEvent<byte[]>> {
 
   private static final Logger LOG = Logger.getLogger(HandlerContainer.class.getName());
 
+  /** The number of sender identifiers kept if the transport does not report closed channels. */
+  private static final int MAX_IDENTIFIERS = 1024;
+
   private final ConcurrentMap<Class<? extends T>,
       EventHandler<RemoteMessage<? extends T>>> msgTypeToHandlerMap = new ConcurrentHashMap<>();
 
-  private final ConcurrentMap<Tuple2<RemoteIdentifier, Class<? extends T>>,
-      EventHandler<? extends T>> tupleToHandlerMap = new ConcurrentHashMap<>();
+  /** Handlers by source and message type, nested so that a lookup does not allocate a key. */
+  private final ConcurrentMap<RemoteIdentifier,
+      ConcurrentMap<Class<?>, EventHandler<? extends T>>> sourceToHandlerMap = new ConcurrentHashMap<>();
+
+  /**
+   * Identifiers of the senders, so that every message from a sender shares one.
+   * Senders connect from ephemeral ports, so an identifier is evicted when the channel it came from closes.
+   */
+  private final ConcurrentMap<SocketAddress, SocketRemoteIdentifier> identifiers = new ConcurrentHashMap<>();
+
+  /** Evict the identifier of a sender whose channel closed. */
+  private final EventHandler<SocketAddress> evictIdentifier = new EventHandler<SocketAddress>() {
+    @Override
+    public void onNext(final SocketAddress address) {
+      identifiers.remove(address);
+    }
+  };
 
   private final Codec<T> codec;
   private final String name;
+  private final boolean concurrentDispatch;
 
   private Transport transport;
 
   HandlerContainer(final String name, final Codec<T> codec) {
+    this(name, codec, false);
+  }
+
+  /**
+   * Constructs a handler container.
+   * @param name Name of the remote manager.
+   * @param codec Codec to decode incoming messages with.
+   * @param concurrentDispatch If true, do not serialize dispatch across senders;
+   * the receiver stage is then responsible for per-sender ordering.
+   */
+  HandlerContainer(final String name, final Codec<T> codec, final boolean concurrentDispatch) {
 
     this.name = name;
     this.codec = codec;
+    this.concurrentDispatch = concurrentDispatch;
 
     LOG.log(Level.FINER, "Instantiated {0}", this);
   }
 
   @Override
   public String toString() {
-    return String.format("HandlerContainer: {name:%s codec:%s}",
-        this.name, this.codec.getClass().getCanonicalName());
+    return String.format("HandlerContainer: {name:%s codec:%s concurrent:%b}",
+        this.name, this.codec.getClass().getCanonicalName(), this.concurrentDispatch);
   }
 
   void setTransport(final Transport transport) {
     this.transport = transport;
   }
 
+  /**
+   * @return the handler to tell the addresses of closed channels, whose sender identifiers it evicts
+   */
+  EventHandler<SocketAddress> getChannelCloseHandler() {
+    return this.evictIdentifier;
+  }
+
   /**
    * Subscribe for events from a given source and message type.
    * @param sourceIdentifier An identifier of an event source.
@@ -85,7 +124,15 @@ final class HandlerContainer<T> implements EventHandler<RemoteEvent<byte[]>> {
     final Tuple2<RemoteIdentifier, Class<? extends T>> tuple =
         new Tuple2<RemoteIdentifier, Class<? extends T>>(sourceIdentifier, messageType);
 
-    this.tupleToHandlerMap.put(tuple, theHandler);
+    ConcurrentMap<Class<?>, EventHandler<? extends T>> handlers = this.sourceToHandlerMap.get(sourceIdentifier);
+    if (handlers == null) {
+      final ConcurrentMap<Class<?>, EventHandler<? extends T>> created = new ConcurrentHashMap<>();
+      handlers = this.sourceToHandlerMap.putIfAbsent(sourceIdentifier, created);
+      if (handlers == null) {
+        handlers = created;
+      }
+    }
+    handlers.put(messageType, theHandler);
 
     LOG.log(Level.FINER,
         "Add handler for tuple: {0},{1}",
@@ -136,7 +183,7 @@ final class HandlerContainer<T> implements EventHandler<RemoteEvent<byte[]>> {
     if (token instanceof Exception) {
       this.transport.registerErrorHandler(null);
     } else if (token instanceof Tuple2) {
-      this.tupleToHandlerMap.remove(token);
+      this.removeTupleHandler((Tuple2<?, ?>) token);
     } else if (token instanceof Class) {
       this.msgTypeToHandlerMap.remove(token);
     } else {
@@ -162,10 +209,17 @@ final class HandlerContainer<T> implements EventHandler<RemoteEvent<byte[]>> {
         public void unsubscribe(final Tuple2<RemoteIdentifier, Class<? extends T>> token) {
           LOG.log(Level.FINER, "Unsubscribe: {0} tuple {1},{2}",
               new Object[] {name, token.getT1(), token.getT2().getCanonicalName()});
-          tupleToHandlerMap.remove(token);
+          removeTupleHandler(token);
         }
       };
 
+  private void removeTupleHandler(final Tuple2<?, ?> token) {
+    final ConcurrentMap<Class<?>, EventHandler<? extends T>> handlers = this.sourceToHandlerMap.get(token.getT1());
+    if (handlers != null) {
+      handlers.remove(token.getT2());
+    }
+  }
+
   /** Unsubscribe from error messages. */
   private final SubscriptionHandler.Unsubscriber<Exception>
       unsubscribeException = new SubscriptionHandler.Unsubscriber<Exception>() {
@@ -178,31 +232,50 @@ final class HandlerContainer<T> implements EventHandler<RemoteEvent<byte[]>> {
 
   /**
    * Dispatch message received from the remote to proper event handler.
+   * Unless concurrent dispatch is enabled, messages are dispatched one at a time.
    * @param value Remote message, encoded as byte[].
    */
   @Override
-  @SuppressWarnings("checkstyle:diamondoperatorforvariabledefinition")
-  public synchronized void onNext(final RemoteEvent<byte[]> value) {
+  public void onNext(final RemoteEvent<byte[]> value) {
+    if (this.concurrentDispatch) {
+      this.dispatch(value);
+    } else {
+      synchronized (this) {
+        this.dispatch(value);
+      }
+    }
+  }
+
+  /**
+   * Decode the message and pass it to the handler registered for its source and type.
+   * @param value Remote message, encoded as byte[].
+   */
+  @SuppressWarnings("unchecked")
+  private void dispatch(final RemoteEvent<byte[]> value) {
 
-    LOG.log(Level.FINER, "RemoteManager: {0} value: {1}", new Object[] {this.name, value});
+    if (LOG.isLoggable(Level.FINER)) {
+      LOG.log(Level.FINER, "RemoteManager: {0} value: {1}", new Object[] {this.name, value});
+    }
 
     final T decodedEvent = this.codec.decode(value.getEvent());
     final Class<?> clazz = decodedEvent.getClass();
 
-    LOG.log(Level.FINEST, "RemoteManager: {0} decoded event {1} :: {2}",
-        new Object[] {this.name, clazz.getCanonicalName(), decodedEvent});
+    if (LOG.isLoggable(Level.FINEST)) {
+      LOG.log(Level.FINEST, "RemoteManager: {0} decoded event {1} :: {2}",
+          new Object[] {this.name, clazz.getCanonicalName(), decodedEvent});
+    }
 
     // check remote identifier and message type
-    final SocketRemoteIdentifier id = new SocketRemoteIdentifier((InetSocketAddress)value.remoteAddress());
+    final SocketRemoteIdentifier id = this.getIdentifier(value.remoteAddress());
 
-    final Tuple2<RemoteIdentifier, Class<?>> tuple = new Tuple2<RemoteIdentifier, Class<?>>(id, clazz);
-
-    final EventHandler<T> tupleHandler = (EventHandler<T>) this.tupleToHandlerMap.get(tuple);
+    final ConcurrentMap<Class<?>, EventHandler<? extends T>> handlers = this.sourceToHandlerMap.get(id);
+    final EventHandler<T> tupleHandler = handlers == null ? null : (EventHandler<T>) handlers.get(clazz);
 
     if (tupleHandler != null) {
 
-      LOG.log(Level.FINER, "Tuple handler: {0},{1}",
-          new Object[] {tuple.getT1(), tuple.getT2().getCanonicalName()});
+      if (LOG.isLoggable(Level.FINER)) {
+        LOG.log(Level.FINER, "Tuple handler: {0},{1}", new Object[] {id, clazz.getCanonicalName()});
+      }
 
       tupleHandler.onNext(decodedEvent);
 
@@ -217,9 +290,30 @@ final class HandlerContainer<T> implements EventHandler<RemoteEvent<byte[]>> {
         throw ex;
       }
 
-      LOG.log(Level.FINER, "Message handler: {0}", clazz.getCanonicalName());
+      if (LOG.isLoggable(Level.FINER)) {
+        LOG.log(Level.FINER, "Message handler: {0}", clazz.getCanonicalName());
+      }
 
       messageHandler.onNext(new DefaultRemoteMessage(id, decodedEvent));
     }
   }
+
+  /**
+   * Gets the identifier of a sender, creating it on its first message on a channel.
+   * @param address Address of the sender.
+   * @return The identifier shared by the messages from that address; equal to the ones created before.
+   */
+  private SocketRemoteIdentifier getIdentifier(final SocketAddress address) {
+    final SocketRemoteIdentifier id = this.identifiers.get(address);
+    if (id != null) {
+      return id;
+    }
+    final SocketRemoteIdentifier created = new SocketRemoteIdentifier((InetSocketAddress) address);
+    if (this.identifiers.size() >= MAX_IDENTIFIERS) {
+      // only without close reports: the identifiers of the active senders stay cached
+      return created;
+    }
+    final SocketRemoteIdentifier raced = this.identifiers.putIfAbsent(address, created);
+    return raced == null ? created : raced;
+  }
 }
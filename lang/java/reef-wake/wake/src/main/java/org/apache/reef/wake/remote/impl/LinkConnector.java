@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
+import org.apache.reef.wake.remote.transport.Link;
+import org.apache.reef.wake.remote.transport.Transport;
+import org.apache.reef.wake.remote.transport.netty.LoggingLinkListener;
+
+import java.net.SocketAddress;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Establishes the link to one destination for all the senders to it.
+ * <p>
+ * At most one connection attempt is in flight at a time. The encoded events written before the link is
+ * established are buffered up to a limit, and written in order once it is; the overflow policy
+ * decides what happens to the events beyond the limit. If the connection fails, the buffered events
+ * are dropped, and the next event starts a new attempt. Likewise, once the transport has removed
+ * the established link because it was closed, the next event establishes a new one.
+ * <p>
+ * The events are numbered before they reach the connector. With the ordering guarantee, the receiver
+ * holds all events of the sender after a number it did not receive, so an event that is not written,
+ * because the connection failed or the overflow policy refused it, stops the delivery to that destination.
+ * The remote manager therefore rejects the DROP policy with the ordering guarantee. A link established
+ * again after a close is no better: the receiver orders the events of each channel address on their own
+ * and expects the first number of a sender on the new channel, while the numbers of the sender go on.
+ * So under the ordering guarantee, a failed or lost connection is fatal for the destination.
+ */
+final class LinkConnector {
+
+  private static final Logger LOG = Logger.getLogger(LinkConnector.class.getName());
+
+  private final SocketAddress remoteAddress;
+  private final Transport transport;
+  private final ExecutorService executor;
+  private final int maxPendingEvents;
+  private final RemoteSenderStage.OverflowPolicy overflowPolicy;
+  private final long maxBlockTime;
+
+  /** Guards the pending events and the connection state. */
+  private final Object lock = new Object();
+  private final Queue<byte[]> pending = new ArrayDeque<>();
+  private boolean connecting = false;
+  private boolean closed = false;
+  private long droppedEvents = 0;
+
+  /** Set once the pending events are written, so that no write overtakes them. */
+  private volatile Link<byte[]> link;
+
+  LinkConnector(final SocketAddress remoteAddress,
+                final Transport transport,
+                final ExecutorService executor,
+                final int maxPendingEvents,
+                final RemoteSenderStage.OverflowPolicy overflowPolicy,
+                final long maxBlockTime) {
+    this.remoteAddress = remoteAddress;
+    this.transport = transport;
+    this.executor = executor;
+    this.maxPendingEvents = maxPendingEvents;
+    this.overflowPolicy = overflowPolicy;
+    this.maxBlockTime = maxBlockTime;
+  }
+
+  /**
+   * Starts to establish the link if it is not established or being established.
+   *
+   * @return false if the connector is closed
+   */
+  boolean connect() {
+    synchronized (lock) {
+      if (closed) {
+        return false;
+      }
+      if (getActiveLink() == null && !connecting) {
+        startConnect();
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Writes the event to the link, or buffers it until the link is established.
+   *
+   * @param data the encoded event
+   * @return false if the connector is closed, so that the caller writes the event through a new one
+   * @throws RemoteRuntimeException if the buffer is full and the policy is FAIL, or if the policy is BLOCK
+   *                                and the sender is interrupted or the link is not established in time
+   */
+  boolean write(final byte[] data) {
+    Link<byte[]> current = link;
+    if (current == null || transport.<byte[]>get(remoteAddress) != current) {
+      synchronized (lock) {
+        if (closed) {
+          return false;
+        }
+        current = getActiveLink();
+        if (current == null && (current = buffer(data)) == null) {
+          return true;
+        }
+      }
+    }
+    if (LOG.isLoggable(Level.FINEST)) {
+      LOG.log(Level.FINEST, "Send an event from {0} to {1}",
+          new Object[] {current.getLocalAddress(), current.getRemoteAddress()});
+    }
+    current.write(data);
+    return true;
+  }
+
+  /**
+   * Closes the connector if it has no active link and no connection attempt in flight,
+   * so that it can be evicted.
+   *
+   * @return true if the connector is closed
+   */
+  boolean closeIfInactive() {
+    synchronized (lock) {
+      if (!closed && !connecting && getActiveLink() == null) {
+        closed = true;
+      }
+      return closed;
+    }
+  }
+
+  /**
+   * Closes the connector: drops the pending events and wakes up the senders waiting for the link.
+   */
+  void close() {
+    synchronized (lock) {
+      if (!closed) {
+        closed = true;
+        dropPending();
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Returns the established link, after forgetting it if the transport removed it; called with the lock held.
+   */
+  private Link<byte[]> getActiveLink() {
+    if (link != null && transport.<byte[]>get(remoteAddress) != link) {
+      LOG.log(Level.FINE, "Link {0} to {1} is closed", new Object[] {link, remoteAddress});
+      link = null;
+    }
+    return link;
+  }
+
+  /**
+   * Buffers the event, unless the link is established meanwhile; called with the lock held.
+   *
+   * @return the link to write the event to, or null if it was buffered or dropped
+   */
+  private Link<byte[]> buffer(final byte[] data) {
+    final Link<byte[]> cached = transport.get(remoteAddress);
+    if (cached != null) {
+      setLink(cached);
+      return cached;
+    }
+
+    final long deadline = System.currentTimeMillis() + maxBlockTime;
+    while (pending.size() >= maxPendingEvents) {
+      switch (overflowPolicy) {
+      case BLOCK:
+        awaitLink(deadline);
+        if (link != null) {
+          return link;
+        }
+        break;
+      case DROP:
+        ++droppedEvents;
+        LOG.log(Level.FINE, "Buffer for {0} is full. Dropping an event; {1} dropped so far",
+            new Object[] {remoteAddress, droppedEvents});
+        return null;
+      case FAIL:
+        throw new RemoteRuntimeException("Buffer of " + maxPendingEvents + " events for " + remoteAddress +
+            " is full while the link is being established");
+      default:
+        throw new RemoteRuntimeException("Unknown overflow policy " + overflowPolicy);
+      }
+    }
+    if (!connecting) {
+      startConnect();
+    }
+    pending.add(data);
+    return null;
+  }
+
+  /**
+   * Waits until the link is established, the connection fails or the connector is closed;
+   * called with the lock held.
+   */
+  private void awaitLink(final long deadline) {
+    final long timeout = deadline - System.currentTimeMillis();
+    if (timeout <= 0) {
+      throw new RemoteRuntimeException("The link to " + remoteAddress + " is not established in " +
+          maxBlockTime + " ms");
+    }
+    try {
+      lock.wait(timeout);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RemoteRuntimeException("Interrupted while waiting for the link to " + remoteAddress, e);
+    }
+    if (closed) {
+      throw new RemoteRuntimeException("The sender to " + remoteAddress + " is closed");
+    }
+  }
+
+  /**
+   * Submits the one connection attempt; called with the lock held.
+   */
+  private void startConnect() {
+    connecting = true;
+    try {
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            onConnected(transport.open(remoteAddress, new ByteCodec(), new LoggingLinkListener<byte[]>()));
+          } catch (final Throwable t) {
+            onConnectFailed(t);
+          }
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      connecting = false;
+      throw new RemoteRuntimeException("Cannot connect to " + remoteAddress + ": the sender is closed", e);
+    }
+  }
+
+  private void onConnected(final Link<byte[]> newLink) {
+    synchronized (lock) {
+      LOG.log(Level.FINEST, "Link {0} established; writing {1} pending events",
+          new Object[] {newLink, pending.size()});
+      setLink(newLink);
+    }
+  }
+
+  /**
+   * Writes the pending events and publishes the link; called with the lock held.
+   */
+  private void setLink(final Link<byte[]> newLink) {
+    for (final byte[] data : pending) {
+      newLink.write(data);
+    }
+    pending.clear();
+    connecting = false;
+    link = newLink;
+    lock.notifyAll();
+  }
+
+  private void onConnectFailed(final Throwable t) {
+    synchronized (lock) {
+      LOG.log(Level.WARNING, "Cannot connect to " + remoteAddress + ". Dropping " + pending.size() +
+          " pending events", t);
+      dropPending();
+      connecting = false;
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Drops and counts the pending events; called with the lock held.
+   */
+  private void dropPending() {
+    droppedEvents += pending.size();
+    pending.clear();
+  }
+
+  /**
+   * @return the number of events dropped by the overflow policy, by failed connection attempts or by closing
+   */
+  long getDroppedEvents() {
+    synchronized (lock) {
+      return droppedEvents;
+    }
+  }
+}
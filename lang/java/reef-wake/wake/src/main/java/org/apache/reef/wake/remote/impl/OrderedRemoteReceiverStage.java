@@ -21,18 +21,27 @@ package org.apache.reef.wake.remote.impl;
 import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.WakeParameters;
+import org.apache.reef.wake.exception.WakeRuntimeException;
 import org.apache.reef.wake.impl.DefaultThreadFactory;
 import org.apache.reef.wake.impl.ThreadPoolStage;
+import org.apache.reef.wake.metrics.Histogram;
+import org.apache.reef.wake.metrics.Meter;
+import org.apache.reef.wake.metrics.UniformHistogram;
 import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
 
 import java.net.SocketAddress;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Receive incoming events and dispatch to correct handlers in order.
+ * <p>
+ * Events are decoded in parallel and put into a per-sender reorder window indexed by sequence number.
+ * Each window is drained by at most one thread at a time, which delivers the events in sequence order.
  */
 public class OrderedRemoteReceiverStage implements EStage<TransportEvent> {
 
@@ -42,30 +51,56 @@ public class OrderedRemoteReceiverStage implements EStage<TransportEvent> {
 
   private static final long SHUTDOWN_TIMEOUT = WakeParameters.REMOTE_EXECUTOR_SHUTDOWN_TIMEOUT;
 
+  private static final int OUT_OF_ORDER_DEPTH_BINS = 64;
+
   private final ExecutorService pushExecutor;
   private final ExecutorService pullExecutor;
 
   private final ThreadPoolStage<TransportEvent> pushStage;
 
+  private final Meter outOfOrderMeter;
+  private final Histogram outOfOrderDepth;
+
   /**
-   * Constructs an ordered remote receiver stage.
+   * Constructs an ordered remote receiver stage with one push and one pull thread per available processor.
    *
    * @param handler      the handler of remote events
    * @param errorHandler the exception handler
    */
   public OrderedRemoteReceiverStage(
       final EventHandler<RemoteEvent<byte[]>> handler, final EventHandler<Throwable> errorHandler) {
+    this(handler, errorHandler, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs an ordered remote receiver stage.
+   *
+   * @param handler      the handler of remote events
+   * @param errorHandler the exception handler
+   * @param numThreads   the number of threads decoding events and the number of threads delivering them
+   * @throws WakeRuntimeException if the number of threads is not positive
+   */
+  public OrderedRemoteReceiverStage(final EventHandler<RemoteEvent<byte[]>> handler,
+                                    final EventHandler<Throwable> errorHandler, final int numThreads) {
+
+    if (numThreads <= 0) {
+      throw new WakeRuntimeException(CLASS_NAME + " numThreads " + numThreads + " is less than or equal to 0");
+    }
+
+    this.pushExecutor = Executors.newFixedThreadPool(numThreads, new DefaultThreadFactory(CLASS_NAME + ":Push"));
+    this.pullExecutor = Executors.newFixedThreadPool(numThreads, new DefaultThreadFactory(CLASS_NAME + ":Pull"));
 
-    this.pushExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory(CLASS_NAME + ":Push"));
-    this.pullExecutor = Executors.newCachedThreadPool(new DefaultThreadFactory(CLASS_NAME + ":Pull"));
+    this.outOfOrderMeter = new Meter(CLASS_NAME + "_outOfOrder");
+    this.outOfOrderDepth = new UniformHistogram(1, OUT_OF_ORDER_DEPTH_BINS);
 
     final ConcurrentMap<SocketAddress, OrderedEventStream> streamMap = new ConcurrentHashMap<>();
 
     final ThreadPoolStage<OrderedEventStream> pullStage = new ThreadPoolStage<>(
-        new OrderedPullEventHandler(handler), this.pullExecutor, errorHandler);
+        new OrderedPullEventHandler(handler, errorHandler), this.pullExecutor, errorHandler);
 
     this.pushStage = new ThreadPoolStage<>(
-        new OrderedPushEventHandler(streamMap, pullStage), this.pushExecutor, errorHandler); // for decoupling
+        new OrderedPushEventHandler(streamMap, pullStage, this.outOfOrderMeter, this.outOfOrderDepth),
+        this.pushExecutor, errorHandler); // for decoupling
   }
 
   @Override
@@ -74,6 +109,25 @@ public class OrderedRemoteReceiverStage implements EStage<TransportEvent> {
     this.pushStage.onNext(value);
   }
 
+  /**
+   * Gets the meter of events that arrived before an event with a lower sequence number of the same sender.
+   *
+   * @return the out-of-order meter
+   */
+  public Meter getOutOfOrderMeter() {
+    return this.outOfOrderMeter;
+  }
+
+  /**
+   * Gets the histogram of how far ahead of the next expected sequence number events arrived.
+   * Bin 0 counts events that arrived in order; the last bin also counts all deeper events.
+   *
+   * @return the out-of-order depth histogram
+   */
+  public Histogram getOutOfOrderDepth() {
+    return this.outOfOrderDepth;
+  }
+
   @Override
   public void close() throws Exception {
     close("PushExecutor", this.pushExecutor);
@@ -105,12 +159,17 @@ class OrderedPushEventHandler implements EventHandler<TransportEvent> {
   private final RemoteEventCodec<byte[]> codec;
   private final ConcurrentMap<SocketAddress, OrderedEventStream> streamMap; // per remote address
   private final ThreadPoolStage<OrderedEventStream> pullStage;
+  private final Meter outOfOrderMeter;
+  private final Histogram outOfOrderDepth;
 
   OrderedPushEventHandler(final ConcurrentMap<SocketAddress, OrderedEventStream> streamMap,
-                          final ThreadPoolStage<OrderedEventStream> pullStage) {
+                          final ThreadPoolStage<OrderedEventStream> pullStage,
+                          final Meter outOfOrderMeter, final Histogram outOfOrderDepth) {
     this.codec = new RemoteEventCodec<>(new ByteCodec());
     this.streamMap = streamMap;
     this.pullStage = pullStage;
+    this.outOfOrderMeter = outOfOrderMeter;
+    this.outOfOrderDepth = outOfOrderDepth;
   }
 
   @Override
@@ -133,8 +192,16 @@ class OrderedPushEventHandler implements EventHandler<TransportEvent> {
         stream = streamMap.get(addr);
       }
     }
-    stream.add(re);
-    pullStage.onNext(stream);
+
+    final long depth = stream.getDepth(re);
+    if (depth > 0) {
+      outOfOrderMeter.mark(1);
+    }
+    outOfOrderDepth.update(Math.max(depth, 0));
+
+    if (stream.add(re)) {
+      pullStage.onNext(stream);
+    }
   }
 }
 
@@ -143,9 +210,12 @@ class OrderedPullEventHandler implements EventHandler<OrderedEventStream> {
   private static final Logger LOG = Logger.getLogger(OrderedPullEventHandler.class.getName());
 
   private final EventHandler<RemoteEvent<byte[]>> handler;
+  private final EventHandler<Throwable> errorHandler;
 
-  OrderedPullEventHandler(final EventHandler<RemoteEvent<byte[]>> handler) {
+  OrderedPullEventHandler(final EventHandler<RemoteEvent<byte[]>> handler,
+                          final EventHandler<Throwable> errorHandler) {
     this.handler = handler;
+    this.errorHandler = errorHandler;
   }
 
   @Override
@@ -153,46 +223,89 @@ class OrderedPullEventHandler implements EventHandler<OrderedEventStream> {
     if (LOG.isLoggable(Level.FINER)) {
       LOG.log(Level.FINER, "{0}", stream);
     }
-
-    synchronized (stream) {
-      RemoteEvent<byte[]> event;
-      while ((event = stream.consume()) != null) {
-        handler.onNext(event);
-      }
-    }
+    stream.drain(handler, errorHandler);
   }
 }
 
+/**
+ * Reorder window of the events of one sender.
+ * <p>
+ * Sequence numbers of a sender are dense, so an event is stored in the slot of its sequence number
+ * modulo the window size. Events too far ahead of the next expected sequence number to fit in the window
+ * are kept aside until the window catches up. Any number of threads may add events, but only one thread
+ * at a time drains the window: the thread whose add finds no drain in progress schedules one.
+ */
 class OrderedEventStream {
   private static final Logger LOG = Logger.getLogger(OrderedEventStream.class.getName());
-  private final BlockingQueue<RemoteEvent<byte[]>> queue; // a queue of remote events
-  private long nextSeq; // the number of the next event to consume
 
-  OrderedEventStream() {
-    queue = new PriorityBlockingQueue<>(11, new RemoteEventComparator<byte[]>());
-    nextSeq = 0;
-  }
+  private static final int WINDOW_SIZE = 1024; // must be a power of two
+
+  private final AtomicReferenceArray<RemoteEvent<byte[]>> window = new AtomicReferenceArray<>(WINDOW_SIZE);
+  private final ConcurrentMap<Long, RemoteEvent<byte[]>> overflow = new ConcurrentHashMap<>();
+  private final AtomicInteger pendingDrains = new AtomicInteger();
+  private volatile long nextSeq; // the number of the next event to consume; only written by the draining thread
 
-  synchronized void add(final RemoteEvent<byte[]> event) {
-    queue.add(event);
+  /**
+   * Returns how far ahead of the next expected sequence number the event is; negative for a stale event.
+   */
+  long getDepth(final RemoteEvent<byte[]> event) {
+    return event.getSeq() - nextSeq;
   }
 
-  synchronized RemoteEvent<byte[]> consume() {
-    RemoteEvent<byte[]> event = queue.peek();
-    if (event != null) {
-
-      if (event.getSeq() == nextSeq) {
-        event = queue.poll();
-        ++nextSeq;
-        return event;
-      } else {
-        LOG.log(Level.FINER, "Event sequence is {0} does not match expected {1}",
-            new Object[]{event.getSeq(), nextSeq});
-      }
+  /**
+   * Adds an event to the window.
+   *
+   * @return true if the caller must schedule a drain of this stream
+   */
+  boolean add(final RemoteEvent<byte[]> event) {
+    final long seq = event.getSeq();
+    // nextSeq only grows, so a stale read can only overestimate the distance
+    final long distance = seq - nextSeq;
+    if (distance < 0) {
+      LOG.log(Level.WARNING, "Dropping event with sequence {0} already consumed", seq);
+      return false;
+    }
+    if (distance < WINDOW_SIZE) {
+      window.set(indexOf(seq), event);
     } else {
-      LOG.log(Level.FINER, "Event is null");
+      overflow.put(seq, event);
     }
+    return pendingDrains.getAndIncrement() == 0;
+  }
+
+  /**
+   * Delivers the events that are next in sequence, until the next expected event has not arrived yet.
+   * Must only run in the thread that got true from {@link #add}.
+   */
+  void drain(final EventHandler<RemoteEvent<byte[]>> handler, final EventHandler<Throwable> errorHandler) {
+    long seq = nextSeq;
+    int missed = 1;
+    do {
+      while (true) {
+        final int index = indexOf(seq);
+        RemoteEvent<byte[]> event = window.get(index);
+        if (event != null) {
+          window.set(index, null);
+        } else {
+          event = overflow.isEmpty() ? null : overflow.remove(seq);
+          if (event == null) {
+            LOG.log(Level.FINER, "Event sequence {0} has not arrived yet", seq);
+            break;
+          }
+        }
+        // the slot is cleared before the window moves past it
+        nextSeq = ++seq;
+        try {
+          handler.onNext(event);
+        } catch (final Exception e) {
+          errorHandler.onNext(e);
+        }
+      }
+      missed = pendingDrains.addAndGet(-missed);
+    } while (missed != 0);
+  }
 
-    return null;
+  private static int indexOf(final long seq) {
+    return (int) seq & (WINDOW_SIZE - 1);
   }
 }
@@ -22,6 +22,8 @@ import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.remote.RemoteIdentifier;
 import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
 
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,9 +37,13 @@ public class ProxyEventHandler<T> implements EventHandler<T> {
 
   private final SocketRemoteIdentifier myId;
   private final SocketRemoteIdentifier remoteId;
+  private final InetSocketAddress myAddress;
+  private final InetSocketAddress remoteAddress;
   private final String remoteSinkName;
   private final EventHandler<RemoteEvent<T>> handler;
-  private final RemoteSeqNumGenerator seqGen;
+
+  /** Sequence numbers to the destination, looked up once instead of for every event. */
+  private final AtomicLong seq;
 
   /**
    * Constructs a proxy event handler.
@@ -58,8 +64,10 @@ public class ProxyEventHandler<T> implements EventHandler<T> {
     this.myId = (SocketRemoteIdentifier) myId;
     this.remoteId = (SocketRemoteIdentifier) remoteId;
     this.remoteSinkName = remoteSinkName;
+    this.myAddress = this.myId.getSocketAddress();
+    this.remoteAddress = this.remoteId.getSocketAddress();
     this.handler = handler;
-    this.seqGen = seqGen;
+    this.seq = seqGen.getCounter(this.remoteAddress);
   }
 
   /**
@@ -70,10 +78,9 @@ public class ProxyEventHandler<T> implements EventHandler<T> {
   @Override
   public void onNext(final T event) {
     if (LOG.isLoggable(Level.FINE)) {
-      LOG.log(Level.FINE, "remoteid: {0}\n{1}", new Object[]{remoteId.getSocketAddress(), event.toString()});
+      LOG.log(Level.FINE, "remoteid: {0}\n{1}", new Object[]{remoteAddress, event.toString()});
     }
-    handler.onNext(new RemoteEvent<T>(myId.getSocketAddress(), remoteId.getSocketAddress(),
-        seqGen.getNextSeq(remoteId.getSocketAddress()), event));
+    handler.onNext(new RemoteEvent<T>(myAddress, remoteAddress, seq.getAndIncrement(), event));
   }
 
   /**
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import org.apache.reef.wake.remote.Codec;
+import org.apache.reef.wake.remote.Decoder;
+import org.apache.reef.wake.remote.Encoder;
+import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec that encodes an object with the codec registered for its class,
+ * prefixed by an integer type id instead of the class name.
+ * <p>
+ * The registered classes get the ids 1, 2, ... in the order of their names, so two codecs
+ * constructed with the same classes agree on the ids. The id is written as a variable-length
+ * integer, one byte for up to 127 types, followed by a 4 byte fingerprint of the names of the registered
+ * classes. A codec rejects a message whose fingerprint differs from its own, so that codecs with different
+ * classes fail instead of decoding a message as the wrong type. Unlike {@link MultiCodec}, it needs
+ * no protocol buffer and no class lookup by name per message.
+ * <p>
+ * Objects of other classes are encoded with the fallback codec under the id 0, if one is given.
+ *
+ * @param <T> type
+ */
+public final class RegisteredTypeCodec<T> implements Codec<T> {
+
+  private static final int FALLBACK_TYPE_ID = 0;
+
+  private static final int FINGERPRINT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final Map<Class<?>, TypeEntry<T>> clazzToEntryMap = new HashMap<>();
+
+  /**
+   * Decoders indexed by type id.
+   */
+  private final Decoder<? extends T>[] decoders;
+
+  private final Encoder<? super T> fallbackEncoder;
+
+  /**
+   * Hash of the sorted names of the registered classes.
+   */
+  private final int fingerprint;
+
+  /**
+   * Constructs a codec for the registered classes only.
+   *
+   * @param clazzToCodecMap a map of codec for class
+   */
+  public RegisteredTypeCodec(final Map<Class<? extends T>, Codec<? extends T>> clazzToCodecMap) {
+    this(clazzToCodecMap, null);
+  }
+
+  /**
+   * Constructs a codec for the registered classes, which encodes the objects of other classes with the fallback codec.
+   *
+   * @param clazzToCodecMap a map of codec for class
+   * @param fallbackCodec   the codec of unregistered classes, e.g. an {@link ObjectSerializableCodec}; can be null
+   */
+  @SuppressWarnings("unchecked")
+  public RegisteredTypeCodec(final Map<Class<? extends T>, Codec<? extends T>> clazzToCodecMap,
+                             final Codec<? super T> fallbackCodec) {
+
+    final List<Class<? extends T>> classes = new ArrayList<>(clazzToCodecMap.keySet());
+    Collections.sort(classes, new Comparator<Class<?>>() {
+      @Override
+      public int compare(final Class<?> c1, final Class<?> c2) {
+        return c1.getName().compareTo(c2.getName());
+      }
+    });
+
+    this.decoders = new Decoder[classes.size() + 1];
+    final List<String> names = new ArrayList<>(classes.size());
+    for (int i = 0; i < classes.size(); ++i) {
+      final Class<? extends T> clazz = classes.get(i);
+      names.add(clazz.getName());
+      final Codec<? extends T> codec = clazzToCodecMap.get(clazz);
+      final int typeId = i + 1;
+      this.clazzToEntryMap.put(clazz, new TypeEntry<>(typeId, (Encoder<T>) codec));
+      this.decoders[typeId] = codec;
+    }
+
+    // the hash codes of lists and strings are specified, so every JVM computes the same fingerprint
+    this.fingerprint = names.hashCode();
+    this.fallbackEncoder = fallbackCodec;
+    this.decoders[FALLBACK_TYPE_ID] = (Decoder<? extends T>) fallbackCodec;
+  }
+
+  /**
+   * Gets the type id of the class.
+   *
+   * @param clazz the class
+   * @return the type id, or -1 if the class is not registered
+   */
+  public int getTypeId(final Class<?> clazz) {
+    final TypeEntry<T> entry = clazzToEntryMap.get(clazz);
+    return entry == null ? -1 : entry.typeId;
+  }
+
+  /**
+   * Gets the fingerprint of the registered classes, which two codecs share if they have the same classes.
+   *
+   * @return the fingerprint
+   */
+  public int getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Encodes an object to a byte array.
+   *
+   * @param obj an object to be encoded
+   * @return the type id and the fingerprint followed by the object encoded by the codec of its class
+   * @throws RemoteRuntimeException if the class is not registered and there is no fallback codec
+   */
+  @Override
+  public byte[] encode(final T obj) {
+    final TypeEntry<T> entry = clazzToEntryMap.get(obj.getClass());
+    final int typeId;
+    final byte[] payload;
+    if (entry != null) {
+      typeId = entry.typeId;
+      payload = entry.encoder.encode(obj);
+    } else if (fallbackEncoder != null) {
+      typeId = FALLBACK_TYPE_ID;
+      payload = fallbackEncoder.encode(obj);
+    } else {
+      throw new RemoteRuntimeException("Encoder for " + obj.getClass() + " not known.");
+    }
+
+    final int idSize = varIntSize(typeId);
+    final int headerSize = idSize + FINGERPRINT_SIZE;
+    final byte[] data = new byte[headerSize + payload.length];
+    writeVarInt(typeId, data);
+    for (int i = 0; i < FINGERPRINT_SIZE; ++i) {
+      data[idSize + i] = (byte) (fingerprint >>> (Byte.SIZE * (FINGERPRINT_SIZE - 1 - i)));
+    }
+    System.arraycopy(payload, 0, data, headerSize, payload.length);
+    return data;
+  }
+
+  /**
+   * Decodes byte array.
+   *
+   * @param data type id, fingerprint and byte payload
+   * @return the decoded object
+   * @throws RemoteRuntimeException if the fingerprint differs from the one of this codec or the type id is not known
+   */
+  @Override
+  public T decode(final byte[] data) {
+    int typeId = 0;
+    int pos = 0;
+    byte b;
+    do {
+      if (pos == data.length || pos == 5) {
+        throw new RemoteRuntimeException("Malformed type id in a message of " + data.length + " bytes");
+      }
+      b = data[pos];
+      typeId |= (b & 0x7f) << (7 * pos);
+      ++pos;
+    } while (b < 0);
+
+    if (data.length < pos + FINGERPRINT_SIZE) {
+      throw new RemoteRuntimeException("Missing fingerprint in a message of " + data.length + " bytes");
+    }
+    int received = 0;
+    for (int i = 0; i < FINGERPRINT_SIZE; ++i) {
+      received = (received << Byte.SIZE) | (data[pos++] & 0xff);
+    }
+    if (received != fingerprint) {
+      throw new RemoteRuntimeException("The message was encoded for other registered classes: fingerprint " +
+          received + ", expected " + fingerprint);
+    }
+
+    if (typeId < 0 || typeId >= decoders.length || decoders[typeId] == null) {
+      throw new RemoteRuntimeException("Decoder for type id " + typeId + " not known.");
+    }
+    return decoders[typeId].decode(Arrays.copyOfRange(data, pos, data.length));
+  }
+
+  private static int varIntSize(final int value) {
+    int size = 1;
+    for (int v = value >>> 7; v != 0; v >>>= 7) {
+      ++size;
+    }
+    return size;
+  }
+
+  private static void writeVarInt(final int value, final byte[] data) {
+    int v = value;
+    int pos = 0;
+    while ((v & ~0x7f) != 0) {
+      data[pos++] = (byte) ((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    data[pos] = (byte) v;
+  }
+
+  /**
+   * The type id and the encoder of a registered class.
+   */
+  private static final class TypeEntry<T> {
+    private final int typeId;
+    private final Encoder<T> encoder;
+
+    TypeEntry(final int typeId, final Encoder<T> encoder) {
+      this.typeId = typeId;
+      this.encoder = encoder;
+    }
+  }
+}
@@ -18,18 +18,30 @@
  */
 package org.apache.reef.wake.remote.impl;
 
-import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import org.apache.reef.wake.remote.Decoder;
 import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
-import org.apache.reef.wake.remote.proto.WakeRemoteProtos.WakeMessagePBuf;
+
+import java.io.IOException;
+
+import static org.apache.reef.wake.remote.impl.RemoteEventEncoder.DATA_FIELD_NUMBER;
+import static org.apache.reef.wake.remote.impl.RemoteEventEncoder.SEQ_FIELD_NUMBER;
 
 /**
  * Remote event decoder using the WakeMessage protocol buffer.
+ * <p>
+ * Reads the fields of {@code WakeMessagePBuf} straight from the input,
+ * so the event payload is copied only once before it is passed to the event decoder.
  *
  * @param <T> type
  */
 public class RemoteEventDecoder<T> implements Decoder<RemoteEvent<T>> {
 
+  // a protobuf tag is the field number shifted past the three wire type bits
+  private static final int DATA_TAG = (DATA_FIELD_NUMBER << 3) | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+  private static final int SEQ_TAG = (SEQ_FIELD_NUMBER << 3) | WireFormat.WIRETYPE_VARINT;
+
   private final Decoder<T> decoder;
 
   /**
@@ -50,13 +62,32 @@ public class RemoteEventDecoder<T> implements Decoder<RemoteEvent<T>> {
    */
   @Override
   public RemoteEvent<T> decode(final byte[] data) {
-    final WakeMessagePBuf pbuf;
+    final CodedInputStream in = CodedInputStream.newInstance(data);
+    byte[] payload = null;
+    long seq = 0;
+    boolean hasSeq = false;
     try {
-      pbuf = WakeMessagePBuf.parseFrom(data);
-      return new RemoteEvent<T>(null, null, pbuf.getSeq(), decoder.decode(pbuf.getData().toByteArray()));
-    } catch (final InvalidProtocolBufferException e) {
+      int tag;
+      while ((tag = in.readTag()) != 0) {
+        if (tag == DATA_TAG) {
+          payload = in.readRawBytes(in.readRawVarint32());
+        } else if (tag == SEQ_TAG) {
+          seq = in.readInt64();
+          hasSeq = true;
+        } else if (!in.skipField(tag)) {
+          break;
+        }
+      }
+    } catch (final IOException e) {
       throw new RemoteRuntimeException(e);
     }
+
+    if (payload == null || !hasSeq) {
+      throw new RemoteRuntimeException("Message missing required fields: " +
+          (payload == null ? "data " : "") + (hasSeq ? "" : "seq"));
+    }
+
+    return new RemoteEvent<T>(null, null, seq, decoder.decode(payload));
   }
 
 }
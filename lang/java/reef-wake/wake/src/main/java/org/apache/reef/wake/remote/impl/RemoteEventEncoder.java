@@ -18,18 +18,26 @@
  */
 package org.apache.reef.wake.remote.impl;
 
-import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
 import org.apache.reef.wake.remote.Encoder;
 import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
-import org.apache.reef.wake.remote.proto.WakeRemoteProtos.WakeMessagePBuf;
+
+import java.io.IOException;
 
 /**
  * Remote event encoder using the WakeMessage protocol buffer.
+ * <p>
+ * Writes the fields of {@code WakeMessagePBuf} straight into an array of the exact size,
+ * so the encoded event is copied only once instead of going through a ByteString and a message builder.
  *
  * @param <T> type
  */
 public class RemoteEventEncoder<T> implements Encoder<RemoteEvent<T>> {
 
+  static final int DATA_FIELD_NUMBER = 1;
+  static final int SEQ_FIELD_NUMBER = 2;
+
   private final Encoder<T> encoder;
 
   /**
@@ -54,11 +62,26 @@ public class RemoteEventEncoder<T> implements Encoder<RemoteEvent<T>> {
       throw new RemoteRuntimeException("Event is null");
     }
 
-    final WakeMessagePBuf.Builder builder = WakeMessagePBuf.newBuilder();
-    builder.setSeq(obj.getSeq());
-    builder.setData(ByteString.copyFrom(encoder.encode(obj.getEvent())));
+    final byte[] data = encoder.encode(obj.getEvent());
+
+    // same layout as WakeMessagePBuf: data (field 1) followed by seq (field 2)
+    final int size = CodedOutputStream.computeTagSize(DATA_FIELD_NUMBER) +
+        CodedOutputStream.computeRawVarint32Size(data.length) + data.length +
+        CodedOutputStream.computeInt64Size(SEQ_FIELD_NUMBER, obj.getSeq());
+
+    final byte[] result = new byte[size];
+    final CodedOutputStream out = CodedOutputStream.newInstance(result);
+    try {
+      out.writeTag(DATA_FIELD_NUMBER, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      out.writeRawVarint32(data.length);
+      out.writeRawBytes(data);
+      out.writeInt64(SEQ_FIELD_NUMBER, obj.getSeq());
+      out.checkNoSpaceLeft();
+    } catch (final IOException e) {
+      throw new RemoteRuntimeException(e);
+    }
 
-    return builder.build().toByteArray();
+    return result;
   }
 
 }
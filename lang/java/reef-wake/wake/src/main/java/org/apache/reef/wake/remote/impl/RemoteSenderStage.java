@@ -26,36 +26,113 @@ import org.apache.reef.wake.remote.Encoder;
 import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
 import org.apache.reef.wake.remote.transport.Transport;
 
+import java.net.SocketAddress;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Stage to manage resources related to sending event remotely.
+ * <p>
+ * The stage establishes the link to each destination once for all its senders,
+ * and buffers a bounded number of events per destination until the link is established.
+ * The state kept for a destination is evicted once its link is closed.
  */
 public class RemoteSenderStage implements Stage {
 
+  /**
+   * What a sender does with an event when the buffer of its destination is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * Block the caller until the link is established, for at most the block time of the stage.
+     */
+    BLOCK,
+    /**
+     * Log and drop the event.
+     */
+    DROP,
+    /**
+     * Throw a RemoteRuntimeException.
+     */
+    FAIL
+  }
+
+  private static final int DEFAULT_MAX_PENDING_EVENTS = 10000;
+
   private static final long SHUTDOWN_TIMEOUT = WakeParameters.REMOTE_EXECUTOR_SHUTDOWN_TIMEOUT;
 
+  private static final long DEFAULT_MAX_BLOCK_TIME = WakeParameters.REMOTE_EXECUTOR_SHUTDOWN_TIMEOUT;
+
   private static final Logger LOG = Logger.getLogger(RemoteSenderStage.class.getName());
 
   private final ExecutorService executor;
   private final Encoder encoder;
   private final Transport transport;
+  private final int maxPendingEvents;
+  private final OverflowPolicy overflowPolicy;
+  private final long maxBlockTime;
+  private final ConcurrentMap<SocketAddress, LinkConnector> connectors = new ConcurrentHashMap<>();
+  private final AtomicLong evictedDroppedEvents = new AtomicLong(0);
 
   /**
-   * Constructs a remote sender stage.
+   * Constructs a remote sender stage that blocks senders while the buffer of their destination is full.
    *
    * @param encoder    the encoder of the event
    * @param transport  the transport to send events
    * @param numThreads the number of threads
    */
   public RemoteSenderStage(final Encoder encoder, final Transport transport, final int numThreads) {
+    this(encoder, transport, numThreads, DEFAULT_MAX_PENDING_EVENTS, OverflowPolicy.BLOCK);
+  }
+
+  /**
+   * Constructs a remote sender stage.
+   *
+   * @param encoder          the encoder of the event
+   * @param transport        the transport to send events
+   * @param numThreads       the number of threads establishing links
+   * @param maxPendingEvents the number of events buffered per destination while its link is being established
+   * @param overflowPolicy   what to do with an event when the buffer of its destination is full
+   * @throws RemoteRuntimeException if maxPendingEvents is less than or equal to 0
+   */
+  public RemoteSenderStage(final Encoder encoder, final Transport transport, final int numThreads,
+                           final int maxPendingEvents, final OverflowPolicy overflowPolicy) {
+    this(encoder, transport, numThreads, maxPendingEvents, overflowPolicy, DEFAULT_MAX_BLOCK_TIME);
+  }
+
+  /**
+   * Constructs a remote sender stage.
+   *
+   * @param encoder          the encoder of the event
+   * @param transport        the transport to send events
+   * @param numThreads       the number of threads establishing links
+   * @param maxPendingEvents the number of events buffered per destination while its link is being established
+   * @param overflowPolicy   what to do with an event when the buffer of its destination is full
+   * @param maxBlockTime     the time in milliseconds a sender waits for the link with the BLOCK policy
+   * @throws RemoteRuntimeException if maxPendingEvents or maxBlockTime is less than or equal to 0
+   */
+  public RemoteSenderStage(final Encoder encoder, final Transport transport, final int numThreads,
+                           final int maxPendingEvents, final OverflowPolicy overflowPolicy,
+                           final long maxBlockTime) {
+    if (maxPendingEvents <= 0) {
+      throw new RemoteRuntimeException("maxPendingEvents " + maxPendingEvents + " is less than or equal to 0");
+    }
+    if (maxBlockTime <= 0) {
+      throw new RemoteRuntimeException("maxBlockTime " + maxBlockTime + " is less than or equal to 0");
+    }
     this.encoder = encoder;
     this.transport = transport;
+    this.maxPendingEvents = maxPendingEvents;
+    this.overflowPolicy = overflowPolicy;
+    this.maxBlockTime = maxBlockTime;
     this.executor = Executors.newFixedThreadPool(
         numThreads, new DefaultThreadFactory(RemoteSenderStage.class.getName()));
   }
@@ -66,11 +143,78 @@ public class RemoteSenderStage implements Stage {
    * @return a remote sender event handler
    */
   public <T> EventHandler<RemoteEvent<T>> getHandler() {
-    return new RemoteSenderEventHandler<T>(encoder, transport, executor);
+    return new RemoteSenderEventHandler<T>(encoder, this);
+  }
+
+  /**
+   * Starts to establish the link to the destination, so that the first event to it does not wait.
+   *
+   * @param remoteAddress the address of the destination
+   */
+  public void warmUp(final SocketAddress remoteAddress) {
+    while (!getConnector(remoteAddress).connect()) {
+      // The connector was evicted meanwhile; retry with a new one
+    }
+  }
+
+  /**
+   * Gets the number of events dropped because the buffer of their destination was full,
+   * because the link could not be established, or because the stage was closed meanwhile.
+   *
+   * @return the number of dropped events
+   */
+  public long getDroppedEvents() {
+    long dropped = evictedDroppedEvents.get();
+    for (final LinkConnector connector : connectors.values()) {
+      dropped += connector.getDroppedEvents();
+    }
+    return dropped;
+  }
+
+  /**
+   * Writes the encoded event to its destination, or buffers it until the link is established.
+   *
+   * @param remoteAddress the address of the destination
+   * @param data          the encoded event
+   * @throws RemoteRuntimeException if the event can be neither written nor buffered
+   */
+  void write(final SocketAddress remoteAddress, final byte[] data) {
+    while (!getConnector(remoteAddress).write(data)) {
+      // The connector was evicted meanwhile; retry with a new one
+    }
+  }
+
+  private LinkConnector getConnector(final SocketAddress remoteAddress) {
+    final LinkConnector connector = connectors.get(remoteAddress);
+    if (connector != null) {
+      return connector;
+    }
+    // New destinations are rare, so look for the connectors to evict only then
+    evictInactiveConnectors();
+    final LinkConnector newConnector =
+        new LinkConnector(remoteAddress, transport, executor, maxPendingEvents, overflowPolicy, maxBlockTime);
+    final LinkConnector prior = connectors.putIfAbsent(remoteAddress, newConnector);
+    return prior != null ? prior : newConnector;
+  }
+
+  /**
+   * Evicts the connectors whose links were closed, keeping count of the events they dropped.
+   */
+  private void evictInactiveConnectors() {
+    for (final Map.Entry<SocketAddress, LinkConnector> entry : connectors.entrySet()) {
+      final LinkConnector connector = entry.getValue();
+      if (connector.closeIfInactive() && connectors.remove(entry.getKey(), connector)) {
+        LOG.log(Level.FINE, "Evict the connector to {0}", entry.getKey());
+        evictedDroppedEvents.addAndGet(connector.getDroppedEvents());
+      }
+    }
   }
 
   /**
    * Closes the stage.
+   * <p>
+   * The connection attempts in flight are given time to finish and write their pending events;
+   * then the events still pending are dropped, and the senders waiting for a link get an exception.
    */
   @Override
   public void close() throws Exception {
@@ -86,6 +230,14 @@ public class RemoteSenderStage implements Stage {
     } catch (final InterruptedException e) {
       LOG.log(Level.WARNING, "Close interrupted", e);
       throw new RemoteRuntimeException(e);
+    } finally {
+      for (final Map.Entry<SocketAddress, LinkConnector> entry : connectors.entrySet()) {
+        final LinkConnector connector = entry.getValue();
+        if (connectors.remove(entry.getKey(), connector)) {
+          connector.close();
+          evictedDroppedEvents.addAndGet(connector.getDroppedEvents());
+        }
+      }
     }
   }
 }
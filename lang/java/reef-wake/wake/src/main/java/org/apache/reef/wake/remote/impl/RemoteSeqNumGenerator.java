@@ -26,6 +26,8 @@ import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generates the sequence number for remote messages per destination.
+ * Senders that send many messages to one destination should look up its counter
+ * once with {@link #getCounter(SocketAddress)} instead of calling getNextSeq for every message.
  */
 public class RemoteSeqNumGenerator {
 
@@ -36,14 +38,23 @@ public class RemoteSeqNumGenerator {
   }
 
   public long getNextSeq(final SocketAddress addr) {
-    AtomicLong seq = seqMap.get(addr);
-    if (seq == null) {
-      seq = new AtomicLong(0);
-      if (seqMap.putIfAbsent(addr, seq) != null) {
-        seq = seqMap.get(addr);
-      }
+    return getCounter(addr).getAndIncrement();
+  }
+
+  /**
+   * Gets the counter of the sequence numbers to a destination, shared by all its senders.
+   *
+   * @param addr the address of the destination
+   * @return the counter, whose getAndIncrement() returns the next sequence number
+   */
+  public AtomicLong getCounter(final SocketAddress addr) {
+    final AtomicLong seq = seqMap.get(addr);
+    if (seq != null) {
+      return seq;
     }
-    return seq.getAndIncrement();
+    final AtomicLong created = new AtomicLong(0);
+    final AtomicLong raced = seqMap.putIfAbsent(addr, created);
+    return raced == null ? created : raced;
   }
 
 }
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.impl;
+
+import org.apache.reef.wake.EStage;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.exception.WakeRuntimeException;
+import org.apache.reef.wake.impl.ThreadPoolStage;
+
+import java.net.SocketAddress;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Receive incoming events and dispatch them to correct handlers concurrently across senders.
+ * <p>
+ * Every sender is pinned to one of a fixed number of single-threaded stripes,
+ * so events from the same remote address are decoded and handled in the order they arrive,
+ * while events from different remote addresses can be handled in parallel.
+ */
+public class StripedRemoteReceiverStage implements EStage<TransportEvent> {
+
+  private static final Logger LOG = Logger.getLogger(StripedRemoteReceiverStage.class.getName());
+
+  private static final String CLASS_NAME = StripedRemoteReceiverStage.class.getSimpleName();
+
+  private final ThreadPoolStage<TransportEvent>[] stripes;
+
+  /**
+   * Constructs a striped remote receiver stage.
+   *
+   * @param handler      the handler of remote events
+   * @param errorHandler the exception handler
+   * @param numStripes   the number of stripes, each served by a single thread
+   * @throws WakeRuntimeException if the number of stripes is not positive
+   */
+  @SuppressWarnings("unchecked")
+  public StripedRemoteReceiverStage(final EventHandler<RemoteEvent<byte[]>> handler,
+                                    final EventHandler<Throwable> errorHandler, final int numStripes) {
+
+    if (numStripes <= 0) {
+      throw new WakeRuntimeException(CLASS_NAME + " numStripes " + numStripes + " is less than or equal to 0");
+    }
+
+    final EventHandler<TransportEvent> receiverHandler = new RemoteReceiverEventHandler(handler);
+
+    this.stripes = new ThreadPoolStage[numStripes];
+    for (int i = 0; i < numStripes; ++i) {
+      this.stripes[i] = new ThreadPoolStage<>(CLASS_NAME + ":" + i, receiverHandler, 1, errorHandler);
+    }
+  }
+
+  /**
+   * Handles the received event on the stripe that owns its sender.
+   *
+   * @param value the event
+   */
+  @Override
+  public void onNext(final TransportEvent value) {
+    LOG.log(Level.FINEST, "{0}", value);
+    this.stripes[stripeOf(value.getRemoteAddress())].onNext(value);
+  }
+
+  /**
+   * Closes all stripes.
+   */
+  @Override
+  public void close() throws Exception {
+    LOG.log(Level.FINE, "close");
+    for (final ThreadPoolStage<TransportEvent> stripe : this.stripes) {
+      stripe.close();
+    }
+  }
+
+  private int stripeOf(final SocketAddress addr) {
+    if (addr == null) {
+      return 0;
+    }
+    // spread the hash bits so that addresses differing only in port do not collide
+    final int h = addr.hashCode();
+    return ((h ^ (h >>> 16)) & Integer.MAX_VALUE) % this.stripes.length;
+  }
+}
@@ -20,14 +20,24 @@ package org.apache.reef.wake.remote.impl;
 
 import org.apache.reef.wake.remote.transport.Link;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.SocketAddress;
 
 /**
  * Event sent from a remote node.
+ * <p>
+ * A large message can be kept in the chunks it was received in instead of one array,
+ * see {@link org.apache.reef.wake.remote.RemoteConfiguration.StreamingReceiveThreshold}.
+ * The message is complete when the event is created either way.
+ * Such a message is best read through {@link #getInputStream()};
+ * {@link #getData()} copies it into one array. The accessors of the data are thread-safe.
  */
 public class TransportEvent {
 
-  private final byte[] data;
+  private final int size;
+  private byte[] data; // guarded by this
+  private ChunkedMessageInputStream stream; // guarded by this; null once handed out or copied into data
   private final SocketAddress localAddr;
   private final SocketAddress remoteAddr;
   private final Link<byte[]> link;
@@ -40,7 +50,9 @@ public class TransportEvent {
    * @param remoteAddr the remote socket address
    */
   public TransportEvent(final byte[] data, final SocketAddress localAddr, final SocketAddress remoteAddr) {
+    this.size = data.length;
     this.data = data;
+    this.stream = null;
     this.localAddr = localAddr;
     this.remoteAddr = remoteAddr;
     link = null;
@@ -54,7 +66,47 @@ public class TransportEvent {
    * @param link
    */
   public TransportEvent(final byte[] data, final Link<byte[]> link) {
+    this.size = data.length;
     this.data = data;
+    this.stream = null;
+    this.link = link;
+    if (this.link != null) {
+      localAddr = link.getLocalAddress();
+      remoteAddr = link.getRemoteAddress();
+    } else {
+      localAddr = null;
+      remoteAddr = null;
+    }
+  }
+
+  /**
+   * Constructs an event for a message received in chunks.
+   *
+   * @param stream     the stream over the chunks of the message
+   * @param localAddr  the local socket address
+   * @param remoteAddr the remote socket address
+   */
+  public TransportEvent(final ChunkedMessageInputStream stream,
+                        final SocketAddress localAddr, final SocketAddress remoteAddr) {
+    this.size = stream.getLength();
+    this.data = null;
+    this.stream = stream;
+    this.localAddr = localAddr;
+    this.remoteAddr = remoteAddr;
+    this.link = null;
+  }
+
+  /**
+   * Constructs an event for a message received in chunks, using link to
+   * initialize local and remote address if link not null.
+   *
+   * @param stream the stream over the chunks of the message
+   * @param link   the link the message was received on
+   */
+  public TransportEvent(final ChunkedMessageInputStream stream, final Link<byte[]> link) {
+    this.size = stream.getLength();
+    this.data = null;
+    this.stream = stream;
     this.link = link;
     if (this.link != null) {
       localAddr = link.getLocalAddress();
@@ -69,18 +121,55 @@ public class TransportEvent {
   public String toString() {
     return String.format(
         "TransportEvent: {local: %s remote: %s size: %d bytes}",
-        this.localAddr, this.remoteAddr, this.data.length);
+        this.localAddr, this.remoteAddr, this.getSize());
   }
 
   /**
    * Gets the data.
+   * A message kept in chunks is copied into one array on the first call.
    *
    * @return data
+   * @throws IllegalStateException if the chunks have already been handed out by {@link #getInputStream()}
    */
-  public byte[] getData() {
+  public synchronized byte[] getData() {
+    if (data == null) {
+      if (stream == null) {
+        throw new IllegalStateException("The stream of the message has been handed out");
+      }
+      data = stream.toByteArray();
+      stream = null;
+    }
     return data;
   }
 
+  /**
+   * Gets the data as a stream, without copying a message kept in chunks into one array.
+   * The chunks are handed out once; after that, the data of the event cannot be read again.
+   *
+   * @return the stream over the data
+   * @throws IllegalStateException if the chunks have already been handed out
+   */
+  public synchronized InputStream getInputStream() {
+    if (data != null) {
+      return new ByteArrayInputStream(data);
+    }
+    if (stream == null) {
+      throw new IllegalStateException("The stream of the message has been handed out");
+    }
+    final InputStream result = stream;
+    stream = null;
+    return result;
+  }
+
+  /**
+   * Gets the size of the data.
+   *
+   * @return the number of bytes of the message
+   */
+  public int getSize() {
+    return size;
+  }
+
   /**
    * Returns the link associated with the event.
    * which can be used to write back to the client
@@ -22,7 +22,9 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
 import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.apache.reef.wake.remote.transport.Link;
 
 import java.net.SocketAddress;
 import java.util.concurrent.ConcurrentMap;
@@ -40,6 +42,7 @@ abstract class AbstractNettyEventListener implements NettyEventListener {
   protected final ConcurrentMap<SocketAddress, LinkReference> addrToLinkRefMap;
   protected final EStage<TransportEvent> stage;
   protected EventHandler<Exception> exceptionHandler;
+  private volatile EventHandler<SocketAddress> channelCloseHandler;
 
   AbstractNettyEventListener(
       final ConcurrentMap<SocketAddress, LinkReference> addrToLinkRefMap,
@@ -53,9 +56,28 @@ abstract class AbstractNettyEventListener implements NettyEventListener {
     this.exceptionHandler = handler;
   }
 
+  /**
+   * Registers the handler that is told the remote address of every channel that closes.
+   */
+  void registerChannelCloseHandler(final EventHandler<SocketAddress> handler) {
+    LOG.log(Level.FINE, "Set channel close handler {0}", handler);
+    this.channelCloseHandler = handler;
+  }
+
   @Override
   public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
     final Channel channel = ctx.channel();
+
+    if (msg instanceof ChunkedMessageInputStream) {
+      final ChunkedMessageInputStream stream = (ChunkedMessageInputStream) msg;
+      LOG.log(Level.FINEST, "Chunked message: local: {0} remote: {1} :: {2} bytes", new Object[]{
+          channel.localAddress(), channel.remoteAddress(), stream.getLength()});
+      if (stream.getLength() > 0) {
+        this.stage.onNext(this.getTransportEvent(stream, channel));
+      }
+      return;
+    }
+
     final byte[] message = (byte[]) msg;
 
     if (LOG.isLoggable(Level.FINEST)) {
@@ -87,13 +109,36 @@ abstract class AbstractNettyEventListener implements NettyEventListener {
 
   protected abstract TransportEvent getTransportEvent(final byte[] message, final Channel channel);
 
+  protected abstract TransportEvent getTransportEvent(final ChunkedMessageInputStream message, final Channel channel);
+
   protected abstract void exceptionCleanup(final ChannelHandlerContext ctx, Throwable cause);
 
+  /**
+   * Removes the link of the closed channel.
+   * A link over several channels is removed and closed when any of its channels closes.
+   */
   protected void closeChannel(final Channel channel) {
-    final LinkReference refRemoved =
-        channel != null && channel.remoteAddress() != null ?
-            this.addrToLinkRefMap.remove(channel.remoteAddress()) : null;
+    final SocketAddress remoteAddress = channel != null ? channel.remoteAddress() : null;
+    final LinkReference ref = remoteAddress != null ? this.addrToLinkRefMap.get(remoteAddress) : null;
+    boolean removed = false;
+    if (ref != null) {
+      final Link<?> link = ref.getLink();
+      if (link instanceof MultiChannelLink) {
+        final MultiChannelLink<?> multiChannelLink = (MultiChannelLink<?>) link;
+        // a channel of an older link must not remove the link that replaced it
+        if (multiChannelLink.hasChannel(channel)) {
+          removed = this.addrToLinkRefMap.remove(remoteAddress, ref);
+          multiChannelLink.close();
+        }
+      } else {
+        removed = this.addrToLinkRefMap.remove(remoteAddress) != null;
+      }
+    }
     LOG.log(Level.FINER, "Channel closed: {0}. Link ref found and removed: {1}",
-        new Object[]{channel, refRemoved != null});
+        new Object[]{channel, removed});
+    final EventHandler<SocketAddress> closeHandler = this.channelCloseHandler;
+    if (closeHandler != null && remoteAddress != null) {
+      closeHandler.onNext(remoteAddress);
+    }
   }
 }
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.reef.wake.remote.Encoder;
+
+/**
+ * Encoder that writes objects directly into a Netty buffer.
+ * <p>
+ * Links opened with an encoder implementing this interface encode every message
+ * into a pooled buffer that is handed to the channel as is,
+ * instead of encoding it into a byte[] first.
+ *
+ * @param <T> type
+ */
+public interface ByteBufEncoder<T> extends Encoder<T> {
+
+  /**
+   * Encodes the given object into the buffer.
+   *
+   * @param obj an object
+   * @param out the buffer to write to; it grows as needed
+   */
+  void encode(T obj, ByteBuf out);
+}
@@ -21,12 +21,18 @@ package org.apache.reef.wake.remote.transport.netty;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.stream.ChunkedStream;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
@@ -36,6 +42,10 @@ import java.util.logging.Logger;
  * and just emits the chunks up stream. So we add an upstream
  * handler that aggregates the chunks into its original form. This
  * is guaranteed to be thread serial so state can be shared.
+ * Messages larger than the streaming threshold are not copied into one array:
+ * the received chunks are passed up stream as a {@link ChunkedMessageInputStream}.
+ * Once the peer starts each message with a type byte, see {@link #stripTypeByte()}, the byte is
+ * skipped while the message is assembled, and the message is passed up stream as a {@link TypedMessage}.
  * <p>
  * On the down stream side, we just decorate the original message
  * with its size and allow the thread-serial base class to actually
@@ -51,14 +61,54 @@ public class ChunkedReadWriteHandler extends ChunkedWriteHandler {
 
   public static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
 
+  /**
+   * The size of the chunks that large messages are split into.
+   */
+  private static final int CHUNK_SIZE = NettyChannelInitializer.MAXFRAMELENGTH - 1024;
+
   private static final Logger LOG = Logger.getLogger(ChunkedReadWriteHandler.class.getName());
 
+  /**
+   * The size above which a message is kept in chunks; 0 if all messages are copied into one array.
+   */
+  private final int streamingThreshold;
+
   private boolean start = true;
   private int expectedSize = 0;
 
   private ByteBuf readBuffer;
   private byte[] retArr;
 
+  private List<byte[]> chunks;
+  private int chunkedSize = 0;
+
+  /**
+   * Whether each received message starts with a type byte.
+   */
+  private boolean typedMessages = false;
+  private byte messageType;
+
+  public ChunkedReadWriteHandler() {
+    this(0);
+  }
+
+  /**
+   * @param streamingThreshold the size in bytes above which a received message is kept in chunks;
+   *                           0 copies all messages into one array
+   */
+  public ChunkedReadWriteHandler(final int streamingThreshold) {
+    this.streamingThreshold = streamingThreshold;
+  }
+
+  /**
+   * Takes the first byte of each message received from now on as its type: the byte is left out of the
+   * message, and the message is passed up stream with the type as a {@link TypedMessage}.
+   * Called on the event loop, between two messages.
+   */
+  void stripTypeByte() {
+    typedMessages = true;
+  }
+
   /**
    * @see org.jboss.netty.handler.stream.ChunkedWriteHandler#handleUpstream(
    *      org.jboss.netty.channel.ChannelHandlerContext, org.jboss.netty.channel.ChannelEvent)
@@ -73,22 +123,40 @@ public class ChunkedReadWriteHandler extends ChunkedWriteHandler {
       if (start) {
         //LOG.log(Level.FINEST, "{0} Starting dechunking of a chunked write", curThrName);
         expectedSize = getSize(data);
+        final int offset = typedMessages ? INT_SIZE + 1 : INT_SIZE;
+        if (typedMessages) {
+          messageType = data[INT_SIZE];
+        }
+        if (streamingThreshold > 0 && expectedSize > streamingThreshold) {
+          // keep the chunks as they are; the first one starts with the size
+          chunks = new ArrayList<>();
+          chunks.add(data);
+          chunkedSize = data.length - INT_SIZE;
+          start = false;
+          fireChunkedMessageIfComplete(ctx);
+          return;
+        }
         // LOG.log(Level.FINEST, "Expected Size = {0}. Wrapping byte[{1}] into a ChannelBuffer",
         // new Object[]{expectedSize,expectedSize});
-        retArr = new byte[expectedSize];
+        retArr = new byte[expectedSize - (offset - INT_SIZE)];
         readBuffer = Unpooled.wrappedBuffer(retArr);
         readBuffer.clear();
         //if (LOG.isLoggable(Level.FINEST)) LOG.log(Level.FINEST, curThrName + "read buffer: cur sz = " +
         // readBuffer.writerIndex() + " + " + (data.length - INT_SIZE) + " bytes will added by current chunk");
-        readBuffer.writeBytes(data, INT_SIZE, data.length - INT_SIZE);
+        readBuffer.writeBytes(data, offset, data.length - offset);
         //if (LOG.isLoggable(Level.FINEST)) LOG.log(Level.FINEST, curThrName + "read buffer: new sz = " +
         // readBuffer.writerIndex());
         start = false;
+      } else if (chunks != null) {
+        chunks.add(data);
+        chunkedSize += data.length;
+        fireChunkedMessageIfComplete(ctx);
+        return;
       } else {
         readBuffer.writeBytes(data);
       }
 
-      if (readBuffer.writerIndex() == expectedSize) {
+      if (readBuffer.writerIndex() == retArr.length) {
         //if (LOG.isLoggable(Level.FINEST)) LOG.log(Level.FINEST, "{0} Dechunking complete." +
         // "Creating upstream msg event with the dechunked byte[{1}]", new Object[]{curThrName, expectedSize});
         //if (LOG.isLoggable(Level.FINEST)) LOG.log(Level.FINEST, "Resetting state to begin another dechunking",
@@ -99,13 +167,30 @@ public class ChunkedReadWriteHandler extends ChunkedWriteHandler {
         readBuffer.release();
         retArr = null;
         //LOG.log(Level.FINEST, "{0} Sending dechunked message upstream", curThrName);
-        super.channelRead(ctx, temp);
+        super.channelRead(ctx, typedMessages ? new TypedMessage(messageType, temp) : temp);
       }
     } else {
       super.channelRead(ctx, msg);
     }
   }
 
+  /**
+   * Passes the message kept in chunks up stream once all of its chunks are received.
+   */
+  private void fireChunkedMessageIfComplete(final ChannelHandlerContext ctx) throws Exception {
+    if (chunkedSize < expectedSize) {
+      return;
+    }
+    final int offset = typedMessages ? INT_SIZE + 1 : INT_SIZE;
+    final ChunkedMessageInputStream message =
+        new ChunkedMessageInputStream(chunks, offset, expectedSize - (offset - INT_SIZE));
+    start = true;
+    expectedSize = 0;
+    chunks = null;
+    chunkedSize = 0;
+    super.channelRead(ctx, typedMessages ? new TypedMessage(messageType, message) : message);
+  }
+
   /**
    * Thread-safe since there is no shared instance state.
    * Just prepend size to the message and stream it through
@@ -123,16 +208,34 @@ public class ChunkedReadWriteHandler extends ChunkedWriteHandler {
 
       final ByteBuf bf = (ByteBuf) msg;
 
-      if (bf.hasArray()) {
+      if (isWholeArray(bf)) {
         final byte[] data = bf.array();
         final byte[] size = sizeAsByteArr(data.length);
         final ByteBuf writeBuffer = Unpooled.wrappedBuffer(size, data);
-        final ByteBufCloseableStream stream = new ByteBufCloseableStream(writeBuffer);
-        final ChunkedStream chunkedStream = new ChunkedStream(
-            stream, NettyChannelInitializer.MAXFRAMELENGTH - 1024);
-        super.write(ctx, chunkedStream, promise);
+        if (writeBuffer.readableBytes() <= CHUNK_SIZE) {
+          // a message that fits in one chunk is written as is, so that the base class
+          // does not flush it on its own and several messages can share one flush
+          super.write(ctx, writeBuffer, promise);
+        } else {
+          final ByteBufCloseableStream stream = new ByteBufCloseableStream(writeBuffer);
+          final ChunkedStream chunkedStream = new ChunkedStream(stream, CHUNK_SIZE);
+          super.write(ctx, chunkedStream, promise);
+        }
       } else {
-        super.write(ctx, msg, promise);
+        // e.g. a pooled buffer filled by a ByteBufEncoder: prepend the size without copying the content
+        final ByteBuf writeBuffer = Unpooled.wrappedBuffer(
+            Unpooled.wrappedBuffer(sizeAsByteArr(bf.readableBytes())), bf);
+        if (writeBuffer.readableBytes() <= CHUNK_SIZE) {
+          super.write(ctx, writeBuffer, promise);
+        } else {
+          // the caller's promise completes once all chunks are written, and fails if any of them fails
+          final int numChunks = (writeBuffer.readableBytes() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+          final ChannelFutureListener aggregator = new ChunkPromiseAggregator(promise, numChunks);
+          while (writeBuffer.readableBytes() > CHUNK_SIZE) {
+            super.write(ctx, writeBuffer.readSlice(CHUNK_SIZE).retain(), ctx.newPromise().addListener(aggregator));
+          }
+          super.write(ctx, writeBuffer, ctx.newPromise().addListener(aggregator));
+        }
       }
 
     } else {
@@ -140,6 +243,14 @@ public class ChunkedReadWriteHandler extends ChunkedWriteHandler {
     }
   }
 
+  /**
+   * Whether the buffer is a plain wrapper of a whole byte array, as produced by Unpooled.wrappedBuffer(byte[]).
+   */
+  private static boolean isWholeArray(final ByteBuf bf) {
+    return bf.hasArray() && bf.arrayOffset() == 0 && bf.readerIndex() == 0 &&
+        bf.readableBytes() == bf.array().length;
+  }
+
   /**
    * Converts the int size into a byte[].
    *
@@ -177,6 +288,30 @@ public class ChunkedReadWriteHandler extends ChunkedWriteHandler {
     return ret;
   }
 
+  /**
+   * Completes the promise of a message written in several chunks when the writes of all chunks are done.
+   * The promise fails with the cause of the first chunk that fails.
+   */
+  private static final class ChunkPromiseAggregator implements ChannelFutureListener {
+    private final ChannelPromise promise;
+    private final AtomicInteger remaining;
+
+    ChunkPromiseAggregator(final ChannelPromise promise, final int numChunks) {
+      this.promise = promise;
+      this.remaining = new AtomicInteger(numChunks);
+    }
+
+    @Override
+    public void operationComplete(final ChannelFuture future) {
+      if (!future.isSuccess()) {
+        promise.tryFailure(future.cause());
+      }
+      if (remaining.decrementAndGet() == 0) {
+        promise.trySuccess();
+      }
+    }
+  }
+
   /**
    * Release Bytebuf when the stream closes.
    */
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.apache.reef.wake.remote.MessageCompressor;
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
+import org.apache.reef.wake.remote.impl.CompressionStatistics;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compresses the messages of a link and decompresses the messages received from it.
+ * <p>
+ * The handler is on every channel, whether compression is enabled or not, and negotiates with the peer:
+ * <ul>
+ * <li>A channel starts with plain messages in both directions, as without the handler.</li>
+ * <li>If compression is enabled, the handler sends a hello message with the name of its compressor
+ * when the channel becomes active. A handler with compression disabled sends a hello without a name
+ * when it receives the hello of its peer.</li>
+ * <li>After its own hello, a handler starts each message it sends with a type byte.
+ * After the hello of the peer, it expects the type byte in each message it receives.</li>
+ * <li>Messages are sent compressed only after the peer announced the same compressor, and only
+ * if they are at least the threshold size and get smaller; other messages are sent as they are.</li>
+ * </ul>
+ * So two Java peers work together whatever their configuration, and a peer with compression disabled
+ * keeps the plain wire format towards peers without the handler. A plain message that starts with
+ * the hello marker would be taken for a hello; protocol buffers never start with a zero byte.
+ * <p>
+ * Placed above the chunker, so that it sees whole messages in both directions. The chunker strips the
+ * type byte of a received message while it assembles it, so a plain message is passed on without a copy.
+ * All methods run on the event loop of the channel.
+ */
+final class CompressionHandler extends ChannelDuplexHandler {
+
+  private static final Logger LOG = Logger.getLogger(CompressionHandler.class.getName());
+
+  private static final byte RAW = 0;
+  private static final byte COMPRESSED = 1;
+
+  /**
+   * Start of a hello message, followed by the name of the compressor in UTF-8.
+   */
+  private static final byte[] HELLO_MARKER = {0, 'W', 'A', 'K', 'E', 'C', 'M', 'P'};
+
+  /**
+   * Messages longer than this are never hello messages.
+   */
+  private static final int MAX_HELLO_SIZE = 1024;
+
+  private static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+  private final int threshold;
+  private final MessageCompressor compressor;
+  private final CompressionStatistics statistics;
+  private final ChunkedReadWriteHandler chunker;
+
+  /**
+   * Whether this handler has sent its hello, so that its messages start with the type byte.
+   */
+  private boolean helloSent = false;
+
+  /**
+   * Whether the peer has sent its hello, so that its messages start with the type byte.
+   */
+  private boolean peerHelloReceived = false;
+
+  /**
+   * Whether the peer can decompress our messages.
+   */
+  private boolean peerAccepts = false;
+
+  /**
+   * @param threshold  the size in bytes from which messages are compressed; 0 disables compression
+   * @param compressor the compressor, used only if compression is enabled
+   * @param statistics the statistics to update
+   * @param chunker    the chunker below this handler, which strips the type byte of received messages
+   */
+  CompressionHandler(final int threshold, final MessageCompressor compressor,
+                     final CompressionStatistics statistics, final ChunkedReadWriteHandler chunker) {
+    this.threshold = threshold;
+    this.compressor = compressor;
+    this.statistics = statistics;
+    this.chunker = chunker;
+  }
+
+  private boolean isEnabled() {
+    return threshold > 0;
+  }
+
+  /**
+   * Announces the compressor to the peer if compression is enabled.
+   */
+  @Override
+  public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+    if (isEnabled()) {
+      sendHello(ctx);
+    }
+    super.channelActive(ctx);
+  }
+
+  /**
+   * Writes the hello below this handler, so that it goes out without a type byte.
+   * The messages written after it start with the type byte.
+   */
+  private void sendHello(final ChannelHandlerContext ctx) {
+    final byte[] name = isEnabled() ? compressor.getName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+    final byte[] hello = Arrays.copyOf(HELLO_MARKER, HELLO_MARKER.length + name.length);
+    System.arraycopy(name, 0, hello, HELLO_MARKER.length, name.length);
+    helloSent = true;
+    ctx.writeAndFlush(Unpooled.wrappedBuffer(hello));
+  }
+
+  /**
+   * Consumes the hello of the peer. After it, passes on a received message as the chunker
+   * stripped it of its type byte, and decompresses it if needed.
+   */
+  @Override
+  public void channelRead(final ChannelHandlerContext ctx, final Object msg) throws Exception {
+
+    if (!peerHelloReceived) {
+      // a message kept in chunks is small enough to be a hello only with a tiny streaming threshold
+      final Object message = msg instanceof ChunkedMessageInputStream
+          && ((ChunkedMessageInputStream) msg).getLength() <= MAX_HELLO_SIZE
+          ? ((ChunkedMessageInputStream) msg).toByteArray() : msg;
+      if (message instanceof byte[] && isHello((byte[]) message)) {
+        onHello(ctx, (byte[]) message);
+      } else {
+        super.channelRead(ctx, message);
+      }
+      return;
+    }
+
+    if (!(msg instanceof TypedMessage)) {
+      super.channelRead(ctx, msg);
+      return;
+    }
+
+    final TypedMessage message = (TypedMessage) msg;
+    final byte type = message.getType();
+    switch (type) {
+    case RAW:
+      // passed on as the chunker assembled it, without a copy
+      super.channelRead(ctx, message.getMessage());
+      break;
+    case COMPRESSED:
+      if (!peerAccepts) {
+        throw new IOException("Compressed message from " + ctx.channel().remoteAddress() +
+            " that was not told about our compressor");
+      }
+      final InputStream in = message.getInputStream();
+      final int length = new DataInputStream(in).readInt();
+      final long start = System.nanoTime();
+      final byte[] data = compressor.decompress(in, length);
+      statistics.recordDecompressed(System.nanoTime() - start);
+      super.channelRead(ctx, data);
+      break;
+    default:
+      throw new IOException("Unknown message type " + type + " from " + ctx.channel().remoteAddress());
+    }
+  }
+
+  private static boolean isHello(final byte[] data) {
+    if (data.length < HELLO_MARKER.length || data.length > MAX_HELLO_SIZE || data[0] != HELLO_MARKER[0]) {
+      return false;
+    }
+    for (int i = 1; i < HELLO_MARKER.length; ++i) {
+      if (data[i] != HELLO_MARKER[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void onHello(final ChannelHandlerContext ctx, final byte[] hello) {
+    final String peerCompressor = new String(hello, HELLO_MARKER.length, hello.length - HELLO_MARKER.length,
+        StandardCharsets.UTF_8);
+    peerHelloReceived = true;
+    chunker.stripTypeByte();
+    peerAccepts = isEnabled() && compressor.getName().equals(peerCompressor);
+    LOG.log(Level.FINE, "Peer {0} uses compressor \"{1}\". Compress messages: {2}",
+        new Object[]{ctx.channel().remoteAddress(), peerCompressor, peerAccepts});
+    if (!helloSent) {
+      sendHello(ctx);
+    }
+  }
+
+  /**
+   * Passes a message on as it is before the hello of this handler. After it, prepends the type byte
+   * to the message and compresses it if the peer accepts it.
+   */
+  @Override
+  public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) throws Exception {
+
+    if (!helloSent || !(msg instanceof ByteBuf)) {
+      super.write(ctx, msg, promise);
+      return;
+    }
+
+    final ByteBuf bf = (ByteBuf) msg;
+    final int length = bf.readableBytes();
+
+    if (peerAccepts && length >= threshold) {
+      final long start = System.nanoTime();
+      final byte[] compressed;
+      boolean compressFailed = true;
+      try {
+        compressed = compress(bf, length);
+        compressFailed = false;
+      } finally {
+        if (compressFailed) {
+          bf.release();
+        }
+      }
+      final long nanos = System.nanoTime() - start;
+
+      if (compressed != null && compressed.length + 1 + INT_SIZE < length) {
+        statistics.recordCompressed(length, compressed.length + 1 + INT_SIZE, nanos);
+        bf.release();
+        final ByteBuf header = Unpooled.buffer(1 + INT_SIZE);
+        header.writeByte(COMPRESSED);
+        header.writeInt(length);
+        super.write(ctx, Unpooled.wrappedBuffer(header, Unpooled.wrappedBuffer(compressed)), promise);
+        return;
+      }
+      statistics.recordSkipped(length, nanos);
+    }
+
+    super.write(ctx, Unpooled.wrappedBuffer(Unpooled.wrappedBuffer(new byte[]{RAW}), bf), promise);
+  }
+
+  private byte[] compress(final ByteBuf bf, final int length) {
+    if (bf.hasArray()) {
+      return compressor.compress(bf.array(), bf.arrayOffset() + bf.readerIndex(), length);
+    }
+    final byte[] data = new byte[length];
+    bf.getBytes(bf.readerIndex(), data);
+    return compressor.compress(data, 0, length);
+  }
+}
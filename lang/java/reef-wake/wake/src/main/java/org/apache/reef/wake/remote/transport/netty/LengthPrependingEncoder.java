@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+/**
+ * Prepends the length of a message as a 4-byte big-endian integer.
+ * <p>
+ * Produces the same frames as {@link io.netty.handler.codec.LengthFieldPrepender} with a 4-byte length field,
+ * but composes the header with the message instead of copying the message into a new buffer.
+ */
+@ChannelHandler.Sharable
+final class LengthPrependingEncoder extends MessageToMessageEncoder<ByteBuf> {
+
+  static final int LENGTH_FIELD_SIZE = Integer.SIZE / Byte.SIZE;
+
+  @Override
+  protected void encode(final ChannelHandlerContext ctx, final ByteBuf msg, final List<Object> out) {
+    final ByteBuf header = ctx.alloc().buffer(LENGTH_FIELD_SIZE).writeInt(msg.readableBytes());
+    // the encoder releases msg after this call; the composite keeps its own reference
+    out.add(Unpooled.wrappedBuffer(header, msg.retain()));
+  }
+}
@@ -20,10 +20,12 @@ package org.apache.reef.wake.remote.transport.netty;
 
 import org.apache.reef.tang.Injector;
 import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.annotations.Parameter;
 import org.apache.reef.tang.exceptions.InjectionException;
 import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.EventHandler;
 import org.apache.reef.wake.impl.SyncStage;
+import org.apache.reef.wake.remote.MessageCompressor;
 import org.apache.reef.wake.remote.RemoteConfiguration;
 import org.apache.reef.wake.remote.address.LocalAddressProvider;
 import org.apache.reef.wake.remote.impl.TransportEvent;
@@ -39,10 +41,47 @@ import javax.inject.Inject;
 public final class MessagingTransportFactory implements TransportFactory {
 
   private final String localAddress;
+  private final int maxBatchBytes;
+  private final int maxLingerMicros;
+  private final int numberOfBossThreads;
+  private final int numberOfServerWorkerThreads;
+  private final int numberOfClientWorkerThreads;
+  private final boolean shareEventLoopGroups;
+  private final boolean useNativeTransport;
+  private final int streamingReceiveThreshold;
+  private final int compressionThreshold;
+  private final MessageCompressor compressor;
+  private final int numberOfChannelsPerPeer;
+  private final int priorityMessageSize;
 
   @Inject
-  private MessagingTransportFactory(final LocalAddressProvider localAddressProvider) {
+  private MessagingTransportFactory(
+      final LocalAddressProvider localAddressProvider,
+      @Parameter(RemoteConfiguration.MaxBatchBytes.class) final int maxBatchBytes,
+      @Parameter(RemoteConfiguration.MaxLingerMicros.class) final int maxLingerMicros,
+      @Parameter(RemoteConfiguration.NumberOfServerBossThreads.class) final int numberOfBossThreads,
+      @Parameter(RemoteConfiguration.NumberOfServerWorkerThreads.class) final int numberOfServerWorkerThreads,
+      @Parameter(RemoteConfiguration.NumberOfClientWorkerThreads.class) final int numberOfClientWorkerThreads,
+      @Parameter(RemoteConfiguration.ShareEventLoopGroups.class) final boolean shareEventLoopGroups,
+      @Parameter(RemoteConfiguration.UseNativeTransport.class) final boolean useNativeTransport,
+      @Parameter(RemoteConfiguration.StreamingReceiveThreshold.class) final int streamingReceiveThreshold,
+      @Parameter(RemoteConfiguration.CompressionThreshold.class) final int compressionThreshold,
+      @Parameter(RemoteConfiguration.Compressor.class) final MessageCompressor compressor,
+      @Parameter(RemoteConfiguration.NumberOfChannelsPerPeer.class) final int numberOfChannelsPerPeer,
+      @Parameter(RemoteConfiguration.PriorityMessageSize.class) final int priorityMessageSize) {
     this.localAddress = localAddressProvider.getLocalAddress();
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxLingerMicros = maxLingerMicros;
+    this.numberOfBossThreads = numberOfBossThreads;
+    this.numberOfServerWorkerThreads = numberOfServerWorkerThreads;
+    this.numberOfClientWorkerThreads = numberOfClientWorkerThreads;
+    this.shareEventLoopGroups = shareEventLoopGroups;
+    this.useNativeTransport = useNativeTransport;
+    this.streamingReceiveThreshold = streamingReceiveThreshold;
+    this.compressionThreshold = compressionThreshold;
+    this.compressor = compressor;
+    this.numberOfChannelsPerPeer = numberOfChannelsPerPeer;
+    this.priorityMessageSize = priorityMessageSize;
   }
 
   /**
@@ -64,6 +103,7 @@ public final class MessagingTransportFactory implements TransportFactory {
     injector.bindVolatileParameter(RemoteConfiguration.Port.class, port);
     injector.bindVolatileParameter(RemoteConfiguration.RemoteClientStage.class, new SyncStage<>(clientHandler));
     injector.bindVolatileParameter(RemoteConfiguration.RemoteServerStage.class, new SyncStage<>(serverHandler));
+    bindTransportParameters(injector);
 
     final Transport transport;
     try {
@@ -129,10 +169,32 @@ public final class MessagingTransportFactory implements TransportFactory {
     injector.bindVolatileParameter(RemoteConfiguration.NumberOfTries.class, numberOfTries);
     injector.bindVolatileParameter(RemoteConfiguration.RetryTimeout.class, retryTimeout);
     injector.bindVolatileInstance(TcpPortProvider.class, tcpPortProvider);
+    bindTransportParameters(injector);
     try {
       return injector.getInstance(NettyMessagingTransport.class);
     } catch (final InjectionException e) {
       throw new RuntimeException(e);
     }
   }
+
+  /**
+   * Binds the parameters of this factory that tune the transport.
+   */
+  private void bindTransportParameters(final Injector injector) {
+    injector.bindVolatileParameter(RemoteConfiguration.MaxBatchBytes.class, this.maxBatchBytes);
+    injector.bindVolatileParameter(RemoteConfiguration.MaxLingerMicros.class, this.maxLingerMicros);
+    injector.bindVolatileParameter(RemoteConfiguration.NumberOfServerBossThreads.class, this.numberOfBossThreads);
+    injector.bindVolatileParameter(RemoteConfiguration.NumberOfServerWorkerThreads.class,
+        this.numberOfServerWorkerThreads);
+    injector.bindVolatileParameter(RemoteConfiguration.NumberOfClientWorkerThreads.class,
+        this.numberOfClientWorkerThreads);
+    injector.bindVolatileParameter(RemoteConfiguration.ShareEventLoopGroups.class, this.shareEventLoopGroups);
+    injector.bindVolatileParameter(RemoteConfiguration.UseNativeTransport.class, this.useNativeTransport);
+    injector.bindVolatileParameter(RemoteConfiguration.StreamingReceiveThreshold.class,
+        this.streamingReceiveThreshold);
+    injector.bindVolatileParameter(RemoteConfiguration.CompressionThreshold.class, this.compressionThreshold);
+    injector.bindVolatileParameter(RemoteConfiguration.Compressor.class, this.compressor);
+    injector.bindVolatileParameter(RemoteConfiguration.NumberOfChannelsPerPeer.class, this.numberOfChannelsPerPeer);
+    injector.bindVolatileParameter(RemoteConfiguration.PriorityMessageSize.class, this.priorityMessageSize);
+  }
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.transport.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import org.apache.reef.wake.remote.transport.Link;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Link to a remote address over several channels.
+ * <p>
+ * The first channel is reserved for messages up to the priority size, so that control messages
+ * are not stuck behind bulk transfers. Larger messages are sent round-robin on the other channels.
+ * Messages sent on different channels may be received out of order.
+ *
+ * @param <T> type of the messages
+ */
+final class MultiChannelLink<T> implements Link<T> {
+
+  private static final Logger LOG = Logger.getLogger(MultiChannelLink.class.getName());
+
+  private final List<NettyLink<T>> links;
+  private final int priorityMessageSize;
+  private final AtomicInteger nextBulkLink = new AtomicInteger(0);
+
+  /**
+   * @param links               the links over the channels; the first one is the priority link
+   * @param priorityMessageSize the size in bytes up to which messages go on the priority link
+   */
+  MultiChannelLink(final List<NettyLink<T>> links, final int priorityMessageSize) {
+    if (links.size() < 2) {
+      throw new IllegalArgumentException("A multi-channel link needs at least 2 links, got " + links.size());
+    }
+    this.links = new ArrayList<>(links);
+    this.priorityMessageSize = priorityMessageSize;
+  }
+
+  /**
+   * Encodes the message once and writes it on the link chosen by its size.
+   *
+   * @param message the message
+   */
+  @Override
+  public void write(final T message) {
+    final NettyLink<T> priorityLink = links.get(0);
+    final ByteBuf buf = priorityLink.encode(message);
+    final NettyLink<T> link;
+    if (buf.readableBytes() <= priorityMessageSize) {
+      link = priorityLink;
+    } else {
+      final int next = nextBulkLink.getAndIncrement() & Integer.MAX_VALUE;
+      link = links.get(1 + next % (links.size() - 1));
+    }
+    LOG.log(Level.FINEST, "write {0} {1}", new Object[]{link.getChannel(), message});
+    link.write(buf, message);
+  }
+
+  /**
+   * @return whether the channel is one of the channels of this link
+   */
+  boolean hasChannel(final Channel channel) {
+    for (final NettyLink<T> link : links) {
+      if (link.getChannel() == channel) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Closes all channels of the link, e.g. after one of them failed.
+   */
+  void close() {
+    for (final NettyLink<T> link : links) {
+      link.getChannel().close();
+    }
+  }
+
+  /**
+   * Gets the local address of the priority channel.
+   *
+   * @return a local socket address
+   */
+  @Override
+  public SocketAddress getLocalAddress() {
+    return links.get(0).getLocalAddress();
+  }
+
+  /**
+   * Gets the remote address of the link.
+   *
+   * @return a remote socket address
+   */
+  @Override
+  public SocketAddress getRemoteAddress() {
+    return links.get(0).getRemoteAddress();
+  }
+
+  @Override
+  public String toString() {
+    return "localAddr: " + getLocalAddress() + " remoteAddr: " + getRemoteAddress() + " channels: " + links.size();
+  }
+}
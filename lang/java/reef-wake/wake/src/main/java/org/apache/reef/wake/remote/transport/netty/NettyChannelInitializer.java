@@ -21,9 +21,10 @@ package org.apache.reef.wake.remote.transport.netty;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
-import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.codec.bytes.ByteArrayDecoder;
 import io.netty.handler.codec.bytes.ByteArrayEncoder;
+import org.apache.reef.wake.remote.MessageCompressor;
+import org.apache.reef.wake.remote.impl.CompressionStatistics;
 
 /**
  * Netty channel initializer for Transport.
@@ -33,20 +34,49 @@ class NettyChannelInitializer extends ChannelInitializer<SocketChannel> {
    * the buffer size of the frame decoder.
    */
   public static final int MAXFRAMELENGTH = 10 * 1024 * 1024;
+  private static final LengthPrependingEncoder FRAME_ENCODER = new LengthPrependingEncoder();
   private final NettyChannelHandlerFactory handlerFactory;
+  private final int streamingReceiveThreshold;
+  private final int compressionThreshold;
+  private final MessageCompressor compressor;
+  private final CompressionStatistics compressionStatistics;
 
   NettyChannelInitializer(final NettyChannelHandlerFactory handlerFactory) {
+    this(handlerFactory, 0);
+  }
+
+  NettyChannelInitializer(final NettyChannelHandlerFactory handlerFactory, final int streamingReceiveThreshold) {
+    this(handlerFactory, streamingReceiveThreshold, 0, null, null);
+  }
+
+  /**
+   * @param handlerFactory            the factory of the handler at the end of the pipeline
+   * @param streamingReceiveThreshold the size above which a received message is kept in chunks; 0 disables it
+   * @param compressionThreshold      the size from which sent messages are compressed; 0 disables compression
+   * @param compressor                the compressor, used only if compression is enabled
+   * @param compressionStatistics     the statistics updated by the compression of all channels
+   */
+  NettyChannelInitializer(final NettyChannelHandlerFactory handlerFactory, final int streamingReceiveThreshold,
+                          final int compressionThreshold, final MessageCompressor compressor,
+                          final CompressionStatistics compressionStatistics) {
     this.handlerFactory = handlerFactory;
+    this.streamingReceiveThreshold = streamingReceiveThreshold;
+    this.compressionThreshold = compressionThreshold;
+    this.compressor = compressor;
+    this.compressionStatistics = compressionStatistics;
   }
 
   @Override
   protected void initChannel(final SocketChannel ch) throws Exception {
+    final ChunkedReadWriteHandler chunker = new ChunkedReadWriteHandler(streamingReceiveThreshold);
     ch.pipeline()
         .addLast("frameDecoder", new LengthFieldBasedFrameDecoder(MAXFRAMELENGTH, 0, 4, 0, 4))
         .addLast("bytesDecoder", new ByteArrayDecoder())
-        .addLast("frameEncoder", new LengthFieldPrepender(4))
+        .addLast("frameEncoder", FRAME_ENCODER)
         .addLast("bytesEncoder", new ByteArrayEncoder())
-        .addLast("chunker", new ChunkedReadWriteHandler())
+        .addLast("chunker", chunker)
+        // also without compression, to answer a peer that has it enabled
+        .addLast("compressor", new CompressionHandler(compressionThreshold, compressor, compressionStatistics, chunker))
         .addLast("handler", handlerFactory.createChannelInboundHandler());
   }
 }
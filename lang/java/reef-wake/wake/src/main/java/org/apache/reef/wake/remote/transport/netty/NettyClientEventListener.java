@@ -21,6 +21,7 @@ package org.apache.reef.wake.remote.transport.netty;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.reef.wake.EStage;
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 
 import java.net.SocketAddress;
@@ -52,6 +53,11 @@ final class NettyClientEventListener extends AbstractNettyEventListener {
     return new TransportEvent(message, channel.localAddress(), channel.remoteAddress());
   }
 
+  @Override
+  protected TransportEvent getTransportEvent(final ChunkedMessageInputStream message, final Channel channel) {
+    return new TransportEvent(message, channel.localAddress(), channel.remoteAddress());
+  }
+
   @Override
   protected void exceptionCleanup(final ChannelHandlerContext ctx, final Throwable cause) {
     this.closeChannel(ctx.channel());
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.transport.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.Future;
+import org.apache.reef.wake.impl.DefaultThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The event loop groups and matching channel classes used by a Netty messaging transport.
+ * <p>
+ * Groups are either owned by a single transport or shared by all transports of the JVM that ask for sharing.
+ * Shared groups are reference counted and shut down when the last transport using them releases them.
+ */
+final class NettyEventLoopGroups {
+
+  private static final Logger LOG = Logger.getLogger(NettyEventLoopGroups.class.getName());
+
+  private static final String THREAD_PREFIX = NettyMessagingTransport.class.getSimpleName();
+
+  private static NettyEventLoopGroups sharedGroups;
+  private static int sharedRefCount;
+
+  private final EventLoopGroup serverBossGroup;
+  private final EventLoopGroup serverWorkerGroup;
+  private final EventLoopGroup clientWorkerGroup;
+  private final Class<? extends ServerChannel> serverChannelClass;
+  private final Class<? extends Channel> clientChannelClass;
+  private final boolean shared;
+
+  private NettyEventLoopGroups(final EventLoopGroup serverBossGroup,
+                               final EventLoopGroup serverWorkerGroup,
+                               final EventLoopGroup clientWorkerGroup,
+                               final Class<? extends ServerChannel> serverChannelClass,
+                               final Class<? extends Channel> clientChannelClass,
+                               final boolean shared) {
+    this.serverBossGroup = serverBossGroup;
+    this.serverWorkerGroup = serverWorkerGroup;
+    this.clientWorkerGroup = clientWorkerGroup;
+    this.serverChannelClass = serverChannelClass;
+    this.clientChannelClass = clientChannelClass;
+    this.shared = shared;
+  }
+
+  /**
+   * Acquires event loop groups for a transport.
+   *
+   * @param numberOfBossThreads         the number of server boss threads; 0 uses the Netty default
+   * @param numberOfServerWorkerThreads the number of server worker threads; 0 uses the Netty default
+   * @param numberOfClientWorkerThreads the number of client worker threads; 0 uses the Netty default
+   * @param useNativeTransport          whether to try the Linux epoll transport before falling back to NIO
+   * @param share                       whether to use the groups shared by all transports of the JVM
+   * @return the event loop groups; must be released with {@link #release()}
+   */
+  static NettyEventLoopGroups acquire(final int numberOfBossThreads,
+                                      final int numberOfServerWorkerThreads,
+                                      final int numberOfClientWorkerThreads,
+                                      final boolean useNativeTransport,
+                                      final boolean share) {
+    if (!share) {
+      return create(numberOfBossThreads, numberOfServerWorkerThreads, numberOfClientWorkerThreads,
+          useNativeTransport, false);
+    }
+    synchronized (NettyEventLoopGroups.class) {
+      if (sharedGroups == null) {
+        sharedGroups = create(numberOfBossThreads, numberOfServerWorkerThreads, numberOfClientWorkerThreads,
+            useNativeTransport, true);
+      } else {
+        LOG.log(Level.FINE, "Reusing shared event loop groups; thread settings of this transport are ignored");
+      }
+      ++sharedRefCount;
+      return sharedGroups;
+    }
+  }
+
+  /**
+   * Releases the groups. Groups owned by a transport are shut down right away;
+   * shared groups are shut down when the last transport releases them.
+   *
+   * @return the futures of the shutdowns that were started, possibly empty
+   */
+  List<Future<?>> release() {
+    if (this.shared) {
+      synchronized (NettyEventLoopGroups.class) {
+        if (--sharedRefCount > 0) {
+          return Collections.emptyList();
+        }
+        sharedGroups = null;
+      }
+    }
+    final List<Future<?>> futures = new ArrayList<>(3);
+    futures.add(this.clientWorkerGroup.shutdownGracefully());
+    futures.add(this.serverBossGroup.shutdownGracefully());
+    futures.add(this.serverWorkerGroup.shutdownGracefully());
+    return futures;
+  }
+
+  EventLoopGroup getServerBossGroup() {
+    return this.serverBossGroup;
+  }
+
+  EventLoopGroup getServerWorkerGroup() {
+    return this.serverWorkerGroup;
+  }
+
+  EventLoopGroup getClientWorkerGroup() {
+    return this.clientWorkerGroup;
+  }
+
+  Class<? extends ServerChannel> getServerChannelClass() {
+    return this.serverChannelClass;
+  }
+
+  Class<? extends Channel> getClientChannelClass() {
+    return this.clientChannelClass;
+  }
+
+  private static NettyEventLoopGroups create(final int numberOfBossThreads,
+                                             final int numberOfServerWorkerThreads,
+                                             final int numberOfClientWorkerThreads,
+                                             final boolean useNativeTransport,
+                                             final boolean share) {
+    if (useNativeTransport) {
+      if (System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH).startsWith("linux")) {
+        try {
+          final NettyEventLoopGroups groups = newGroups(true,
+              numberOfBossThreads, numberOfServerWorkerThreads, numberOfClientWorkerThreads, share);
+          LOG.log(Level.FINE, "Using the native epoll transport");
+          return groups;
+        } catch (final LinkageError | ChannelException e) {
+          LOG.log(Level.WARNING, "The native epoll transport is not available; falling back to NIO", e);
+        }
+      } else {
+        LOG.log(Level.FINE, "The native epoll transport is only available on Linux; falling back to NIO");
+      }
+    }
+    return newGroups(false, numberOfBossThreads, numberOfServerWorkerThreads, numberOfClientWorkerThreads, share);
+  }
+
+  /**
+   * Creates the three groups. If one of them cannot be created, the ones already created are shut down.
+   */
+  private static NettyEventLoopGroups newGroups(final boolean epoll,
+                                                final int numberOfBossThreads,
+                                                final int numberOfServerWorkerThreads,
+                                                final int numberOfClientWorkerThreads,
+                                                final boolean share) {
+    final List<EventLoopGroup> created = new ArrayList<>(3);
+    boolean success = false;
+    try {
+      created.add(newGroup(epoll, numberOfBossThreads, "ServerBoss"));
+      created.add(newGroup(epoll, numberOfServerWorkerThreads, "ServerWorker"));
+      created.add(newGroup(epoll, numberOfClientWorkerThreads, "ClientWorker"));
+      final NettyEventLoopGroups groups;
+      if (epoll) {
+        groups = new NettyEventLoopGroups(created.get(0), created.get(1), created.get(2),
+            EpollServerSocketChannel.class, EpollSocketChannel.class, share);
+      } else {
+        groups = new NettyEventLoopGroups(created.get(0), created.get(1), created.get(2),
+            NioServerSocketChannel.class, NioSocketChannel.class, share);
+      }
+      success = true;
+      return groups;
+    } finally {
+      if (!success) {
+        for (final EventLoopGroup group : created) {
+          group.shutdownGracefully();
+        }
+      }
+    }
+  }
+
+  private static EventLoopGroup newGroup(final boolean epoll, final int numberOfThreads, final String role) {
+    final DefaultThreadFactory threadFactory = new DefaultThreadFactory(THREAD_PREFIX + ":" + role);
+    return epoll ? new EpollEventLoopGroup(numberOfThreads, threadFactory)
+        : new NioEventLoopGroup(numberOfThreads, threadFactory);
+  }
+}
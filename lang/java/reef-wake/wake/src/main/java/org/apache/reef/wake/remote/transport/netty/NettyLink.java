@@ -18,15 +18,19 @@
  */
 package org.apache.reef.wake.remote.transport.netty;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
 import org.apache.reef.wake.remote.Encoder;
 import org.apache.reef.wake.remote.transport.Link;
 import org.apache.reef.wake.remote.transport.LinkListener;
 
 import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,6 +39,10 @@ import java.util.logging.Logger;
  *
  * If you set a {@code LinkListener<T>}, it keeps message until writeAndFlush operation completes
  * and notifies whether the sent message transferred successfully through the listener.
+ *
+ * If write batching is enabled, messages are written to the channel without flushing it,
+ * and one flush is issued for all messages written within the linger time or as soon as
+ * the number of pending bytes reaches the batch size.
  */
 public class NettyLink<T> implements Link<T> {
 
@@ -44,6 +52,21 @@ public class NettyLink<T> implements Link<T> {
   private final Encoder<? super T> encoder;
   private final LinkListener<? super T> listener;
 
+  private final int maxBatchBytes;
+  private final long maxLingerMicros;
+
+  // Batching state. Only accessed from the event loop of the channel.
+  private int pendingBytes = 0;
+  private boolean flushScheduled = false;
+
+  private final Runnable flushTask = new Runnable() {
+    @Override
+    public void run() {
+      flushScheduled = false;
+      flushPending();
+    }
+  };
+
   /**
    * Constructs a link.
    *
@@ -63,9 +86,26 @@ public class NettyLink<T> implements Link<T> {
    */
   public NettyLink(final Channel channel,
                    final Encoder<? super T> encoder, final LinkListener<? super T> listener) {
+    this(channel, encoder, listener, 0, 0);
+  }
+
+  /**
+   * Constructs a link that batches writes.
+   *
+   * @param channel         the channel
+   * @param encoder         the encoder
+   * @param listener        the link listener
+   * @param maxBatchBytes   the number of pending bytes that forces a flush; 0 disables batching
+   * @param maxLingerMicros the maximum time a pending write waits for a flush
+   */
+  public NettyLink(final Channel channel,
+                   final Encoder<? super T> encoder, final LinkListener<? super T> listener,
+                   final int maxBatchBytes, final long maxLingerMicros) {
     this.channel = channel;
     this.encoder = encoder;
     this.listener = listener;
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxLingerMicros = maxLingerMicros;
   }
 
 
@@ -77,16 +117,107 @@ public class NettyLink<T> implements Link<T> {
   @Override
   public void write(final T message) {
     LOG.log(Level.FINEST, "write {0} {1}", new Object[]{channel, message});
-    final byte[] allData = encoder.encode(message);
-    // byte[] -> ByteBuf
-    if (listener !=  null) {
-      channel.writeAndFlush(Unpooled.wrappedBuffer(allData))
-          .addListener(new NettyChannelFutureListener<>(message, listener));
+    write(encode(message), message);
+  }
+
+  /**
+   * Encodes the message with the encoder of this link.
+   *
+   * @param message the message
+   * @return the buffer holding the encoded message
+   */
+  ByteBuf encode(final T message) {
+    if (encoder instanceof ByteBufEncoder) {
+      return encodeToPooledBuffer(message);
     } else {
-      channel.writeAndFlush(Unpooled.wrappedBuffer(allData));
+      // byte[] -> ByteBuf
+      return Unpooled.wrappedBuffer(encoder.encode(message));
     }
   }
 
+  /**
+   * Writes an encoded message to the channel of this link.
+   *
+   * @param buf     the encoded message
+   * @param message the message, passed to the link listener
+   */
+  void write(final ByteBuf buf, final T message) {
+    if (maxBatchBytes <= 0) {
+      addListener(channel.writeAndFlush(buf), message);
+    } else {
+      final EventLoop eventLoop = channel.eventLoop();
+      if (eventLoop.inEventLoop()) {
+        batchWrite(buf, message);
+      } else {
+        eventLoop.execute(new Runnable() {
+          @Override
+          public void run() {
+            batchWrite(buf, message);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Encodes the message straight into a pooled buffer, releasing the buffer if encoding fails.
+   */
+  @SuppressWarnings("unchecked")
+  private ByteBuf encodeToPooledBuffer(final T message) {
+    final ByteBuf buf = PooledByteBufAllocator.DEFAULT.ioBuffer();
+    boolean encoded = false;
+    try {
+      ((ByteBufEncoder<? super T>) encoder).encode(message, buf);
+      encoded = true;
+      return buf;
+    } finally {
+      if (!encoded) {
+        buf.release();
+      }
+    }
+  }
+
+  /**
+   * Writes the buffer without flushing, and flushes or schedules a flush of the batch.
+   * Must be called from the event loop of the channel.
+   */
+  private void batchWrite(final ByteBuf buf, final T message) {
+    pendingBytes += buf.readableBytes();
+    addListener(channel.write(buf), message);
+    if (pendingBytes >= maxBatchBytes) {
+      flushPending();
+    } else if (!flushScheduled) {
+      flushScheduled = true;
+      if (maxLingerMicros > 0) {
+        channel.eventLoop().schedule(flushTask, maxLingerMicros, TimeUnit.MICROSECONDS);
+      } else {
+        channel.eventLoop().execute(flushTask);
+      }
+    }
+  }
+
+  private void flushPending() {
+    if (pendingBytes > 0) {
+      pendingBytes = 0;
+      channel.flush();
+    }
+  }
+
+  private void addListener(final ChannelFuture future, final T message) {
+    if (listener != null) {
+      future.addListener(new NettyChannelFutureListener<>(message, listener));
+    }
+  }
+
+  /**
+   * Gets the channel of the link.
+   *
+   * @return the channel
+   */
+  Channel getChannel() {
+    return channel;
+  }
+
   /**
    * Gets a local address of the link.
    *
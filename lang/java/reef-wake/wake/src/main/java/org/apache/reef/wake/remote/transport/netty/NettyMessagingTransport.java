@@ -23,23 +23,20 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.apache.reef.tang.annotations.Parameter;
 import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.EventHandler;
-import org.apache.reef.wake.impl.DefaultThreadFactory;
 import org.apache.reef.wake.remote.Encoder;
+import org.apache.reef.wake.remote.MessageCompressor;
 import org.apache.reef.wake.remote.RemoteConfiguration;
 import org.apache.reef.wake.remote.address.LocalAddressProvider;
 import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
+import org.apache.reef.wake.remote.impl.CompressionStatistics;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 import org.apache.reef.wake.remote.ports.TcpPortProvider;
 import org.apache.reef.wake.remote.transport.Link;
@@ -55,6 +52,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -75,15 +73,9 @@ public final class NettyMessagingTransport implements Transport {
 
   private static final Logger LOG = Logger.getLogger(CLASS_NAME);
 
-  private static final int SERVER_BOSS_NUM_THREADS = 3;
-  private static final int SERVER_WORKER_NUM_THREADS = 20;
-  private static final int CLIENT_WORKER_NUM_THREADS = 10;
-
   private final ConcurrentMap<SocketAddress, LinkReference> addrToLinkRefMap = new ConcurrentHashMap<>();
 
-  private final EventLoopGroup clientWorkerGroup;
-  private final EventLoopGroup serverBossGroup;
-  private final EventLoopGroup serverWorkerGroup;
+  private final NettyEventLoopGroups eventLoopGroups;
 
   private final Bootstrap clientBootstrap;
   private final ServerBootstrap serverBootstrap;
@@ -100,6 +92,12 @@ public final class NettyMessagingTransport implements Transport {
 
   private final int numberOfTries;
   private final int retryTimeout;
+  private final int maxBatchBytes;
+  private final int maxLingerMicros;
+  private final int numberOfChannelsPerPeer;
+  private final int priorityMessageSize;
+
+  private final CompressionStatistics compressionStatistics = new CompressionStatistics();
 
   /**
    * Constructs a messaging transport.
@@ -111,6 +109,19 @@ public final class NettyMessagingTransport implements Transport {
    * @param numberOfTries the number of tries of connection
    * @param retryTimeout  the timeout of reconnection
    * @param tcpPortProvider  gives an iterator that produces random tcp ports in a range
+   * @param localAddressProvider  provides the local address when the host address is unknown
+   * @param maxBatchBytes the number of pending bytes that forces a flush of a link; 0 disables write batching
+   * @param maxLingerMicros the maximum time a batched write waits for a flush
+   * @param numberOfBossThreads the number of threads accepting connections
+   * @param numberOfServerWorkerThreads the number of I/O threads serving accepted connections
+   * @param numberOfClientWorkerThreads the number of I/O threads serving outgoing connections
+   * @param shareEventLoopGroups whether to share the I/O threads with other transports of the JVM
+   * @param useNativeTransport whether to use the native epoll transport when it is available
+   * @param streamingReceiveThreshold the size above which a received message is kept in chunks; 0 disables it
+   * @param compressionThreshold the size from which sent messages are compressed; 0 disables compression
+   * @param compressor the compressor used when compression is enabled
+   * @param numberOfChannelsPerPeer the number of channels opened to each remote address
+   * @param priorityMessageSize the size up to which messages go on the priority channel of a remote address
    */
   @Inject
   private NettyMessagingTransport(
@@ -121,40 +132,57 @@ public final class NettyMessagingTransport implements Transport {
       @Parameter(RemoteConfiguration.NumberOfTries.class) final int numberOfTries,
       @Parameter(RemoteConfiguration.RetryTimeout.class) final int retryTimeout,
       final TcpPortProvider tcpPortProvider,
-      final LocalAddressProvider localAddressProvider) {
+      final LocalAddressProvider localAddressProvider,
+      @Parameter(RemoteConfiguration.MaxBatchBytes.class) final int maxBatchBytes,
+      @Parameter(RemoteConfiguration.MaxLingerMicros.class) final int maxLingerMicros,
+      @Parameter(RemoteConfiguration.NumberOfServerBossThreads.class) final int numberOfBossThreads,
+      @Parameter(RemoteConfiguration.NumberOfServerWorkerThreads.class) final int numberOfServerWorkerThreads,
+      @Parameter(RemoteConfiguration.NumberOfClientWorkerThreads.class) final int numberOfClientWorkerThreads,
+      @Parameter(RemoteConfiguration.ShareEventLoopGroups.class) final boolean shareEventLoopGroups,
+      @Parameter(RemoteConfiguration.UseNativeTransport.class) final boolean useNativeTransport,
+      @Parameter(RemoteConfiguration.StreamingReceiveThreshold.class) final int streamingReceiveThreshold,
+      @Parameter(RemoteConfiguration.CompressionThreshold.class) final int compressionThreshold,
+      @Parameter(RemoteConfiguration.Compressor.class) final MessageCompressor compressor,
+      @Parameter(RemoteConfiguration.NumberOfChannelsPerPeer.class) final int numberOfChannelsPerPeer,
+      @Parameter(RemoteConfiguration.PriorityMessageSize.class) final int priorityMessageSize) {
 
     int p = port;
     if (p < 0) {
       throw new RemoteRuntimeException("Invalid server port: " + p);
     }
+    if (numberOfChannelsPerPeer < 1) {
+      throw new RemoteRuntimeException("Invalid number of channels per peer: " + numberOfChannelsPerPeer);
+    }
 
     final String host = UNKNOWN_HOST_NAME.equals(hostAddress) ? localAddressProvider.getLocalAddress() : hostAddress;
 
     this.numberOfTries = numberOfTries;
     this.retryTimeout = retryTimeout;
+    this.maxBatchBytes = maxBatchBytes;
+    this.maxLingerMicros = maxLingerMicros;
+    this.numberOfChannelsPerPeer = numberOfChannelsPerPeer;
+    this.priorityMessageSize = priorityMessageSize;
     this.clientEventListener = new NettyClientEventListener(this.addrToLinkRefMap, clientStage);
     this.serverEventListener = new NettyServerEventListener(this.addrToLinkRefMap, serverStage);
 
-    this.serverBossGroup = new NioEventLoopGroup(SERVER_BOSS_NUM_THREADS,
-        new DefaultThreadFactory(CLASS_NAME + ":ServerBoss"));
-    this.serverWorkerGroup = new NioEventLoopGroup(SERVER_WORKER_NUM_THREADS,
-        new DefaultThreadFactory(CLASS_NAME + ":ServerWorker"));
-    this.clientWorkerGroup = new NioEventLoopGroup(CLIENT_WORKER_NUM_THREADS,
-        new DefaultThreadFactory(CLASS_NAME + ":ClientWorker"));
+    this.eventLoopGroups = NettyEventLoopGroups.acquire(numberOfBossThreads, numberOfServerWorkerThreads,
+        numberOfClientWorkerThreads, useNativeTransport, shareEventLoopGroups);
 
     this.clientBootstrap = new Bootstrap();
-    this.clientBootstrap.group(this.clientWorkerGroup)
-        .channel(NioSocketChannel.class)
+    this.clientBootstrap.group(this.eventLoopGroups.getClientWorkerGroup())
+        .channel(this.eventLoopGroups.getClientChannelClass())
         .handler(new NettyChannelInitializer(new NettyDefaultChannelHandlerFactory("client",
-            this.clientChannelGroup, this.clientEventListener)))
+            this.clientChannelGroup, this.clientEventListener), streamingReceiveThreshold,
+            compressionThreshold, compressor, this.compressionStatistics))
         .option(ChannelOption.SO_REUSEADDR, true)
         .option(ChannelOption.SO_KEEPALIVE, true);
 
     this.serverBootstrap = new ServerBootstrap();
-    this.serverBootstrap.group(this.serverBossGroup, this.serverWorkerGroup)
-        .channel(NioServerSocketChannel.class)
+    this.serverBootstrap.group(this.eventLoopGroups.getServerBossGroup(), this.eventLoopGroups.getServerWorkerGroup())
+        .channel(this.eventLoopGroups.getServerChannelClass())
         .childHandler(new NettyChannelInitializer(new NettyDefaultChannelHandlerFactory("server",
-            this.serverChannelGroup, this.serverEventListener)))
+            this.serverChannelGroup, this.serverEventListener), streamingReceiveThreshold,
+            compressionThreshold, compressor, this.compressionStatistics))
         .option(ChannelOption.SO_BACKLOG, 128)
         .option(ChannelOption.SO_REUSEADDR, true)
         .childOption(ChannelOption.SO_KEEPALIVE, true);
@@ -189,9 +217,7 @@ public final class NettyMessagingTransport implements Transport {
                 new TransportRuntimeException("tcpPortProvider failed to return free ports.", ex);
       LOG.log(Level.SEVERE, "Cannot find a free port with " + tcpPortProvider, transportException);
 
-      this.clientWorkerGroup.shutdownGracefully();
-      this.serverBossGroup.shutdownGracefully();
-      this.serverWorkerGroup.shutdownGracefully();
+      this.eventLoopGroups.release();
       throw transportException;
 
     } catch (final Exception ex) {
@@ -199,9 +225,7 @@ public final class NettyMessagingTransport implements Transport {
           new TransportRuntimeException("Cannot bind to port " + p, ex);
       LOG.log(Level.SEVERE, "Cannot bind to port " + p, ex);
 
-      this.clientWorkerGroup.shutdownGracefully();
-      this.serverBossGroup.shutdownGracefully();
-      this.serverWorkerGroup.shutdownGracefully();
+      this.eventLoopGroups.release();
       throw transportException;
     }
 
@@ -224,10 +248,7 @@ public final class NettyMessagingTransport implements Transport {
     final ChannelGroupFuture serverChannelGroupFuture = this.serverChannelGroup.close();
     final ChannelFuture acceptorFuture = this.acceptor.close();
 
-    final ArrayList<Future> eventLoopGroupFutures = new ArrayList<>(3);
-    eventLoopGroupFutures.add(this.clientWorkerGroup.shutdownGracefully());
-    eventLoopGroupFutures.add(this.serverBossGroup.shutdownGracefully());
-    eventLoopGroupFutures.add(this.serverWorkerGroup.shutdownGracefully());
+    final List<Future<?>> eventLoopGroupFutures = this.eventLoopGroups.release();
 
     clientChannelGroupFuture.awaitUninterruptibly();
     serverChannelGroupFuture.awaitUninterruptibly();
@@ -238,7 +259,7 @@ public final class NettyMessagingTransport implements Transport {
       LOG.log(Level.SEVERE, "Error closing the acceptor channel for " + this.localAddress, ex);
     }
 
-    for (final Future eventLoopGroupFuture : eventLoopGroupFutures) {
+    for (final Future<?> eventLoopGroupFuture : eventLoopGroupFutures) {
       eventLoopGroupFuture.awaitUninterruptibly();
     }
 
@@ -306,12 +327,8 @@ public final class NettyMessagingTransport implements Transport {
         return link;
       }
 
-      ChannelFuture connectFuture = null;
       try {
-        connectFuture = this.clientBootstrap.connect(remoteAddr);
-        connectFuture.syncUninterruptibly();
-
-        link = new NettyLink<>(connectFuture.channel(), encoder, listener);
+        link = connect(remoteAddr, encoder, listener);
         linkRef.setLink(link);
 
         synchronized (flag) {
@@ -344,6 +361,37 @@ public final class NettyMessagingTransport implements Transport {
     return link;
   }
 
+  /**
+   * Opens the channels of a link to the remote address.
+   * If one of several channels cannot be opened, the ones already opened are closed.
+   *
+   * @param remoteAddr the remote socket address
+   * @param encoder    the encoder
+   * @param listener   the link listener
+   * @return a link over one channel, or over several channels if configured
+   */
+  private <T> Link<T> connect(final SocketAddress remoteAddr, final Encoder<? super T> encoder,
+                              final LinkListener<? super T> listener) {
+    final List<NettyLink<T>> links = new ArrayList<>(this.numberOfChannelsPerPeer);
+    boolean connected = false;
+    try {
+      for (int i = 0; i < this.numberOfChannelsPerPeer; ++i) {
+        final ChannelFuture connectFuture = this.clientBootstrap.connect(remoteAddr);
+        connectFuture.syncUninterruptibly();
+        links.add(new NettyLink<T>(connectFuture.channel(), encoder, listener,
+            this.maxBatchBytes, this.maxLingerMicros));
+      }
+      connected = true;
+    } finally {
+      if (!connected) {
+        for (final NettyLink<T> link : links) {
+          link.getChannel().close();
+        }
+      }
+    }
+    return links.size() == 1 ? links.get(0) : new MultiChannelLink<>(links, this.priorityMessageSize);
+  }
+
   /**
    * Returns a link for the remote address if already cached; otherwise, returns null.
    *
@@ -375,6 +423,25 @@ public final class NettyMessagingTransport implements Transport {
     return this.serverPort;
   }
 
+  /**
+   * Gets the number of channels this transport opens to each remote address.
+   *
+   * @return the number of channels per remote address
+   */
+  public int getNumberOfChannelsPerPeer() {
+    return this.numberOfChannelsPerPeer;
+  }
+
+  /**
+   * Gets the counters of the message compression of this transport.
+   * They stay at 0 if compression is disabled.
+   *
+   * @return the compression statistics
+   */
+  public CompressionStatistics getCompressionStatistics() {
+    return this.compressionStatistics;
+  }
+
   /**
    * Registers the exception event handler.
    *
@@ -385,4 +452,15 @@ public final class NettyMessagingTransport implements Transport {
     this.clientEventListener.registerErrorHandler(handler);
     this.serverEventListener.registerErrorHandler(handler);
   }
+
+  /**
+   * Registers the handler that is told the remote address of every channel that closes,
+   * on the event loop of the channel. A channel may be reported more than once.
+   *
+   * @param handler the channel close handler
+   */
+  public void registerChannelCloseHandler(final EventHandler<SocketAddress> handler) {
+    this.clientEventListener.registerChannelCloseHandler(handler);
+    this.serverEventListener.registerChannelCloseHandler(handler);
+  }
 }
@@ -22,6 +22,7 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.remote.impl.ByteCodec;
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 
 import java.net.SocketAddress;
@@ -61,6 +62,11 @@ final class NettyServerEventListener extends AbstractNettyEventListener {
     return new TransportEvent(message, new NettyLink<>(channel, new ByteEncoder()));
   }
 
+  @Override
+  protected TransportEvent getTransportEvent(final ChunkedMessageInputStream message, final Channel channel) {
+    return new TransportEvent(message, new NettyLink<>(channel, new ByteEncoder()));
+  }
+
   @Override
   protected void exceptionCleanup(final ChannelHandlerContext ctx, final Throwable cause) {
     // noop
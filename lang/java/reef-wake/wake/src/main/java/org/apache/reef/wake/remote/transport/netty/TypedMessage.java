@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.remote.transport.netty;
+
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * A received message that started with a type byte, as the chunker passes it up stream
+ * once it strips that byte. The message is a byte[] or a {@link ChunkedMessageInputStream}
+ * without the type byte, so that it can be passed on as it is.
+ */
+final class TypedMessage {
+
+  private final byte type;
+  private final Object message;
+
+  /**
+   * @param type    the type byte
+   * @param message the rest of the message, a byte[] or a ChunkedMessageInputStream
+   */
+  TypedMessage(final byte type, final Object message) {
+    this.type = type;
+    this.message = message;
+  }
+
+  byte getType() {
+    return type;
+  }
+
+  /**
+   * @return the message without the type byte, a byte[] or a ChunkedMessageInputStream
+   */
+  Object getMessage() {
+    return message;
+  }
+
+  /**
+   * @return a stream over the message without the type byte
+   */
+  InputStream getInputStream() {
+    return message instanceof byte[] ?
+        new ByteArrayInputStream((byte[]) message) : (ChunkedMessageInputStream) message;
+  }
+}
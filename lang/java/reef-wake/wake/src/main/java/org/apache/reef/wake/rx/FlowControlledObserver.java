@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.rx;
+
+/**
+ * An {@link Observer} that controls the rate of its events by requesting them.
+ * <p>
+ * A provider that supports flow control calls onSubscribe once, before any other method,
+ * and then calls onNext only as many times as the observer requested through the subscription.
+ * onError and onCompleted are not subject to the demand.
+ *
+ * @param <T> type
+ */
+public interface FlowControlledObserver<T> extends Observer<T> {
+
+  /**
+   * Provides the observer with the subscription it requests events through.
+   *
+   * @param subscription the subscription
+   */
+  void onSubscribe(Subscription subscription);
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.rx;
+
+/**
+ * The demand of a {@link FlowControlledObserver} on its provider.
+ * The provider sends no more events than requested so far.
+ */
+public interface Subscription {
+
+  /**
+   * Lets the provider send up to n more events. The demand adds up over calls.
+   * May be called from within onNext of the observer.
+   *
+   * @param n the number of events, greater than 0; Long.MAX_VALUE removes the limit
+   * @throws IllegalArgumentException if n is less than or equal to 0
+   */
+  void request(long n);
+
+  /**
+   * Asks the provider to stop sending events and to drop the events it holds.
+   */
+  void cancel();
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.rx.impl;
+
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.StageConfiguration.Capacity;
+import org.apache.reef.wake.StageConfiguration.StageName;
+import org.apache.reef.wake.StageConfiguration.StageObserver;
+import org.apache.reef.wake.WakeParameters;
+import org.apache.reef.wake.exception.WakeRuntimeException;
+import org.apache.reef.wake.impl.StageManager;
+import org.apache.reef.wake.rx.AbstractRxStage;
+import org.apache.reef.wake.rx.FlowControlledObserver;
+import org.apache.reef.wake.rx.Observer;
+import org.apache.reef.wake.rx.Subscription;
+import org.apache.reef.wake.rx.exception.ObserverCompletedException;
+
+import javax.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stage that buffers a bounded number of events and delivers them as its observer requests them.
+ * <p>
+ * If the observer is a {@link FlowControlledObserver}, it receives a subscription on construction,
+ * and events are delivered only while it has outstanding demand; other observers get every event.
+ * When the buffer is full, onNext blocks the caller until the observer catches up,
+ * so a fast producer is slowed down to the rate of the observer instead of growing a queue.
+ * <p>
+ * Events are delivered in order, in the thread that calls onNext or request,
+ * and never to more than one thread at a time. The observer must not call onNext of this stage.
+ *
+ * @param <T> type
+ */
+public final class RxBufferedStage<T> extends AbstractRxStage<T> {
+
+  private static final Logger LOG = Logger.getLogger(RxBufferedStage.class.getName());
+
+  private static final long SHUTDOWN_TIMEOUT = WakeParameters.EXECUTOR_SHUTDOWN_TIMEOUT;
+
+  private final Observer<T> observer;
+  private final int capacity;
+
+  /** Guards the buffer, the demand and the completion state. */
+  private final Object lock = new Object();
+  private final Queue<T> buffer;
+  private long requested;
+  private boolean cancelled = false;
+  private boolean completed = false;
+  private Exception error = null;
+  private boolean completionDelivered = false;
+
+  /** Number of drain requests; only the caller that raises it from 0 delivers events. */
+  private final AtomicInteger drainRequests = new AtomicInteger(0);
+
+  /**
+   * Constructs a buffered stage.
+   *
+   * @param observer the observer
+   * @param capacity the maximum number of events in the buffer
+   * @throws WakeRuntimeException if the capacity is less than or equal to 0
+   */
+  @Inject
+  public RxBufferedStage(@Parameter(StageObserver.class) final Observer<T> observer,
+                         @Parameter(Capacity.class) final int capacity) {
+    this(observer.getClass().getName(), observer, capacity);
+  }
+
+  /**
+   * Constructs a buffered stage.
+   *
+   * @param name     the stage name
+   * @param observer the observer
+   * @param capacity the maximum number of events in the buffer
+   * @throws WakeRuntimeException if the capacity is less than or equal to 0
+   */
+  @Inject
+  @SuppressWarnings("unchecked")
+  public RxBufferedStage(@Parameter(StageName.class) final String name,
+                         @Parameter(StageObserver.class) final Observer<T> observer,
+                         @Parameter(Capacity.class) final int capacity) {
+    super(name);
+    if (capacity <= 0) {
+      throw new WakeRuntimeException(name + " capacity " + capacity + " is less than or equal to 0");
+    }
+    this.observer = observer;
+    this.capacity = capacity;
+    this.buffer = new ArrayDeque<>(capacity);
+    StageManager.instance().register(this);
+
+    if (observer instanceof FlowControlledObserver) {
+      this.requested = 0;
+      ((FlowControlledObserver<T>) observer).onSubscribe(new BufferSubscription());
+    } else {
+      this.requested = Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Adds the event to the buffer and delivers the events the observer has requested.
+   * Blocks while the buffer is full. Drops the event if the observer has cancelled its subscription.
+   *
+   * @param value the new value, not null
+   * @throws ObserverCompletedException if called after onCompleted or onError
+   * @throws RejectedExecutionException if the stage is closed
+   * @throws WakeRuntimeException if interrupted while waiting for space in the buffer
+   */
+  @Override
+  public void onNext(final T value) {
+    beforeOnNext();
+    synchronized (lock) {
+      while (buffer.size() >= capacity && !cancelled && !closed.get()) {
+        try {
+          lock.wait();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new WakeRuntimeException(name + " interrupted while waiting for space in the buffer", e);
+        }
+      }
+      if (completed) {
+        throw new ObserverCompletedException();
+      }
+      if (closed.get()) {
+        throw new RejectedExecutionException(name + " is closed");
+      }
+      if (cancelled) {
+        return;
+      }
+      buffer.add(value);
+    }
+    drain();
+  }
+
+  /**
+   * Passes the error to the observer once the buffered events are delivered.
+   * The error itself is not subject to the demand of the observer.
+   *
+   * @param error the error
+   */
+  @Override
+  public void onError(final Exception error) {
+    complete(error);
+  }
+
+  /**
+   * Notifies the observer of the completion once the buffered events are delivered.
+   * The completion itself is not subject to the demand of the observer.
+   */
+  @Override
+  public void onCompleted() {
+    complete(null);
+  }
+
+  private void complete(final Exception exception) {
+    synchronized (lock) {
+      if (completed) {
+        return;
+      }
+      completed = true;
+      error = exception;
+    }
+    drain();
+  }
+
+  /**
+   * Delivers the buffered events while there is demand for them, then the completion.
+   * Calls that overlap with a running drain only make it check again.
+   */
+  private void drain() {
+    if (drainRequests.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      while (deliverOne()) {
+        afterOnNext();
+      }
+      missed = drainRequests.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  /**
+   * @return true if an event was delivered, false if there is nothing more to deliver now
+   */
+  private boolean deliverOne() {
+    final T value;
+    synchronized (lock) {
+      if (cancelled || completionDelivered) {
+        return false;
+      }
+      if (buffer.isEmpty()) {
+        if (!completed) {
+          return false;
+        }
+        completionDelivered = true;
+      } else if (requested > 0) {
+        if (requested != Long.MAX_VALUE) {
+          --requested;
+        }
+        lock.notifyAll();
+      } else {
+        return false;
+      }
+      value = buffer.poll();
+    }
+
+    if (value != null) {
+      observer.onNext(value);
+      return true;
+    }
+    if (error != null) {
+      observer.onError(error);
+    } else {
+      observer.onCompleted();
+    }
+    return false;
+  }
+
+  /**
+   * Gets the number of events in the buffer.
+   *
+   * @return the number of buffered events
+   */
+  public int getQueueLength() {
+    synchronized (lock) {
+      return buffer.size();
+    }
+  }
+
+  /**
+   * Closes the stage. Waits for the observer to request the buffered events,
+   * and drops the ones it has not requested within the shutdown timeout.
+   * Callers blocked in onNext are released with a RejectedExecutionException.
+   */
+  @Override
+  public void close() throws Exception {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    StageManager.instance().unregister(this);
+    final long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT;
+    synchronized (lock) {
+      lock.notifyAll();
+      while (!buffer.isEmpty() && !cancelled) {
+        final long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          LOG.log(Level.WARNING, "{0} dropped {1} events the observer did not request in {2}ms.",
+              new Object[] {name, buffer.size(), SHUTDOWN_TIMEOUT});
+          buffer.clear();
+          break;
+        }
+        lock.wait(remaining);
+      }
+    }
+  }
+
+  /**
+   * The subscription of the observer to this stage.
+   */
+  private final class BufferSubscription implements Subscription {
+
+    @Override
+    public void request(final long n) {
+      if (n <= 0) {
+        throw new IllegalArgumentException(name + " requested " + n + " events");
+      }
+      synchronized (lock) {
+        requested = requested > Long.MAX_VALUE - n ? Long.MAX_VALUE : requested + n;
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      synchronized (lock) {
+        cancelled = true;
+        buffer.clear();
+        lock.notifyAll();
+      }
+    }
+  }
+}
@@ -99,6 +99,7 @@ public final class RxSyncStage<T> extends AbstractRxStage<T> {
    */
   @Override
   public void close() throws Exception {
+    StageManager.instance().unregister(this);
   }
 
 }
@@ -19,6 +19,7 @@
 package org.apache.reef.wake.rx.impl;
 
 import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.StageConfiguration.Capacity;
 import org.apache.reef.wake.StageConfiguration.NumberOfThreads;
 import org.apache.reef.wake.StageConfiguration.StageName;
 import org.apache.reef.wake.StageConfiguration.StageObserver;
@@ -54,6 +55,7 @@ public final class RxThreadPoolStage<T> extends AbstractRxStage<T> {
 
   private final Observer<T> observer;
   private final ExecutorService executor;
+  private final Semaphore slots; // only used by a bounded stage
   private final long shutdownTimeout = WakeParameters.EXECUTOR_SHUTDOWN_TIMEOUT;
   private ExecutorService completionExecutor;
   private DefaultThreadFactory tf;
@@ -81,7 +83,34 @@ public final class RxThreadPoolStage<T> extends AbstractRxStage<T> {
   public RxThreadPoolStage(@Parameter(StageName.class) final String name,
                            @Parameter(StageObserver.class) final Observer<T> observer,
                            @Parameter(NumberOfThreads.class) final int numThreads) {
+    this(name, observer, numThreads, (Semaphore) null);
+  }
+
+  /**
+   * Constructs a bounded Rx thread pool stage.
+   * onNext blocks while the given number of events are queued or running in the stage,
+   * so a fast producer is slowed down to the rate of the observer instead of growing the queue.
+   *
+   * @param name       the stage name
+   * @param observer   the observer to execute
+   * @param numThreads the number of threads
+   * @param capacity   the maximum number of events queued or running in the stage
+   * @throws WakeRuntimeException if the number of threads or the capacity is less than or equal to 0
+   */
+  @Inject
+  public RxThreadPoolStage(@Parameter(StageName.class) final String name,
+                           @Parameter(StageObserver.class) final Observer<T> observer,
+                           @Parameter(NumberOfThreads.class) final int numThreads,
+                           @Parameter(Capacity.class) final int capacity) {
+    this(name, observer, numThreads, newSlots(name, capacity));
+  }
+
+  private RxThreadPoolStage(final String name,
+                            final Observer<T> observer,
+                            final int numThreads,
+                            final Semaphore slots) {
     super(name);
+    this.slots = slots;
     this.observer = observer;
     if (numThreads <= 0) {
       throw new WakeRuntimeException(name + " numThreads " + numThreads + " is less than or equal to 0");
@@ -92,22 +121,52 @@ public final class RxThreadPoolStage<T> extends AbstractRxStage<T> {
     StageManager.instance().register(this);
   }
 
+  private static Semaphore newSlots(final String name, final int capacity) {
+    if (capacity <= 0) {
+      throw new WakeRuntimeException(name + " capacity " + capacity + " is less than or equal to 0");
+    }
+    return new Semaphore(capacity);
+  }
+
   /**
    * Provides the observer with the new value.
+   * If the stage is bounded, blocks while it is at its capacity.
    *
    * @param value the new value
+   * @throws WakeRuntimeException if interrupted while waiting for the capacity
    */
   @Override
   public void onNext(final T value) {
     beforeOnNext();
-    executor.submit(new Runnable() {
+    if (slots != null) {
+      try {
+        slots.acquire();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new WakeRuntimeException(name + " interrupted while waiting for capacity", e);
+      }
+    }
+    try {
+      executor.submit(new Runnable() {
 
-      @Override
-      public void run() {
-        observer.onNext(value);
-        afterOnNext();
+        @Override
+        public void run() {
+          try {
+            observer.onNext(value);
+            afterOnNext();
+          } finally {
+            if (slots != null) {
+              slots.release();
+            }
+          }
+        }
+      });
+    } catch (final RejectedExecutionException e) {
+      if (slots != null) {
+        slots.release();
       }
-    });
+      throw e;
+    }
   }
 
   /**
@@ -184,6 +243,7 @@ public final class RxThreadPoolStage<T> extends AbstractRxStage<T> {
         final List<Runnable> droppedRunnables = completionExecutor.shutdownNow();
         LOG.log(Level.WARNING, "Completion executor dropped " + droppedRunnables.size() + " tasks.");
       }
+      StageManager.instance().unregister(this);
     }
   }
 
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.rx.impl;
+
+import org.apache.reef.wake.exception.WakeRuntimeException;
+import org.apache.reef.wake.rx.FlowControlledObserver;
+import org.apache.reef.wake.rx.Observer;
+import org.apache.reef.wake.rx.Subject;
+import org.apache.reef.wake.rx.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subject that groups consecutive events into windows of a fixed size.
+ * <p>
+ * A window is passed on when it is full, when {@link #flush()} is called, e.g. by a timer
+ * to bound the delay of a window that fills slowly, and on completion.
+ * The events of an incomplete window are dropped on error.
+ * <p>
+ * Demand is propagated upstream: a request for n windows from a flow-controlled observer
+ * is passed to the provider of this subject as a request for n times the window size events.
+ * If the observer is not flow-controlled, the subject requests all the events of its provider.
+ *
+ * @param <T> type
+ */
+public final class WindowSubject<T> implements Subject<T, List<T>>, FlowControlledObserver<T> {
+
+  private final int windowSize;
+  private final Observer<List<T>> observer;
+
+  private List<T> window;
+
+  /**
+   * Constructs a window subject.
+   *
+   * @param windowSize the number of events in a full window
+   * @param observer   the observer of the windows
+   * @throws WakeRuntimeException if the window size is less than or equal to 0
+   */
+  public WindowSubject(final int windowSize, final Observer<List<T>> observer) {
+    if (windowSize <= 0) {
+      throw new WakeRuntimeException("windowSize " + windowSize + " is less than or equal to 0");
+    }
+    this.windowSize = windowSize;
+    this.observer = observer;
+    this.window = new ArrayList<>(windowSize);
+  }
+
+  /**
+   * Subscribes the observer to the windows, or requests all events if it is not flow-controlled.
+   *
+   * @param subscription the subscription to the provider of the events
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void onSubscribe(final Subscription subscription) {
+    if (observer instanceof FlowControlledObserver) {
+      ((FlowControlledObserver<List<T>>) observer).onSubscribe(new Subscription() {
+        @Override
+        public void request(final long n) {
+          if (n <= 0) {
+            throw new IllegalArgumentException("requested " + n + " windows");
+          }
+          subscription.request(n > Long.MAX_VALUE / windowSize ? Long.MAX_VALUE : n * windowSize);
+        }
+
+        @Override
+        public void cancel() {
+          subscription.cancel();
+        }
+      });
+    } else {
+      subscription.request(Long.MAX_VALUE);
+    }
+  }
+
+  /**
+   * Adds the event to the current window and passes the window on if it is full.
+   *
+   * @param value the new value
+   */
+  @Override
+  public void onNext(final T value) {
+    final List<T> full;
+    synchronized (this) {
+      window.add(value);
+      if (window.size() < windowSize) {
+        return;
+      }
+      full = takeWindow();
+    }
+    observer.onNext(full);
+  }
+
+  /**
+   * Passes the current window on if it is not empty.
+   * Like the completion, this is not subject to the demand of the observer.
+   */
+  public void flush() {
+    final List<T> partial;
+    synchronized (this) {
+      if (window.isEmpty()) {
+        return;
+      }
+      partial = takeWindow();
+    }
+    observer.onNext(partial);
+  }
+
+  /**
+   * Drops the current window and passes the error on.
+   *
+   * @param error the error
+   */
+  @Override
+  public void onError(final Exception error) {
+    synchronized (this) {
+      window.clear();
+    }
+    observer.onError(error);
+  }
+
+  /**
+   * Passes the current window on if it is not empty, then the completion.
+   */
+  @Override
+  public void onCompleted() {
+    flush();
+    observer.onCompleted();
+  }
+
+  private List<T> takeWindow() {
+    final List<T> taken = window;
+    window = new ArrayList<>(windowSize);
+    return taken;
+  }
+}
@@ -0,0 +1,704 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.time.runtime;
+
+import org.apache.reef.tang.InjectionFuture;
+import org.apache.reef.tang.annotations.Name;
+import org.apache.reef.tang.annotations.NamedParameter;
+import org.apache.reef.tang.annotations.Parameter;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.exception.WakeRuntimeException;
+import org.apache.reef.wake.impl.PubSubEventHandler;
+import org.apache.reef.wake.time.Clock;
+import org.apache.reef.wake.time.Time;
+import org.apache.reef.wake.time.event.Alarm;
+import org.apache.reef.wake.time.event.StartTime;
+import org.apache.reef.wake.time.event.StopTime;
+import org.apache.reef.wake.time.runtime.event.IdleClock;
+import org.apache.reef.wake.time.runtime.event.RuntimeStart;
+import org.apache.reef.wake.time.runtime.event.RuntimeStop;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Clock that keeps its alarms in a hierarchical timer wheel.
+ *
+ * Unlike RuntimeClock, scheduling and cancelling an alarm take constant time and do not
+ * acquire a lock shared with the event loop: new alarms and cancellations are handed over
+ * through lock-free queues, and only the event loop thread touches the wheel.
+ * The wheel has several levels of `WheelSize` buckets. A bucket of the first level covers one tick
+ * of `TickDuration` milliseconds, and a bucket of each next level covers a whole revolution of the level below.
+ * An alarm goes to the lowest level whose current revolution contains its tick, and moves down a level
+ * when the wheel reaches its bucket, so the event loop handles each alarm in constant time,
+ * whatever the number of alarms and how far away they are.
+ * Each level marks its buckets that hold alarms in a bitmap, so the event loop finds the next tick
+ * with alarms in time bounded by the wheel size, without looking at the alarms.
+ *
+ * The event semantics are the same as in RuntimeClock: `RuntimeStart` and `StartTime` are
+ * invoked first, alarms run in the order of their timestamps, `IdleClock` is invoked when there
+ * are no client alarms left, and close() invokes `StopTime` after all client alarms are done.
+ * The injected Timer decides how long to wait for the next alarm, so LogicalTimer can be used
+ * to run the schedule without waiting in tests.
+ *
+ * To use it instead of the default clock, bind Clock to TimerWheelClock.
+ */
+public final class TimerWheelClock implements Clock {
+
+  private static final Logger LOG = Logger.getLogger(TimerWheelClock.class.getName());
+  private static final String CLASS_NAME = TimerWheelClock.class.getCanonicalName();
+
+  /**
+   * Duration of one tick of the wheel in milliseconds.
+   * Alarms within the same tick share a bucket; it does not affect the time the alarms are invoked.
+   */
+  @NamedParameter(doc = "Duration of one tick of the timer wheel in milliseconds.", default_value = "10")
+  public static final class TickDuration implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * Number of buckets in each level of the wheel. Rounded up to the next power of two, and to at least 2.
+   */
+  @NamedParameter(doc = "Number of buckets in each level of the timer wheel.", default_value = "1024")
+  public static final class WheelSize implements Name<Integer> {
+    // Intentionally empty
+  }
+
+  /**
+   * Injectable source of current time information.
+   * Usually an instance of RealTimer that wraps the system clock.
+   */
+  private final Timer timer;
+
+  private final long tickDuration;
+
+  /** Levels of the wheel, starting with the one of one tick per bucket. Accessed by the event loop thread only. */
+  private final WheelLevel[] levels;
+
+  /** Number of bits of a tick that select the bucket within a level. */
+  private final int bitsPerLevel;
+
+  private final int mask;
+
+  /** Alarms scheduled since the last turn of the event loop. */
+  private final ConcurrentLinkedQueue<WheelAlarm> newAlarms = new ConcurrentLinkedQueue<>();
+
+  /** Alarms cancelled since the last turn of the event loop. */
+  private final ConcurrentLinkedQueue<WheelAlarm> cancelledAlarms = new ConcurrentLinkedQueue<>();
+
+  /** Alarms of the tick being processed, sorted by timestamp. Accessed by the event loop thread only. */
+  private final List<WheelAlarm> dueAlarms = new ArrayList<>();
+
+  /** Event handlers - populated with the injectable parameters provided to the constructor. */
+  private final PubSubEventHandler<Time> handlers = new PubSubEventHandler<>();
+
+  private final InjectionFuture<Set<EventHandler<StartTime>>> startHandler;
+  private final InjectionFuture<Set<EventHandler<StopTime>>> stopHandler;
+  private final InjectionFuture<Set<EventHandler<RuntimeStart>>> runtimeStartHandler;
+  private final InjectionFuture<Set<EventHandler<RuntimeStop>>> runtimeStopHandler;
+  private final InjectionFuture<Set<EventHandler<IdleClock>>> idleHandler;
+
+  /**
+   * Number of client alarms that are neither invoked nor cancelled yet.
+   * It is incremented before the closed flag is checked, so that the event loop does not
+   * miss an alarm scheduled concurrently with a graceful shutdown.
+   */
+  private final AtomicInteger numClientAlarms = new AtomicInteger(0);
+
+  /** The first tick that may still have alarms to invoke. Accessed by the event loop thread only. */
+  private long currentTick;
+
+  /** The event loop thread, or null if the loop is not running. */
+  private volatile Thread loopThread = null;
+
+  /**
+   * Timestamp the event loop sleeps until. Long.MAX_VALUE if it sleeps until woken up,
+   * and Long.MIN_VALUE if it is awake, so that scheduling an alarm does not need to wake it.
+   */
+  private volatile long wakeupTime = Long.MIN_VALUE;
+
+  /** Set to true when the clock is closed. */
+  private volatile boolean isClosed = false;
+
+  /** Set to true when the clock is stopped without waiting for the client alarms. */
+  private volatile boolean isStopped = false;
+
+  /** Exception that caused the clock to stop. */
+  private volatile Throwable exceptionCausedStop = null;
+
+  @Inject
+  private TimerWheelClock(
+      final Timer timer,
+      @Parameter(TickDuration.class) final int tickDuration,
+      @Parameter(WheelSize.class) final int wheelSize,
+      @Parameter(Clock.StartHandler.class)
+          final InjectionFuture<Set<EventHandler<StartTime>>> startHandler,
+      @Parameter(Clock.StopHandler.class)
+          final InjectionFuture<Set<EventHandler<StopTime>>> stopHandler,
+      @Parameter(Clock.RuntimeStartHandler.class)
+          final InjectionFuture<Set<EventHandler<RuntimeStart>>> runtimeStartHandler,
+      @Parameter(Clock.RuntimeStopHandler.class)
+          final InjectionFuture<Set<EventHandler<RuntimeStop>>> runtimeStopHandler,
+      @Parameter(Clock.IdleHandler.class)
+          final InjectionFuture<Set<EventHandler<IdleClock>>> idleHandler) {
+
+    if (tickDuration <= 0) {
+      throw new WakeRuntimeException("Tick duration " + tickDuration + " is less than or equal to 0");
+    }
+    if (wheelSize <= 0 || wheelSize > 1 << 30) {
+      throw new WakeRuntimeException("Wheel size " + wheelSize + " is out of range");
+    }
+
+    this.timer = timer;
+    this.tickDuration = tickDuration;
+
+    int size = 2;
+    while (size < wheelSize) {
+      size <<= 1;
+    }
+    this.bitsPerLevel = Integer.numberOfTrailingZeros(size);
+    this.mask = size - 1;
+    // enough levels to cover all non-negative ticks
+    this.levels = new WheelLevel[(Long.SIZE - 1 + this.bitsPerLevel - 1) / this.bitsPerLevel];
+    for (int i = 0; i < this.levels.length; ++i) {
+      this.levels[i] = new WheelLevel(size);
+    }
+
+    this.startHandler = startHandler;
+    this.stopHandler = stopHandler;
+    this.runtimeStartHandler = runtimeStartHandler;
+    this.runtimeStopHandler = runtimeStopHandler;
+    this.idleHandler = idleHandler;
+
+    LOG.log(Level.FINE, "TimerWheelClock instantiated: tick {0} ms, {1} levels of {2} buckets",
+        new Object[] {tickDuration, this.levels.length, size});
+  }
+
+  /**
+   * Schedule a new Alarm event in `offset` milliseconds into the future,
+   * and supply an event handler to be called at that time.
+   * @param offset Number of milliseconds into the future relative to current time.
+   * @param handler Event handler to be invoked.
+   * @return Newly scheduled alarm. It can be passed to cancelAlarm().
+   * @throws IllegalStateException if the clock is already closed.
+   */
+  @Override
+  public Time scheduleAlarm(final int offset, final EventHandler<Alarm> handler) {
+
+    final WheelAlarm alarm = new WheelAlarm(this.timer.getCurrent() + offset, handler);
+
+    this.numClientAlarms.incrementAndGet();
+    if (this.isClosed) {
+      this.numClientAlarms.decrementAndGet();
+      this.wakeUp();
+      throw new IllegalStateException("Scheduling alarm on a closed clock");
+    }
+
+    this.newAlarms.add(alarm);
+
+    if (alarm.getTimestamp() < this.wakeupTime) {
+      this.wakeUp();
+    }
+
+    LOG.log(Level.FINEST, "Schedule alarm: {0}", alarm);
+    return alarm;
+  }
+
+  /**
+   * Cancel an alarm scheduled on this clock.
+   * @param alarm Alarm returned by scheduleAlarm().
+   * @return True if the alarm is cancelled, false if it has already been invoked or cancelled.
+   * @throws IllegalArgumentException if the alarm was not scheduled on a TimerWheelClock.
+   */
+  public boolean cancelAlarm(final Time alarm) {
+
+    if (!(alarm instanceof WheelAlarm)) {
+      throw new IllegalArgumentException("Not an alarm of TimerWheelClock: " + alarm);
+    }
+
+    final WheelAlarm wheelAlarm = (WheelAlarm) alarm;
+    if (!wheelAlarm.isDone.compareAndSet(false, true)) {
+      return false;
+    }
+
+    this.cancelledAlarms.add(wheelAlarm);
+    if (this.numClientAlarms.decrementAndGet() == 0) {
+      this.wakeUp();
+    }
+
+    LOG.log(Level.FINEST, "Cancel alarm: {0}", alarm);
+    return true;
+  }
+
+  /**
+   * Stop the clock. Remove all other events from the schedule and fire StopTimer
+   * event immediately. It is recommended to use close() method for graceful shutdown
+   * instead of stop().
+   */
+  @Override
+  public void stop() {
+    this.stop(null);
+  }
+
+  /**
+   * Stop the clock on exception.
+   * Remove all other events from the schedule and fire StopTimer event immediately.
+   * @param exception Exception that is the cause for the stop. Can be null.
+   */
+  @Override
+  public synchronized void stop(final Throwable exception) {
+
+    LOG.entering(CLASS_NAME, "stop");
+
+    if (this.isClosed) {
+      LOG.log(Level.FINEST, "Clock has already been closed");
+      return;
+    }
+
+    LOG.log(Level.FINE, "Stop scheduled immediately. Outstanding client alarms: {0}", this.numClientAlarms.get());
+
+    this.exceptionCausedStop = exception;
+    this.isStopped = true;
+    this.isClosed = true;
+    this.wakeUp();
+
+    LOG.exiting(CLASS_NAME, "stop");
+  }
+
+  /**
+   * Wait for all client alarms to finish executing and gracefully shutdown the clock.
+   */
+  @Override
+  public synchronized void close() {
+
+    LOG.entering(CLASS_NAME, "close");
+
+    if (this.isClosed) {
+      LOG.exiting(CLASS_NAME, "close", "Clock has already been closed");
+      return;
+    }
+
+    LOG.log(Level.FINE, "Graceful shutdown scheduled. Outstanding client alarms: {0}", this.numClientAlarms.get());
+
+    this.isClosed = true;
+    this.wakeUp();
+
+    LOG.exiting(CLASS_NAME, "close");
+  }
+
+  /**
+   * Check if there are no client alarms scheduled.
+   * @return True if there are no client alarms in the schedule, false otherwise.
+   */
+  @Override
+  public boolean isIdle() {
+    return this.isStopped || this.numClientAlarms.get() <= 0;
+  }
+
+  /**
+   * The clock is closed after a call to stop() or close().
+   * A closed clock cannot add new alarms to the schedule, but, in case of the
+   * graceful shutdown, can still invoke previously scheduled ones.
+   * @return true if closed, false otherwise.
+   */
+  @Override
+  public boolean isClosed() {
+    return this.isClosed;
+  }
+
+  /**
+   * Register event handlers for the given event class.
+   * @param eventClass Event type to handle. Must be derived from Time.
+   * @param handlers One or many event handlers that can process given event type.
+   * @param <T> Event type - must be derived from class Time. (i.e. contain a timestamp).
+   */
+  @SuppressWarnings("checkstyle:hiddenfield")
+  private <T extends Time> void subscribe(final Class<T> eventClass, final Set<EventHandler<T>> handlers) {
+    for (final EventHandler<T> handler : handlers) {
+      LOG.log(Level.FINEST, "Subscribe: event {0} handler {1}", new Object[] {eventClass.getName(), handler});
+      this.handlers.subscribe(eventClass, handler);
+    }
+  }
+
+  /**
+   * Main event loop.
+   * Set up the event handlers, and go into event loop that moves the alarms into the wheel,
+   * waits for the earliest one and invokes the alarms that are due.
+   */
+  @Override
+  public void run() {
+
+    LOG.entering(CLASS_NAME, "run");
+
+    this.loopThread = Thread.currentThread();
+
+    try {
+
+      LOG.log(Level.FINE, "Subscribe event handlers");
+
+      subscribe(StartTime.class, this.startHandler.get());
+      subscribe(StopTime.class, this.stopHandler.get());
+      subscribe(RuntimeStart.class, this.runtimeStartHandler.get());
+      subscribe(RuntimeStop.class, this.runtimeStopHandler.get());
+      subscribe(IdleClock.class, this.idleHandler.get());
+
+      LOG.log(Level.FINE, "Initiate runtime start");
+      this.handlers.onNext(new RuntimeStart(this.timer.getCurrent()));
+
+      LOG.log(Level.FINE, "Initiate start time");
+      this.handlers.onNext(new StartTime(this.timer.getCurrent()));
+
+      this.currentTick = this.timer.getCurrent() / this.tickDuration;
+      boolean idleReported = false;
+
+      while (true) {
+
+        LOG.log(Level.FINEST, "Enter clock main loop.");
+
+        this.transferAlarms();
+
+        if (this.isStopped) {
+          LOG.log(Level.FINE, "Clock stopped. Outstanding client alarms: {0}", this.numClientAlarms.get());
+          this.clearWheel();
+          break;
+        }
+
+        if (this.numClientAlarms.get() <= 0) {
+          if (!idleReported) {
+            idleReported = true;
+            // Idle handlers can schedule new alarms, so go around the loop again
+            this.handlers.onNext(new IdleClock(this.timer.getCurrent()));
+            continue;
+          }
+          if (this.isClosed) {
+            break; // all client alarms are done, graceful shutdown.
+          }
+        } else {
+          idleReported = false;
+        }
+
+        final long nextTick = this.findNextTick();
+        if (nextTick < 0) {
+          // No alarms in the wheel: wait for new alarms or for the shutdown.
+          this.sleep(Long.MAX_VALUE, 0);
+          continue;
+        }
+
+        this.currentTick = nextTick;
+        this.collectDueAlarms(this.levels[0].buckets[(int) (nextTick & this.mask)]);
+
+        final WheelAlarm first = this.dueAlarms.get(0);
+        final long waitDuration = this.timer.getDuration(first);
+        if (waitDuration > 0) {
+          this.sleep(first.getTimestamp(), waitDuration);
+          continue;
+        }
+
+        this.invokeDueAlarms();
+      }
+
+      this.handlers.onNext(new StopTime(this.timer.getCurrent()));
+      this.handlers.onNext(new RuntimeStop(this.timer.getCurrent(), this.exceptionCausedStop));
+
+    } catch (final Exception e) {
+
+      LOG.log(Level.SEVERE, "Error in timer wheel clock", e);
+      this.handlers.onNext(new RuntimeStop(this.timer.getCurrent(), e));
+
+    } finally {
+      this.loopThread = null;
+      this.dueAlarms.clear();
+      LOG.log(Level.FINE, "Timer wheel clock exit");
+    }
+
+    LOG.exiting(CLASS_NAME, "run");
+  }
+
+  /**
+   * Move the newly scheduled alarms into the wheel and unlink the cancelled ones.
+   * Called from the event loop thread only.
+   */
+  private void transferAlarms() {
+
+    for (WheelAlarm alarm = this.newAlarms.poll(); alarm != null; alarm = this.newAlarms.poll()) {
+      if (!alarm.isDone.get()) {
+        // Alarms in the past go to the current tick, so that they are invoked next.
+        alarm.tick = Math.max(alarm.getTimestamp() / this.tickDuration, this.currentTick);
+        this.place(alarm);
+      }
+    }
+
+    for (WheelAlarm alarm = this.cancelledAlarms.poll(); alarm != null; alarm = this.cancelledAlarms.poll()) {
+      if (alarm.bucket != null) {
+        alarm.bucket.remove(alarm);
+      }
+    }
+  }
+
+  /**
+   * Put an alarm into the lowest level whose current revolution contains the tick of the alarm.
+   * The tick must not be before the current tick.
+   * @param alarm Alarm that is not in the wheel.
+   */
+  private void place(final WheelAlarm alarm) {
+    final long diff = alarm.tick ^ this.currentTick;
+    final int level = diff == 0 ? 0
+        : Math.min((Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / this.bitsPerLevel, this.levels.length - 1);
+    final long index = (alarm.tick >>> (level * this.bitsPerLevel)) & this.mask;
+    this.levels[level].buckets[(int) index].add(alarm);
+  }
+
+  /**
+   * Find the earliest tick with alarms in the wheel.
+   * If the first bucket with alarms is above the first level, the wheel advances to it
+   * and moves its alarms down to the lower levels, until the first level has the earliest alarms.
+   * @return The earliest tick that has alarms, or -1 if the wheel is empty.
+   */
+  private long findNextTick() {
+    int level = 0;
+    while (level < this.levels.length) {
+      final int shift = level * this.bitsPerLevel;
+      final int index = this.levels[level].nextOccupied((int) ((this.currentTick >>> shift) & this.mask));
+      if (index < 0) {
+        ++level;
+        continue;
+      }
+      final long bucketTick = revolutionStart(this.currentTick, shift + this.bitsPerLevel) | ((long) index << shift);
+      if (level == 0) {
+        return bucketTick;
+      }
+      this.currentTick = Math.max(this.currentTick, bucketTick);
+      final Bucket bucket = this.levels[level].buckets[index];
+      while (bucket.head != null) {
+        final WheelAlarm alarm = bucket.head;
+        bucket.remove(alarm);
+        this.place(alarm);
+      }
+      level = 0;
+    }
+    return -1;
+  }
+
+  /**
+   * @return The first tick of the revolution that contains the given tick, at the level above the given shift.
+   */
+  private static long revolutionStart(final long tick, final int shift) {
+    return shift >= Long.SIZE ? 0 : tick >>> shift << shift;
+  }
+
+  /**
+   * Put the alarms of a bucket of the first level into dueAlarms, in the order of their timestamps.
+   * All alarms of such a bucket have the same tick.
+   * @param bucket Bucket of the tick.
+   */
+  private void collectDueAlarms(final Bucket bucket) {
+    this.dueAlarms.clear();
+    for (WheelAlarm alarm = bucket.head; alarm != null; alarm = alarm.next) {
+      this.dueAlarms.add(alarm);
+    }
+    Collections.sort(this.dueAlarms);
+  }
+
+  /**
+   * Invoke the collected alarms that are due according to the timer, in the order of their timestamps.
+   */
+  private void invokeDueAlarms() {
+
+    for (final WheelAlarm alarm : this.dueAlarms) {
+
+      if (this.isStopped || this.timer.getDuration(alarm) > 0) {
+        break;
+      }
+
+      alarm.bucket.remove(alarm);
+
+      if (alarm.isDone.compareAndSet(false, true)) {
+        final int eventQueueLen = this.numClientAlarms.decrementAndGet();
+        LOG.log(Level.FINER,
+            "Process event: {0} Outstanding client alarms: {1}", new Object[] {alarm, eventQueueLen});
+        alarm.run();
+      }
+    }
+
+    this.dueAlarms.clear();
+  }
+
+  /**
+   * Wait until the given time or until woken up by scheduleAlarm(), cancelAlarm(), close() or stop().
+   * @param timestamp Time to wait for, Long.MAX_VALUE to wait until woken up.
+   * @param duration Number of milliseconds to wait, ignored when waiting until woken up.
+   */
+  private void sleep(final long timestamp, final long duration) {
+
+    this.wakeupTime = timestamp;
+
+    // Alarms scheduled before wakeupTime was published have not woken up the loop.
+    if (this.newAlarms.isEmpty() && !this.isStopped && !(this.isClosed && this.numClientAlarms.get() <= 0)) {
+      if (timestamp == Long.MAX_VALUE) {
+        LockSupport.park(this);
+      } else {
+        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(duration));
+      }
+      if (Thread.interrupted()) {
+        LOG.log(Level.FINEST, "Wait interrupted; continue event loop.");
+      }
+    }
+
+    this.wakeupTime = Long.MIN_VALUE;
+  }
+
+  /**
+   * Wake up the event loop if it is running.
+   */
+  private void wakeUp() {
+    final Thread thread = this.loopThread;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Drop all alarms from the wheel on stop().
+   */
+  private void clearWheel() {
+    for (final WheelLevel level : this.levels) {
+      for (final Bucket bucket : level.buckets) {
+        while (bucket.head != null) {
+          bucket.head.isDone.set(true);
+          bucket.remove(bucket.head);
+        }
+      }
+    }
+    this.newAlarms.clear();
+    this.cancelledAlarms.clear();
+  }
+
+  /**
+   * A client alarm that can be linked into a bucket of the wheel.
+   */
+  private static final class WheelAlarm extends Alarm {
+
+    /** Set when the alarm is invoked or cancelled, whichever comes first. */
+    private final AtomicBoolean isDone = new AtomicBoolean(false);
+
+    /** The fields below are accessed by the event loop thread only. */
+    private long tick;
+    private Bucket bucket;
+    private WheelAlarm prev;
+    private WheelAlarm next;
+
+    WheelAlarm(final long timestamp, final EventHandler<Alarm> handler) {
+      super(timestamp, handler);
+    }
+  }
+
+  /**
+   * One level of the wheel: its buckets and a bitmap of the buckets that hold alarms.
+   */
+  private static final class WheelLevel {
+
+    private final Bucket[] buckets;
+    private final long[] occupied;
+
+    WheelLevel(final int size) {
+      this.buckets = new Bucket[size];
+      this.occupied = new long[(size + Long.SIZE - 1) / Long.SIZE];
+      for (int i = 0; i < size; ++i) {
+        this.buckets[i] = new Bucket(this, i);
+      }
+    }
+
+    /**
+     * @param fromIndex Index of the first bucket to look at.
+     * @return The index of the first bucket at or after fromIndex that holds alarms, or -1 if there is none.
+     */
+    int nextOccupied(final int fromIndex) {
+      int word = fromIndex / Long.SIZE;
+      long bits = this.occupied[word] & (-1L << (fromIndex % Long.SIZE));
+      while (bits == 0) {
+        if (++word == this.occupied.length) {
+          return -1;
+        }
+        bits = this.occupied[word];
+      }
+      return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+    }
+  }
+
+  /**
+   * Doubly linked list of the alarms that fall into one bucket of the wheel.
+   */
+  private static final class Bucket {
+
+    private final WheelLevel level;
+    private final int index;
+    private WheelAlarm head;
+    private WheelAlarm tail;
+
+    Bucket(final WheelLevel level, final int index) {
+      this.level = level;
+      this.index = index;
+    }
+
+    void add(final WheelAlarm alarm) {
+      if (this.head == null) {
+        this.level.occupied[this.index / Long.SIZE] |= 1L << (this.index % Long.SIZE);
+      }
+      alarm.bucket = this;
+      alarm.prev = this.tail;
+      alarm.next = null;
+      if (this.tail == null) {
+        this.head = alarm;
+      } else {
+        this.tail.next = alarm;
+      }
+      this.tail = alarm;
+    }
+
+    void remove(final WheelAlarm alarm) {
+      if (alarm.prev == null) {
+        this.head = alarm.next;
+      } else {
+        alarm.prev.next = alarm.next;
+      }
+      if (alarm.next == null) {
+        this.tail = alarm.prev;
+      } else {
+        alarm.next.prev = alarm.prev;
+      }
+      alarm.bucket = null;
+      alarm.prev = null;
+      alarm.next = null;
+      if (this.head == null) {
+        this.level.occupied[this.index / Long.SIZE] &= ~(1L << (this.index % Long.SIZE));
+      }
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.exception.WakeRuntimeException;
+import org.apache.reef.wake.impl.BatchingStage;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batching stage tests.
+ */
+public class BatchingStageTest {
+
+  private static final String LOG_PREFIX = "TEST ";
+  @Rule
+  public TestName name = new TestName();
+
+  @Test
+  public void testBatchingStageDeliversAllEventsInOrder() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numEvents = 10000;
+    final int maxBatchSize = 64;
+    final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+    final AtomicInteger oversized = new AtomicInteger();
+
+    final BatchingStage<Integer> stage = new BatchingStage<>("batching", new EventHandler<List<Integer>>() {
+      @Override
+      public void onNext(final List<Integer> batch) {
+        if (batch.isEmpty() || batch.size() > maxBatchSize) {
+          oversized.incrementAndGet();
+        }
+        received.addAll(batch);
+      }
+    }, maxBatchSize, 100, 1000);
+
+    for (int i = 0; i < numEvents; ++i) {
+      stage.onNext(i);
+    }
+    stage.close();
+
+    Assert.assertEquals(0, oversized.get());
+    Assert.assertEquals(numEvents, received.size());
+    for (int i = 0; i < numEvents; ++i) {
+      Assert.assertEquals(i, (int) received.get(i));
+    }
+    Assert.assertEquals(numEvents, stage.getOutMeter().getCount());
+  }
+
+  @Test
+  public void testBatchingStageDeliversPartialBatchAfterDelay() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final CountDownLatch delivered = new CountDownLatch(1);
+    final AtomicInteger batchSize = new AtomicInteger();
+
+    final BatchingStage<Integer> stage = new BatchingStage<>("partial", new EventHandler<List<Integer>>() {
+      @Override
+      public void onNext(final List<Integer> batch) {
+        batchSize.set(batch.size());
+        delivered.countDown();
+      }
+    }, 100, 10000, 100);
+
+    stage.onNext(1);
+    stage.onNext(2);
+    stage.onNext(3);
+
+    Assert.assertTrue("Partial batch was not delivered", delivered.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(3, batchSize.get());
+    stage.close();
+  }
+
+  @Test
+  public void testBatchingStageSurvivesHandlerError() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numEvents = 20;
+    final AtomicInteger handled = new AtomicInteger();
+
+    final BatchingStage<Integer> stage = new BatchingStage<>("failing", new EventHandler<List<Integer>>() {
+      @Override
+      public void onNext(final List<Integer> batch) {
+        handled.addAndGet(batch.size());
+        throw new AssertionError("handler failure");
+      }
+    }, 1, 0, 100);
+
+    for (int i = 0; i < numEvents; ++i) {
+      stage.onNext(i);
+    }
+    stage.close();
+
+    Assert.assertEquals(numEvents, handled.get());
+    Assert.assertEquals(numEvents, stage.getOutMeter().getCount());
+  }
+
+  @Test
+  public void testBatchingStageCloseWhileQueueing() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numRounds = 20;
+    final int numProducers = 4;
+
+    for (int round = 0; round < numRounds; ++round) {
+      final AtomicInteger handled = new AtomicInteger();
+      final AtomicInteger sent = new AtomicInteger();
+      final AtomicInteger rejected = new AtomicInteger();
+
+      final BatchingStage<Integer> stage = new BatchingStage<>("closing", new EventHandler<List<Integer>>() {
+        @Override
+        public void onNext(final List<Integer> batch) {
+          handled.addAndGet(batch.size());
+        }
+      }, 16, 0, 8);
+
+      final CountDownLatch started = new CountDownLatch(numProducers);
+      final Thread[] producers = new Thread[numProducers];
+      for (int p = 0; p < numProducers; ++p) {
+        producers[p] = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            started.countDown();
+            for (int i = 0;; ++i) {
+              try {
+                stage.onNext(i);
+                sent.incrementAndGet();
+              } catch (final WakeRuntimeException e) {
+                rejected.incrementAndGet();
+                return;
+              }
+            }
+          }
+        });
+        producers[p].start();
+      }
+
+      Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+      stage.close();
+      for (final Thread producer : producers) {
+        producer.join();
+      }
+
+      Assert.assertEquals(numProducers, rejected.get());
+      Assert.assertEquals(sent.get(), handled.get());
+      Assert.assertEquals(stage.getInMeter().getCount(), stage.getOutMeter().getCount());
+    }
+  }
+}
@@ -29,6 +29,10 @@ import org.junit.Test;
 import org.junit.rules.TestName;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -182,6 +186,115 @@ public class ForkPoolStageTest {
     System.out.println("2: mean output throughput: " + stage2.getOutMeter().getMeanThp() + " events/sec");
   }
 
+  @Test
+  public void testErrorHandler() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numEvents = 10;
+    final CountDownLatch errors = new CountDownLatch(numEvents);
+    final WakeSharedPool p = new WakeSharedPool(4);
+    final ForkPoolStage<TestEvent> stage = new ForkPoolStage<>("failing", new EventHandler<TestEvent>() {
+      @Override
+      public void onNext(final TestEvent value) {
+        throw new IllegalStateException("handler failure");
+      }
+    }, new EventHandler<Throwable>() {
+      @Override
+      public void onNext(final Throwable value) {
+        if (value instanceof IllegalStateException) {
+          errors.countDown();
+        }
+      }
+    }, p);
+
+    for (int i = 0; i < numEvents; ++i) {
+      stage.onNext(new TestEvent());
+    }
+
+    Assert.assertTrue("Handler exceptions must reach the error handler", errors.await(10, TimeUnit.SECONDS));
+    p.close();
+    Assert.assertEquals(0, p.getUncaughtExceptionCount());
+  }
+
+  @Test
+  public void testMaxInFlight() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numEvents = 200;
+    final int maxInFlight = 2;
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+    final CountDownLatch done = new CountDownLatch(numEvents);
+
+    final WakeSharedPool p = new WakeSharedPool(8);
+    final ForkPoolStage<TestEvent> stage = new ForkPoolStage<>("limited", new EventHandler<TestEvent>() {
+      @Override
+      public void onNext(final TestEvent value) {
+        final int n = running.incrementAndGet();
+        while (true) {
+          final int max = maxRunning.get();
+          if (n <= max || maxRunning.compareAndSet(max, n)) {
+            break;
+          }
+        }
+        try {
+          Thread.sleep(1);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        done.countDown();
+      }
+    }, null, maxInFlight, p);
+
+    for (int i = 0; i < numEvents; ++i) {
+      stage.onNext(new TestEvent());
+    }
+
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    p.close();
+
+    Assert.assertTrue("At most " + maxInFlight + " events of the stage may run at once, saw " + maxRunning.get(),
+        maxRunning.get() <= maxInFlight);
+    Assert.assertEquals(0, stage.getQueueLength());
+    Assert.assertEquals(numEvents, stage.getOutMeter().getCount());
+  }
+
+  @Test
+  public void testGracefulClose() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numEvents = 20;
+    final AtomicInteger processed = new AtomicInteger(0);
+    final WakeSharedPool p = new WakeSharedPool(2);
+    final ForkPoolStage<TestEvent> stage = new ForkPoolStage<>("slow", new EventHandler<TestEvent>() {
+      @Override
+      public void onNext(final TestEvent value) {
+        try {
+          Thread.sleep(5);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        processed.incrementAndGet();
+      }
+    }, null, 1, p);
+
+    for (int i = 0; i < numEvents; ++i) {
+      stage.onNext(new TestEvent());
+    }
+
+    // closing the pool closes the stage first, which waits for its accepted events
+    p.close();
+    Assert.assertEquals("All accepted events must be processed on close", numEvents, processed.get());
+    Assert.assertTrue(p.isTerminated());
+
+    try {
+      stage.onNext(new TestEvent());
+      Assert.fail("Closed stage must reject events");
+    } catch (final RejectedExecutionException expected) {
+      // This is expected
+    }
+  }
 
   class TestEvent {
   }
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.JoinStage;
+import org.apache.reef.wake.impl.JoinStage.JoinedEvent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Join stage tests.
+ */
+public class JoinStageTest {
+
+  private static final String LOG_PREFIX = "TEST ";
+  @Rule
+  public TestName name = new TestName();
+
+  /**
+   * Key of the test events: the value modulo 1000, so that 1001 and 2001 have the same key.
+   */
+  private static final JoinStage.KeyExtractor<Integer, Integer> KEY = new JoinStage.KeyExtractor<Integer, Integer>() {
+    @Override
+    public Integer getKey(final Integer event) {
+      return event % 1000;
+    }
+  };
+
+  private static final class Recorder implements EventHandler<JoinedEvent<Integer, Integer, Integer>> {
+
+    private final List<String> pairs = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void onNext(final JoinedEvent<Integer, Integer, Integer> value) {
+      Assert.assertEquals(value.getKey().intValue(), value.getLeft() % 1000);
+      Assert.assertEquals(value.getKey().intValue(), value.getRight() % 1000);
+      pairs.add(value.getLeft() + "-" + value.getRight());
+    }
+
+    Set<String> getPairs() {
+      synchronized (pairs) {
+        final Set<String> set = new HashSet<>(pairs);
+        Assert.assertEquals("Pairs must be joined once", pairs.size(), set.size());
+        return set;
+      }
+    }
+  }
+
+  @Test
+  public void testJoinMatchesAllPairsOnce() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numKeys = 100;
+    final Recorder recorder = new Recorder();
+    final JoinStage<Integer, Integer, Integer> join =
+        new JoinStage<>("join", KEY, KEY, recorder, 4, 10000);
+    final EventHandler<Integer> left = join.getLeftHandler();
+    final EventHandler<Integer> right = join.getRightHandler();
+
+    final Set<String> expected = new HashSet<>();
+    for (int i = 0; i < numKeys; ++i) {
+      left.onNext(1000 + i);
+      right.onNext(2000 + i);
+      left.onNext(3000 + i);
+      expected.add((1000 + i) + "-" + (2000 + i));
+      expected.add((3000 + i) + "-" + (2000 + i));
+    }
+    // keys without a match on the other side
+    for (int i = numKeys; i < 2 * numKeys; ++i) {
+      left.onNext(1000 + i);
+    }
+    join.close();
+
+    Assert.assertEquals(expected, recorder.getPairs());
+    Assert.assertEquals(expected.size(), join.getJoinedCount());
+    Assert.assertEquals(0, join.getEvictedCount());
+  }
+
+  @Test
+  public void testCountWindowEvictsOldEvents() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final Recorder recorder = new Recorder();
+    final JoinStage<Integer, Integer, Integer> join =
+        new JoinStage<>("countWindow", KEY, KEY, recorder, 1, 2);
+    final EventHandler<Integer> left = join.getLeftHandler();
+    final EventHandler<Integer> right = join.getRightHandler();
+
+    left.onNext(1001);
+    left.onNext(1002);
+    left.onNext(1003); // evicts 1001
+    right.onNext(2001);
+    right.onNext(2003);
+    join.close();
+
+    Assert.assertEquals(Collections.singleton("1003-2003"), recorder.getPairs());
+    Assert.assertEquals(1, join.getEvictedCount());
+  }
+
+  @Test
+  public void testTimeWindowEvictsOldEvents() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final Recorder recorder = new Recorder();
+    final JoinStage<Integer, Integer, Integer> join =
+        new JoinStage<>("timeWindow", KEY, KEY, recorder, 2, 1000, 100, 1000, null);
+    final EventHandler<Integer> left = join.getLeftHandler();
+    final EventHandler<Integer> right = join.getRightHandler();
+
+    left.onNext(1001);
+    left.onNext(1002);
+    Thread.sleep(300);
+    left.onNext(3002);
+    right.onNext(2001);
+    right.onNext(2002);
+    join.close();
+
+    Assert.assertEquals(Collections.singleton("3002-2002"), recorder.getPairs());
+  }
+}
@@ -19,13 +19,26 @@
 package org.apache.reef.wake.test;
 
 
+import org.apache.reef.wake.AbstractEStage;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.BatchingStage;
+import org.apache.reef.wake.impl.SingleThreadStage;
+import org.apache.reef.wake.impl.StageManager;
+import org.apache.reef.wake.impl.SyncStage;
+import org.apache.reef.wake.impl.ThreadPoolStage;
 import org.apache.reef.wake.metrics.Histogram;
+import org.apache.reef.wake.metrics.LogLinearHistogram;
 import org.apache.reef.wake.metrics.UniformHistogram;
+import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TestName;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Metrics tests.
@@ -52,4 +65,97 @@ public class MetricsTest {
       histogram.getValue(i);
     }
   }
+
+  @Test
+  public void testLogLinearHistogram() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final LogLinearHistogram histogram = new LogLinearHistogram();
+    for (long value = 1; value <= 100000; ++value) {
+      histogram.update(value);
+    }
+
+    Assert.assertEquals(100000, histogram.getCount());
+    Assert.assertEquals(100000, histogram.getMax());
+    Assert.assertEquals(50000.5, histogram.getMean(), 1e-9);
+
+    // a percentile estimate is the lower bound of its bin, which is within 1/16 of the exact value
+    for (final double percentile : new double[] {1, 50, 90, 99, 99.9}) {
+      final double exact = percentile * 1000;
+      final long estimate = histogram.getValueAtPercentile(percentile);
+      Assert.assertTrue(percentile + ": " + estimate, estimate <= exact && estimate > exact * 15 / 16);
+    }
+
+    long total = 0;
+    for (int i = 0; i < histogram.getNumBins(); ++i) {
+      total += histogram.getValue(i);
+    }
+    Assert.assertEquals(histogram.getCount(), total);
+
+    histogram.update(Long.MAX_VALUE);
+    histogram.update(-1);
+    Assert.assertEquals(1, histogram.getValue(histogram.getNumBins() - 1));
+    Assert.assertEquals(1, histogram.getValue(0));
+  }
+
+  @Test
+  public void testStageLatencyRegistry() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final SyncStage<Integer> stage = new SyncStage<>("latency-registry", new EventHandler<Integer>() {
+      @Override
+      public void onNext(final Integer value) {
+        // no op
+      }
+    });
+    for (int i = 0; i < 100; ++i) {
+      stage.onNext(i);
+    }
+
+    Assert.assertTrue(StageManager.instance().getStages().contains(stage));
+    Assert.assertEquals("latency-registry", stage.getName());
+    Assert.assertEquals(100, stage.getServiceTime().getCount());
+    Assert.assertEquals(100, stage.getQueueTime().getCount());
+    stage.close();
+    Assert.assertFalse(StageManager.instance().getStages().contains(stage));
+  }
+
+  @Test
+  public void testQueuingStagesRecordQueueTime() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numEvents = 100;
+    final CountDownLatch done = new CountDownLatch(3 * numEvents);
+    final EventHandler<Integer> handler = new EventHandler<Integer>() {
+      @Override
+      public void onNext(final Integer value) {
+        done.countDown();
+      }
+    };
+    final List<AbstractEStage<Integer>> stages = new ArrayList<>();
+    stages.add(new SingleThreadStage<>("queue-time-single", handler, numEvents));
+    stages.add(new ThreadPoolStage<>("queue-time-bounded", handler, 2, null,
+        numEvents, ThreadPoolStage.OverflowPolicy.BLOCK, null));
+    stages.add(new BatchingStage<>("queue-time-batching", new EventHandler<List<Integer>>() {
+      @Override
+      public void onNext(final List<Integer> batch) {
+        for (final Integer value : batch) {
+          handler.onNext(value);
+        }
+      }
+    }, 16, 0, numEvents));
+
+    for (int i = 0; i < numEvents; ++i) {
+      for (final AbstractEStage<Integer> stage : stages) {
+        stage.onNext(i);
+      }
+    }
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+
+    for (final AbstractEStage<Integer> stage : stages) {
+      stage.close();
+      Assert.assertEquals(stage.getName(), numEvents, stage.getQueueTime().getCount());
+      Assert.assertFalse(stage.getName(), StageManager.instance().getStages().contains(stage));
+    }
+  }
 }
@@ -29,6 +29,10 @@ import org.junit.Test;
 import org.junit.rules.TestName;
 
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -178,6 +182,193 @@ public class ThreadPoolStageTest {
     System.out.println("2: mean output throughput: " + stage2.getOutMeter().getMeanThp() + " events/sec");
   }
 
+  @Test
+  public void testBoundedThreadPoolStageBlock() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final AtomicInteger handled = new AtomicInteger();
+    final ThreadPoolStage<TestEvent> stage = new ThreadPoolStage<>("bounded-block",
+        new EventHandler<TestEvent>() {
+          @Override
+          public void onNext(final TestEvent value) {
+            sleep(1);
+            handled.incrementAndGet();
+          }
+        }, 2, null, 4, ThreadPoolStage.OverflowPolicy.BLOCK, null);
+
+    for (int i = 0; i < 100; ++i) {
+      stage.onNext(new TestEvent());
+      Assert.assertTrue(stage.getQueueLength() <= 4);
+    }
+    stage.close();
+
+    Assert.assertEquals(100, handled.get());
+    Assert.assertEquals(100, stage.getServiceTime().getCount());
+    Assert.assertTrue(stage.getEnqueueWaitTime().getCount() > 0);
+  }
+
+  @Test
+  public void testBoundedThreadPoolStageDrop() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger handled = new AtomicInteger();
+    final AtomicInteger dropped = new AtomicInteger();
+    final ThreadPoolStage<TestEvent> stage = new ThreadPoolStage<>("bounded-drop",
+        new EventHandler<TestEvent>() {
+          @Override
+          public void onNext(final TestEvent value) {
+            await(release);
+            handled.incrementAndGet();
+          }
+        }, 1, null, 2, ThreadPoolStage.OverflowPolicy.DROP,
+        new EventHandler<TestEvent>() {
+          @Override
+          public void onNext(final TestEvent value) {
+            dropped.incrementAndGet();
+          }
+        });
+
+    // the worker holds at most one event and the queue two, so at least seven of ten are dropped
+    for (int i = 0; i < 10; ++i) {
+      stage.onNext(new TestEvent());
+    }
+    release.countDown();
+    stage.close();
+
+    Assert.assertTrue(dropped.get() >= 7);
+    Assert.assertEquals(dropped.get(), stage.getDropMeter().getCount());
+    Assert.assertEquals(10, handled.get() + dropped.get());
+  }
+
+  @Test
+  public void testBoundedThreadPoolStageCallerRuns() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final CountDownLatch release = new CountDownLatch(1);
+    final Thread caller = Thread.currentThread();
+    final AtomicInteger handledByCaller = new AtomicInteger();
+    final AtomicInteger handled = new AtomicInteger();
+    final ThreadPoolStage<TestEvent> stage = new ThreadPoolStage<>("bounded-caller-runs",
+        new EventHandler<TestEvent>() {
+          @Override
+          public void onNext(final TestEvent value) {
+            if (Thread.currentThread() == caller) {
+              handledByCaller.incrementAndGet();
+            } else {
+              await(release);
+            }
+            handled.incrementAndGet();
+          }
+        }, 1, null, 1, ThreadPoolStage.OverflowPolicy.CALLER_RUNS, null);
+
+    for (int i = 0; i < 10; ++i) {
+      stage.onNext(new TestEvent());
+    }
+    release.countDown();
+    stage.close();
+
+    Assert.assertTrue(handledByCaller.get() >= 8);
+    Assert.assertEquals(10, handled.get());
+  }
+
+  /**
+   * An Error thrown by the handler of a bounded stage without an error handler must not kill its worker,
+   * otherwise the callers blocked on the full queue would wait forever.
+   */
+  @Test
+  public void testBoundedThreadPoolStageWorkerSurvivesError() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final AtomicInteger handled = new AtomicInteger();
+    final ThreadPoolStage<TestEvent> stage = new ThreadPoolStage<>("bounded-error",
+        new EventHandler<TestEvent>() {
+          @Override
+          public void onNext(final TestEvent value) {
+            if (handled.incrementAndGet() % 2 == 1) {
+              throw new AssertionError("error from the handler");
+            }
+          }
+        }, 1, null, 1, ThreadPoolStage.OverflowPolicy.BLOCK, null);
+
+    for (int i = 0; i < 20; ++i) {
+      stage.onNext(new TestEvent());
+    }
+    stage.close();
+
+    Assert.assertEquals(20, handled.get());
+    Assert.assertEquals(0, stage.getActiveCount());
+  }
+
+  /**
+   * Every event sent to a bounded stage while it is being closed is either handled or rejected.
+   */
+  @Test
+  public void testBoundedThreadPoolStageCloseWhileQueueing() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final int numProducers = 4;
+    for (int round = 0; round < 20; ++round) {
+      final AtomicInteger handled = new AtomicInteger();
+      final AtomicInteger rejected = new AtomicInteger();
+      final AtomicInteger sent = new AtomicInteger();
+      final ThreadPoolStage<TestEvent> stage = new ThreadPoolStage<>("bounded-close",
+          new EventHandler<TestEvent>() {
+            @Override
+            public void onNext(final TestEvent value) {
+              handled.incrementAndGet();
+            }
+          }, 2, null, 2, ThreadPoolStage.OverflowPolicy.BLOCK, null);
+
+      final CountDownLatch started = new CountDownLatch(numProducers);
+      final Thread[] producers = new Thread[numProducers];
+      for (int i = 0; i < numProducers; ++i) {
+        producers[i] = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            started.countDown();
+            while (true) {
+              sent.incrementAndGet();
+              try {
+                stage.onNext(new TestEvent());
+              } catch (final RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                return;
+              }
+            }
+          }
+        });
+        producers[i].start();
+      }
+
+      await(started);
+      stage.close();
+      for (final Thread producer : producers) {
+        producer.join(10000);
+      }
+
+      Assert.assertEquals("events handled or rejected in round " + round,
+          sent.get(), handled.get() + rejected.get());
+      Assert.assertEquals(0, stage.getActiveCount());
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(final CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   class TestEvent {
   }
 
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test;
+
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.profiler.HandlerStatistics;
+import org.apache.reef.wake.profiler.WakeProfiler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the sampling mode of the WakeProfiler.
+ */
+public class WakeProfilerTest {
+
+  private static final int NUM_EVENTS = 20000;
+
+  @Test
+  public void testSampledStatistics() throws Exception {
+    final WakeProfiler profiler = new WakeProfiler(10);
+    final CountingHandler handler = newHandler(profiler);
+
+    for (int i = 0; i < NUM_EVENTS; ++i) {
+      handler.onNext(i);
+    }
+    Assert.assertEquals("Every event must reach the handler", NUM_EVENTS, handler.getCount());
+
+    final List<HandlerStatistics> statistics = profiler.getHandlerStatistics();
+    Assert.assertEquals(1, statistics.size());
+    final HandlerStatistics s = statistics.get(0);
+    Assert.assertEquals(CountingHandler.class.getName(), s.getName());
+    Assert.assertTrue("About one in 10 events must be timed, got " + s.getSampleCount(),
+        s.getSampleCount() > NUM_EVENTS / 20 && s.getSampleCount() < NUM_EVENTS / 5);
+    Assert.assertEquals(s.getSampleCount() * 10, s.getEstimatedEventCount());
+
+    final String report = profiler.getReport();
+    Assert.assertTrue(report, report.contains(CountingHandler.class.getName()));
+  }
+
+  @Test
+  public void testHttpReport() throws Exception {
+    try (final WakeProfiler profiler = new WakeProfiler()) {
+      final CountingHandler handler = newHandler(profiler);
+      handler.onNext(1);
+
+      final int port = profiler.startHttpServer(0);
+      final String report = get("http://localhost:" + port + "/profile");
+      Assert.assertTrue(report, report.contains(CountingHandler.class.getName()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSampleRate() {
+    new WakeProfiler(0);
+  }
+
+  private static CountingHandler newHandler(final WakeProfiler profiler) throws Exception {
+    final Injector injector = Tang.Factory.getTang().newInjector();
+    injector.bindAspect(profiler);
+    return injector.getInstance(CountingHandler.class);
+  }
+
+  private static String get(final String url) throws Exception {
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    try (final InputStream in = connection.getInputStream()) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[4096];
+      for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+        out.write(buffer, 0, n);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /**
+   * Event handler that the profiler instruments.
+   */
+  public static class CountingHandler implements EventHandler<Integer> {
+
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    @Inject
+    public CountingHandler() {
+    }
+
+    @Override
+    public void onNext(final Integer value) {
+      count.incrementAndGet();
+    }
+
+    int getCount() {
+      return count.get();
+    }
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
+import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for the stream over a message received in chunks and the transport event that holds it.
+ */
+public class ChunkedMessageInputStreamTest {
+
+  private static final int HEADER_SIZE = 4;
+
+  @Test
+  public void testReadAcrossChunks() throws Exception {
+    final byte[] message = newMessage(1000);
+    final ChunkedMessageInputStream stream = split(message, 7, 300, 0, 693);
+
+    Assert.assertEquals(message.length, stream.getLength());
+    Assert.assertEquals(message.length, stream.available());
+
+    final byte[] read = new byte[message.length];
+    Assert.assertEquals(message[0] & 0xff, stream.read());
+    new DataInputStream(stream).readFully(read, 1, read.length - 1);
+    read[0] = message[0];
+
+    Assert.assertArrayEquals(message, read);
+    Assert.assertEquals(0, stream.available());
+    Assert.assertEquals(-1, stream.read());
+    Assert.assertEquals(-1, stream.read(read, 0, 10));
+  }
+
+  @Test
+  public void testSkipAndToByteArray() throws Exception {
+    final byte[] message = newMessage(100);
+    final ChunkedMessageInputStream stream = split(message, 10, 10, 80);
+
+    Assert.assertEquals(15, stream.skip(15));
+    Assert.assertArrayEquals(Arrays.copyOfRange(message, 15, 100), stream.toByteArray());
+    Assert.assertEquals(0, stream.skip(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLengthMismatch() {
+    final List<byte[]> chunks = new ArrayList<>();
+    chunks.add(new byte[HEADER_SIZE + 10]);
+    new ChunkedMessageInputStream(chunks, HEADER_SIZE, 11);
+  }
+
+  @Test
+  public void testTransportEventCopiesChunksOnce() throws Exception {
+    final byte[] message = newMessage(1000);
+    final TransportEvent event = new TransportEvent(split(message, 100, 900), null, null);
+    Assert.assertEquals(message.length, event.getSize());
+
+    final int numThreads = 4;
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<byte[]>> results = new ArrayList<>();
+    final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      for (int i = 0; i < numThreads; ++i) {
+        results.add(executor.submit(new Callable<byte[]>() {
+          @Override
+          public byte[] call() throws Exception {
+            start.await();
+            return event.getData();
+          }
+        }));
+      }
+      start.countDown();
+      for (final Future<byte[]> result : results) {
+        Assert.assertSame(event.getData(), result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertArrayEquals(message, event.getData());
+    Assert.assertArrayEquals(message, toByteArray(event.getInputStream()));
+  }
+
+  @Test
+  public void testTransportEventHandsOutStreamOnce() throws Exception {
+    final byte[] message = newMessage(100);
+    final TransportEvent event = new TransportEvent(split(message, 10, 90), null, null);
+
+    Assert.assertArrayEquals(message, toByteArray(event.getInputStream()));
+    Assert.assertEquals(message.length, event.getSize());
+    try {
+      event.getData();
+      Assert.fail("The data of a consumed stream must not be returned");
+    } catch (final IllegalStateException expected) {
+      // the chunks have been handed out
+    }
+  }
+
+  private static byte[] toByteArray(final InputStream stream) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[64];
+    for (int n = stream.read(buffer); n >= 0; n = stream.read(buffer)) {
+      out.write(buffer, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  private static byte[] newMessage(final int size) {
+    final byte[] message = new byte[size];
+    for (int i = 0; i < size; ++i) {
+      message[i] = (byte) (i * 31);
+    }
+    return message;
+  }
+
+  /**
+   * Splits the message into chunks of the given sizes, the first one prefixed with a header.
+   */
+  private static ChunkedMessageInputStream split(final byte[] message, final int... sizes) {
+    final List<byte[]> chunks = new ArrayList<>();
+    int offset = 0;
+    for (int i = 0; i < sizes.length; ++i) {
+      final int header = i == 0 ? HEADER_SIZE : 0;
+      final byte[] chunk = new byte[header + sizes[i]];
+      System.arraycopy(message, offset, chunk, header, sizes[i]);
+      offset += sizes[i];
+      chunks.add(chunk);
+    }
+    return new ChunkedMessageInputStream(chunks, HEADER_SIZE, message.length);
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import org.apache.reef.tang.Configuration;
+import org.apache.reef.tang.Injector;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.LoggingEventHandler;
+import org.apache.reef.wake.impl.LoggingUtils;
+import org.apache.reef.wake.remote.*;
+import org.apache.reef.wake.remote.address.LocalAddressProvider;
+import org.apache.reef.wake.remote.impl.ByteCodec;
+import org.apache.reef.wake.remote.impl.MultiCodec;
+import org.apache.reef.wake.remote.impl.ObjectSerializableCodec;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.StripedRemoteReceiverStage;
+import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.apache.reef.wake.remote.ports.TcpPortProvider;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Tests for concurrent per-sender dispatch in the remote manager.
+ */
+public class ConcurrentDispatchTest {
+
+  private static final String LOG_PREFIX = "TEST ";
+
+  private static final int NUM_SENDERS = 4;
+  private static final int NUM_HEARTBEATS = 100;
+
+  private static final int NUM_STRIPES = 4;
+  private static final int NUM_STRIPED_SENDERS = 16;
+  private static final int NUM_STRIPED_EVENTS = 1000;
+
+  @Rule
+  public final TestName name = new TestName();
+
+  /**
+   * Each handler blocks until a handler for another sender is running at the same time.
+   * This only finishes if senders on different stripes are dispatched concurrently.
+   */
+  @Test
+  public void testStripesAreDispatchedConcurrently() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final AtomicInteger running = new AtomicInteger(0);
+    final CountDownLatch overlap = new CountDownLatch(1);
+    final CountDownLatch received = new CountDownLatch(NUM_STRIPED_SENDERS);
+    final AtomicBoolean timedOut = new AtomicBoolean(false);
+
+    final StripedRemoteReceiverStage stage = new StripedRemoteReceiverStage(
+        new EventHandler<RemoteEvent<byte[]>>() {
+          @Override
+          public void onNext(final RemoteEvent<byte[]> value) {
+            if (running.incrementAndGet() > 1) {
+              overlap.countDown();
+            }
+            try {
+              if (!overlap.await(10, TimeUnit.SECONDS)) {
+                timedOut.set(true);
+              }
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+            } finally {
+              running.decrementAndGet();
+            }
+            received.countDown();
+          }
+        }, new LoggingEventHandler<Throwable>(), NUM_STRIPES);
+
+    for (final TransportEvent event : newEvents(1)) {
+      stage.onNext(event);
+    }
+
+    Assert.assertTrue("Events did not arrive in time", received.await(30, TimeUnit.SECONDS));
+    stage.close();
+
+    Assert.assertFalse("Events of different stripes were not dispatched concurrently", timedOut.get());
+  }
+
+  /**
+   * Events of every sender are delivered in the order they were received, while the senders share the stripes.
+   */
+  @Test
+  public void testStripesKeepSenderOrder() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final CountDownLatch received = new CountDownLatch(NUM_STRIPED_SENDERS * NUM_STRIPED_EVENTS);
+    final ConcurrentMap<SocketAddress, Long> lastSeq = new ConcurrentHashMap<>();
+    final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+
+    final StripedRemoteReceiverStage stage = new StripedRemoteReceiverStage(
+        new EventHandler<RemoteEvent<byte[]>>() {
+          @Override
+          public void onNext(final RemoteEvent<byte[]> value) {
+            final Long prev = lastSeq.put(value.remoteAddress(), value.getSeq());
+            if (value.getSeq() != (prev == null ? 0 : prev + 1)) {
+              outOfOrder.set(true);
+            }
+            received.countDown();
+          }
+        }, new LoggingEventHandler<Throwable>(), NUM_STRIPES);
+
+    for (final TransportEvent event : newEvents(NUM_STRIPED_EVENTS)) {
+      stage.onNext(event);
+    }
+
+    Assert.assertTrue("Events did not arrive in time", received.await(30, TimeUnit.SECONDS));
+    stage.close();
+
+    Assert.assertFalse("Events of a sender were delivered out of order", outOfOrder.get());
+    Assert.assertEquals(NUM_STRIPED_SENDERS, lastSeq.size());
+  }
+
+  /**
+   * Sends heartbeats from several remote managers to one receiver with concurrent dispatch
+   * and checks that the heartbeats of every sender arrive in order.
+   */
+  @Test
+  public void testConcurrentDispatchKeepsSenderOrder() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.ConcurrentDispatch.class, "true")
+        .build();
+    final Injector injector = Tang.Factory.getTang().newInjector(conf);
+    final RemoteManagerFactory factory = injector.getInstance(RemoteManagerFactory.class);
+    final LocalAddressProvider localAddressProvider = injector.getInstance(LocalAddressProvider.class);
+    final TcpPortProvider tcpPortProvider = injector.getInstance(TcpPortProvider.class);
+    final String hostAddress = localAddressProvider.getLocalAddress();
+
+    final Map<Class<?>, Codec<?>> clazzToCodecMap = new HashMap<>();
+    clazzToCodecMap.put(StartEvent.class, new ObjectSerializableCodec<StartEvent>());
+    clazzToCodecMap.put(TestEvent.class, new ObjectSerializableCodec<TestEvent>());
+    final Codec<?> codec = new MultiCodec<Object>(clazzToCodecMap);
+
+    final RemoteManager receiver = factory.getInstance("receiver", hostAddress, 0, codec,
+        new LoggingEventHandler<Throwable>(), false, 3, 10000, localAddressProvider, tcpPortProvider);
+
+    final CountDownLatch started = new CountDownLatch(NUM_SENDERS);
+    final CountDownLatch received = new CountDownLatch(NUM_SENDERS * NUM_HEARTBEATS);
+    final ConcurrentMap<String, Double> lastSeen = new ConcurrentHashMap<>();
+    final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+
+    receiver.registerHandler(StartEvent.class, new EventHandler<RemoteMessage<StartEvent>>() {
+      @Override
+      public void onNext(final RemoteMessage<StartEvent> value) {
+        started.countDown();
+      }
+    });
+
+    receiver.registerHandler(TestEvent.class, new EventHandler<RemoteMessage<TestEvent>>() {
+      @Override
+      public void onNext(final RemoteMessage<TestEvent> value) {
+        final TestEvent heartbeat = value.getMessage();
+        final Double prev = lastSeen.put(heartbeat.getMessage(), heartbeat.getLoad());
+        if (prev != null && prev >= heartbeat.getLoad()) {
+          outOfOrder.set(true);
+        }
+        received.countDown();
+      }
+    });
+
+    final List<RemoteManager> senders = new ArrayList<>(NUM_SENDERS);
+    final List<EventHandler<TestEvent>> heartbeatHandlers = new ArrayList<>(NUM_SENDERS);
+    for (int i = 0; i < NUM_SENDERS; ++i) {
+      final RemoteManager sender = factory.getInstance("sender" + i, hostAddress, 0, codec,
+          new LoggingEventHandler<Throwable>(), false, 3, 10000, localAddressProvider, tcpPortProvider);
+      senders.add(sender);
+      // establish the link before the burst so that no event waits in the pre-connection queue
+      sender.<StartEvent>getHandler(receiver.getMyIdentifier(), StartEvent.class).onNext(new StartEvent());
+      heartbeatHandlers.add(sender.<TestEvent>getHandler(receiver.getMyIdentifier(), TestEvent.class));
+    }
+    Assert.assertTrue("Senders did not connect in time", started.await(30, TimeUnit.SECONDS));
+
+    for (int seq = 0; seq < NUM_HEARTBEATS; ++seq) {
+      for (int i = 0; i < NUM_SENDERS; ++i) {
+        heartbeatHandlers.get(i).onNext(new TestEvent("sender" + i, seq));
+      }
+    }
+    Assert.assertTrue("Heartbeats did not arrive in time", received.await(60, TimeUnit.SECONDS));
+
+    for (final RemoteManager sender : senders) {
+      sender.close();
+    }
+    receiver.close();
+
+    Assert.assertFalse("Heartbeats of a sender were dispatched out of order", outOfOrder.get());
+  }
+
+  /**
+   * Creates numEvents events for each of the striped senders, interleaved across the senders.
+   */
+  private static List<TransportEvent> newEvents(final int numEvents) {
+    final SocketAddress local = new InetSocketAddress("localhost", 1000);
+    final RemoteEventCodec<byte[]> codec = new RemoteEventCodec<>(new ByteCodec());
+    final List<TransportEvent> events = new ArrayList<>(NUM_STRIPED_SENDERS * numEvents);
+    for (long seq = 0; seq < numEvents; ++seq) {
+      for (int i = 0; i < NUM_STRIPED_SENDERS; ++i) {
+        final SocketAddress remote = new InetSocketAddress("localhost", 2000 + i);
+        final byte[] data = codec.encode(new RemoteEvent<>(remote, local, seq, new byte[]{(byte) seq}));
+        events.add(new TransportEvent(data, local, remote));
+      }
+    }
+    return events;
+  }
+}
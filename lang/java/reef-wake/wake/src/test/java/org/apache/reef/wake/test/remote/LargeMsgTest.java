@@ -18,6 +18,7 @@
  */
 package org.apache.reef.wake.test.remote;
 
+import org.apache.reef.tang.Configuration;
 import org.apache.reef.tang.Injector;
 import org.apache.reef.tang.Tang;
 import org.apache.reef.tang.exceptions.InjectionException;
@@ -27,11 +28,14 @@ import org.apache.reef.wake.impl.LoggingEventHandler;
 import org.apache.reef.wake.impl.LoggingUtils;
 import org.apache.reef.wake.impl.ThreadPoolStage;
 import org.apache.reef.wake.impl.TimerStage;
+import org.apache.reef.wake.remote.RemoteConfiguration;
 import org.apache.reef.wake.remote.address.LocalAddressProvider;
+import org.apache.reef.wake.remote.impl.CompressionStatistics;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 import org.apache.reef.wake.remote.transport.Link;
 import org.apache.reef.wake.remote.transport.Transport;
 import org.apache.reef.wake.remote.transport.TransportFactory;
+import org.apache.reef.wake.remote.transport.netty.NettyMessagingTransport;
 import org.apache.reef.wake.test.util.Monitor;
 import org.apache.reef.wake.test.util.PassThroughEncoder;
 import org.apache.reef.wake.test.util.TimeoutHandler;
@@ -39,6 +43,9 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.util.logging.Level;
 
@@ -52,6 +59,7 @@ public class LargeMsgTest {
   private static final int L_0 = 1 << 25;
   private static final int L_1 = 1 << 2;
   private static final int L_2 = 1 << 21;
+  private static final int PROBE_SIZE = 1 << 12;
 
   public LargeMsgTest() throws InjectionException {
     final Injector injector = Tang.Factory.getTang().newInjector();
@@ -79,6 +87,74 @@ public class LargeMsgTest {
   @Test
   public void testLargeWrite() throws Exception {
     LoggingUtils.setLoggingLevel(Level.FINE);
+    runLargeWrite(this.tpFactory, this.tpFactory, false, false);
+  }
+
+  /**
+   * Receive the messages above 1 MB in chunks and read them through the stream of the event.
+   */
+  @Test
+  public void testLargeStreamingWrite() throws Exception {
+    LoggingUtils.setLoggingLevel(Level.FINE);
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.StreamingReceiveThreshold.class, Integer.toString(1 << 20))
+        .build();
+    final TransportFactory factory = Tang.Factory.getTang().newInjector(conf).getInstance(TransportFactory.class);
+    runLargeWrite(factory, factory, true, false);
+  }
+
+  /**
+   * Compress the messages from 1 KB on. Both ends of the link are in the same transport.
+   */
+  @Test
+  public void testLargeCompressedWrite() throws Exception {
+    LoggingUtils.setLoggingLevel(Level.FINE);
+    final TransportFactory factory = newCompressingFactory();
+    final CompressionStatistics statistics = runLargeWrite(factory, factory, true, true);
+
+    // one probe and the two large messages; the 4 byte message is below the threshold
+    Assert.assertEquals(3, statistics.getCompressedMessages());
+    Assert.assertEquals(0, statistics.getSkippedMessages());
+    Assert.assertEquals(3, statistics.getDecompressedMessages());
+    Assert.assertEquals(PROBE_SIZE + L_0 + L_2, statistics.getBytesBeforeCompression());
+    Assert.assertTrue(statistics.toString(),
+        statistics.getBytesAfterCompression() < statistics.getBytesBeforeCompression() / 100);
+  }
+
+  /**
+   * A transport with compression enabled and one without it exchange plain messages, in both directions.
+   */
+  @Test
+  public void testMixedCompressionConfiguration() throws Exception {
+    LoggingUtils.setLoggingLevel(Level.FINE);
+    final TransportFactory compressingFactory = newCompressingFactory();
+
+    CompressionStatistics statistics = runLargeWrite(compressingFactory, this.tpFactory, false, false);
+    Assert.assertEquals(0, statistics.getCompressedMessages());
+
+    statistics = runLargeWrite(this.tpFactory, compressingFactory, false, false);
+    Assert.assertEquals(0, statistics.getCompressedMessages());
+  }
+
+  private static TransportFactory newCompressingFactory() throws InjectionException {
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.CompressionThreshold.class, Integer.toString(1 << 10))
+        .bindNamedParameter(RemoteConfiguration.StreamingReceiveThreshold.class, Integer.toString(1 << 20))
+        .build();
+    return Tang.Factory.getTang().newInjector(conf).getInstance(TransportFactory.class);
+  }
+
+  /**
+   * Writes the values from a transport of the sender factory to one of the receiver factory,
+   * or within one transport if the factories are the same.
+   *
+   * @param awaitCompression whether to send probes until one is compressed, so that the values are
+   * @return the compression statistics of the sending transport
+   */
+  private CompressionStatistics runLargeWrite(final TransportFactory senderFactory,
+                                              final TransportFactory receiverFactory,
+                                              final boolean readStream,
+                                              final boolean awaitCompression) throws Exception {
     final Monitor monitor = new Monitor();
     final TimerStage timer = new TimerStage(new TimeoutHandler(monitor), 20000, 20000);
 
@@ -86,13 +162,30 @@ public class LargeMsgTest {
 
     final EStage<TransportEvent> clientStage = new ThreadPoolStage<>("client1",
         new LoggingEventHandler<TransportEvent>(), 1, new LoggingEventHandler<Throwable>());
+    final ServerHandler serverHandler = new ServerHandler(monitor, dataSize, readStream);
     final EStage<TransportEvent> serverStage = new ThreadPoolStage<>("server@7001",
-        new ServerHandler(monitor, dataSize), 1, new LoggingEventHandler<Throwable>());
+        serverHandler, 1, new LoggingEventHandler<Throwable>());
 
     final String hostAddress = this.localAddressProvider.getLocalAddress();
-    final Transport transport = tpFactory.newInstance(hostAddress, 0, clientStage, serverStage, 1, 10000);
-    final int port = transport.getListeningPort();
-    final Link<byte[]> link = transport.open(new InetSocketAddress(hostAddress, port), new PassThroughEncoder(), null);
+    final Transport receiver = receiverFactory.newInstance(hostAddress, 0, clientStage, serverStage, 1, 10000);
+    final Transport sender = senderFactory == receiverFactory ? receiver :
+        senderFactory.newInstance(hostAddress, 0, clientStage, clientStage, 1, 10000);
+    final int port = receiver.getListeningPort();
+    final Link<byte[]> link = sender.open(new InetSocketAddress(hostAddress, port), new PassThroughEncoder(), null);
+    final CompressionStatistics statistics = ((NettyMessagingTransport) sender).getCompressionStatistics();
+
+    if (awaitCompression) {
+      // the link compresses only after the peers agreed on it, which happens when it is opened
+      final long deadline = System.currentTimeMillis() + 10000;
+      for (int probes = 1; statistics.getCompressedMessages() == 0; ++probes) {
+        Assert.assertTrue("The link did not start compressing", System.currentTimeMillis() < deadline);
+        link.write(new byte[PROBE_SIZE]);
+        while (serverHandler.getProbeCount() < probes) {
+          Thread.sleep(1);
+        }
+      }
+    }
+
     final EStage<byte[]> writeSubmitter = new ThreadPoolStage<>("Submitter", new EventHandler<byte[]>() {
 
       @Override
@@ -105,28 +198,49 @@ public class LargeMsgTest {
     writeSubmitter.onNext(VALUES[2]);
 
     monitor.mwait();
+    Assert.assertEquals("Not all messages were received intact", dataSize, serverHandler.getReceivedSize());
 
-    transport.close();
+    writeSubmitter.close();
+    if (sender != receiver) {
+      sender.close();
+    }
+    receiver.close();
     clientStage.close();
     serverStage.close();
     timer.close();
+    return statistics;
   }
 
   class ServerHandler implements EventHandler<TransportEvent> {
 
     private final Monitor monitor;
     private final long expectedSize;
-    private long accSize;
+    private final boolean readStream;
+    private volatile long accSize;
+    private volatile int probeCount;
 
-    ServerHandler(final Monitor monitor, final long expectedSize) {
+    ServerHandler(final Monitor monitor, final long expectedSize, final boolean readStream) {
       this.monitor = monitor;
       this.expectedSize = expectedSize;
+      this.readStream = readStream;
       this.accSize = 0;
     }
 
+    long getReceivedSize() {
+      return accSize;
+    }
+
+    int getProbeCount() {
+      return probeCount;
+    }
+
     @Override
     public void onNext(final TransportEvent value) {
-      final byte[] data = value.getData();
+      final byte[] data = readStream ? readFully(value.getInputStream(), value.getSize()) : value.getData();
+      if (data.length == PROBE_SIZE) {
+        ++probeCount;
+        return;
+      }
 
       switch (data.length) {
       case L_0:
@@ -147,5 +261,16 @@ public class LargeMsgTest {
       }
     }
 
+    private byte[] readFully(final InputStream stream, final int size) {
+      final byte[] data = new byte[size];
+      try {
+        new DataInputStream(stream).readFully(data);
+        Assert.assertEquals("Stream must end after the message", -1, stream.read());
+      } catch (final IOException e) {
+        throw new RuntimeException(e);
+      }
+      return data;
+    }
+
   }
 }
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import org.apache.reef.wake.remote.MessageCompressor;
+import org.apache.reef.wake.remote.impl.ChunkedMessageInputStream;
+import org.apache.reef.wake.remote.impl.DeflateMessageCompressor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for DeflateMessageCompressor.
+ */
+public class MessageCompressorTest {
+
+  private final MessageCompressor compressor = new DeflateMessageCompressor();
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    final byte[] data = new byte[100000];
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = (byte) (i % 7);
+    }
+
+    final byte[] compressed = compressor.compress(data, 0, data.length);
+    Assert.assertNotNull(compressed);
+    Assert.assertTrue(compressed.length < data.length);
+
+    Assert.assertArrayEquals(data, compressor.decompress(new ByteArrayInputStream(compressed), data.length));
+    // the compressor of the thread is reused
+    Assert.assertArrayEquals(data, compressor.decompress(new ByteArrayInputStream(compressed), data.length));
+  }
+
+  /**
+   * A part of an array can be compressed, and a message received in chunks decompressed.
+   */
+  @Test
+  public void testOffsetAndChunks() throws Exception {
+    final byte[] data = new byte[50000];
+    Arrays.fill(data, 10, 40010, (byte) 3);
+
+    final byte[] compressed = compressor.compress(data, 10, 40000);
+    Assert.assertNotNull(compressed);
+
+    final List<byte[]> chunks = new ArrayList<>();
+    for (int i = 0; i < compressed.length; i += 7) {
+      chunks.add(Arrays.copyOfRange(compressed, i, Math.min(i + 7, compressed.length)));
+    }
+    final byte[] decompressed =
+        compressor.decompress(new ChunkedMessageInputStream(chunks, 0, compressed.length), 40000);
+    Assert.assertArrayEquals(Arrays.copyOfRange(data, 10, 40010), decompressed);
+  }
+
+  @Test
+  public void testIncompressible() {
+    final byte[] data = new byte[10000];
+    new Random(1).nextBytes(data);
+    Assert.assertNull("Random bytes must not compress", compressor.compress(data, 0, data.length));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.LoggingEventHandler;
+import org.apache.reef.wake.remote.impl.ByteCodec;
+import org.apache.reef.wake.remote.impl.OrderedRemoteReceiverStage;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.TransportEvent;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for OrderedRemoteReceiverStage.
+ */
+public class OrderedRemoteReceiverStageTest {
+
+  private static final String LOG_PREFIX = "TEST ";
+
+  private static final int NUM_SENDERS = 3;
+  private static final int NUM_EVENTS = 5000;
+
+  @Rule
+  public final TestName name = new TestName();
+
+  @Test
+  public void testShuffledEventsAreDeliveredInOrder() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final SocketAddress local = new InetSocketAddress("localhost", 1000);
+    final RemoteEventCodec<byte[]> codec = new RemoteEventCodec<>(new ByteCodec());
+
+    final CountDownLatch received = new CountDownLatch(NUM_SENDERS * NUM_EVENTS);
+    final ConcurrentMap<SocketAddress, Long> lastSeq = new ConcurrentHashMap<>();
+    final AtomicBoolean outOfOrder = new AtomicBoolean(false);
+
+    final OrderedRemoteReceiverStage stage = new OrderedRemoteReceiverStage(
+        new EventHandler<RemoteEvent<byte[]>>() {
+          @Override
+          public void onNext(final RemoteEvent<byte[]> value) {
+            final Long prev = lastSeq.put(value.remoteAddress(), value.getSeq());
+            if (value.getSeq() != (prev == null ? 0 : prev + 1)) {
+              outOfOrder.set(true);
+            }
+            received.countDown();
+          }
+        }, new LoggingEventHandler<Throwable>(), 4);
+
+    // shuffle the events of every sender so that many of them arrive far ahead of the expected one
+    final List<TransportEvent> events = new ArrayList<>(NUM_SENDERS * NUM_EVENTS);
+    for (int i = 0; i < NUM_SENDERS; ++i) {
+      final SocketAddress remote = new InetSocketAddress("localhost", 2000 + i);
+      for (long seq = 0; seq < NUM_EVENTS; ++seq) {
+        final byte[] data = codec.encode(new RemoteEvent<>(remote, local, seq, new byte[]{(byte) seq}));
+        events.add(new TransportEvent(data, local, remote));
+      }
+    }
+    Collections.shuffle(events, new Random(42));
+
+    for (final TransportEvent event : events) {
+      stage.onNext(event);
+    }
+
+    Assert.assertTrue("Events did not arrive in time", received.await(30, TimeUnit.SECONDS));
+    stage.close();
+
+    Assert.assertFalse("Events of a sender were delivered out of order", outOfOrder.get());
+    Assert.assertEquals(NUM_SENDERS * NUM_EVENTS, stage.getOutOfOrderDepth().getCount());
+    Assert.assertTrue(stage.getOutOfOrderMeter().getCount() > 0);
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import org.apache.reef.wake.remote.Codec;
+import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
+import org.apache.reef.wake.remote.impl.AvroReflectCodec;
+import org.apache.reef.wake.remote.impl.ObjectSerializableCodec;
+import org.apache.reef.wake.remote.impl.RegisteredTypeCodec;
+import org.apache.reef.wake.remote.impl.StringCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tests for RegisteredTypeCodec and AvroReflectCodec.
+ */
+public class RegisteredTypeCodecTest {
+
+  private static Map<Class<?>, Codec<?>> newCodecMap() {
+    final Map<Class<?>, Codec<?>> clazzToCodecMap = new LinkedHashMap<>();
+    clazzToCodecMap.put(String.class, new StringCodec());
+    clazzToCodecMap.put(TestEvent.class, new ObjectSerializableCodec<TestEvent>());
+    clazzToCodecMap.put(Point.class, new AvroReflectCodec<>(Point.class));
+    return clazzToCodecMap;
+  }
+
+  @Test
+  public void testRoundTrip() {
+    final RegisteredTypeCodec<Object> codec = new RegisteredTypeCodec<>(newCodecMap());
+
+    final byte[] stringData = codec.encode("hello");
+    Assert.assertEquals("One byte type id and the fingerprint", "hello".length() + 5, stringData.length);
+    Assert.assertEquals("hello", codec.decode(stringData));
+
+    final TestEvent event = (TestEvent) codec.decode(codec.encode(new TestEvent("event", 1.5)));
+    Assert.assertEquals("event", event.getMessage());
+    Assert.assertEquals(1.5, event.getLoad(), 0.0);
+
+    final Point point = (Point) codec.decode(codec.encode(new Point(3, -4, "p")));
+    Assert.assertEquals(3, point.x);
+    Assert.assertEquals(-4, point.y);
+    Assert.assertEquals("p", point.label);
+  }
+
+  /**
+   * The type ids do not depend on the order of registration.
+   */
+  @Test
+  public void testTypeIdsAgree() {
+    final Map<Class<?>, Codec<?>> reversed = new LinkedHashMap<>();
+    reversed.put(Point.class, new AvroReflectCodec<>(Point.class));
+    reversed.put(TestEvent.class, new ObjectSerializableCodec<TestEvent>());
+    reversed.put(String.class, new StringCodec());
+
+    final RegisteredTypeCodec<Object> encoder = new RegisteredTypeCodec<>(newCodecMap());
+    final RegisteredTypeCodec<Object> decoder = new RegisteredTypeCodec<>(reversed);
+    for (final Class<?> clazz : reversed.keySet()) {
+      Assert.assertEquals(encoder.getTypeId(clazz), decoder.getTypeId(clazz));
+    }
+    Assert.assertEquals(encoder.getFingerprint(), decoder.getFingerprint());
+    Assert.assertEquals("world", decoder.decode(encoder.encode("world")));
+    Assert.assertEquals(-1, encoder.getTypeId(Integer.class));
+  }
+
+  /**
+   * A codec with other classes rejects the message instead of decoding it as the type with the same id.
+   */
+  @Test(expected = RemoteRuntimeException.class)
+  public void testMismatchedClasses() {
+    final Map<Class<?>, Codec<?>> fewer = new LinkedHashMap<>();
+    fewer.put(TestEvent.class, new ObjectSerializableCodec<TestEvent>());
+    fewer.put(Point.class, new AvroReflectCodec<>(Point.class));
+
+    final RegisteredTypeCodec<Object> encoder = new RegisteredTypeCodec<>(newCodecMap());
+    final RegisteredTypeCodec<Object> decoder = new RegisteredTypeCodec<>(fewer);
+    // the Point of the encoder and the TestEvent of the decoder both have the type id 2
+    Assert.assertEquals(encoder.getTypeId(Point.class), decoder.getTypeId(TestEvent.class));
+    decoder.decode(encoder.encode(new Point(1, 2, "p")));
+  }
+
+  @Test(expected = RemoteRuntimeException.class)
+  public void testUnregisteredType() {
+    new RegisteredTypeCodec<Object>(newCodecMap()).encode(Integer.valueOf(1));
+  }
+
+  @Test
+  public void testFallbackCodec() {
+    final RegisteredTypeCodec<Object> codec =
+        new RegisteredTypeCodec<>(newCodecMap(), new ObjectSerializableCodec<Object>());
+    Assert.assertEquals(Integer.valueOf(42), codec.decode(codec.encode(Integer.valueOf(42))));
+    Assert.assertEquals("hello", codec.decode(codec.encode("hello")));
+  }
+
+  @Test(expected = RemoteRuntimeException.class)
+  public void testUnknownTypeId() {
+    final RegisteredTypeCodec<Object> codec = new RegisteredTypeCodec<>(newCodecMap());
+    final byte[] data = codec.encode("hello");
+    data[0] = 100;
+    codec.decode(Arrays.copyOf(data, data.length));
+  }
+
+  /**
+   * A plain data class encoded with Avro reflection.
+   */
+  public static final class Point {
+    private int x;
+    private int y;
+    private String label;
+
+    public Point() {
+    }
+
+    Point(final int x, final int y, final String label) {
+      this.x = x;
+      this.y = y;
+      this.label = label;
+    }
+  }
+}
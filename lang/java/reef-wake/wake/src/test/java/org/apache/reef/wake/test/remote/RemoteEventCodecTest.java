@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import com.google.protobuf.ByteString;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.StringCodec;
+import org.apache.reef.wake.remote.proto.WakeRemoteProtos.WakeMessagePBuf;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.util.Arrays;
+
+/**
+ * Tests that the remote event codec stays wire-compatible with WakeMessagePBuf.
+ */
+public class RemoteEventCodecTest {
+  @Rule
+  public final TestName name = new TestName();
+
+  private static final String LOG_PREFIX = "TEST ";
+
+  @Test
+  public void testEncodeMatchesProtobuf() {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final RemoteEventCodec<String> codec = new RemoteEventCodec<>(new StringCodec());
+    for (final long seq : new long[]{0, 1, 127, 128, Long.MAX_VALUE, -1}) {
+      for (final String msg : new String[]{"", "hello", repeat('x', 300)}) {
+        final byte[] expected = WakeMessagePBuf.newBuilder()
+            .setData(ByteString.copyFromUtf8(msg)).setSeq(seq).build().toByteArray();
+        final byte[] actual = codec.encode(new RemoteEvent<>(null, null, seq, msg));
+        Assert.assertTrue("seq " + seq + " length " + msg.length(), Arrays.equals(expected, actual));
+      }
+    }
+  }
+
+  @Test
+  public void testDecodeProtobuf() {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+
+    final RemoteEventCodec<String> codec = new RemoteEventCodec<>(new StringCodec());
+    final byte[] data = WakeMessagePBuf.newBuilder()
+        .setData(ByteString.copyFromUtf8("hello")).setSeq(42).build().toByteArray();
+    final RemoteEvent<String> event = codec.decode(data);
+    Assert.assertEquals(42, event.getSeq());
+    Assert.assertEquals("hello", event.getEvent());
+  }
+
+  private static String repeat(final char c, final int n) {
+    final char[] chars = new char[n];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+}
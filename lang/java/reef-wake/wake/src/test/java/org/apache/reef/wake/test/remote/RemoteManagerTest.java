@@ -18,6 +18,7 @@
  */
 package org.apache.reef.wake.test.remote;
 
+import org.apache.reef.tang.Configuration;
 import org.apache.reef.tang.Injector;
 import org.apache.reef.tang.Tang;
 import org.apache.reef.tang.exceptions.InjectionException;
@@ -40,8 +41,12 @@ import org.junit.rules.TestName;
 
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -217,6 +222,99 @@ public class RemoteManagerTest {
     timer.close();
   }
 
+  /**
+   * With 2 channels per peer, a remote manager with the ordering guarantee is rejected,
+   * and one without it receives the small messages of the priority channel and the large ones of the other.
+   */
+  @Test
+  public void testRemoteManagerMultipleChannelsTest() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.NumberOfChannelsPerPeer.class, "2")
+        .bindNamedParameter(RemoteConfiguration.PriorityMessageSize.class, "1024")
+        .build();
+    final RemoteManagerFactory factory =
+        Tang.Factory.getTang().newInjector(conf).getInstance(RemoteManagerFactory.class);
+    final Map<Class<?>, Codec<?>> clazzToCodecMap = new HashMap<>();
+    clazzToCodecMap.put(TestEvent.class, new ObjectSerializableCodec<TestEvent>());
+    final Codec<?> codec = new MultiCodec<Object>(clazzToCodecMap);
+    final String hostAddress = localAddressProvider.getLocalAddress();
+    final TcpPortProvider tcpPortProvider = Tang.Factory.getTang().newInjector().getInstance(TcpPortProvider.class);
+
+    try {
+      factory.getInstance("ordered", hostAddress, 0, codec, new LoggingEventHandler<Throwable>(), true, 3, 10000,
+          localAddressProvider, tcpPortProvider);
+      Assert.fail("The ordering guarantee must be rejected with several channels per peer");
+    } catch (final RuntimeException expected) {
+      // the messages of the two channels would wait for each other forever
+    }
+
+    final Monitor monitor = new Monitor();
+    final TimerStage timer = new TimerStage(new TimeoutHandler(monitor), 10000, 10000);
+    final RemoteManager rm = factory.getInstance("unordered", hostAddress, 0, codec,
+        new LoggingEventHandler<Throwable>(), false, 3, 10000, localAddressProvider, tcpPortProvider);
+
+    final int numMessages = 20;
+    final Set<String> received = Collections.synchronizedSet(new HashSet<String>());
+    rm.registerHandler(TestEvent.class, new EventHandler<RemoteMessage<TestEvent>>() {
+      @Override
+      public void onNext(final RemoteMessage<TestEvent> value) {
+        received.add(value.getMessage().getMessage());
+        if (received.size() == numMessages) {
+          monitor.mnotify();
+        }
+      }
+    });
+
+    final char[] padding = new char[4096];
+    Arrays.fill(padding, 'x');
+    final Set<String> sent = new HashSet<>();
+    final EventHandler<TestEvent> proxyHandler = rm.getHandler(rm.getMyIdentifier(), TestEvent.class);
+    for (int i = 0; i < numMessages; ++i) {
+      // every other message is too large for the priority channel
+      final String message = i % 2 == 0 ? "small" + i : "large" + i + new String(padding);
+      sent.add(message);
+      proxyHandler.onNext(new TestEvent(message, i));
+    }
+
+    monitor.mwait();
+    Assert.assertEquals(sent, received);
+
+    rm.close();
+    timer.close();
+  }
+
+  /**
+   * A remote manager with the ordering guarantee rejects the DROP overflow policy.
+   */
+  @Test
+  public void testRemoteManagerOrderingRejectsDropPolicyTest() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.PendingEventsOverflowPolicy.class, "DROP")
+        .build();
+    final RemoteManagerFactory factory =
+        Tang.Factory.getTang().newInjector(conf).getInstance(RemoteManagerFactory.class);
+    final String hostAddress = localAddressProvider.getLocalAddress();
+    final TcpPortProvider tcpPortProvider = Tang.Factory.getTang().newInjector().getInstance(TcpPortProvider.class);
+
+    try {
+      factory.getInstance("ordered", hostAddress, 0, new ObjectSerializableCodec<TestEvent>(),
+          new LoggingEventHandler<Throwable>(), true, 3, 10000, localAddressProvider, tcpPortProvider);
+      Assert.fail("The DROP policy must be rejected with the ordering guarantee");
+    } catch (final RuntimeException expected) {
+      // the receiver would hold all events after a dropped one
+    }
+
+    final RemoteManager rm = factory.getInstance("unordered", hostAddress, 0, new ObjectSerializableCodec<TestEvent>(),
+        new LoggingEventHandler<Throwable>(), false, 3, 10000, localAddressProvider, tcpPortProvider);
+    rm.close();
+  }
+
   @Test
   public void testRemoteManagerPBufTest() throws Exception {
     System.out.println(LOG_PREFIX + name.getMethodName());
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.remote;
+
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.remote.Encoder;
+import org.apache.reef.wake.remote.exception.RemoteRuntimeException;
+import org.apache.reef.wake.remote.impl.RemoteEvent;
+import org.apache.reef.wake.remote.impl.RemoteEventCodec;
+import org.apache.reef.wake.remote.impl.RemoteSenderStage;
+import org.apache.reef.wake.remote.impl.StringCodec;
+import org.apache.reef.wake.remote.transport.Link;
+import org.apache.reef.wake.remote.transport.LinkListener;
+import org.apache.reef.wake.remote.transport.Transport;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for establishing links in RemoteSenderStage.
+ */
+public class RemoteSenderStageTest {
+
+  private static final SocketAddress LOCAL = new InetSocketAddress("localhost", 1000);
+  private static final SocketAddress REMOTE = new InetSocketAddress("localhost", 2000);
+
+  @Rule
+  public TestName name = new TestName();
+
+  /**
+   * A burst of events to a new destination opens one link and arrives in order once it is established.
+   */
+  @Test
+  public void testSingleConnectPerDestination() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    final RemoteSenderStage stage =
+        new RemoteSenderStage(new StringCodec(), transport, 4, 10000, RemoteSenderStage.OverflowPolicy.BLOCK);
+    final EventHandler<RemoteEvent<String>> handler1 = stage.getHandler();
+    final EventHandler<RemoteEvent<String>> handler2 = stage.getHandler();
+
+    for (int i = 0; i < 1000; ++i) {
+      (i % 2 == 0 ? handler1 : handler2).onNext(new RemoteEvent<>(LOCAL, REMOTE, i, "event" + i));
+    }
+    Assert.assertEquals(0, transport.link.getWriteCount());
+
+    transport.connected.countDown();
+    for (int i = 1000; i < 1100; ++i) {
+      handler1.onNext(new RemoteEvent<>(LOCAL, REMOTE, i, "event" + i));
+    }
+    stage.close();
+
+    Assert.assertEquals(1, transport.opens.get());
+    final List<Long> seqs = transport.link.getSeqs();
+    Assert.assertEquals(1100, seqs.size());
+    for (int i = 0; i < seqs.size(); ++i) {
+      Assert.assertEquals("Events must be written in order", i, seqs.get(i).longValue());
+    }
+  }
+
+  /**
+   * With the DROP policy, the events beyond the buffer are dropped while the link is being established.
+   */
+  @Test
+  public void testDropWhenBufferIsFull() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    final RemoteSenderStage stage =
+        new RemoteSenderStage(new StringCodec(), transport, 1, 10, RemoteSenderStage.OverflowPolicy.DROP);
+    final EventHandler<RemoteEvent<String>> handler = stage.getHandler();
+
+    for (int i = 0; i < 100; ++i) {
+      handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, i, "event" + i));
+    }
+    transport.connected.countDown();
+    stage.close();
+
+    Assert.assertEquals(10, transport.link.getWriteCount());
+    Assert.assertEquals(90, stage.getDroppedEvents());
+  }
+
+  /**
+   * With the FAIL policy, the sender gets an exception when the buffer is full.
+   */
+  @Test
+  public void testFailWhenBufferIsFull() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    final RemoteSenderStage stage =
+        new RemoteSenderStage(new StringCodec(), transport, 1, 10, RemoteSenderStage.OverflowPolicy.FAIL);
+    final EventHandler<RemoteEvent<String>> handler = stage.getHandler();
+
+    for (int i = 0; i < 10; ++i) {
+      handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, i, "event" + i));
+    }
+    try {
+      handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 10, "event10"));
+      Assert.fail("The sender must fail when the buffer is full");
+    } catch (final RemoteRuntimeException expected) {
+      // This is expected
+    }
+    transport.connected.countDown();
+    stage.close();
+    Assert.assertEquals(10, transport.link.getWriteCount());
+  }
+
+  /**
+   * Warming up opens the link before the first event.
+   */
+  @Test
+  public void testWarmUp() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    transport.connected.countDown();
+    final RemoteSenderStage stage = new RemoteSenderStage(new StringCodec(), transport, 1);
+
+    stage.warmUp(REMOTE);
+    stage.warmUp(REMOTE);
+    Assert.assertTrue(transport.opened.await(10, TimeUnit.SECONDS));
+
+    stage.<String>getHandler().onNext(new RemoteEvent<>(LOCAL, REMOTE, 0, "event0"));
+    stage.close();
+    Assert.assertEquals(1, transport.opens.get());
+    Assert.assertEquals(1, transport.link.getWriteCount());
+  }
+
+  /**
+   * After a failed connection attempt, whatever it threw, the pending events are dropped
+   * and the next event establishes the link.
+   */
+  @Test
+  public void testReconnectAfterConnectFailure() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    transport.failures.set(1);
+    transport.connected.countDown();
+    final RemoteSenderStage stage =
+        new RemoteSenderStage(new StringCodec(), transport, 1, 10, RemoteSenderStage.OverflowPolicy.BLOCK);
+    final EventHandler<RemoteEvent<String>> handler = stage.getHandler();
+
+    // Block on the full buffer, so that the connection failure has to wake the sender up
+    for (int i = 0; i < 11; ++i) {
+      handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, i, "event" + i));
+    }
+    Assert.assertTrue(transport.opened.await(10, TimeUnit.SECONDS));
+    for (int i = 11; i < 15; ++i) {
+      handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, i, "event" + i));
+    }
+    stage.close();
+
+    Assert.assertEquals(2, transport.opens.get());
+    Assert.assertEquals(10, stage.getDroppedEvents());
+    Assert.assertEquals(5, transport.link.getWriteCount());
+    Assert.assertEquals(10L, transport.link.getSeqs().get(0).longValue());
+  }
+
+  /**
+   * Once the transport removed the closed link, the next event establishes a new one.
+   */
+  @Test
+  public void testReconnectAfterLinkClosed() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    transport.connected.countDown();
+    final RemoteSenderStage stage = new RemoteSenderStage(new StringCodec(), transport, 1);
+    final EventHandler<RemoteEvent<String>> handler = stage.getHandler();
+
+    handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 0, "event0"));
+    Assert.assertTrue(transport.opened.await(10, TimeUnit.SECONDS));
+    handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 1, "event1"));
+
+    transport.closeLink();
+    handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 2, "event2"));
+    handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 3, "event3"));
+    stage.close();
+
+    Assert.assertEquals(2, transport.opens.get());
+    Assert.assertEquals(0, stage.getDroppedEvents());
+    Assert.assertEquals(4, transport.link.getWriteCount());
+  }
+
+  /**
+   * With the BLOCK policy, a sender waits for the link for at most the block time.
+   */
+  @Test
+  public void testBlockIsBounded() throws Exception {
+    System.out.println(name.getMethodName());
+
+    final SlowTransport transport = new SlowTransport();
+    final RemoteSenderStage stage =
+        new RemoteSenderStage(new StringCodec(), transport, 1, 1, RemoteSenderStage.OverflowPolicy.BLOCK, 100);
+    final EventHandler<RemoteEvent<String>> handler = stage.getHandler();
+
+    handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 0, "event0"));
+    try {
+      handler.onNext(new RemoteEvent<>(LOCAL, REMOTE, 1, "event1"));
+      Assert.fail("The sender must not wait for the link longer than the block time");
+    } catch (final RemoteRuntimeException expected) {
+      // This is expected
+    }
+    transport.connected.countDown();
+    stage.close();
+    Assert.assertEquals(1, transport.link.getWriteCount());
+  }
+
+  /**
+   * Transport whose links are established when the test says so.
+   */
+  private static final class SlowTransport implements Transport {
+
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private final CountDownLatch opened = new CountDownLatch(1);
+    private final AtomicInteger opens = new AtomicInteger(0);
+    private final AtomicInteger failures = new AtomicInteger(0);
+    private final RecordingLink link = new RecordingLink();
+    private volatile boolean isOpen = false;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Link<T> open(final SocketAddress remoteAddr, final Encoder<? super T> encoder,
+                            final LinkListener<? super T> listener) {
+      opens.incrementAndGet();
+      try {
+        connected.await();
+      } catch (final InterruptedException e) {
+        throw new RemoteRuntimeException(e);
+      }
+      if (failures.getAndDecrement() > 0) {
+        throw new IllegalStateException("Injected connection failure");
+      }
+      isOpen = true;
+      opened.countDown();
+      return (Link<T>) link;
+    }
+
+    /**
+     * Closes the link; the transport does not return it any more.
+     */
+    void closeLink() {
+      isOpen = false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Link<T> get(final SocketAddress remoteAddr) {
+      return isOpen ? (Link<T>) link : null;
+    }
+
+    @Override
+    public int getListeningPort() {
+      return 1000;
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+      return LOCAL;
+    }
+
+    @Override
+    public void registerErrorHandler(final EventHandler<Exception> handler) {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Link that decodes and records the sequence numbers of the events written to it.
+   */
+  private static final class RecordingLink implements Link<byte[]> {
+
+    private final RemoteEventCodec<String> codec = new RemoteEventCodec<>(new StringCodec());
+    private final List<Long> seqs = new ArrayList<>();
+
+    @Override
+    public synchronized void write(final byte[] value) {
+      seqs.add(codec.decode(value).getSeq());
+    }
+
+    synchronized List<Long> getSeqs() {
+      return new ArrayList<>(seqs);
+    }
+
+    synchronized int getWriteCount() {
+      return seqs.size();
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+      return LOCAL;
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+      return REMOTE;
+    }
+  }
+}
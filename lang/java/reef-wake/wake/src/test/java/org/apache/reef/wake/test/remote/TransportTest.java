@@ -18,6 +18,8 @@
  */
 package org.apache.reef.wake.test.remote;
 
+import io.netty.buffer.ByteBuf;
+import org.apache.reef.tang.Configuration;
 import org.apache.reef.tang.Injector;
 import org.apache.reef.tang.Tang;
 import org.apache.reef.tang.exceptions.InjectionException;
@@ -25,11 +27,13 @@ import org.apache.reef.wake.EStage;
 import org.apache.reef.wake.impl.LoggingUtils;
 import org.apache.reef.wake.impl.TimerStage;
 import org.apache.reef.wake.remote.Codec;
+import org.apache.reef.wake.remote.RemoteConfiguration;
 import org.apache.reef.wake.remote.address.LocalAddressProvider;
 import org.apache.reef.wake.remote.impl.ObjectSerializableCodec;
 import org.apache.reef.wake.remote.impl.TransportEvent;
 import org.apache.reef.wake.remote.transport.Link;
 import org.apache.reef.wake.remote.transport.Transport;
+import org.apache.reef.wake.remote.transport.netty.ByteBufEncoder;
 import org.apache.reef.wake.remote.transport.netty.LoggingLinkListener;
 import org.apache.reef.wake.remote.transport.TransportFactory;
 import org.apache.reef.wake.test.util.Monitor;
@@ -40,6 +44,14 @@ import org.junit.Test;
 import org.junit.rules.TestName;
 
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
@@ -125,12 +137,216 @@ public class TransportTest {
     Assert.assertEquals(expected, stage.getCount());
   }
 
+  @Test
+  public void testTransportBatchedWrites() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Monitor monitor = new Monitor();
+    final TimerStage timer = new TimerStage(new TimeoutHandler(monitor), 10000, 10000);
+
+    final int expected = 1000;
+    final String hostAddress = this.localAddressProvider.getLocalAddress();
+
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.MaxBatchBytes.class, "4096")
+        .bindNamedParameter(RemoteConfiguration.MaxLingerMicros.class, "500")
+        .build();
+    final TransportFactory batchingTpFactory =
+        Tang.Factory.getTang().newInjector(conf).getInstance(TransportFactory.class);
+
+    final ReceiverStage<String> stage =
+        new ReceiverStage<>(new ObjectSerializableCodec<String>(), monitor, expected);
+    final Transport transport = batchingTpFactory.newInstance(hostAddress, 0, stage, stage, 1, 10000);
+    final int port = transport.getListeningPort();
+
+    // sending side
+    final Link<String> link = transport.open(
+        new InetSocketAddress(hostAddress, port),
+        new ObjectSerializableCodec<String>(),
+        new LoggingLinkListener<String>());
+    for (int i = 0; i < expected; ++i) {
+      link.write("hello" + i);
+    }
+
+    monitor.mwait();
+    transport.close();
+    timer.close();
+
+    Assert.assertEquals(expected, stage.getCount());
+  }
+
+  @Test
+  public void testTransportMultipleChannels() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Monitor monitor = new Monitor();
+    final TimerStage timer = new TimerStage(new TimeoutHandler(monitor), 10000, 10000);
+
+    final int expected = 100;
+    final String hostAddress = this.localAddressProvider.getLocalAddress();
+
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.NumberOfChannelsPerPeer.class, "3")
+        .bindNamedParameter(RemoteConfiguration.PriorityMessageSize.class, "1024")
+        .build();
+    final TransportFactory multiChannelTpFactory =
+        Tang.Factory.getTang().newInjector(conf).getInstance(TransportFactory.class);
+
+    final ReceiverStage<String> stage =
+        new ReceiverStage<>(new ObjectSerializableCodec<String>(), monitor, expected);
+    final Transport transport = multiChannelTpFactory.newInstance(hostAddress, 0, stage, stage, 1, 10000);
+    final int port = transport.getListeningPort();
+
+    // sending side: small messages go on the priority channel, large ones on the other two
+    final Link<String> link = transport.open(
+        new InetSocketAddress(hostAddress, port),
+        new ObjectSerializableCodec<String>(),
+        new LoggingLinkListener<String>());
+    final StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 10000; ++i) {
+      large.append(i);
+    }
+    for (int i = 0; i < expected; ++i) {
+      link.write(i % 2 == 0 ? "hello" + i : large.toString() + i);
+    }
+    final SocketAddress priorityChannelAddress = link.getLocalAddress();
+
+    monitor.mwait();
+    transport.close();
+    timer.close();
+
+    Assert.assertEquals(expected, stage.getCount());
+
+    // the receiver sees each channel as a different remote address
+    final Map<SocketAddress, List<String>> bySender = stage.getReceivedBySender();
+    Assert.assertEquals("Messages must arrive on all three channels", 3, bySender.size());
+    for (final Map.Entry<SocketAddress, List<String>> entry : bySender.entrySet()) {
+      final boolean priorityChannel = entry.getKey().equals(priorityChannelAddress);
+      for (final String message : entry.getValue()) {
+        Assert.assertEquals("Message of " + message.length() + " bytes on the wrong channel",
+            priorityChannel, message.startsWith("hello"));
+      }
+      // round-robin over the two bulk channels
+      Assert.assertEquals(expected / (priorityChannel ? 2 : 4), entry.getValue().size());
+    }
+  }
+
+  @Test
+  public void testTransportSharedEventLoopGroups() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Monitor monitor = new Monitor();
+    final TimerStage timer = new TimerStage(new TimeoutHandler(monitor), 5000, 5000);
+
+    final int expected = 10;
+    final String hostAddress = this.localAddressProvider.getLocalAddress();
+
+    // the native transport falls back to NIO where it is not available
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.ShareEventLoopGroups.class, "true")
+        .bindNamedParameter(RemoteConfiguration.UseNativeTransport.class, "true")
+        .bindNamedParameter(RemoteConfiguration.NumberOfServerBossThreads.class, "1")
+        .bindNamedParameter(RemoteConfiguration.NumberOfServerWorkerThreads.class, "2")
+        .bindNamedParameter(RemoteConfiguration.NumberOfClientWorkerThreads.class, "2")
+        .build();
+    final TransportFactory sharingTpFactory =
+        Tang.Factory.getTang().newInjector(conf).getInstance(TransportFactory.class);
+
+    final ReceiverStage<String> stage =
+        new ReceiverStage<>(new ObjectSerializableCodec<String>(), monitor, expected);
+    final Transport receiver = sharingTpFactory.newInstance(hostAddress, 0, stage, stage, 1, 10000);
+    final Transport sender = sharingTpFactory.newInstance(hostAddress, 0, stage, stage, 1, 10000);
+    final Transport closedEarly = sharingTpFactory.newInstance(hostAddress, 0, stage, stage, 1, 10000);
+
+    // closing one transport must not stop the threads shared with the others
+    closedEarly.close();
+
+    final Link<String> link = sender.open(
+        new InetSocketAddress(hostAddress, receiver.getListeningPort()),
+        new ObjectSerializableCodec<String>(),
+        new LoggingLinkListener<String>());
+    for (int i = 0; i < expected; ++i) {
+      link.write("hello" + i);
+    }
+
+    monitor.mwait();
+    sender.close();
+    receiver.close();
+    timer.close();
+
+    Assert.assertEquals(expected, stage.getCount());
+  }
+
+  /**
+   * Messages written with a ByteBufEncoder are encoded into pooled buffers and must arrive intact,
+   * including a message larger than one chunk.
+   */
+  @Test
+  public void testTransportByteBufEncoder() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+    runByteBufEncoder(tpFactory);
+  }
+
+  /**
+   * Compresses the messages from 1 KB on, and receives the ones above 1 MB in chunks.
+   */
+  @Test
+  public void testTransportCompressedByteBufEncoder() throws Exception {
+    System.out.println(LOG_PREFIX + name.getMethodName());
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final Configuration conf = Tang.Factory.getTang().newConfigurationBuilder()
+        .bindNamedParameter(RemoteConfiguration.CompressionThreshold.class, Integer.toString(1 << 10))
+        .bindNamedParameter(RemoteConfiguration.StreamingReceiveThreshold.class, Integer.toString(1 << 20))
+        .build();
+    runByteBufEncoder(Tang.Factory.getTang().newInjector(conf).getInstance(TransportFactory.class));
+  }
+
+  private void runByteBufEncoder(final TransportFactory factory) throws Exception {
+    final Monitor monitor = new Monitor();
+    final TimerStage timer = new TimerStage(new TimeoutHandler(monitor), 10000, 10000);
+
+    final String hostAddress = this.localAddressProvider.getLocalAddress();
+
+    final List<String> messages = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      messages.add("hello" + i);
+    }
+    final char[] large = new char[12 * 1024 * 1024];
+    Arrays.fill(large, 'x');
+    messages.add(new String(large));
+
+    final ByteBufStringCodec codec = new ByteBufStringCodec();
+    final ReceiverStage<String> stage = new ReceiverStage<>(codec, monitor, messages.size());
+    final Transport transport = factory.newInstance(hostAddress, 0, stage, stage, 1, 10000);
+    final int port = transport.getListeningPort();
+
+    final Link<String> link = transport.open(
+        new InetSocketAddress(hostAddress, port), codec, new LoggingLinkListener<String>());
+    for (final String message : messages) {
+      link.write(message);
+    }
+
+    monitor.mwait();
+    transport.close();
+    timer.close();
+
+    Assert.assertEquals("all messages encoded into buffers", messages.size(), codec.getByteBufEncodeCount());
+    Assert.assertEquals(messages, stage.getReceived());
+  }
+
   class ReceiverStage<T> implements EStage<TransportEvent> {
 
     private final Codec<T> codec;
     private final Monitor monitor;
     private final int expected;
     private AtomicInteger count = new AtomicInteger(0);
+    private final List<T> received = Collections.synchronizedList(new ArrayList<T>());
+    private final Map<SocketAddress, List<T>> receivedBySender = new HashMap<>();
 
     ReceiverStage(final Codec<T> codec, final Monitor monitor, final int expected) {
       this.codec = codec;
@@ -142,9 +358,28 @@ public class TransportTest {
       return count.get();
     }
 
+    List<T> getReceived() {
+      return received;
+    }
+
+    Map<SocketAddress, List<T>> getReceivedBySender() {
+      synchronized (receivedBySender) {
+        return new HashMap<>(receivedBySender);
+      }
+    }
+
     @Override
     public void onNext(final TransportEvent value) {
-      codec.decode(value.getData());
+      final T decoded = codec.decode(value.getData());
+      received.add(decoded);
+      synchronized (receivedBySender) {
+        List<T> fromSender = receivedBySender.get(value.getRemoteAddress());
+        if (fromSender == null) {
+          fromSender = new ArrayList<>();
+          receivedBySender.put(value.getRemoteAddress(), fromSender);
+        }
+        fromSender.add(decoded);
+      }
       //System.out.println(value + " " + obj);      
 
       if (count.incrementAndGet() == expected) {
@@ -158,4 +393,31 @@ public class TransportTest {
 
   }
 
+  /**
+   * UTF-8 string codec that also writes into Netty buffers.
+   */
+  static final class ByteBufStringCodec implements Codec<String>, ByteBufEncoder<String> {
+
+    private final AtomicInteger byteBufEncodeCount = new AtomicInteger(0);
+
+    int getByteBufEncodeCount() {
+      return byteBufEncodeCount.get();
+    }
+
+    @Override
+    public void encode(final String obj, final ByteBuf out) {
+      byteBufEncodeCount.incrementAndGet();
+      out.writeBytes(obj.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public byte[] encode(final String obj) {
+      return obj.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String decode(final byte[] data) {
+      return new String(data, StandardCharsets.UTF_8);
+    }
+  }
 }
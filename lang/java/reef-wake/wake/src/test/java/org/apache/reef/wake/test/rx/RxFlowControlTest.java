@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.rx;
+
+import org.apache.reef.wake.rx.FlowControlledObserver;
+import org.apache.reef.wake.rx.Observer;
+import org.apache.reef.wake.rx.Subscription;
+import org.apache.reef.wake.rx.impl.RxBufferedStage;
+import org.apache.reef.wake.rx.impl.RxThreadPoolStage;
+import org.apache.reef.wake.rx.impl.WindowSubject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for flow control in the Rx stages.
+ */
+public class RxFlowControlTest {
+
+  /**
+   * The stage delivers only the requested events and blocks the producer when its buffer is full.
+   */
+  @Test
+  public void testBufferedStageDemand() throws Exception {
+    final RecordingObserver<Integer> observer = new RecordingObserver<>(2);
+    final RxBufferedStage<Integer> stage = new RxBufferedStage<>("buffered", observer, 4);
+    final AtomicInteger sent = new AtomicInteger(0);
+
+    final Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 10; ++i) {
+          stage.onNext(i);
+          sent.incrementAndGet();
+        }
+        stage.onCompleted();
+      }
+    });
+    producer.start();
+    awaitBlocked(producer, sent, 6);
+
+    Assert.assertEquals(Arrays.asList(0, 1), observer.getValues());
+    Assert.assertEquals(4, stage.getQueueLength());
+
+    observer.request(3);
+    awaitBlocked(producer, sent, 9);
+    Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), observer.getValues());
+    Assert.assertEquals(4, stage.getQueueLength());
+
+    observer.request(Long.MAX_VALUE);
+    producer.join(10000);
+    Assert.assertTrue(observer.awaitCompletion());
+    Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), observer.getValues());
+    stage.close();
+  }
+
+  /**
+   * Cancelling the subscription releases a blocked producer and drops the buffered events.
+   */
+  @Test
+  public void testBufferedStageCancel() throws Exception {
+    final RecordingObserver<Integer> observer = new RecordingObserver<>(1);
+    final RxBufferedStage<Integer> stage = new RxBufferedStage<>("cancelled", observer, 2);
+    final AtomicInteger sent = new AtomicInteger(0);
+
+    final Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 10; ++i) {
+          stage.onNext(i);
+          sent.incrementAndGet();
+        }
+      }
+    });
+    producer.start();
+    // one event delivered, two buffered
+    awaitBlocked(producer, sent, 3);
+
+    observer.cancel();
+    producer.join(10000);
+    Assert.assertFalse(producer.isAlive());
+    Assert.assertEquals(Collections.singletonList(0), observer.getValues());
+    Assert.assertEquals(0, stage.getQueueLength());
+    stage.close();
+  }
+
+  /**
+   * Events are grouped in windows; the last window is passed on at completion.
+   */
+  @Test
+  public void testWindow() throws Exception {
+    final RecordingObserver<List<Integer>> observer = new RecordingObserver<>(Long.MAX_VALUE);
+    final WindowSubject<Integer> window = new WindowSubject<>(3, observer);
+    for (int i = 0; i < 7; ++i) {
+      window.onNext(i);
+    }
+    window.onCompleted();
+
+    Assert.assertTrue(observer.awaitCompletion());
+    final List<List<Integer>> expected = new ArrayList<>();
+    expected.add(Arrays.asList(0, 1, 2));
+    expected.add(Arrays.asList(3, 4, 5));
+    expected.add(Collections.singletonList(6));
+    Assert.assertEquals(expected, observer.getValues());
+  }
+
+  /**
+   * A request for windows is passed upstream as a request for the events that fill them.
+   */
+  @Test
+  public void testWindowDemand() throws Exception {
+    final RecordingObserver<List<Integer>> observer = new RecordingObserver<>(1);
+    final RxBufferedStage<Integer> stage = new RxBufferedStage<>("windowed",
+        new WindowSubject<>(3, observer), 16);
+    for (int i = 0; i < 10; ++i) {
+      stage.onNext(i);
+    }
+
+    Assert.assertEquals(Collections.singletonList(Arrays.asList(0, 1, 2)), observer.getValues());
+    Assert.assertEquals(7, stage.getQueueLength());
+
+    observer.request(2);
+    Assert.assertEquals(3, observer.getValues().size());
+    Assert.assertEquals(1, stage.getQueueLength());
+
+    stage.onCompleted();
+    Assert.assertEquals("The completion must wait for the buffered event", 1, stage.getQueueLength());
+
+    observer.request(1);
+    Assert.assertTrue(observer.awaitCompletion());
+    Assert.assertEquals(Collections.singletonList(9), observer.getValues().get(3));
+    stage.close();
+  }
+
+  /**
+   * A bounded thread pool stage blocks the producer while it holds as many events as its capacity.
+   */
+  @Test
+  public void testThreadPoolStageCapacity() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger handled = new AtomicInteger(0);
+    final RxThreadPoolStage<Integer> stage = new RxThreadPoolStage<>("bounded", new Observer<Integer>() {
+      @Override
+      public void onNext(final Integer value) {
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        handled.incrementAndGet();
+      }
+
+      @Override
+      public void onError(final Exception error) {
+      }
+
+      @Override
+      public void onCompleted() {
+      }
+    }, 1, 2);
+    final AtomicInteger sent = new AtomicInteger(0);
+
+    final Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < 5; ++i) {
+          stage.onNext(i);
+          sent.incrementAndGet();
+        }
+      }
+    });
+    producer.start();
+    awaitBlocked(producer, sent, 2);
+
+    release.countDown();
+    producer.join(10000);
+    Assert.assertEquals(5, sent.get());
+    stage.onCompleted();
+    stage.close();
+    Assert.assertEquals(5, handled.get());
+  }
+
+  /**
+   * Waits until the producer has sent the given number of events and waits in the next onNext().
+   * Fails if it sends more, or does not get there within 10 seconds.
+   */
+  private static void awaitBlocked(final Thread producer, final AtomicInteger sent, final int expected)
+      throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + 10000;
+    while (sent.get() != expected || !isWaiting(producer)) {
+      Assert.assertTrue("The producer must block after " + expected + " events, it sent " + sent.get(),
+          sent.get() <= expected && producer.isAlive());
+      Assert.assertTrue("The producer did not block after " + expected + " events",
+          System.currentTimeMillis() < deadline);
+      Thread.sleep(1);
+    }
+  }
+
+  private static boolean isWaiting(final Thread thread) {
+    final Thread.State state = thread.getState();
+    return state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING;
+  }
+
+  /**
+   * Records the events it receives and requests the given number of events on subscription.
+   */
+  private static final class RecordingObserver<T> implements FlowControlledObserver<T> {
+
+    private final long initialRequest;
+    private final List<T> values = Collections.synchronizedList(new ArrayList<T>());
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private Subscription subscription;
+
+    RecordingObserver(final long initialRequest) {
+      this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(final Subscription s) {
+      this.subscription = s;
+      s.request(initialRequest);
+    }
+
+    void request(final long n) {
+      subscription.request(n);
+    }
+
+    void cancel() {
+      subscription.cancel();
+    }
+
+    List<T> getValues() {
+      synchronized (values) {
+        return new ArrayList<>(values);
+      }
+    }
+
+    boolean awaitCompletion() throws InterruptedException {
+      return completed.await(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onNext(final T value) {
+      values.add(value);
+    }
+
+    @Override
+    public void onError(final Exception error) {
+      Assert.fail("Unexpected error " + error);
+    }
+
+    @Override
+    public void onCompleted() {
+      completed.countDown();
+    }
+  }
+}
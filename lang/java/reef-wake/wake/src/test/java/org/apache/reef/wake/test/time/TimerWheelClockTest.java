@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.wake.test.time;
+
+import org.apache.reef.tang.Configuration;
+import org.apache.reef.tang.Tang;
+import org.apache.reef.tang.exceptions.InjectionException;
+import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.impl.LoggingUtils;
+import org.apache.reef.wake.impl.ThreadPoolStage;
+import org.apache.reef.wake.test.time.util.AlarmProducer;
+import org.apache.reef.wake.test.time.util.EventRecorder;
+import org.apache.reef.wake.time.Clock;
+import org.apache.reef.wake.time.Time;
+import org.apache.reef.wake.time.event.Alarm;
+import org.apache.reef.wake.time.event.StopTime;
+import org.apache.reef.wake.time.runtime.LogicalTimer;
+import org.apache.reef.wake.time.runtime.RealTimer;
+import org.apache.reef.wake.time.runtime.TimerWheelClock;
+import org.apache.reef.wake.time.runtime.Timer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Tests for TimerWheelClock event loop.
+ */
+public class TimerWheelClockTest {
+
+  private static final Tang TANG = Tang.Factory.getTang();
+
+  private final Random rand = new Random();
+
+  /**
+   * Create new TimerWheelClock object injected with the given timer.
+   * Use a small wheel so that the alarms of the tests wrap around it.
+   *
+   * @param timerClass Timer to use inside the clock. Must implement the Timer interface.
+   * @return A new instance of the TimerWheelClock, instrumented with the given timer.
+   * @throws InjectionException On configuration error.
+   */
+  private static TimerWheelClock buildClock(
+      final Class<? extends Timer> timerClass) throws InjectionException {
+
+    final Configuration clockConfig = TANG.newConfigurationBuilder()
+        .bind(Timer.class, timerClass)
+        .bindNamedParameter(TimerWheelClock.TickDuration.class, "5")
+        .bindNamedParameter(TimerWheelClock.WheelSize.class, "16")
+        .bindSetEntry(Clock.StopHandler.class, StopRecorder.class)
+        .build();
+
+    return TANG.newInjector(clockConfig).getInstance(TimerWheelClock.class);
+  }
+
+  /**
+   * Create 10 threads to produce 40 alarms at random intervals
+   * and check if all alarms get processed.
+   * @throws Exception ThreadPoolStage can throw anything.
+   */
+  @Test
+  public void testClock() throws Exception {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    try (final TimerWheelClock clock = buildClock(RealTimer.class)) {
+
+      new Thread(clock).start();
+
+      final CountDownLatch eventCountLatch = new CountDownLatch(40);
+      final AlarmProducer alarmProducer = new AlarmProducer(clock, eventCountLatch) {
+        @Override
+        public int getOffset() {
+          return randomOffsetUniform(rand, 1, 100);
+        }
+      };
+
+      try (ThreadPoolStage<Alarm> stage = new ThreadPoolStage<>(alarmProducer, 10)) {
+        stage.onNext(null);
+        Assert.assertTrue(eventCountLatch.await(10, TimeUnit.SECONDS));
+      }
+    }
+  }
+
+  /**
+   * Schedule an alarm that fires before the one the event loop is waiting for.
+   * @throws Exception Injection error or sleep interrupted.
+   */
+  @Test
+  public void testEarlierAlarmWakesUpLoop() throws Exception {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    try (final TimerWheelClock clock = buildClock(RealTimer.class)) {
+
+      new Thread(clock).start();
+
+      final EventRecorder earlierAlarmRecorder = new EventRecorder();
+      final EventRecorder laterAlarmRecorder = new EventRecorder();
+
+      clock.scheduleAlarm(1500, laterAlarmRecorder);
+      Thread.sleep(200);
+
+      clock.scheduleAlarm(300, earlierAlarmRecorder);
+      Thread.sleep(600);
+
+      Assert.assertEquals(1, earlierAlarmRecorder.getEventCount());
+      Assert.assertEquals(0, laterAlarmRecorder.getEventCount());
+      Thread.sleep(1200);
+
+      Assert.assertEquals(1, laterAlarmRecorder.getEventCount());
+    }
+  }
+
+  /**
+   * With a LogicalTimer, alarms scheduled in any order, including the ones further away
+   * than one revolution of the wheel, are invoked in the order of their timestamps.
+   * @throws Exception Injection error or wait interrupted.
+   */
+  @Test
+  public void testLogicalAlarmOrder() throws Exception {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final int numAlarms = 200;
+    final CountDownLatch eventCountLatch = new CountDownLatch(numAlarms);
+    final EventRecorder alarmRecorder = new EventRecorder(eventCountLatch);
+
+    final TimerWheelClock clock = buildClock(LogicalTimer.class);
+
+    // Schedule before the loop starts, so that the logical time does not move in between.
+    for (int i = 0; i < numAlarms; ++i) {
+      clock.scheduleAlarm(rand.nextInt(100000), alarmRecorder);
+    }
+
+    new Thread(clock).start();
+
+    Assert.assertTrue(eventCountLatch.await(10, TimeUnit.SECONDS));
+    clock.close();
+
+    final List<Time> events = alarmRecorder.getEvents();
+    Assert.assertEquals(numAlarms, events.size());
+    for (int i = 1; i < numAlarms; ++i) {
+      Assert.assertTrue("Alarms processed in the wrong order",
+          events.get(i - 1).getTimestamp() <= events.get(i).getTimestamp());
+    }
+  }
+
+  /**
+   * With a LogicalTimer, cancelling alarms, including several of the same tick, keeps the rest
+   * in the order of their timestamps and never invokes the cancelled ones.
+   * @throws Exception Injection error or wait interrupted.
+   */
+  @Test
+  public void testLogicalAlarmOrderWithCancellations() throws Exception {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final int numAlarms = 200;
+    final CountDownLatch eventCountLatch = new CountDownLatch(numAlarms / 2);
+    final EventRecorder alarmRecorder = new EventRecorder(eventCountLatch);
+    final EventRecorder cancelledRecorder = new EventRecorder();
+
+    final TimerWheelClock clock = buildClock(LogicalTimer.class);
+
+    for (int i = 0; i < numAlarms; ++i) {
+      // few distinct timestamps, so that ticks hold both kinds of alarms
+      final int offset = rand.nextInt(20) * 1000;
+      if (i % 2 == 0) {
+        clock.scheduleAlarm(offset, alarmRecorder);
+      } else {
+        Assert.assertTrue(clock.cancelAlarm(clock.scheduleAlarm(offset, cancelledRecorder)));
+      }
+    }
+
+    new Thread(clock).start();
+
+    Assert.assertTrue(eventCountLatch.await(10, TimeUnit.SECONDS));
+    clock.close();
+
+    Assert.assertEquals(0, cancelledRecorder.getEventCount());
+    final List<Time> events = alarmRecorder.getEvents();
+    Assert.assertEquals(numAlarms / 2, events.size());
+    for (int i = 1; i < events.size(); ++i) {
+      Assert.assertTrue("Alarms processed in the wrong order",
+          events.get(i - 1).getTimestamp() <= events.get(i).getTimestamp());
+    }
+  }
+
+  /**
+   * With a LogicalTimer, alarms from the next tick up to the largest offset, which fall into every level
+   * of the wheel, are invoked in the order of their timestamps.
+   * @throws Exception Injection error or wait interrupted.
+   */
+  @Test
+  public void testLogicalAlarmOrderAcrossLevels() throws Exception {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final int numAlarms = 300;
+    final CountDownLatch eventCountLatch = new CountDownLatch(numAlarms + 1);
+    final EventRecorder alarmRecorder = new EventRecorder(eventCountLatch);
+
+    final TimerWheelClock clock = buildClock(LogicalTimer.class);
+
+    for (int i = 0; i < numAlarms; ++i) {
+      // offsets of every magnitude, so that the alarms start on every level of the wheel
+      clock.scheduleAlarm(rand.nextInt(Integer.MAX_VALUE >>> rand.nextInt(Integer.SIZE - 1)), alarmRecorder);
+    }
+    clock.scheduleAlarm(Integer.MAX_VALUE, alarmRecorder);
+
+    new Thread(clock).start();
+
+    Assert.assertTrue(eventCountLatch.await(10, TimeUnit.SECONDS));
+    clock.close();
+
+    final List<Time> events = alarmRecorder.getEvents();
+    Assert.assertEquals(numAlarms + 1, events.size());
+    for (int i = 1; i < events.size(); ++i) {
+      Assert.assertTrue("Alarms processed in the wrong order",
+          events.get(i - 1).getTimestamp() <= events.get(i).getTimestamp());
+    }
+  }
+
+  @Test
+  public void testCancelAlarm() throws Exception {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final CountDownLatch eventCountLatch = new CountDownLatch(1);
+    final EventRecorder cancelledRecorder = new EventRecorder();
+    final EventRecorder alarmRecorder = new EventRecorder(eventCountLatch);
+
+    try (final TimerWheelClock clock = buildClock(RealTimer.class)) {
+
+      new Thread(clock).start();
+
+      final Time cancelled = clock.scheduleAlarm(100, cancelledRecorder);
+      clock.scheduleAlarm(200, alarmRecorder);
+
+      Assert.assertTrue("Alarm must be cancelled", clock.cancelAlarm(cancelled));
+      Assert.assertFalse("Alarm cannot be cancelled twice", clock.cancelAlarm(cancelled));
+
+      Assert.assertTrue(eventCountLatch.await(10, TimeUnit.SECONDS));
+      Assert.assertEquals("Cancelled alarm must not be invoked", 0, cancelledRecorder.getEventCount());
+      Assert.assertTrue("No client alarms should be scheduled at this time", clock.isIdle());
+    }
+  }
+
+  /**
+   * Test graceful shutdown of the event loop.
+   * Schedule two events and close the clock. Make sure that both of them occur
+   * at the scheduled time, and StopTime is invoked after them.
+   * @throws InjectionException Error building a clock object.
+   * @throws InterruptedException Sleep interrupted.
+   */
+  @Test
+  public void testGracefulClose() throws InjectionException, InterruptedException {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final int numAlarms = 2;
+    final CountDownLatch eventCountLatch = new CountDownLatch(numAlarms);
+    final EventRecorder alarmRecorder = new EventRecorder(eventCountLatch);
+
+    StopRecorder.reset();
+    final TimerWheelClock clock = buildClock(RealTimer.class);
+    new Thread(clock).start();
+
+    clock.scheduleAlarm(100, alarmRecorder);
+    clock.scheduleAlarm(101, alarmRecorder);
+    clock.close();
+
+    Assert.assertFalse("Clock cannot be idle yet", clock.isIdle());
+    Assert.assertTrue("Clock must be in closed state", clock.isClosed());
+
+    try {
+      clock.scheduleAlarm(1, alarmRecorder);
+      Assert.fail("Closed clock must not accept new alarms");
+    } catch (final IllegalStateException expected) {
+      // This is expected
+    }
+
+    Thread.sleep(10);
+    Assert.assertTrue(
+        "No events should occur immediately after the graceful shutdown",
+        alarmRecorder.getEvents().isEmpty());
+
+    Assert.assertTrue(StopRecorder.await());
+    Assert.assertEquals("Expected events on graceful shutdown", numAlarms, alarmRecorder.getEventCount());
+    Assert.assertTrue("No client alarms should be scheduled at this time", clock.isIdle());
+  }
+
+  /**
+   * Test forceful shutdown of the event loop. Schedule two events and stop the clock.
+   * Make sure that no events occur after that and the clock is in closed and idle state.
+   * @throws InjectionException Error building a clock object.
+   * @throws InterruptedException Sleep interrupted.
+   */
+  @Test
+  public void testForcefulStop() throws InjectionException, InterruptedException {
+
+    LoggingUtils.setLoggingLevel(Level.INFO);
+
+    final int numAlarms = 2;
+    final EventRecorder alarmRecorder = new EventRecorder();
+
+    StopRecorder.reset();
+    final TimerWheelClock clock = buildClock(RealTimer.class);
+    new Thread(clock).start();
+
+    clock.scheduleAlarm(100, alarmRecorder);
+    clock.scheduleAlarm(101, alarmRecorder);
+    clock.stop();
+
+    Assert.assertTrue("Clock must be idle already", clock.isIdle());
+    Assert.assertTrue("Clock must be in closed state", clock.isClosed());
+
+    Assert.assertTrue(StopRecorder.await());
+    Thread.sleep(200);
+    Assert.assertTrue("No events should be in the schedule", alarmRecorder.getEvents().isEmpty());
+  }
+
+  /**
+   * Handler of the StopTime event that the tests can wait for.
+   */
+  public static final class StopRecorder implements EventHandler<StopTime> {
+
+    private static volatile CountDownLatch latch = new CountDownLatch(1);
+
+    @Inject
+    private StopRecorder() {
+    }
+
+    static void reset() {
+      latch = new CountDownLatch(1);
+    }
+
+    static boolean await() throws InterruptedException {
+      return latch.await(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onNext(final StopTime value) {
+      latch.countDown();
+    }
+  }
+}
@@ -19,19 +19,19 @@
 package org.apache.reef.wake.test.time.util;
 
 import org.apache.reef.wake.EventHandler;
+import org.apache.reef.wake.time.Clock;
 import org.apache.reef.wake.time.event.Alarm;
-import org.apache.reef.wake.time.runtime.RuntimeClock;
 
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 
 /**
  * Helper class used in unit tests to generate alarms at user-specified intervals
- * and count down the barrier on each alarm. It is used in RuntimeClockTest.
+ * and count down the barrier on each alarm. It is used in RuntimeClockTest and TimerWheelClockTest.
  */
 public abstract class AlarmProducer implements EventHandler<Alarm> {
 
-  private final RuntimeClock clock;
+  private final Clock clock;
   private final CountDownLatch eventCountLatch;
 
   /**
@@ -39,7 +39,7 @@ public abstract class AlarmProducer implements EventHandler<Alarm> {
    * @param clock Event loop that processes the schedule and invokes alarm handlers.
    * @param latch A barrier with the counter that gets decremented after each alarm.
    */
-  public AlarmProducer(final RuntimeClock clock, final CountDownLatch latch) {
+  public AlarmProducer(final Clock clock, final CountDownLatch latch) {
     this.clock = clock;
     this.eventCountLatch = latch;
   }
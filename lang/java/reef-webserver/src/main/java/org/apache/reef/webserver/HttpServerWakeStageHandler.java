@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.reef.webserver;
+
+import org.apache.reef.wake.AbstractEStage;
+import org.apache.reef.wake.Stage;
+import org.apache.reef.wake.impl.StageManager;
+import org.apache.reef.wake.metrics.LogLinearHistogram;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Http handler that reports the meters and latency histograms of all Wake stages of this process as JSON.
+ * Stages are listed with the most pending events first, so a saturated stage shows at the top.
+ */
+public final class HttpServerWakeStageHandler implements HttpHandler {
+
+  /**
+   * specification that would match URI request.
+   */
+  private String uriSpecification = "Stages";
+
+  @Inject
+  public HttpServerWakeStageHandler() {
+  }
+
+  /**
+   * @return URI specification for the handler.
+   */
+  @Override
+  public String getUriSpecification() {
+    return uriSpecification;
+  }
+
+  /**
+   * set URI specification.
+   */
+  @Override
+  public void setUriSpecification(final String s) {
+    uriSpecification = s;
+  }
+
+  /**
+   * Writes the statistics of all stages registered in the {@link StageManager}.
+   */
+  @Override
+  public void onHttpRequest(final ParsedHttpRequest parsedHttpRequest, final HttpServletResponse response)
+      throws IOException {
+    final List<AbstractEStage<?>> stages = new ArrayList<>();
+    for (final Stage stage : StageManager.instance().getStages()) {
+      if (stage instanceof AbstractEStage) {
+        stages.add((AbstractEStage<?>) stage);
+      }
+    }
+    Collections.sort(stages, new Comparator<AbstractEStage<?>>() {
+      @Override
+      public int compare(final AbstractEStage<?> s1, final AbstractEStage<?> s2) {
+        return Long.compare(pending(s2), pending(s1));
+      }
+    });
+
+    final StringBuilder sb = new StringBuilder("[");
+    for (int i = 0; i < stages.size(); ++i) {
+      final AbstractEStage<?> stage = stages.get(i);
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("{\"name\":").append(quote(stage.getName()))
+          .append(",\"class\":").append(quote(stage.getClass().getName()))
+          .append(",\"in\":").append(stage.getInMeter().getCount())
+          .append(",\"out\":").append(stage.getOutMeter().getCount())
+          .append(",\"pending\":").append(pending(stage))
+          .append(",\"inRate1m\":").append(String.format(Locale.ROOT, "%.2f", stage.getInMeter().get1mEWMAThp()))
+          .append(",\"queueTimeNs\":");
+      appendHistogram(sb, stage.getQueueTime());
+      sb.append(",\"serviceTimeNs\":");
+      appendHistogram(sb, stage.getServiceTime());
+      sb.append('}');
+    }
+    sb.append(']');
+
+    response.setContentType("application/json");
+    response.getOutputStream().write(sb.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static long pending(final AbstractEStage<?> stage) {
+    return stage.getInMeter().getCount() - stage.getOutMeter().getCount();
+  }
+
+  private static void appendHistogram(final StringBuilder sb, final LogLinearHistogram histogram) {
+    sb.append("{\"count\":").append(histogram.getCount())
+        .append(",\"mean\":").append(String.format(Locale.ROOT, "%.1f", histogram.getMean()))
+        .append(",\"p50\":").append(histogram.getValueAtPercentile(50))
+        .append(",\"p99\":").append(histogram.getValueAtPercentile(99))
+        .append(",\"max\":").append(histogram.getMax())
+        .append('}');
+  }
+
+  private static String quote(final String s) {
+    final StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+    for (int i = 0; i < s.length(); ++i) {
+      final char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+}